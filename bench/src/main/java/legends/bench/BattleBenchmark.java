@@ -0,0 +1,64 @@
+package legends.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import legends.battle.BattleEngine;
+import legends.battle.HeroPolicies;
+import legends.io.HeadlessIO;
+import legends.io.NullIO;
+import legends.model.Hero;
+import legends.model.Monster;
+
+/**
+ * Full battles: the scripted HeadlessIO path used by the smoke tests, and the
+ * silent policy-driven path used by simulations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BattleBenchmark {
+    @Param({ "1", "3" })
+    public int partySize;
+
+    private HeadlessIO io;
+    private Random rng;
+
+    @Setup
+    public void setup() {
+        io = new HeadlessIO();
+        io.setDefaultInput("1");
+        rng = new Random(42);
+    }
+
+    @Benchmark
+    public boolean runBattleHeadless() {
+        io.clearOutputs();
+        List<Hero> heroes = Fixtures.heroes(partySize);
+        List<Monster> monsters = Monster.spawnForParty(heroes, 0, rng);
+        return new BattleEngine(heroes, monsters, rng, io).runBattle();
+    }
+
+    @Benchmark
+    public boolean runBattleSilent() {
+        List<Hero> heroes = Fixtures.heroes(partySize);
+        List<Monster> monsters = Monster.spawnForParty(heroes, 0, rng);
+        return new BattleEngine(heroes, monsters, rng, NullIO.INSTANCE, HeroPolicies.ALWAYS_ATTACK).runBattle();
+    }
+}
@@ -0,0 +1,38 @@
+package legends.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import legends.items.Armor;
+import legends.items.Weapon;
+import legends.model.Hero;
+import legends.party.Party;
+
+/**
+ * Shared setup helpers for the benchmarks.
+ */
+final class Fixtures {
+    private Fixtures() {}
+
+    static List<Hero> heroes(int partySize) {
+        List<Hero> heroes = new ArrayList<Hero>(partySize);
+        for (int i = 0; i < partySize; i++) {
+            switch (i % 3) {
+                case 0: heroes.add(Hero.createWarrior("Warrior" + i)); break;
+                case 1: heroes.add(Hero.createSorcerer("Sorcerer" + i)); break;
+                default: heroes.add(Hero.createPaladin("Paladin" + i)); break;
+            }
+        }
+        return heroes;
+    }
+
+    static Party party(int partySize, int backpackSize) {
+        Party party = new Party(heroes(partySize));
+        for (int i = 0; i < backpackSize; i++) {
+            party.addWeaponToBackpack(new Weapon("Bench Sword " + i, 1 + i % 6, 100 + i, 20 + i, 1 + i % 2));
+            party.addArmorToBackpack(new Armor("Bench Plate " + i, 1 + i % 6, 120 + i, 15 + i));
+        }
+        party.setPosition(1, 1);
+        return party;
+    }
+}
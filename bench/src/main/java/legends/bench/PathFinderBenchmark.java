@@ -0,0 +1,70 @@
+package legends.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import legends.world.PathFinder;
+import legends.world.TileType;
+import legends.world.WorldMap;
+
+/**
+ * Route queries on a 1000x1000 generated map: long point-to-point routes with each
+ * search algorithm, and nearest-market lookups. Queries cycle through a fixed set
+ * of random endpoints so one lucky pair does not dominate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathFinderBenchmark {
+    private static final int SIZE = 1000;
+    private static final int QUERIES = 16;
+
+    @Param({ "A_STAR", "JUMP_POINT" })
+    public PathFinder.Algorithm algorithm;
+
+    private WorldMap map;
+    private PathFinder finder;
+    private int[][] queries;
+    private int next;
+
+    @Setup
+    public void setup() {
+        map = WorldMap.generateRandom(SIZE, SIZE, new Random(7));
+        finder = new PathFinder();
+        Random rng = new Random(42);
+        queries = new int[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            // opposite quarters of the map, so routes run about 1000 steps
+            int[] from = map.findNearestAccessibleTo(rng.nextInt(SIZE / 4), rng.nextInt(SIZE / 4));
+            int[] to = map.findNearestAccessibleTo(SIZE - 1 - rng.nextInt(SIZE / 4), SIZE - 1 - rng.nextInt(SIZE / 4));
+            queries[i] = new int[] { from[0], from[1], to[0], to[1] };
+        }
+    }
+
+    @Benchmark
+    public int[] longRoute() {
+        int[] q = queries[next++ & (QUERIES - 1)];
+        return finder.findPath(map, q[0], q[1], q[2], q[3], algorithm);
+    }
+
+    @Benchmark
+    public int[] nearestMarket() {
+        int[] q = queries[next++ & (QUERIES - 1)];
+        return finder.findPathToNearest(map, q[0], q[1], TileType.MARKET);
+    }
+}
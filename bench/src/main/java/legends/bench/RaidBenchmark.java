@@ -0,0 +1,80 @@
+package legends.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import legends.GameContext;
+import legends.battle.BattleEngine;
+import legends.battle.HeroPolicies;
+import legends.events.EventBus;
+import legends.io.NullIO;
+import legends.model.Hero;
+import legends.model.Monster;
+
+/**
+ * Raid-sized silent battles: a small party against hundreds of monsters, capped at a
+ * fixed number of rounds so every invocation does the same amount of work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RaidBenchmark {
+    private static final int ROUNDS = 20;
+
+    @Param({ "100", "500" })
+    public int monsterCount;
+
+    private Random rng;
+    private List<Hero> heroes;
+
+    @Setup
+    public void setup() {
+        rng = new Random(42);
+        // level the party far above the monsters so it survives the capped rounds;
+        // bind a silent context so the level-up messages go nowhere
+        GameContext previous = GameContext.bind(new GameContext(new EventBus(), NullIO.INSTANCE, legends.Config.DIFFICULTY));
+        try {
+            heroes = Fixtures.heroes(3);
+            for (Hero h : heroes) {
+                while (h.getLevel() < 150) {
+                    h.gainExp(h.getLevel() * legends.Config.XP_PER_LEVEL_FACTOR);
+                }
+            }
+        } finally {
+            GameContext.restore(previous);
+        }
+    }
+
+    @Benchmark
+    public int runRaidSilent() {
+        for (Hero h : heroes) {
+            h.fullRecover();
+        }
+        List<Hero> spawnParty = Fixtures.heroes(1);
+        List<Monster> monsters = new ArrayList<Monster>(monsterCount);
+        while (monsters.size() < monsterCount) {
+            monsters.addAll(Monster.spawnForParty(spawnParty, 0, rng));
+        }
+        BattleEngine engine = new BattleEngine(heroes, monsters, rng, NullIO.INSTANCE, HeroPolicies.GREEDY);
+        engine.setMaxRounds(ROUNDS);
+        engine.runBattle();
+        return engine.getRoundsPlayed();
+    }
+}
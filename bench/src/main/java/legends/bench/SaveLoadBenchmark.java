@@ -0,0 +1,96 @@
+package legends.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import legends.party.Party;
+import legends.util.AutoSave;
+import legends.util.SaveLoad;
+import legends.world.WorldMap;
+
+/**
+ * Save and load round trips against a temp file, so the player's save/ directory
+ * is never touched. autosaveMove is the per-step autosave cost: a journaled move,
+ * with a flush to disk every 1024 moves so the writer's work is included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveLoadBenchmark {
+    @Param({ "0", "200", "2000" })
+    public int backpackSize;
+
+    private Party party;
+    private WorldMap map;
+    private Path saveFile;
+    private Path autoFile;
+    private AutoSave autoSave;
+    private int moves;
+
+    @Setup
+    public void setup() throws IOException {
+        party = Fixtures.party(3, backpackSize);
+        map = WorldMap.generateRandom(8, 8, new Random(42));
+        saveFile = Files.createTempFile("legends-bench", ".sav");
+        SaveLoad.saveGame(party, map, saveFile);
+        autoFile = Files.createTempFile("legends-bench-auto", ".sav");
+        autoSave = new AutoSave(autoFile, Integer.MAX_VALUE);
+        autoSave.snapshot(party, map);
+        autoSave.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        autoSave.close();
+        Files.deleteIfExists(autoFile);
+        Files.deleteIfExists(autoFile.resolveSibling(autoFile.getFileName().toString().replace(".sav", ".map")));
+        Files.deleteIfExists(autoFile.resolveSibling(autoFile.getFileName().toString().replace(".sav", ".journal")));
+        Files.deleteIfExists(saveFile);
+        Files.deleteIfExists(saveFile.resolveSibling(saveFile.getFileName().toString().replace(".sav", ".map")));
+    }
+
+    @Benchmark
+    public Path saveGame() throws IOException {
+        SaveLoad.saveGame(party, map, saveFile);
+        return saveFile;
+    }
+
+    @Benchmark
+    public Party loadGame() throws IOException {
+        return SaveLoad.loadGame(map, saveFile);
+    }
+
+    @Benchmark
+    public int autosaveMove() throws IOException {
+        party.setPosition(moves & 7, (moves >>> 3) & 7);
+        autoSave.moved(party, map);
+        if ((++moves & 1023) == 0) {
+            autoSave.flush();
+        }
+        return moves;
+    }
+
+    @Benchmark
+    public WorldMap loadMap() throws IOException {
+        return SaveLoad.loadMap(saveFile);
+    }
+}
@@ -0,0 +1,78 @@
+package legends.bench;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import legends.party.Party;
+import legends.util.SaveSlots;
+import legends.world.WorldMap;
+
+/**
+ * Opening the load menu (a fresh store reading the slot index) and loading one
+ * picked slot, against a temp directory of saved slots.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveSlotsBenchmark {
+    @Param({ "10", "500" })
+    public int slotCount;
+
+    private Path dir;
+    private WorldMap map;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("legends-bench-slots");
+        map = WorldMap.generateRandom(8, 8, new Random(42));
+        Party party = Fixtures.party(3, 200);
+        SaveSlots slots = new SaveSlots(dir);
+        for (int i = 1; i <= slotCount; i++) {
+            slots.save(i, party, map, 1 + i % 5);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        DirectoryStream<Path> files = Files.newDirectoryStream(dir);
+        try {
+            for (Path p : files) {
+                Files.delete(p);
+            }
+        } finally {
+            files.close();
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public List<SaveSlots.Slot> listSlots() throws IOException {
+        return new SaveSlots(dir).list();
+    }
+
+    @Benchmark
+    public Party loadSlot() throws IOException {
+        return new SaveSlots(dir).load(slotCount, map);
+    }
+}
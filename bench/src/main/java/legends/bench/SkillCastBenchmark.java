@@ -0,0 +1,95 @@
+package legends.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import legends.battle.CombatState;
+import legends.effects.StatusEffect;
+import legends.io.NullIO;
+import legends.model.Dragon;
+import legends.model.Hero;
+import legends.model.Monster;
+import legends.skills.DeclarativeSkill;
+import legends.skills.SkillProgram;
+
+/**
+ * One AOE skill cast over a large pack of monsters: the per-target
+ * {@link DeclarativeSkill#applyToTargets} path against the compiled program run on
+ * the whole batch. Both reset the pack's HP and statuses first, so each invocation
+ * hits the same targets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkillCastBenchmark {
+    @Param({ "50", "500" })
+    public int targets;
+
+    private final DeclarativeSkill skill = new DeclarativeSkill("Nova", 10, 0.5, 0.5,
+            DeclarativeSkill.Target.AOE, 0.8, StatusEffect.Type.BURN, 2, 3);
+    private Random rng;
+    private Hero hero;
+    private List<Monster> monsters;
+    private CombatState state;
+    private SkillProgram.Batch batch;
+
+    @Setup
+    public void setup() {
+        rng = new Random(42);
+        hero = Hero.createSorcerer("Caster");
+        monsters = new ArrayList<Monster>(targets);
+        for (int i = 0; i < targets; i++) {
+            monsters.add(new Dragon("Whelp " + i, 1 + i % 5, 10, i % 20, i % 25));
+        }
+        state = CombatState.attach(Collections.<Hero>emptyList(), monsters);
+        batch = new SkillProgram.Batch();
+        for (int i = 0; i < targets; i++) {
+            batch.add(state.monsterId(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        state.detach();
+    }
+
+    private void reset() {
+        hero.fullRecover();
+        for (int i = 0; i < targets; i++) {
+            int id = state.monsterId(i);
+            state.setHp(id, state.maxHp(id));
+            state.statuses(id).clear();
+        }
+    }
+
+    @Benchmark
+    public int perTarget() {
+        reset();
+        return skill.applyToTargets(hero, monsters, rng, NullIO.INSTANCE);
+    }
+
+    @Benchmark
+    public int batched() {
+        reset();
+        return skill.getProgram().cast(hero, state, batch, rng);
+    }
+}
@@ -0,0 +1,98 @@
+package legends.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import legends.skills.Skill;
+import legends.skills.SkillRegistry;
+import legends.util.JsonReader;
+
+/**
+ * Loading a skills file shaped like data/skills.json into skills, at shipped size
+ * and at content-pack size, streamed through a Reader or from a mapped file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SkillsJsonBenchmark {
+    @Param({ "3", "10000" })
+    public int skills;
+
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < skills; i++) {
+            sb.append("  {\n")
+              .append("    \"class\": \"Class").append(i).append("\",\n")
+              .append("    \"name\": \"Skill ").append(i).append("\",\n")
+              .append("    \"mpCost\": ").append(10 + i % 40).append(",\n")
+              .append("    \"strengthMultiplier\": 1.2,\n")
+              .append("    \"dexterityMultiplier\": 0.5,\n")
+              .append("    \"target\": \"").append(i % 4 == 0 ? "AOE" : "SINGLE").append("\",\n")
+              .append("    \"chance\": 1.0,\n")
+              .append("    \"statusType\": \"BURN\",\n")
+              .append("    \"statusDuration\": 3,\n")
+              .append("    \"statusPotency\": 3\n")
+              .append(i < skills - 1 ? "  },\n" : "  }\n");
+        }
+        sb.append("]\n");
+        file = Files.createTempFile("legends-skills", ".json");
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Map<String, Skill> readSkills() throws IOException {
+        Map<String, Skill> out = new HashMap<String, Skill>();
+        JsonReader in = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        try {
+            SkillRegistry.readSkills(in, out);
+        } finally {
+            in.close();
+        }
+        return out;
+    }
+
+    @Benchmark
+    public Map<String, Skill> readSkillsMapped() throws IOException {
+        Map<String, Skill> out = new HashMap<String, Skill>();
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            SkillRegistry.readSkills(new JsonReader(bytes), out);
+        } finally {
+            channel.close();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,45 @@
+package legends.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import legends.model.Hero;
+import legends.model.Monster;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpawnBenchmark {
+    @Param({ "1", "3" })
+    public int partySize;
+
+    private List<Hero> heroes;
+    private Random rng;
+
+    @Setup
+    public void setup() {
+        heroes = Fixtures.heroes(partySize);
+        rng = new Random(42);
+    }
+
+    @Benchmark
+    public List<Monster> spawnForParty() {
+        return Monster.spawnForParty(heroes, 0, rng);
+    }
+}
@@ -0,0 +1,87 @@
+package legends.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import legends.GameContext;
+import legends.events.EventBus;
+import legends.io.NullIO;
+import legends.party.Party;
+import legends.world.TileType;
+import legends.world.WorldMap;
+
+/**
+ * Map generation including the connectivity pass, a full redraw of the map
+ * (rendered into a discarding IO), and nearest-tile lookups: on a generated map
+ * with a tile edit before each query, and on an open map with a single market
+ * in one corner, where a scan outward from the party would cover the whole map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldMapBenchmark {
+    @Param({ "8", "64", "256", "1024" })
+    public int size;
+
+    private Random rng;
+    private WorldMap map;
+    private Party party;
+    private GameContext silent;
+    private WorldMap sparse;
+
+    @Setup
+    public void setup() {
+        rng = new Random(42);
+        map = WorldMap.generateRandom(size, size, new Random(7));
+        party = Fixtures.party(1, 0);
+        silent = new GameContext(new EventBus(), NullIO.INSTANCE, legends.Config.DIFFICULTY);
+        byte[] open = new byte[size * size];
+        java.util.Arrays.fill(open, (byte) TileType.COMMON.ordinal());
+        open[0] = (byte) TileType.MARKET.ordinal();
+        sparse = new WorldMap(size, size, open);
+    }
+
+    @Benchmark
+    public WorldMap generateRandom() {
+        return WorldMap.generateRandom(size, size, rng);
+    }
+
+    @Benchmark
+    public int[] nearestMarketAfterEdit() {
+        int r = rng.nextInt(size);
+        int c = rng.nextInt(size);
+        map.setTileTypeAt(r, c, (r & 1) == 0 ? TileType.MARKET : TileType.COMMON);
+        return map.findNearest(rng.nextInt(size), rng.nextInt(size), TileType.MARKET);
+    }
+
+    @Benchmark
+    public int[] nearestSparseMarket() {
+        return sparse.findNearest(size / 2 + rng.nextInt(size / 2), size / 2 + rng.nextInt(size / 2), TileType.MARKET);
+    }
+
+    @Benchmark
+    public WorldMap print() {
+        GameContext previous = GameContext.bind(silent);
+        try {
+            map.print(party);
+        } finally {
+            GameContext.restore(previous);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,23 @@
+package legends;
+
+import legends.battle.HeroPolicies;
+import legends.sim.BattleSimulator;
+import legends.sim.Scenario;
+import legends.sim.SimulationStats;
+
+public class BattleSimulationTest {
+    public static void main(String[] args) {
+        BattleSimulator sim = new BattleSimulator(Scenario.party("Warrior", "Sorcerer"), HeroPolicies.GREEDY);
+        SimulationStats stats = sim.run(2000, 7L);
+        System.out.println(stats);
+
+        long outcomes = stats.getHeroWins() + stats.getMonsterWins() + stats.getUndecided();
+        if (stats.getBattles() != 2000 || outcomes != stats.getBattles()) {
+            throw new IllegalStateException("outcome counters do not add up: " + stats);
+        }
+        if (stats.getTotalRounds() <= 0) {
+            throw new IllegalStateException("no rounds recorded: " + stats);
+        }
+        System.out.println("Simulation counters OK");
+    }
+}
@@ -0,0 +1,152 @@
+package legends;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import legends.battle.BattleEngine;
+import legends.battle.CombatState;
+import legends.battle.HeroPolicies;
+import legends.effects.StatusEffect;
+import legends.io.HeadlessIO;
+import legends.io.NullIO;
+import legends.model.Hero;
+import legends.model.Monster;
+
+public class CombatStateTest {
+    private static final StatusEffect.Type[] TYPES = StatusEffect.Type.values();
+
+    public static void main(String[] args) {
+        for (int seed = 0; seed < 50; seed++) {
+            // two identical line-ups, each fought to the same point of a seeded battle
+            List<Hero> heroes = party();
+            List<Monster> monsters = Monster.spawnForParty(heroes, 1, new Random(seed));
+            List<Hero> mirrorHeroes = party();
+            List<Monster> mirrorMonsters = Monster.spawnForParty(mirrorHeroes, 1, new Random(seed));
+            battle(heroes, monsters, seed);
+            battle(mirrorHeroes, mirrorMonsters, seed);
+            String fought = fields(heroes, monsters);
+            check(fought.equals(fields(mirrorHeroes, mirrorMonsters)), "seed " + seed + ": seeded battle not reproducible");
+
+            // copying in and straight back out changes nothing
+            CombatState.attach(heroes, monsters).detach();
+            check(fought.equals(fields(heroes, monsters)), "seed " + seed + ": round trip changed fields:\n"
+                    + fought + "\n" + fields(heroes, monsters));
+
+            // the same damage, statuses and ticks applied through the state and to the
+            // plain objects leave the same fields behind once the state is written back
+            CombatState state = CombatState.attach(heroes, monsters);
+            Random ops = new Random(seed);
+            for (int step = 0; step < 40; step++) {
+                int op = ops.nextInt(8);
+                int who = ops.nextInt(heroes.size() + monsters.size());
+                int amount = ops.nextInt(60);
+                StatusEffect.Type type = TYPES[ops.nextInt(TYPES.length)];
+                int turns = ops.nextInt(5);
+                if (op == 0) {
+                    state.tickStatuses(new NullIO());
+                    for (Hero h : mirrorHeroes) h.tickStatusEffects(new NullIO());
+                    for (Monster m : mirrorMonsters) m.tickStatusEffects(new NullIO());
+                    continue;
+                }
+                if (who >= heroes.size()) {
+                    Monster m = monsters.get(who - heroes.size());
+                    Monster mirror = mirrorMonsters.get(who - heroes.size());
+                    if (op < 5) {
+                        m.takeDamage(amount);
+                        mirror.takeDamage(amount);
+                    } else {
+                        m.addStatus(new StatusEffect(type, turns, amount % 10));
+                        mirror.addStatus(new StatusEffect(type, turns, amount % 10));
+                    }
+                    continue;
+                }
+                Hero h = heroes.get(who);
+                Hero mirror = mirrorHeroes.get(who);
+                switch (op) {
+                    case 1:
+                        h.takeDamage(amount);
+                        mirror.takeDamage(amount);
+                        break;
+                    case 2:
+                        check(h.heal(amount) == mirror.heal(amount), "seed " + seed + ": heal differs");
+                        break;
+                    case 3:
+                        check(h.spendMp(amount) == mirror.spendMp(amount), "seed " + seed + ": spendMp differs");
+                        check(h.restoreMp(amount / 2) == mirror.restoreMp(amount / 2), "seed " + seed + ": restoreMp differs");
+                        break;
+                    case 4:
+                        h.removeStatus(type);
+                        mirror.removeStatus(type);
+                        break;
+                    default:
+                        h.addStatus(new StatusEffect(type, turns, amount % 10));
+                        mirror.addStatus(new StatusEffect(type, turns, amount % 10));
+                        break;
+                }
+            }
+            state.detach();
+            check(fields(heroes, monsters).equals(fields(mirrorHeroes, mirrorMonsters)), "seed " + seed
+                    + ": written-back fields differ:\n" + fields(heroes, monsters) + "\n" + fields(mirrorHeroes, mirrorMonsters));
+
+            // the effects carried back keep their order, turns and potency
+            check(drain(heroes, monsters).equals(drain(mirrorHeroes, mirrorMonsters)), "seed " + seed + ": statuses differ");
+        }
+
+        System.out.println("CombatState OK");
+    }
+
+    private static List<Hero> party() {
+        List<Hero> heroes = new ArrayList<Hero>();
+        heroes.add(Hero.createWarrior("Aria"));
+        heroes.add(Hero.createSorcerer("Bram"));
+        heroes.add(Hero.createPaladin("Cato"));
+        return heroes;
+    }
+
+    // A few seeded rounds, enough to leave damage, spent MP and statuses behind
+    private static void battle(List<Hero> heroes, List<Monster> monsters, int seed) {
+        BattleEngine engine = new BattleEngine(heroes, monsters, new Random(seed), new NullIO(), HeroPolicies.GREEDY);
+        engine.setMaxRounds(1 + seed % 3);
+        engine.runBattle();
+    }
+
+    private static String fields(List<Hero> heroes, List<Monster> monsters) {
+        StringBuilder sb = new StringBuilder();
+        for (Hero h : heroes) {
+            sb.append(h.getName()).append(" L").append(h.getLevel())
+                    .append(" hp ").append(h.getHp()).append('/').append(h.getMaxHp())
+                    .append(" mp ").append(h.getMp()).append('/').append(h.getMaxMp())
+                    .append(" ap ").append(h.getArmorPenetrationTotal());
+            for (StatusEffect.Type t : TYPES) if (h.hasStatus(t)) sb.append(' ').append(t);
+            sb.append('\n');
+        }
+        for (Monster m : monsters) {
+            sb.append(m.getName()).append(" L").append(m.getLevel())
+                    .append(" hp ").append(m.getHp()).append('/').append(m.getMaxHp())
+                    .append(" ap ").append(m.getArmorPenetrationTotal());
+            for (StatusEffect.Type t : TYPES) if (m.hasStatus(t)) sb.append(' ').append(t);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Tick every unbound fighter until its effects run out, recording what each tick did
+    private static String drain(List<Hero> heroes, List<Monster> monsters) {
+        HeadlessIO io = new HeadlessIO();
+        StringBuilder sb = new StringBuilder();
+        for (int round = 0; round < 6; round++) {
+            for (Hero h : heroes) h.tickStatusEffects(io);
+            for (Monster m : monsters) m.tickStatusEffects(io);
+            sb.append(fields(heroes, monsters));
+        }
+        sb.append(io.getOutputs());
+        return sb.toString();
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -31,12 +31,45 @@ public final class Config {
     public static final double DANGER_THRESHOLD_LOW = 0.25;
     public static final double DANGER_THRESHOLD_HIGH = 0.75;
 
-    // Autosave toggle
-    public static final boolean AUTOSAVE_ENABLED = false;
+    // Map width and height for new floors; override with -Dlegends.mapSize=<n>.
+    // The generator is linear in the tile count, so sizes in the thousands work.
+    public static final int MAP_SIZE = Integer.getInteger("legends.mapSize", 8);
+    // Maps with more tiles than this are built lazily in chunks as the party explores,
+    // which allows sizes up to 2^30 per side
+    public static final long MAP_CHUNKED_TILES = 1L << 22;
+    // Rows/columns drawn around the hero when the map is larger than this
+    public static final int MAP_VIEW_SIZE = 16;
+
+    // Autosave toggle; enable with -Dlegends.autosave=true. Each move is journaled and
+    // the full save is rewritten in the background after anything else changes
+    public static final boolean AUTOSAVE_ENABLED = Boolean.getBoolean("legends.autosave");
+
+    // Content hot reload; enable with -Dlegends.hotReload=true. Edits to the files in
+    // data/ are loaded in the background and used from the next battle or spawn on
+    public static final boolean HOT_RELOAD_ENABLED = Boolean.getBoolean("legends.hotReload");
+
+    // Battle menu autopilot: thinking time per hero turn and search threads; override
+    // with -Dlegends.autopilotMillis=<ms> and -Dlegends.autopilotThreads=<n>
+    public static final int AUTOPILOT_BUDGET_MILLIS = Integer.getInteger("legends.autopilotMillis", 300);
+    public static final int AUTOPILOT_THREADS = Integer.getInteger("legends.autopilotThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+    // Seed the session's random streams (map, spawns, combat, loot, visuals) are split
+    // from; set -Dlegends.seed=<n> to replay a run exactly
+    public static final long RNG_SEED = Long.getLong("legends.seed", System.nanoTime());
 
     // Difficulty setting: "EASY", "NORMAL", "HARD", "TEST"
     public static String DIFFICULTY = "NORMAL";
 
+    /**
+     * Difficulty in effect for the calling thread. Simulations bind their own via
+     * {@link GameContext}; otherwise this is {@link #DIFFICULTY}.
+     */
+    public static String difficulty() {
+        GameContext ctx = GameContext.current();
+        return ctx != null ? ctx.getDifficulty() : DIFFICULTY;
+    }
+
     // Chance on a COMMON tile to trigger an adventure event instead of battle (0-1)
     public static final double RANDOM_EVENT_CHANCE = 0.15;
     // If an event forces battle, battle starts immediately; otherwise after a normal event we still may start a battle.
@@ -0,0 +1,135 @@
+package legends;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import legends.data.ContentPacks;
+import legends.data.ContentSnapshot;
+import legends.data.MonsterCatalog;
+import legends.events.AdventureEvent;
+import legends.events.AdventureEventRegistry;
+import legends.factory.MonsterRegistry;
+import legends.items.Consumable;
+import legends.model.Hero;
+
+public class ContentPacksTest {
+    public static void main(String[] args) throws Exception {
+        // the shipped files hold exactly the content that used to be hard-coded
+        ContentSnapshot shipped = ContentPacks.current();
+        File missing = new File("no-such-dir");
+        check(sameItems(ItemLibrary.load(new File("data/items.txt")), ItemLibrary.load(new File(missing, "items.txt"))),
+                "data/items.txt differs from the built-in items");
+        check(sameEvents(shipped.getEvents(), AdventureEventRegistry.load(new File(missing, "events.txt"))),
+                "data/events.txt differs from the built-in events");
+        check(shipped.getItems().size() == 41 && shipped.getMonsters().getTemplates().size() == 18
+                && shipped.getSkill("Warrior").getName().equals("Power Strike"), "shipped content: " + shipped);
+
+        File dir = Files.createTempDirectory("legends-content").toFile();
+        File[] files = new File[4];
+        try {
+            String[] names = { ContentSnapshot.SKILLS_FILE, ContentSnapshot.MONSTERS_FILE,
+                    ContentSnapshot.ITEMS_FILE, ContentSnapshot.EVENTS_FILE };
+            for (int i = 0; i < names.length; i++) {
+                files[i] = new File(dir, names[i]);
+                Files.copy(new File("data", names[i]).toPath(), files[i].toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            ContentSnapshot before = ContentPacks.reload(dir);
+            Hero warrior = Hero.createWarrior("W");
+
+            ContentPacks.Watcher watcher = ContentPacks.watch(dir);
+            try {
+                // an edited skill is picked up; the old snapshot stays as it was
+                write(files[0], "[{\"class\": \"Warrior\", \"name\": \"Cleave\", \"mpCost\": 5, \"strengthMultiplier\": 1.0}]");
+                ContentSnapshot after = awaitNewer(before);
+                check(after.getSkill("Warrior").getName().equals("Cleave")
+                        && warrior.getSkill().getName().equals("Cleave"), "edit not applied: " + after);
+                check(warrior.getSkill(before).getName().equals("Power Strike"), "old snapshot changed");
+                check(watcher.getReloads() == 1 && watcher.getLastError() == null, "reload not counted");
+
+                // a broken skills file is rejected and the last good content stays
+                write(files[0], "[{\"class\": \"Warrior\", \"name\": ");
+                long deadline = System.currentTimeMillis() + 10000;
+                while (watcher.getLastError() == null && System.currentTimeMillis() < deadline) Thread.sleep(20);
+                check(watcher.getLastError() != null, "broken file not reported");
+                check(ContentPacks.current() == after, "broken file replaced the content");
+
+                // several files changed together arrive as one reload
+                write(files[0], "[{\"class\": \"Warrior\", \"name\": \"Cleave\"}]");
+                write(files[1], "type=Spirit;name=Only Ghost;level=1;baseDamage=77;ai=lowestHp\n");
+                write(files[3], "id=monster_ambush\nid=found_gear;name=Loot!\nid=stat_blessing;enabled=false\n");
+                ContentSnapshot packed = awaitNewer(after);
+                Thread.sleep(500);
+                check(ContentPacks.current() == packed, "one edit published twice");
+                check(MonsterCatalog.get().getTemplates().size() == 1, "monsters not reloaded");
+                check(MonsterRegistry.get("Spirit").create("Only Ghost", 2).getName().equals("Only Ghost"), "factories not updated");
+
+                // spawning builds from the snapshot's template even while the global
+                // factories belong to another snapshot (a reload halfway through publish)
+                before.getMonsters().registerFactories();
+                legends.model.Monster ghost = legends.model.Monster.spawnForParty(
+                        java.util.Arrays.asList(warrior), 0, new java.util.Random(1)).get(0);
+                packed.getMonsters().registerFactories();
+                check(ghost.getName().equals("Only Ghost") && ghost.getBaseDamage() == 77 * ghost.getLevel()
+                        && ghost.getPolicy() == legends.battle.MonsterPolicies.LOWEST_HP,
+                        "spawn went through another snapshot's factory");
+                List<AdventureEvent> events = packed.getEvents();
+                check(events.size() == 2 && events.get(1).getName().equals("Loot!")
+                        && events.get(1).getDescription().startsWith("A worn backpack"), "events not reloaded");
+            } finally {
+                watcher.close();
+            }
+        } finally {
+            for (File f : files) {
+                if (f != null) f.delete();
+            }
+            dir.delete();
+        }
+
+        System.out.println("ContentPacks OK");
+    }
+
+    private static ContentSnapshot awaitNewer(ContentSnapshot than) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            ContentSnapshot s = ContentPacks.current();
+            if (s.getVersion() > than.getVersion()) return s;
+            Thread.sleep(20);
+        }
+        throw new IllegalStateException("no reload after a change");
+    }
+
+    private static void write(File f, String text) throws Exception {
+        Files.write(f.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean sameItems(List<ItemLibrary.Entry> a, List<ItemLibrary.Entry> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            ItemLibrary.Entry x = a.get(i);
+            ItemLibrary.Entry y = b.get(i);
+            if (x.cat != y.cat || !x.name.equals(y.name) || !x.desc.equals(y.desc)
+                    || !x.sample.toString().equals(y.sample.toString())) return false;
+            if (x.sample instanceof Consumable
+                    && ((Consumable) x.sample).isUsableInBattle() != ((Consumable) y.sample).isUsableInBattle()) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameEvents(List<AdventureEvent> a, List<AdventureEvent> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getId().equals(b.get(i).getId()) || !a.get(i).getName().equals(b.get(i).getName())
+                    || !a.get(i).getDescription().equals(b.get(i).getDescription())) return false;
+        }
+        return true;
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package legends;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import legends.events.Event;
+import legends.events.EventBus;
+import legends.events.EventListener;
+import legends.events.OnDamageEvent;
+import legends.events.OnStatusApplyEvent;
+import legends.events.OnTurnStartEvent;
+
+public class EventBusTest {
+    public static void main(String[] args) {
+        EventBus bus = new EventBus(8);
+        final AtomicInteger damage = new AtomicInteger();
+        final AtomicInteger all = new AtomicInteger();
+        final AtomicInteger async = new AtomicInteger();
+
+        EventListener<OnDamageEvent> onDamage = new EventListener<OnDamageEvent>() {
+            public void onEvent(OnDamageEvent e) { damage.addAndGet(e.amount); }
+        };
+        EventListener<Event> onAny = new EventListener<Event>() {
+            public void onEvent(Event e) { all.incrementAndGet(); }
+        };
+        check(!bus.hasListeners(OnDamageEvent.class), "empty bus reports listeners");
+        bus.subscribe(OnDamageEvent.class, onDamage);
+        check(bus.hasListeners(OnDamageEvent.class), "damage listener not reported");
+        check(!bus.hasListeners(OnStatusApplyEvent.class), "damage listener reported for status events");
+        bus.register(onAny);
+        check(bus.hasListeners(OnStatusApplyEvent.class), "catch-all listener not reported");
+        bus.subscribe(OnTurnStartEvent.class, new EventListener<OnTurnStartEvent>() {
+            public void onEvent(OnTurnStartEvent e) { async.incrementAndGet(); }
+        }, EventBus.Delivery.ASYNC);
+
+        bus.fire(new OnDamageEvent(null, null, 5));
+        bus.fire(new OnTurnStartEvent(null));
+        bus.fire(new OnDamageEvent(null, null, 7));
+        check(damage.get() == 12, "typed listener saw " + damage.get() + " damage");
+        check(all.get() == 3, "catch-all listener saw " + all.get() + " events");
+
+        bus.unsubscribe(OnDamageEvent.class, onDamage);
+        bus.unregister(onAny);
+        bus.fire(new OnDamageEvent(null, null, 100));
+        check(damage.get() == 12 && all.get() == 3, "listeners still called after unsubscribe");
+
+        for (int i = 0; i < 1000; i++) {
+            bus.fire(new OnTurnStartEvent(null));
+        }
+        bus.flush();
+        long delivered = async.get();
+        long dropped = bus.getDroppedCount();
+        check(delivered + dropped == 1001, "async delivered " + delivered + " + dropped " + dropped + " != 1001");
+        bus.close();
+        bus.fire(new OnTurnStartEvent(null));
+        check(bus.getDroppedCount() == dropped + 1, "drops lost or not counted after close: " + bus.getDroppedCount());
+        System.out.println("EventBus dispatch OK (async delivered " + delivered + ", dropped " + dropped + ")");
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
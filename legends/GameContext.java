@@ -0,0 +1,72 @@
+package legends;
+
+import legends.events.EventBus;
+import legends.io.IO;
+import legends.util.RngStreams;
+
+/**
+ * Per-thread overrides for the game's global state (event bus, output sink,
+ * difficulty and random streams). The interactive game never binds one and keeps using the
+ * singletons; simulations bind a fresh context per worker so parallel battles
+ * share nothing mutable.
+ */
+public final class GameContext {
+    private static final ThreadLocal<GameContext> CURRENT = new ThreadLocal<GameContext>();
+
+    private final EventBus eventBus;
+    private final IO io;
+    private final String difficulty;
+    private final RngStreams rng;
+
+    public GameContext(EventBus eventBus, IO io, String difficulty) {
+        this(eventBus, io, difficulty, new RngStreams(RngStreams.nextSeed()));
+    }
+
+    public GameContext(EventBus eventBus, IO io, String difficulty, RngStreams rng) {
+        this.eventBus = eventBus;
+        this.io = io;
+        this.difficulty = difficulty;
+        this.rng = rng;
+    }
+
+    /**
+     * Context bound to the calling thread, or null when the global singletons apply.
+     */
+    public static GameContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind a context to the calling thread. Returns the previously bound one so
+     * callers can restore it with {@link #restore(GameContext)}.
+     */
+    public static GameContext bind(GameContext ctx) {
+        GameContext previous = CURRENT.get();
+        CURRENT.set(ctx);
+        return previous;
+    }
+
+    public static void restore(GameContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    public IO getIO() {
+        return io;
+    }
+
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    public RngStreams getRng() {
+        return rng;
+    }
+}
@@ -0,0 +1,143 @@
+package legends;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import legends.battle.HeroPolicies;
+import legends.events.Event;
+import legends.events.EventBus;
+import legends.events.EventListener;
+import legends.events.OnDamageEvent;
+import legends.io.HeadlessIO;
+import legends.sim.BattleSimulator;
+import legends.sim.Scenario;
+import legends.sim.SimulationStats;
+
+public class GameContextTest {
+    private static final int THREADS = 4;
+    private static final int STEPS = 200;
+
+    public static void main(String[] args) throws Exception {
+        final BattleSimulator sim = new BattleSimulator(Scenario.party("Warrior", "Sorcerer", "Paladin"), HeroPolicies.GREEDY);
+
+        // anything reaching the shared bus came from a context that leaked
+        final AtomicInteger globalEvents = new AtomicInteger();
+        EventListener<Event> globalListener = new EventListener<Event>() {
+            @Override
+            public void onEvent(Event e) {
+                globalEvents.incrementAndGet();
+            }
+        };
+        EventBus.getInstance().register(globalListener);
+        try {
+            final String sequential = sim.run(1000, 5L).toString();
+
+            final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+            final CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                final int id = t;
+                threads[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            isolate(id, sim, sequential, errors);
+                        } catch (Throwable e) {
+                            errors.add("thread " + id + ": " + e);
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            start.countDown();
+            for (Thread thread : threads) thread.join();
+            check(errors.isEmpty(), "contexts leaked:\n" + errors);
+            check(globalEvents.get() == 0, globalEvents.get() + " events reached the shared bus");
+            check(GameContext.current() == null, "main thread picked up a context");
+        } finally {
+            EventBus.getInstance().unregister(globalListener);
+        }
+
+        System.out.println("GameContext OK");
+    }
+
+    // One worker: its own bus, output and difficulty, interleaved with seeded simulations
+    private static void isolate(int id, BattleSimulator sim, String sequential, List<String> errors) {
+        final Thread owner = Thread.currentThread();
+        final String tag = "ctx-" + id + " ";
+        final String difficulty = id % 2 == 0 ? "NORMAL" : "TEST";
+        final AtomicInteger tagged = new AtomicInteger();
+        final AtomicInteger foreign = new AtomicInteger();
+        EventBus bus = new EventBus();
+        bus.register(new EventListener<Event>() {
+            @Override
+            public void onEvent(Event e) {
+                if (Thread.currentThread() != owner) foreign.incrementAndGet();
+                if (e instanceof OnDamageEvent && tag.equals(((OnDamageEvent) e).source)) tagged.incrementAndGet();
+            }
+        });
+        HeadlessIO io = new HeadlessIO();
+        GameContext ctx = new GameContext(bus, io, difficulty);
+
+        GameContext previous = GameContext.bind(ctx);
+        SimulationStats ownBattles = new SimulationStats();
+        try {
+            for (int step = 0; step < STEPS; step++) {
+                EventBus.getInstance().fire(new OnDamageEvent(tag, null, step));
+                LegendsGame.getGlobalIO().println(tag + step);
+                if (EventBus.getInstance() != bus || !difficulty.equals(Config.difficulty())) {
+                    errors.add(tag + "step " + step + ": context not in effect");
+                }
+                if (step % 20 == 0) {
+                    // battles under this context fire into its bus only
+                    sim.runOne(new Random(BattleSimulator.battleSeed(7L, step)), ownBattles);
+                }
+                if (step % 50 == 0) {
+                    // simulations bind and restore a context of their own
+                    String result = sim.run(1000, 5L).toString();
+                    if (!result.equals(sequential)) {
+                        errors.add(tag + "step " + step + ": simulation differs from the sequential run:\n" + result);
+                    }
+                    if (GameContext.current() != ctx) {
+                        errors.add(tag + "step " + step + ": context not restored after a simulation");
+                    }
+                }
+            }
+        } finally {
+            GameContext.restore(previous);
+        }
+
+        if (GameContext.current() != null || EventBus.getInstance() == bus) {
+            errors.add(tag + "context still bound after restore");
+        }
+        if (tagged.get() != STEPS || foreign.get() != 0) {
+            errors.add(tag + tagged.get() + " own events, " + foreign.get() + " from other threads");
+        }
+        // under TEST difficulty every hit is lethal, so the party wins every battle
+        if ("TEST".equals(difficulty) && ownBattles.getHeroWins() != ownBattles.getBattles()) {
+            errors.add(tag + "TEST difficulty not applied: " + ownBattles);
+        }
+        int own = 0;
+        for (String line : io.getOutputs()) {
+            if (line.startsWith(tag)) {
+                own++;
+            } else if (line.startsWith("ctx-")) {
+                errors.add(tag + "got another context's output: " + line.trim());
+            }
+        }
+        if (own != STEPS) {
+            errors.add(tag + own + " of " + STEPS + " lines reached its output");
+        }
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
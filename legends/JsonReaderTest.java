@@ -0,0 +1,167 @@
+package legends;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import legends.skills.DeclarativeSkill;
+import legends.skills.Skill;
+import legends.skills.SkillRegistry;
+import legends.util.JsonReader;
+
+public class JsonReaderTest {
+    public static void main(String[] args) throws Exception {
+        // nesting, escapes and every value type, read the same from a Reader, from a
+        // Reader handing out one char at a time (a refill per char) and from bytes
+        String doc = "{\"s\": \"a\\\"b\\\\c\\/\\n\\t\\u00e9\\uD83D\\uDE00\", \"n\": [1, -2.5, 3e2, 0.1, -0],"
+                + " \"deep\": {\"x\": [[], {}, [{\"y\": null}]], \"t\": true, \"f\": false}, \"big\": 12345678901234}";
+        String expected = "s=a\"b\\c/\n\té😀 n=1.0,-2.5,300.0,0.1,-0.0, x=[[],{},[{y=null}]] t=true f=false big=12345678901234";
+        check(describe(new JsonReader(new StringReader(doc))).equals(expected), "reader: " + describe(new JsonReader(new StringReader(doc))));
+        check(describe(new JsonReader(new OneCharReader(doc))).equals(expected), "char-by-char reader differs");
+        check(describe(new JsonReader(ByteBuffer.wrap(doc.getBytes(StandardCharsets.UTF_8)))).equals(expected), "byte buffer differs");
+
+        // skipValue passes over whole subtrees
+        JsonReader in = new JsonReader(new StringReader("[{\"a\": [1, {\"b\": [2, 3]}]}, \"x\", 4]"));
+        in.beginArray();
+        in.skipValue();
+        check(in.nextString().equals("x") && in.nextInt() == 4, "skipValue lost its place");
+        in.endArray();
+        check(in.peek() == JsonReader.Token.END_DOCUMENT, "document not finished");
+
+        // malformed input names the line and column
+        expectError("[1,\n 2\n x]", "line 3");
+        expectError("{\"a\" 1}", "expected ':'");
+        expectError("[\"open", "unterminated string");
+        expectError("[1] 2", "expected end of document");
+        try {
+            new JsonReader(new StringReader("1.5")).nextInt();
+            check(false, "1.5 read as an int");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // a content pack of 20000 skills, bigger than the read buffer many times over,
+        // binds straight into skills from both sources
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < 20000; i++) {
+            sb.append("  {\"class\": \"C").append(i).append("\", \"name\": \"Skill \\u00b7 ").append(i)
+              .append("\", \"mpCost\": ").append(i % 50).append(", \"strengthMultiplier\": 1.25, \"extra\": {\"tags\": [\"a\", \"b\"]},")
+              .append(" \"target\": \"").append(i % 3 == 0 ? "AOE" : "SINGLE").append("\", \"statusType\": null}")
+              .append(i < 19999 ? ",\n" : "\n");
+        }
+        sb.append("]");
+        Map<String, Skill> skills = new HashMap<String, Skill>();
+        int added = SkillRegistry.readSkills(new JsonReader(new StringReader(sb.toString())), skills);
+        check(added == 20000 && skills.size() == 20000, "skills lost: " + added);
+        DeclarativeSkill s = (DeclarativeSkill) skills.get("C19998");
+        check(s.getName().equals("Skill · 19998") && s.getMpCost() == 48, "skill bound wrong: " + s.getName());
+        skills.clear();
+        SkillRegistry.readSkills(new JsonReader(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8))), skills);
+        check(skills.size() == 20000 && skills.get("C7").getName().equals("Skill · 7"), "skills from bytes differ");
+        check(SkillRegistry.getSkillForHeroClass("Warrior").getName().equals("Power Strike"), "shipped skills not loaded");
+
+        System.out.println("JsonReader OK (" + sb.length() + " chars of skills)");
+    }
+
+    private static String describe(JsonReader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (name.equals("s")) {
+                sb.append("s=").append(in.nextString());
+            } else if (name.equals("n")) {
+                sb.append(" n=");
+                in.beginArray();
+                while (in.hasNext()) sb.append(in.nextDouble()).append(',');
+                in.endArray();
+            } else if (name.equals("deep")) {
+                in.beginObject();
+                while (in.hasNext()) {
+                    String k = in.nextName();
+                    sb.append(' ').append(k).append('=');
+                    if (k.equals("x")) tree(in, sb); else sb.append(in.nextBoolean());
+                }
+                in.endObject();
+            } else {
+                sb.append(" big=").append(in.nextLong());
+            }
+        }
+        in.endObject();
+        in.close();
+        return sb.toString();
+    }
+
+    private static void tree(JsonReader in, StringBuilder sb) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_ARRAY:
+                in.beginArray();
+                sb.append('[');
+                for (int i = 0; in.hasNext(); i++) {
+                    if (i > 0) sb.append(',');
+                    tree(in, sb);
+                }
+                in.endArray();
+                sb.append(']');
+                break;
+            case BEGIN_OBJECT:
+                in.beginObject();
+                sb.append('{');
+                while (in.hasNext()) {
+                    sb.append(in.nextName()).append('=');
+                    tree(in, sb);
+                }
+                in.endObject();
+                sb.append('}');
+                break;
+            case NULL:
+                in.nextNull();
+                sb.append("null");
+                break;
+            default:
+                sb.append(in.nextString());
+        }
+    }
+
+    // Reads the document; fails unless that throws an IOException mentioning message
+    private static void expectError(String json, String message) {
+        try {
+            JsonReader in = new JsonReader(new StringReader(json));
+            in.skipValue();
+            in.peek();
+            check(false, "accepted malformed json: " + json);
+        } catch (IOException e) {
+            check(e.getMessage().contains(message), "unexpected error for " + json + ": " + e.getMessage());
+        }
+    }
+
+    private static final class OneCharReader extends Reader {
+        private final String s;
+        private int i;
+
+        OneCharReader(String s) {
+            this.s = s;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (i == s.length()) return -1;
+            cbuf[off] = s.charAt(i++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -2,11 +2,11 @@ package legends;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 import java.util.Scanner;
 
 import legends.world.WorldMap;
 import legends.world.TileType;
+import legends.world.PathFinder;
 import legends.party.Party;
 import legends.model.Hero;
 import legends.model.Monster;
@@ -27,8 +27,6 @@ import legends.items.Item;
  */
 public class LegendsGame {
 
-    private static final int MAP_SIZE = 8;
-
     // ANSI color/style constants used by the banner and battle UI
     private static final String RESET = "\u001B[0m";
     private static final String BOLD = "\u001B[1m";
@@ -41,17 +39,55 @@ public class LegendsGame {
     private static final String MAGENTA = "\u001B[35m";
 
     private final Scanner in = new Scanner(System.in);
-    private final Random rng = new Random();
+    // Every random draw of the session, split by purpose; seeded by Config.RNG_SEED
+    private final legends.util.RngStreams streams = new legends.util.RngStreams(legends.Config.RNG_SEED);
 
     private WorldMap map;
     private Party party;
     private boolean savePromptShown = false;
     private int floor = 1;
+    private final PathFinder pathFinder = new PathFinder();
+    // Set when a tile starts an event or battle; auto-travel stops on it
+    private boolean encounterHappened;
+    // Background autosave, null unless Config.AUTOSAVE_ENABLED
+    private legends.util.AutoSave autoSave;
+    // Reloads data/ on change, null unless Config.HOT_RELOAD_ENABLED
+    private legends.data.ContentPacks.Watcher contentWatcher;
+    // Numbered saves for V/L; the autosave file is listed as slot 0
+    private final legends.util.SaveSlots saveSlots = legends.util.SaveSlots.open();
 
     public void run() {
+        // visuals and other helpers without an RNG parameter draw from these too
+        legends.util.RngStreams.bind(streams);
         printWelcome();
+        // load the content pack now rather than on the first encounter
+        legends.data.ContentPacks.current();
+        if (legends.Config.HOT_RELOAD_ENABLED) {
+            try {
+                contentWatcher = legends.data.ContentPacks.watch(legends.data.ContentPacks.DEFAULT_DIR);
+            } catch (java.io.IOException e) {
+                GLOBAL_IO.println("Content reload unavailable: " + e.getMessage());
+            }
+        }
         initGame();
+        if (legends.Config.AUTOSAVE_ENABLED) {
+            autoSave = new legends.util.AutoSave(SaveLoad.getSavePath());
+        }
         gameLoop();
+        if (autoSave != null) {
+            try {
+                autoSave.close();
+            } catch (java.io.IOException e) {
+                GLOBAL_IO.println("Autosave failed: " + e.getMessage());
+            }
+        }
+        if (contentWatcher != null) {
+            try {
+                contentWatcher.close();
+            } catch (java.io.IOException e) {
+                // nothing left to reload
+            }
+        }
         GLOBAL_IO.println("Thanks for playing Monster&hero!");
     }
 
@@ -115,8 +151,10 @@ public class LegendsGame {
         GLOBAL_IO.println("            Common tiles may trigger random battles.");
         GLOBAL_IO.println("  I       - Show detailed party info (HP/MP, stats, gold, equipment).");
         GLOBAL_IO.println("  M       - Enter the Market if you are standing on a Market tile.");
-        GLOBAL_IO.println("  V       - Save the current game progress to disk.");
-        GLOBAL_IO.println("  L       - Load the most recent save file (overwrites current progress).");
+        GLOBAL_IO.println("  G       - Auto-travel to the nearest Market or to the boss.");
+        GLOBAL_IO.println("            Stops early if an event or battle interrupts the trip.");
+        GLOBAL_IO.println("  V       - Save the current game progress to a numbered slot.");
+        GLOBAL_IO.println("  L       - List saved slots and load one (overwrites current progress).");
         GLOBAL_IO.println("  Q       - Quit the game.");
         GLOBAL_IO.println("");
         GLOBAL_IO.println("Tiles:");
@@ -153,7 +191,9 @@ public class LegendsGame {
     private static final legends.io.IO GLOBAL_IO = new legends.io.ConsoleIO();
 
     public static legends.io.IO getGlobalIO() {
-        return GLOBAL_IO;
+        // simulations bind their own sink so level-up and reward messages stay off the console
+        GameContext ctx = GameContext.current();
+        return ctx != null ? ctx.getIO() : GLOBAL_IO;
     }
 
     // Read a line using the global IO, then clear the console to create a
@@ -188,7 +228,7 @@ public class LegendsGame {
         // Prompt for difficulty selection
         selectDifficulty();
         floor = 1;
-        map = WorldMap.generateRandom(MAP_SIZE, MAP_SIZE, rng);
+        map = createFloorMap();
         relocateBossForCurrentFloor();
         // Do not prompt for loading here. The user requested the saved-game
         // prompt to appear while viewing the map, so we defer load until
@@ -296,20 +336,11 @@ public class LegendsGame {
             // prompt the user to load it (per user request).
             if (!savePromptShown) {
                 try {
-                    java.nio.file.Path savePath = java.nio.file.Paths.get("save", "savegame.json");
-                    if (java.nio.file.Files.exists(savePath)) {
+                    if (SaveLoad.hasSave() || !saveSlots.isEmpty()) {
                         GLOBAL_IO.print("Saved game found. Load saved game now while viewing map? (y/n): ");
                         String ans = GLOBAL_IO.readLine();
                         if (ans != null && ans.equalsIgnoreCase("y")) {
-                            try {
-                                legends.party.Party loaded = legends.util.SaveLoad.loadGame(map);
-                                if (loaded != null) {
-                                    party = loaded;
-                                }
-                            } catch (Exception e) {
-                                GLOBAL_IO.println("Failed to load saved game: " + e.getMessage());
-                                LegendsGame.readLineAndClear(in);
-                            }
+                            loadFromMenu();
                         }
                     }
                 } catch (Exception e) {
@@ -319,13 +350,14 @@ public class LegendsGame {
             }
             GLOBAL_IO.println("Current Floor: " + floor);
             map.print(party);
-            GLOBAL_IO.print("Enter command (W/A/S/D, I, M, C, V=Save, L=Load, Q): ");
+            GLOBAL_IO.print("Enter command (W/A/S/D, G=Go to, I, M, C, V=Save, L=Load, Q): ");
             String line = LegendsGame.readLineAndClear(in);
             if (line.isEmpty()) {
                 continue;
             }
             char c = Character.toUpperCase(line.charAt(0));
             boolean skipTileProcessing = false;
+            encounterHappened = false;
 
             switch (c) {
                 case 'W':
@@ -350,27 +382,16 @@ public class LegendsGame {
                 case 'M':
                     enterMarketIfAny();
                     break;
+                case 'G':
+                    // the destination tile is processed below like any other move
+                    skipTileProcessing = !autoTravel();
+                    break;
                 case 'V':
-                    try {
-                        SaveLoad.saveGame(party, map);
-                        GLOBAL_IO.println("Game saved to save/savegame.json.");
-                    } catch (Exception e) {
-                        GLOBAL_IO.println("Failed to save game: " + e.getMessage());
-                    }
+                    saveToSlot();
                     skipTileProcessing = true;
                     break;
                 case 'L':
-                    try {
-                        Party loadedParty = SaveLoad.loadGame(map);
-                        if (loadedParty != null) {
-                            party = loadedParty;
-                            GLOBAL_IO.println("Saved game loaded.");
-                        } else {
-                            GLOBAL_IO.println("No saved game found to load.");
-                        }
-                    } catch (Exception e) {
-                        GLOBAL_IO.println("Failed to load saved game: " + e.getMessage());
-                    }
+                    loadFromMenu();
                     skipTileProcessing = true;
                     break;
                 case 'Q':
@@ -385,6 +406,7 @@ public class LegendsGame {
             }
 
             if (skipTileProcessing) {
+                autosave(c);
                 GLOBAL_IO.println("Press Enter to continue...");
                 LegendsGame.readLineAndClear(in);
                 continue;
@@ -397,6 +419,96 @@ public class LegendsGame {
                 // Decide event or battle or nothing
                 handleCommonTile();
             }
+            autosave(c);
+        }
+    }
+
+    /**
+     * Ask for a slot number and save the game there.
+     */
+    private void saveToSlot() {
+        GLOBAL_IO.print("Save to which slot? (1-" + legends.util.SaveSlots.MAX_SLOT + ", Enter = 1): ");
+        int slot = readIntInRange(1, legends.util.SaveSlots.MAX_SLOT, 1);
+        try {
+            saveSlots.save(slot, party, map, floor);
+            GLOBAL_IO.println("Game saved to slot " + slot + ".");
+        } catch (Exception e) {
+            GLOBAL_IO.println("Failed to save game: " + e.getMessage());
+        }
+    }
+
+    /**
+     * List the saved slots from the slot index and load the one picked. Only the
+     * picked slot's save is read.
+     */
+    private void loadFromMenu() {
+        java.util.List<legends.util.SaveSlots.Slot> slots;
+        try {
+            slots = saveSlots.list();
+        } catch (Exception e) {
+            GLOBAL_IO.println("Failed to read saved slots: " + e.getMessage());
+            slots = java.util.Collections.emptyList();
+        }
+        boolean hasDefault = SaveLoad.hasSave();
+        if (slots.isEmpty() && !hasDefault) {
+            GLOBAL_IO.println("No saved game found to load.");
+            return;
+        }
+        GLOBAL_IO.println("Saved games:");
+        if (hasDefault) {
+            GLOBAL_IO.println("  Slot 0: autosave / previous save");
+        }
+        for (legends.util.SaveSlots.Slot s : slots) {
+            GLOBAL_IO.println("  " + s.describe());
+        }
+        GLOBAL_IO.print("Slot to load (Enter to cancel): ");
+        int slot = readIntInRange(0, legends.util.SaveSlots.MAX_SLOT, -1);
+        if (slot < 0) {
+            return;
+        }
+        try {
+            Party loadedParty;
+            WorldMap savedMap;
+            if (slot == 0) {
+                loadedParty = hasDefault ? SaveLoad.loadGame(map) : null;
+                savedMap = loadedParty != null ? SaveLoad.loadMap() : null;
+                if (loadedParty != null) {
+                    floor = SaveLoad.loadFloor();
+                }
+            } else {
+                loadedParty = saveSlots.load(slot, map);
+                savedMap = loadedParty != null ? saveSlots.loadMap(slot) : null;
+                if (loadedParty != null) {
+                    floor = saveSlots.loadFloor(slot);
+                }
+            }
+            if (loadedParty == null) {
+                GLOBAL_IO.println("Slot " + slot + " is empty.");
+                return;
+            }
+            party = loadedParty;
+            if (savedMap != null) {
+                map = savedMap;
+            }
+            GLOBAL_IO.println("Saved game loaded.");
+        } catch (Exception e) {
+            GLOBAL_IO.println("Failed to load saved game: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Autosave after a command: a plain move only journals the new position, anything
+     * else (battles, events, shopping, loading, ...) takes a full snapshot.
+     */
+    private void autosave(char command) {
+        if (autoSave == null) {
+            return;
+        }
+        boolean plainMove = "WASDG".indexOf(command) >= 0 && !encounterHappened;
+        if (plainMove) {
+            autoSave.moved(party, map, floor);
+        } else {
+            autoSave.snapshot(party, map, floor);
         }
     }
 
@@ -405,13 +517,14 @@ public class LegendsGame {
      * Uses Config probabilities: RANDOM_EVENT_CHANCE, POST_EVENT_BATTLE_CHANCE.
      */
     private void handleCommonTile() {
-        double roll = rng.nextDouble();
+        double roll = streams.world().nextDouble();
         if (roll < legends.Config.RANDOM_EVENT_CHANCE) {
             // trigger adventure event
-            legends.events.AdventureEvent ev = legends.events.AdventureEventRegistry.randomEvent(rng);
+            legends.events.AdventureEvent ev = legends.events.AdventureEventRegistry.randomEvent(streams.world());
             if (ev != null) {
+                encounterHappened = true;
                 GLOBAL_IO.println("");
-                ev.resolve(party, GLOBAL_IO, rng);
+                ev.resolve(party, GLOBAL_IO, streams.world());
                 GLOBAL_IO.println("");
                 if (ev.isForcesBattle()) {
                     GLOBAL_IO.println("The event triggers combat!");
@@ -419,7 +532,7 @@ public class LegendsGame {
                     return;
                 } else {
                     // After a non-forced event we still might start a battle
-                    if (rng.nextDouble() < legends.Config.POST_EVENT_BATTLE_CHANCE) {
+                    if (streams.world().nextDouble() < legends.Config.POST_EVENT_BATTLE_CHANCE) {
                         GLOBAL_IO.println("You proceed cautiously, but monsters lurking ahead leap out!");
                         maybeStartBattle();
                     } else {
@@ -434,6 +547,7 @@ public class LegendsGame {
     }
 
     private void startBossBattle() {
+        encounterHappened = true;
         GLOBAL_IO.println("You have encountered the Final Boss!");
         // create a challenging boss based on party average level
         int avgLevel = 1;
@@ -450,14 +564,14 @@ public class LegendsGame {
         GLOBAL_IO.println("Press Enter to begin the boss fight.");
         LegendsGame.readLineAndClear(in);
 
-        BattleEngine engine = new BattleEngine(party.getHeroes(), monsters, rng, LegendsGame.getGlobalIO());
+        BattleEngine engine = new BattleEngine(party.getHeroes(), monsters, streams.combat(), LegendsGame.getGlobalIO());
         boolean heroesWin = engine.runBattle();
         if (!heroesWin) {
             GLOBAL_IO.println("All heroes have fallen. Game over.");
             System.exit(0);
         } else {
             GLOBAL_IO.println("You defeated " + bossName + "!");
-            List<Item> loot = Monster.rewardHeroes(party.getHeroes(), monsters);
+            List<Item> loot = Monster.rewardHeroes(party.getHeroes(), monsters, streams.loot());
             party.stashLoot(loot, GLOBAL_IO);
             // Fully restore all heroes after battle
             for (Hero h : party.getHeroes()) {
@@ -488,6 +602,51 @@ public class LegendsGame {
         party.setPosition(nr, nc);
     }
 
+    /**
+     * Walk the party along a shortest route to the nearest market or to the boss.
+     * Tiles on the way are handled as if the player had walked them, so events and
+     * battles still happen, and the trip stops at the first one. Returns true if the
+     * party reached the destination, whose tile the caller then processes.
+     */
+    private boolean autoTravel() {
+        GLOBAL_IO.print("Travel to: 1) Nearest market  2) Boss  (Enter to cancel): ");
+        String choice = LegendsGame.readLineAndClear(in);
+        int[] route;
+        if ("1".equals(choice)) {
+            route = pathFinder.findPathToNearest(map, party.getRow(), party.getCol(), TileType.MARKET);
+        } else if ("2".equals(choice)) {
+            int[] boss = map.findBossPosition();
+            route = boss[0] < 0 ? null : pathFinder.findPath(map, party.getRow(), party.getCol(), boss[0], boss[1]);
+        } else {
+            GLOBAL_IO.println("Travel cancelled.");
+            return false;
+        }
+        if (route == null) {
+            GLOBAL_IO.println("No route found.");
+            return false;
+        }
+        if (route.length == 0) {
+            GLOBAL_IO.println("You are already there.");
+            return false;
+        }
+        for (int i = 0; i < route.length; i++) {
+            move(PathFinder.rowDelta(route[i]), PathFinder.colDelta(route[i]));
+            if (i == route.length - 1) {
+                break;
+            }
+            if (map.getTileType(party.getRow(), party.getCol()) == TileType.COMMON) {
+                encounterHappened = false;
+                handleCommonTile();
+                if (encounterHappened) {
+                    GLOBAL_IO.println("Your journey is interrupted after " + (i + 1) + " of " + route.length + " steps.");
+                    return false;
+                }
+            }
+        }
+        GLOBAL_IO.println("You arrive after " + route.length + " steps.");
+        return true;
+    }
+
     private void showInfo() {
         party.openBackpack(GLOBAL_IO);
     }
@@ -495,7 +654,13 @@ public class LegendsGame {
     private void enterMarketIfAny() {
         TileType tile = map.getTileType(party.getRow(), party.getCol());
         if (tile != TileType.MARKET) {
-            GLOBAL_IO.println("No market here.");
+            int[] nearest = map.findNearest(party.getRow(), party.getCol(), TileType.MARKET);
+            if (nearest[0] < 0) {
+                GLOBAL_IO.println("No market here.");
+            } else {
+                GLOBAL_IO.println("No market here. Closest market as the crow flies: (" + nearest[0] + ", "
+                        + nearest[1] + "). Press G to travel to the nearest one.");
+            }
             return;
         }
         Market market = Market.exampleMarket();
@@ -508,19 +673,17 @@ public class LegendsGame {
      * Offers flee/fight/prepare options before combat starts.
      */
     private void maybeStartBattle() {
-        if (rng.nextDouble() > 0.3) {
+        if (streams.world().nextDouble() > 0.3) {
             return;
         }
-        // Compute proximity to boss to determine monster strength bias
-        int[] bossPos = map.findBossPosition();
-        int pr = party.getRow(), pc = party.getCol();
-        int dist;
-        if (bossPos[0] >= 0) {
-            dist = Math.abs(pr - bossPos[0]) + Math.abs(pc - bossPos[1]);
-        } else {
-            dist = (MAP_SIZE - 1) * 2; // fallback: far
+        encounterHappened = true;
+        // Compute proximity to boss to determine monster strength bias; same
+        // walking-distance layer the map renderer colors by
+        int maxDist = (map.getRows() - 1) + (map.getCols() - 1);
+        int dist = map.getBossDistance(party.getRow(), party.getCol());
+        if (dist < 0) {
+            dist = maxDist; // fallback: far
         }
-        int maxDist = (MAP_SIZE - 1) * 2;
 
         // Compute level bias using values from Config for easier tuning
         int levelBias;
@@ -538,7 +701,7 @@ public class LegendsGame {
         levelBias += (floor - 1) * 2;
 
         // Spawn monsters with a level bias based on proximity to boss (config-driven)
-        java.util.List<Monster> monsters = Monster.spawnForParty(party.getHeroes(), levelBias);
+        java.util.List<Monster> monsters = Monster.spawnForParty(party.getHeroes(), levelBias, streams.spawns());
         // Preparation loop: user can choose to fight, flee, or prepare (use potions)
         while (true) {
             GLOBAL_IO.println("Monsters encountered:");
@@ -563,14 +726,14 @@ public class LegendsGame {
             if (choice.equals("1")) {
                 // start battle
                 GLOBAL_IO.println("Battle starts!");
-                BattleEngine engine = new BattleEngine(party.getHeroes(), monsters, rng, LegendsGame.getGlobalIO());
+                BattleEngine engine = new BattleEngine(party.getHeroes(), monsters, streams.combat(), LegendsGame.getGlobalIO());
                 boolean heroesWin = engine.runBattle();
                 if (!heroesWin) {
                     GLOBAL_IO.println("All heroes have fallen. Game over.");
                     System.exit(0);
                 } else {
                     GLOBAL_IO.println("Heroes won the battle!");
-                    List<Item> loot = Monster.rewardHeroes(party.getHeroes(), monsters);
+                    List<Item> loot = Monster.rewardHeroes(party.getHeroes(), monsters, streams.loot());
                     party.stashLoot(loot, GLOBAL_IO);
                     // Fully restore all heroes after battle
                     for (Hero h : party.getHeroes()) {
@@ -588,19 +751,19 @@ public class LegendsGame {
                 // flee attempt: chance depends on party average agility and number of monsters
                 double fleeChance = computeFleeChance(monsters);
                 GLOBAL_IO.println(String.format("Attempting to flee... (Chance: %.0f%%)", fleeChance * 100.0));
-                if (rng.nextDouble() < fleeChance) {
+                if (streams.combat().nextDouble() < fleeChance) {
                     GLOBAL_IO.println("You successfully fled from the battle.");
                     return;
                 } else {
                     GLOBAL_IO.println("Flee failed! Battle starts!");
-                    BattleEngine engine = new BattleEngine(party.getHeroes(), monsters, rng, LegendsGame.getGlobalIO());
+                    BattleEngine engine = new BattleEngine(party.getHeroes(), monsters, streams.combat(), LegendsGame.getGlobalIO());
                     boolean heroesWin = engine.runBattle();
                     if (!heroesWin) {
                         GLOBAL_IO.println("All heroes have fallen. Game over.");
                         System.exit(0);
                     } else {
                         GLOBAL_IO.println("Heroes won the battle!");
-                        List<Item> loot = Monster.rewardHeroes(party.getHeroes(), monsters);
+                        List<Item> loot = Monster.rewardHeroes(party.getHeroes(), monsters, streams.loot());
                         party.stashLoot(loot, GLOBAL_IO);
                         // Fully restore all heroes after battle
                         for (Hero h : party.getHeroes()) {
@@ -697,7 +860,7 @@ public class LegendsGame {
         floor++;
         GLOBAL_IO.println("");
         GLOBAL_IO.println("=== Ascending to " + getFloorOrdinal(floor) + " Floor ===");
-        map = WorldMap.generateRandom(MAP_SIZE, MAP_SIZE, rng);
+        map = createFloorMap();
         relocateBossForCurrentFloor();
         int[] spawn = map.findAnyAccessibleNonBoss();
         party.setPosition(spawn[0], spawn[1]);
@@ -706,6 +869,18 @@ public class LegendsGame {
         LegendsGame.readLineAndClear(in);
     }
 
+    /**
+     * Fresh map for a floor. Maps above Config.MAP_CHUNKED_TILES are generated chunk
+     * by chunk as the party explores instead of all at once.
+     */
+    private WorldMap createFloorMap() {
+        int size = legends.Config.MAP_SIZE;
+        if ((long) size * size > legends.Config.MAP_CHUNKED_TILES) {
+            return WorldMap.chunked(size, size, streams.world().nextLong());
+        }
+        return WorldMap.generateRandom(size, size, streams.world());
+    }
+
     /**
      * Position the boss tile based on the current floor, rotating corners each floor.
      */
@@ -0,0 +1,176 @@
+package legends;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import legends.battle.BattleEngine;
+import legends.battle.BattleSnapshot;
+import legends.battle.CombatState;
+import legends.battle.HeroPolicies;
+import legends.battle.HeroPolicy;
+import legends.battle.MctsHeroPolicy;
+import legends.data.ContentPacks;
+import legends.data.ContentSnapshot;
+import legends.effects.StatusEffect;
+import legends.io.HeadlessIO;
+import legends.io.NullIO;
+import legends.items.Consumable;
+import legends.model.Dragon;
+import legends.model.Exoskeleton;
+import legends.model.Hero;
+import legends.model.Monster;
+import legends.sim.BattleSimulator;
+import legends.sim.Scenario;
+import legends.sim.SimulationStats;
+import legends.skills.DeclarativeSkill;
+import legends.skills.Skill;
+
+public class MctsHeroPolicyTest {
+    public static void main(String[] args) throws Exception {
+        // a snapshot puts back everything a round changes, into the battle or into copies
+        List<Hero> heroes = party();
+        heroes.get(0).addConsumables(new Consumable("Smoke Bomb", 1, 10, Consumable.ConsumeType.STUN_BOMB, 0, true), 2);
+        List<Monster> monsters = new ArrayList<Monster>(Arrays.asList(new Dragon("A", 2), new Exoskeleton("B", 2)));
+        CombatState state = CombatState.attach(heroes, monsters);
+        Random rng = new Random(5);
+        monsters.get(0).planIntent(state, 0, rng);
+        monsters.get(1).addStatus(StatusEffect.Type.BURN, 3, 4);
+        heroes.get(1).spendMp(30);
+        String before = describe(state, heroes, monsters);
+        BattleSnapshot snap = BattleSnapshot.capture(state, heroes, monsters);
+
+        List<Hero> heroCopies = new ArrayList<Hero>();
+        for (Hero h : heroes) heroCopies.add(h.copy());
+        List<Monster> monsterCopies = new ArrayList<Monster>();
+        for (Monster m : monsters) monsterCopies.add(m.copy());
+        CombatState copyState = CombatState.attach(heroCopies, monsterCopies);
+        check(describe(copyState, heroCopies, monsterCopies).equals(before), "copies differ:\n" + before + "\n" + describe(copyState, heroCopies, monsterCopies));
+
+        ContentSnapshot twoSlots = withSecondSlot();
+        for (int i = 0; i < 3; i++) {
+            heroes.get(i).takeDamage(35);
+            heroes.get(i).useHealthPotion();
+            heroes.get(i).startSkillCooldown(twoSlots, 1);
+        }
+        heroes.get(0).useConsumableByIndex(0, monsters.get(1), new NullIO());
+        heroes.get(0).useConsumableByIndex(0, monsters.get(1), new NullIO());
+        monsters.get(0).takeDamage(150);
+        monsters.get(0).planIntent(state, 0, rng);
+        state.addThreat(state.monsterId(1), 2, 99);
+        state.tickStatuses(new NullIO());
+        check(!describe(state, heroes, monsters).equals(before), "round changed nothing");
+        snap.restore(state, heroes, monsters);
+        check(describe(state, heroes, monsters).equals(before), "restore differs:\n" + before + "\n" + describe(state, heroes, monsters));
+        snap.restore(copyState, heroCopies, monsterCopies);
+        check(describe(copyState, heroCopies, monsterCopies).equals(before), "restore into copies differs");
+        state.detach();
+
+        // the search keeps to its time budget
+        MctsHeroPolicy timed = new MctsHeroPolicy(60, 2);
+        try {
+            heroes = party();
+            monsters = new ArrayList<Monster>(Arrays.asList(new Dragon("A", 2), new Dragon("B", 2), new Dragon("C", 2)));
+            state = CombatState.attach(heroes, monsters);
+            for (int i = 0; i < monsters.size(); i++) monsters.get(i).planIntent(state, i, rng);
+            timed.chooseAction(heroes.get(0), heroes, monsters, rng);
+            long start = System.nanoTime();
+            timed.chooseAction(heroes.get(1), heroes, monsters, rng);
+            long ms = (System.nanoTime() - start) / 1000000L;
+            check(ms < 60 + 100, "turn took " + ms + " ms");
+            check(timed.getLastIterations() > 0, "no rollouts played");
+            state.detach();
+        } finally {
+            timed.close();
+        }
+
+        // it plays a hard fight better than the scripted policies
+        Scenario hard = new Scenario() {
+            @Override
+            public List<Hero> createHeroes(Random r) {
+                return new ArrayList<Hero>(Arrays.asList(Hero.createWarrior("W"), Hero.createSorcerer("S")));
+            }
+
+            @Override
+            public List<Monster> createMonsters(List<Hero> hs, Random r) {
+                return new ArrayList<Monster>(Arrays.asList(new Dragon("A", 2), new Exoskeleton("B", 2)));
+            }
+        };
+        int battles = 20;
+        double attack = winRate(hard, HeroPolicies.ALWAYS_ATTACK, battles);
+        double greedy = winRate(hard, HeroPolicies.GREEDY, battles);
+        MctsHeroPolicy search = new MctsHeroPolicy(10000, 1, 60, MctsHeroPolicy.DEFAULT_HORIZON);
+        double mcts;
+        try {
+            mcts = winRate(hard, search, battles);
+        } finally {
+            search.close();
+        }
+        System.out.println("win rates: attack=" + attack + " greedy=" + greedy + " mcts=" + mcts);
+        check(mcts > attack && mcts > greedy, "search did not beat the scripted policies");
+
+        // the battle menu's autopilot option plays a turn
+        heroes = party();
+        monsters = new ArrayList<Monster>(Arrays.asList(new Dragon("A", 1)));
+        HeadlessIO io = new HeadlessIO();
+        io.setDefaultInput("7");
+        check(new BattleEngine(heroes, monsters, new Random(2), io).runBattle(), "autopilot lost to a level 1 dragon");
+
+        System.out.println("MctsHeroPolicy OK");
+    }
+
+    private static double winRate(Scenario scenario, HeroPolicy policy, int battles) {
+        SimulationStats stats = new BattleSimulator(scenario, policy).run(battles, 13L);
+        return stats.getWinRate();
+    }
+
+    // The shipped skills plus a second slot on cooldown for every class
+    private static ContentSnapshot withSecondSlot() {
+        ContentSnapshot shipped = ContentPacks.current();
+        Map<String, Skill[]> bars = new HashMap<String, Skill[]>();
+        for (String heroClass : new String[] { "Warrior", "Sorcerer", "Paladin" }) {
+            bars.put(heroClass, new Skill[] { shipped.getSkill(heroClass),
+                    new DeclarativeSkill("Cleave", 10, 0.5, 0.0, DeclarativeSkill.Target.AOE, 1.0, null, 0, 0, 2) });
+        }
+        return new ContentSnapshot(shipped.getVersion(), bars, shipped.getMonsters(), shipped.getItems(), shipped.getEvents());
+    }
+
+    private static List<Hero> party() {
+        return new ArrayList<Hero>(Arrays.asList(Hero.createWarrior("Aria"), Hero.createSorcerer("Bram"), Hero.createPaladin("Cato")));
+    }
+
+    // Everything a snapshot covers, as text
+    private static String describe(CombatState state, List<Hero> heroes, List<Monster> monsters) {
+        StringBuilder sb = new StringBuilder();
+        for (int id = 0; id < state.size(); id++) {
+            sb.append(id).append(": hp=").append(state.hp(id)).append(" mp=").append(state.mp(id))
+              .append(" burn=").append(state.statuses(id).total(StatusEffect.Type.BURN))
+              .append(" stun=").append(state.statuses(id).has(StatusEffect.Type.STUN));
+            for (int k = 0; k < state.statuses(id).size(); k++) {
+                sb.append(" (").append(state.statuses(id).typeAt(k)).append(' ').append(state.statuses(id).remainingTurnsAt(k)).append(')');
+            }
+            if (!state.isHero(id)) {
+                for (int h = 0; h < state.heroCount(); h++) sb.append(" threat=").append(state.threat(id, h));
+            }
+            sb.append('\n');
+        }
+        for (Hero h : heroes) {
+            sb.append(h.getName()).append(" pots=").append(h.getHealthPotions()).append('/').append(h.getManaPotions())
+              .append(" items=").append(h.getConsumables().isEmpty() ? 0 : h.getConsumables().get(0).getCount())
+              .append(" cd=").append(h.getSkillCooldown(1)).append('\n');
+        }
+        for (Monster m : monsters) {
+            sb.append(m.getName()).append(" intent=").append(m.getIntentMove()).append('>').append(m.getIntentTarget()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
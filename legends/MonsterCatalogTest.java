@@ -0,0 +1,79 @@
+package legends;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import legends.data.MonsterCatalog;
+import legends.data.MonsterTemplate;
+import legends.model.Dragon;
+import legends.model.Hero;
+import legends.model.Monster;
+
+public class MonsterCatalogTest {
+    public static void main(String[] args) throws Exception {
+        // the shipped file holds the two bands of the original roster
+        MonsterCatalog shipped = MonsterCatalog.get();
+        check(shipped.getTemplates().size() == 18, "shipped catalog has " + shipped.getTemplates().size() + " monsters");
+        Random rng = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            check(shipped.pick(2, rng).getLevel() == 1, "level 2 party drew an advanced monster");
+            check(shipped.pick(9, rng).getLevel() == 3, "level 9 party drew a beginner monster");
+            check(shipped.pick("Spirit", 1, rng).getType().equals("Spirit"), "typed pick returned another type");
+        }
+        List<Monster> spawned = Monster.spawnForParty(Arrays.asList(Hero.createWarrior("A"), Hero.createSorcerer("B")), 0, rng);
+        check(spawned.size() == 2 && shipped.getTemplate(spawned.get(0).getName()) != null, "spawn did not use the catalog");
+
+        // weights, bands, stat overrides and bad entries from a content file
+        File f = File.createTempFile("legends-monsters", ".txt");
+        try {
+            String text = "# test pack\n"
+                    + "type=Dragon;name=Common;level=1;weight=6\n"
+                    + "type=Spirit;name=Rare;level=1;weight=1\n"
+                    + "type=Exoskeleton;name=Uncommon;level=1;weight=3\n"
+                    + "type=Golem;name=Unknown Type;level=1\n"
+                    + "type=Dragon;name=Elder;level=5;baseDamage=100;defense=50;dodge=20\n";
+            Files.write(f.toPath(), text.getBytes(StandardCharsets.UTF_8));
+            MonsterCatalog pack = MonsterCatalog.load(f);
+            check(pack.getTemplates().size() == 4 && pack.getTemplate("Unknown Type") == null, "unknown type not skipped");
+            Map<String, Integer> counts = new HashMap<String, Integer>();
+            int draws = 100000;
+            for (int i = 0; i < draws; i++) {
+                String name = pack.pick(4, rng).getName();
+                Integer c = counts.get(name);
+                counts.put(name, c == null ? 1 : c + 1);
+            }
+            checkShare(counts.get("Common"), draws, 0.6);
+            checkShare(counts.get("Uncommon"), draws, 0.3);
+            checkShare(counts.get("Rare"), draws, 0.1);
+            check(pack.pick(5, rng).getName().equals("Elder") && pack.pick(50, rng).getName().equals("Elder"), "top band not used");
+
+            MonsterTemplate elder = pack.getTemplate("Elder");
+            Monster m = elder.create(10);
+            check(m instanceof Dragon && m.getBaseDamage() == 200 && m.getDefense() == 100
+                    && Math.abs(m.getDodgeChance() - 0.20) < 1e-9, "overrides not scaled: " + m);
+            Monster plain = pack.getTemplate("Common").create(4);
+            check(plain.getBaseDamage() == new Dragon("x", 4).getBaseDamage(), "template without stats changed them");
+        } finally {
+            f.delete();
+        }
+
+        System.out.println("MonsterCatalog OK");
+    }
+
+    private static void checkShare(Integer count, int draws, double expected) {
+        double share = count == null ? 0 : (double) count / draws;
+        check(Math.abs(share - expected) < 0.01, "share " + share + " != " + expected);
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
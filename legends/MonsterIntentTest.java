@@ -0,0 +1,118 @@
+package legends;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import legends.battle.CombatState;
+import legends.battle.MonsterPolicies;
+import legends.data.MonsterCatalog;
+import legends.io.HeadlessIO;
+import legends.io.NullIO;
+import legends.model.Dragon;
+import legends.model.FinalBoss;
+import legends.model.Hero;
+import legends.model.Monster;
+
+public class MonsterIntentTest {
+    public static void main(String[] args) throws Exception {
+        // the action a monster performs is the one its preview showed, on the hero it named
+        Random rng = new Random(11);
+        int breaths = 0;
+        for (int round = 0; round < 300; round++) {
+            List<Hero> heroes = party();
+            Monster m = round % 2 == 0 ? new Dragon("Drake", 3) : new FinalBoss("Boss", 3);
+            CombatState state = CombatState.attach(heroes, Arrays.asList(m));
+            m.planIntent(state, 0, rng);
+            String intent = m.describeIntent(heroes);
+            HeadlessIO io = new HeadlessIO();
+            m.performIntent(state, 0, heroes, rng, io);
+            String out = String.join("", io.getOutputs());
+            state.detach();
+            if (intent.startsWith("Fire Breath") || intent.startsWith("Cataclysm")) {
+                breaths++;
+                check(out.contains("all heroes"), "planned " + intent + " but did: " + out);
+            } else {
+                boolean moved = intent.startsWith("Meteor") ? out.contains("Meteor")
+                        : !out.contains("Meteor") && (out.contains("slash") || out.contains("claw"));
+                String target = intent.substring(intent.indexOf("-> ") + 3);
+                check(moved && out.contains(target) && !out.contains("all heroes"),
+                        "planned " + intent + " but did: " + out);
+            }
+        }
+        check(breaths > 0, "no area move planned in 300 rounds");
+
+        // targeting policies over the combat state
+        List<Hero> heroes = party();
+        List<Monster> monsters = new ArrayList<Monster>(Arrays.asList(new Dragon("A", 1), new Dragon("B", 1)));
+        CombatState state = CombatState.attach(heroes, monsters);
+        heroes.get(1).takeDamage(heroes.get(1).getHp() / 2);
+        check(MonsterPolicies.LOWEST_HP.chooseTarget(state, 0, -1, rng) == 1, "lowestHp missed the weakest hero");
+        check(MonsterPolicies.AGGRO.chooseTarget(state, 0, 2, rng) == 2, "aggro dropped a living target");
+        state.addThreat(state.monsterId(1), 2, 40);
+        state.addThreat(state.monsterId(1), 0, 25);
+        check(MonsterPolicies.THREAT.chooseTarget(state, 1, -1, rng) == 2, "threat did not follow the top damage dealer");
+        check(state.threat(state.monsterId(0), 2) == 0, "threat leaked to another monster");
+        heroes.get(2).takeDamage(1000000);
+        check(MonsterPolicies.AGGRO.chooseTarget(state, 0, 2, rng) != 2, "aggro kept a fallen target");
+        check(MonsterPolicies.THREAT.chooseTarget(state, 1, -1, rng) == 0, "threat picked a fallen hero");
+
+        // a target that fell after the intent was committed is replaced on the fly
+        Monster b = monsters.get(1);
+        b.setPolicy(MonsterPolicies.THREAT);
+        b.planIntent(state, 1, rng);
+        check(b.getIntentTarget() == 0, "intent not on the top threat");
+        heroes.get(0).takeDamage(1000000);
+        b.performIntent(state, 1, heroes, rng, new NullIO());
+        check(b.getIntentTarget() == 1 && heroes.get(1).isAlive(), "fallen target not replaced: " + b.getIntentTarget());
+        state.detach();
+
+        // planning a round allocates nothing
+        heroes = party();
+        Monster boss = new FinalBoss("Boss", 5);
+        boss.setPolicy(MonsterPolicies.THREAT);
+        state = CombatState.attach(heroes, Arrays.asList(boss));
+        for (int i = 0; i < 200000; i++) boss.planIntent(state, 0, rng);
+        java.lang.management.ThreadMXBean mx = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (mx instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean tmx = (com.sun.management.ThreadMXBean) mx;
+            long before = tmx.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int i = 0; i < 200000; i++) boss.planIntent(state, 0, rng);
+            long bytes = tmx.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+            check(bytes < 4096, "planning allocated " + bytes + " bytes");
+        }
+        state.detach();
+
+        // policies come from the catalog; unknown ones are skipped with their entry
+        check(MonsterCatalog.get().getTemplate("Ancient Red Dragon").create(3).getPolicy() == MonsterPolicies.THREAT,
+                "shipped dragon not on threat");
+        check(MonsterCatalog.get().getTemplate("Lost Soul").create(1).getPolicy() == MonsterPolicies.RANDOM,
+                "beginner monster not random");
+        File f = File.createTempFile("legends-monsters", ".txt");
+        try {
+            Files.write(f.toPath(), ("type=Spirit;name=Hunter;ai=LOWESTHP\n"
+                    + "type=Spirit;name=Confused;ai=telepathy\n").getBytes(StandardCharsets.UTF_8));
+            MonsterCatalog pack = MonsterCatalog.load(f);
+            check(pack.getTemplates().size() == 1 && pack.getTemplate("Hunter").getPolicy() == MonsterPolicies.LOWEST_HP,
+                    "ai key not read: " + pack.getTemplates());
+        } finally {
+            f.delete();
+        }
+
+        System.out.println("MonsterIntent OK (" + breaths + " area moves)");
+    }
+
+    private static List<Hero> party() {
+        return new ArrayList<Hero>(Arrays.asList(Hero.createWarrior("Aria"), Hero.createSorcerer("Bram"), Hero.createPaladin("Cato")));
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
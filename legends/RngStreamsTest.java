@@ -0,0 +1,83 @@
+package legends;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import legends.battle.HeroPolicies;
+import legends.model.Hero;
+import legends.model.Monster;
+import legends.sim.BattleSimulator;
+import legends.sim.ParallelSimulationRunner;
+import legends.sim.Scenario;
+import legends.util.RngStreams;
+import legends.util.SplitRandom;
+
+public class RngStreamsTest {
+    public static void main(String[] args) {
+        // one seed, one session: every stream replays
+        RngStreams a = new RngStreams(42L);
+        RngStreams b = new RngStreams(42L);
+        check(draws(a.world()).equals(draws(b.world())), "world stream differs for the same seed");
+        check(!draws(a.combat()).equals(draws(a.loot())), "combat and loot streams coincide");
+        check(!draws(new RngStreams(43L).world()).equals(draws(new RngStreams(42L).world())), "seed ignored");
+
+        // drawing from one stream leaves the others where they were
+        a = new RngStreams(7L);
+        b = new RngStreams(7L);
+        for (int i = 0; i < 1000; i++) b.visuals().nextInt(3);
+        check(spawns(a).equals(spawns(b)), "visuals shifted the spawns");
+
+        // seeds a stride apart and split streams do not repeat each other
+        SplitRandom r0 = new SplitRandom(BattleSimulator.battleSeed(1L, 0));
+        SplitRandom r1 = new SplitRandom(BattleSimulator.battleSeed(1L, 1));
+        r0.nextLong();
+        check(!draws(r0).equals(draws(r1)), "neighbouring battle seeds are shifted copies");
+        SplitRandom parent = new SplitRandom(3L);
+        check(!draws(parent.split()).equals(draws(parent)), "split stream repeats its parent");
+
+        // helpers without an RNG parameter draw from the thread's bound streams
+        RngStreams.bind(new RngStreams(11L));
+        String first = Monster.spawnForParty(party(), 0).toString() + ItemLibrary.randomEquipmentForLevel(3, null);
+        RngStreams.bind(new RngStreams(11L));
+        String again = Monster.spawnForParty(party(), 0).toString() + ItemLibrary.randomEquipmentForLevel(3, null);
+        check(first.equals(again), "bound streams not used:\n" + first + "\n" + again);
+
+        // seeded simulations repeat exactly, sequential or parallel
+        BattleSimulator sim = new BattleSimulator(Scenario.party("Warrior", "Sorcerer"), HeroPolicies.GREEDY);
+        String once = sim.run(500, 9L).toString();
+        check(once.equals(sim.run(500, 9L).toString()), "seeded simulation not reproducible");
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            String parallel = new ParallelSimulationRunner(sim, pool, 64).run(500, 9L).toString();
+            check(once.equals(parallel), "parallel run differs:\n" + once + "\n" + parallel);
+        } finally {
+            pool.shutdown();
+        }
+
+        System.out.println("RngStreams OK");
+    }
+
+    private static String draws(java.util.Random rng) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 8; i++) sb.append(rng.nextInt(1000)).append(',');
+        return sb.toString();
+    }
+
+    private static String spawns(RngStreams streams) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20; i++) sb.append(Monster.spawnForParty(party(), 1, streams.spawns())).append('\n');
+        return sb.toString();
+    }
+
+    private static List<Hero> party() {
+        return new ArrayList<Hero>(Arrays.asList(Hero.createWarrior("Aria"), Hero.createSorcerer("Bram"), Hero.createPaladin("Cato")));
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package legends;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import legends.items.Armor;
+import legends.items.Consumable;
+import legends.items.Weapon;
+import legends.model.Hero;
+import legends.party.Party;
+import legends.util.SaveLoad;
+
+public class SaveLoadTest {
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("legends-save");
+        Path save = dir.resolve("slot.sav");
+        Path legacy = dir.resolve("old.json");
+        try {
+            // binary round trip keeps every hero stat, item and unlocked entry
+            Hero warrior = Hero.createWarrior("Gr\u00fcnhilde \"Axe\" \uD83E\uDE93");
+            warrior.gainExp(5);
+            warrior.gainGold(77);
+            warrior.takeDamage(33);
+            warrior.equipWeapon(new Weapon("Long Sword", 3, 400, 120, 2));
+            warrior.equipArmor(new Armor("Chain Mail", 2, 300, 45));
+            warrior.addConsumables(new Consumable("Elixir", 4, 90, Consumable.ConsumeType.HEAL, 250, true), 3);
+            Party party = new Party(Arrays.asList(warrior, Hero.createSorcerer("Mira"), Hero.createPaladin("Oren")));
+            for (int i = 0; i < 500; i++) {
+                party.addWeaponToBackpack(new Weapon("Blade " + i, 1 + i % 6, 100 + i, 20 + i, 1 + i % 2));
+                party.addArmorToBackpack(new Armor("Plate " + i, 1 + i % 6, 120 + i, -i));
+            }
+            party.setPosition(-4, 70000);
+            CatalogState.setUnlockedList(Arrays.asList("Long Sword", "Chain Mail"));
+            SaveLoad.saveGame(party, null, save);
+            CatalogState.setUnlockedList(null);
+
+            Party loaded = SaveLoad.loadGame(null, save);
+            check(loaded.getRow() == -4 && loaded.getCol() == 70000, "position lost");
+            check(loaded.getHeroes().size() == 3, "hero count changed");
+            for (int i = 0; i < 3; i++) {
+                check(describe(party.getHeroes().get(i)).equals(describe(loaded.getHeroes().get(i))),
+                        "hero " + i + " changed: " + describe(loaded.getHeroes().get(i)));
+            }
+            check(loaded.getBackpackWeapons().size() == 500 && loaded.getBackpackArmors().size() == 500, "backpack size changed");
+            Weapon w = loaded.getBackpackWeapons().get(499);
+            check(w.getName().equals("Blade 499") && w.getDamage() == 519 && w.getHands() == 2, "weapon changed");
+            check(loaded.getBackpackArmors().get(499).getReduction() == -499, "armor changed");
+            check(CatalogState.isUnlocked("Long Sword") && CatalogState.isUnlocked("Chain Mail")
+                    && CatalogState.getUnlockedList().size() == 2, "catalog lost");
+
+            // saves from the JSON format still load
+            String json = "{\n  \"row\": 2,\n  \"col\": 3,\n  \"heroes\": [\n"
+                    + "    {\"class\": \"Paladin\", \"name\": \"Old\", \"level\": 4, \"hp\": 350, \"mp\": 90,"
+                    + " \"strength\": 30, \"dexterity\": 20, \"agility\": 15, \"gold\": 999,"
+                    + " \"healthPotions\": 1, \"manaPotions\": 2, \"consumables\": [{\"name\": \"Tonic\","
+                    + " \"type\": \"HEAL\", \"level\": 9, \"count\": 3}]}\n"
+                    + "  ],\n  \"weaponBackpack\": [\n    {\"name\": \"Dagger\", \"level\": 1, \"price\": 50,"
+                    + " \"damage\": 10, \"hands\": 1}\n  ],\n  \"armorBackpack\": [],\n  \"catalogUnlocked\": [\"Dagger\"]\n}";
+            Files.write(legacy, json.getBytes(StandardCharsets.UTF_8));
+            Party old = SaveLoad.loadGame(null, legacy);
+            Hero paladin = old.getHeroes().get(0);
+            check(old.getRow() == 2 && old.getCol() == 3, "legacy position lost");
+            check(paladin.getName().equals("Old") && paladin.getLevel() == 4 && paladin.getHp() == 350
+                    && paladin.getMp() == 90 && paladin.getGold() == 999, "legacy hero changed: " + describe(paladin));
+            check(old.getBackpackWeapons().get(0).getName().equals("Dagger"), "legacy backpack lost");
+            check(paladin.getConsumables().size() == 1 && paladin.getConsumables().get(0).getCount() == 3
+                    && paladin.getConsumables().get(0).getConsumable().getLevel() == 9, "legacy consumables lost");
+            check(CatalogState.isUnlocked("Dagger"), "legacy catalog lost");
+
+            // damaged files fail loudly instead of loading half a party
+            byte[] bytes = Files.readAllBytes(save);
+            Files.write(save, Arrays.copyOf(bytes, bytes.length / 2));
+            try {
+                SaveLoad.loadGame(null, save);
+                check(false, "truncated save loaded");
+            } catch (java.io.IOException expected) {
+                // expected
+            }
+
+            // autosave: moves go to the journal and survive a reload; a torn last entry
+            // only loses that move; a manual save drops the journal it replaced
+            Path auto = dir.resolve("auto.sav");
+            Path journal = dir.resolve("auto.journal");
+            legends.world.WorldMap map = legends.world.WorldMap.generateRandom(8, 8, new java.util.Random(1));
+            legends.util.AutoSave autoSave = new legends.util.AutoSave(auto, 100);
+            try {
+                party.setPosition(1, 1);
+                autoSave.snapshot(party, map, 3);
+                for (int i = 2; i <= 40; i++) {
+                    party.setPosition(i, i + 1);
+                    autoSave.moved(party, map);
+                }
+                autoSave.flush();
+                long journalSize = Files.size(journal);
+                check(Files.size(auto) > journalSize, "moves rewrote the save instead of journaling");
+                Party resumed = SaveLoad.loadGame(null, auto);
+                check(resumed.getRow() == 40 && resumed.getCol() == 41, "journaled move lost");
+                check(resumed.getBackpackWeapons().size() == 500, "snapshot lost the backpack");
+                check(SaveLoad.loadMap(auto) != null, "autosave did not write the map");
+                check(SaveLoad.loadFloor(auto) == 3, "autosave lost the floor");
+
+                byte[] j = Files.readAllBytes(journal);
+                Files.write(journal, Arrays.copyOf(j, j.length - 2));
+                resumed = SaveLoad.loadGame(null, auto);
+                check(resumed.getRow() == 39 && resumed.getCol() == 40, "torn journal entry not dropped cleanly");
+
+                for (int i = 0; i < 70; i++) {
+                    autoSave.moved(party, map);
+                }
+                autoSave.flush();
+                check(Files.size(journal) < journalSize, "journal not restarted after its limit");
+
+                party.setPosition(7, 7);
+                SaveLoad.saveGame(party, map, auto);
+                check(!Files.exists(journal), "manual save kept a stale journal");
+                check(SaveLoad.loadGame(null, auto).getRow() == 7, "manual save not loaded");
+
+                // a map written without its save (a crash between the two) is not paired with the older save
+                check(SaveLoad.loadMap(auto) != null, "manual save did not keep the map");
+                legends.world.WorldMap.generateRandom(8, 8, new java.util.Random(2)).save(dir.resolve("auto.map"));
+                check(SaveLoad.loadMap(auto) == null, "map from another save loaded");
+                SaveLoad.saveGame(party, map, auto);
+                check(SaveLoad.loadMap(auto).getTileType(0, 0) == map.getTileType(0, 0), "resaved map not loaded");
+            } finally {
+                autoSave.close();
+                Files.deleteIfExists(auto);
+                Files.deleteIfExists(journal);
+                Files.deleteIfExists(dir.resolve("auto.map"));
+            }
+
+            // a writer that throws reports it on flush instead of leaving it waiting
+            Path brokenSave = dir.resolve("broken.sav");
+            legends.util.AutoSave broken = new legends.util.AutoSave(brokenSave);
+            try {
+                broken.snapshot(party, new legends.world.WorldMap(2, 2, new byte[4]) {
+                    @Override
+                    public legends.world.WorldMap copy() {
+                        return this;
+                    }
+
+                    @Override
+                    public void save(Path file) {
+                        throw new IllegalStateException("disk on fire");
+                    }
+                }, 1);
+                try {
+                    broken.flush();
+                    check(false, "writer failure not reported");
+                } catch (java.io.IOException expected) {
+                    check(expected.getCause() instanceof IllegalStateException, "wrong failure: " + expected);
+                }
+            } finally {
+                try {
+                    broken.close();
+                } catch (java.io.IOException expected) {
+                    // the same failure again
+                }
+                Files.deleteIfExists(brokenSave);
+                Files.deleteIfExists(dir.resolve("broken.journal"));
+            }
+
+            // save slots: the menu lists every slot from the index alone, and a slot's
+            // save is read (and checked against the index) only when it is loaded
+            Path slotDir = dir.resolve("slots");
+            legends.util.SaveSlots store = new legends.util.SaveSlots(slotDir);
+            Party small = new Party(Arrays.asList(Hero.createWarrior("A"), Hero.createSorcerer("B")));
+            small.getHeroes().get(1).gainExp(10);
+            for (int i = 1; i <= 300; i++) {
+                small.setPosition(i % 8, 0);
+                store.save(i, small, null, 1 + i % 4);
+            }
+            store.save(7, party, null, 9);
+            Files.delete(slotDir.resolve("slot-200.sav"));
+            byte[] damaged = Files.readAllBytes(slotDir.resolve("slot-100.sav"));
+            damaged[damaged.length - 1] ^= 1;
+            Files.write(slotDir.resolve("slot-100.sav"), damaged);
+            List<legends.util.SaveSlots.Slot> listed = new legends.util.SaveSlots(slotDir).list();
+            check(listed.size() == 300, "slot index lost entries: " + listed.size());
+            legends.util.SaveSlots.Slot s7 = listed.get(6);
+            check(s7.getNumber() == 7 && s7.getFloor() == 9 && s7.getLevels().length == 3, "slot 7 summary wrong");
+            legends.util.SaveSlots.Slot s9 = listed.get(8);
+            check(s9.getFloor() == 2 && s9.getLevels()[0] == 1 && s9.getLevels()[1] == small.getHeroes().get(1).getLevel(),
+                    "slot 9 summary wrong: " + s9.describe());
+            store = new legends.util.SaveSlots(slotDir);
+            check(store.load(9, null).getRow() == 1, "slot 9 loaded the wrong save");
+            check(store.load(7, null).getBackpackWeapons().size() == 500, "slot 7 lost the backpack");
+            check(store.load(301, null) == null, "empty slot loaded");
+            for (int bad : new int[] { 100, 200 }) {
+                try {
+                    store.load(bad, null);
+                    check(false, "damaged slot " + bad + " loaded");
+                } catch (java.io.IOException expected) {
+                    // expected
+                }
+            }
+            // a save into a slot that cannot update the index leaves a slot that still loads
+            Path blocker = slotDir.resolve("slots.idx.tmp");
+            Files.createDirectories(blocker.resolve("busy"));
+            try {
+                store.save(9, party, null, 5);
+                check(false, "save went through a blocked index");
+            } catch (java.io.IOException expected) {
+                // expected
+            }
+            Files.delete(blocker.resolve("busy"));
+            Files.delete(blocker);
+            store = new legends.util.SaveSlots(slotDir);
+            check(store.load(9, null).getHeroes().size() == 2 && store.loadFloor(9) == 2, "interrupted save lost the old one");
+            store.save(9, party, null, 5);
+            check(store.load(9, null).getHeroes().size() == 3 && store.loadFloor(9) == 5, "slot not saved after the interruption");
+            store.delete(200);
+            check(new legends.util.SaveSlots(slotDir).list().size() == 299, "deleted slot still listed");
+            java.nio.file.DirectoryStream<Path> slotFiles = Files.newDirectoryStream(slotDir);
+            try {
+                for (Path p : slotFiles) {
+                    Files.delete(p);
+                }
+            } finally {
+                slotFiles.close();
+            }
+            Files.delete(slotDir);
+
+            System.out.println("SaveLoad, autosave and slots OK (" + bytes.length + " bytes)");
+        } finally {
+            CatalogState.setUnlockedList(null);
+            Files.deleteIfExists(save);
+            Files.deleteIfExists(legacy);
+            Files.deleteIfExists(dir.resolve("slot.map"));
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static String describe(Hero h) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(h.getClass().getSimpleName()).append(' ').append(h.getName())
+          .append(" L").append(h.getLevel()).append(" xp").append(h.getExp())
+          .append(" hp").append(h.getHp()).append(" mp").append(h.getMp()).append('/').append(h.getMaxMp())
+          .append(" s").append(h.getStrength()).append(" d").append(h.getDexterity()).append(" a").append(h.getAgility())
+          .append(" g").append(h.getGold()).append(" p").append(h.getHealthPotions()).append('/').append(h.getManaPotions());
+        if (h.getEquippedWeapon() != null) sb.append(" w=").append(h.getEquippedWeapon().getName());
+        if (h.getEquippedArmor() != null) sb.append(" a=").append(h.getEquippedArmor().getName());
+        List<legends.items.ConsumableStack> stacks = h.getConsumables();
+        for (legends.items.ConsumableStack st : stacks) {
+            Consumable c = st.getConsumable();
+            sb.append(" c=").append(c.getName()).append('x').append(st.getCount()).append('/').append(c.getPotency())
+              .append('/').append(c.getPrice()).append('/').append(c.isUsableInBattle());
+        }
+        return sb.toString();
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
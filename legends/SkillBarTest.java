@@ -0,0 +1,114 @@
+package legends;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import legends.battle.BattleEngine;
+import legends.data.ContentPacks;
+import legends.data.ContentSnapshot;
+import legends.io.HeadlessIO;
+import legends.model.Dragon;
+import legends.model.Hero;
+import legends.model.Monster;
+import legends.skills.DeclarativeSkill;
+import legends.skills.DefaultHeroSkill;
+import legends.skills.Skill;
+import legends.skills.SkillRegistry;
+import legends.util.JsonReader;
+
+public class SkillBarTest {
+    // A Warrior bar with a second, AOE skill on a three-round cooldown
+    private static final String SKILLS = "["
+            + "{\"class\": \"Warrior\", \"name\": \"Power Strike\", \"mpCost\": 20, \"strengthMultiplier\": 1.2},"
+            + "{\"class\": \"Warrior\", \"slot\": 1, \"name\": \"Whirlwind\", \"mpCost\": 35,"
+            + " \"strengthMultiplier\": 0.7, \"target\": \"AOE\", \"chance\": 1.0, \"cooldown\": 3}"
+            + "]";
+
+    public static void main(String[] args) throws IOException {
+        // the shipped bars hold one class skill each
+        ContentSnapshot shipped = ContentPacks.current();
+        Hero w = Hero.createWarrior("W");
+        check(w.getSkillSlots(shipped) == 1 && w.getSkill(shipped).getName().equals("Power Strike"), "shipped skill bar");
+
+        // a skills file puts skills in the slot it names
+        Map<String, Skill[]> bars = new HashMap<String, Skill[]>();
+        check(SkillRegistry.readSkillBars(new JsonReader(new StringReader(SKILLS)), bars) == 2, "fixture skills not read");
+        ContentSnapshot fixture = new ContentSnapshot(shipped.getVersion(), bars, shipped.getMonsters(),
+                shipped.getItems(), shipped.getEvents());
+        check(w.getSkillSlots(fixture) == 2 && w.getSkill(fixture, 1).getName().equals("Whirlwind")
+                && w.getSkill(fixture, 1).getCooldown() == 3, "fixture skill bar");
+        // resolved once per snapshot: the same objects come back
+        Skill first = w.getSkill(fixture);
+        for (int i = 0; i < 1000; i++) {
+            check(w.getSkill(fixture) == first, "skill resolved again");
+        }
+        // a snapshot with the same version number is still a different snapshot
+        check(w.getSkillSlots(shipped) == 1 && w.getSkillSlots(fixture) == 2, "bar kept across equal versions");
+
+        // a new snapshot rebinds the bar; a class without skills keeps one fallback skill
+        Map<String, Skill[]> bashOnly = new HashMap<String, Skill[]>();
+        bashOnly.put("Warrior", new Skill[] { new DeclarativeSkill("Bash", 5, 1.0, 0.0, DeclarativeSkill.Target.SINGLE, 1.0, null, 0, 0) });
+        ContentSnapshot next = new ContentSnapshot(shipped.getVersion() + 1, bashOnly, shipped.getMonsters(),
+                shipped.getItems(), shipped.getEvents());
+        check(w.getSkill(next).getName().equals("Bash") && w.getSkillSlots(next) == 1, "bar not rebound");
+        Hero p = Hero.createPaladin("P");
+        Skill fallback = p.getSkill(next);
+        check(fallback instanceof DefaultHeroSkill && p.getSkill(next) == fallback, "fallback skill rebuilt");
+
+        // cooldowns count whole rounds after the one the skill was used in
+        w.getSkill(fixture);
+        w.startSkillCooldown(fixture, 1);
+        check(!w.isSkillReady(1) && w.isSkillReady(0), "cooldown not started");
+        for (int round = 0; round < 3; round++) {
+            w.tickSkillCooldowns();
+            check(!w.isSkillReady(1), "ready after " + (round + 1) + " rounds");
+        }
+        w.tickSkillCooldowns();
+        check(w.isSkillReady(1), "still cooling down");
+
+        // in battle: Whirlwind twice in a row is refused, then the menu goes on
+        HeadlessIO io = new HeadlessIO();
+        io.addInput("2");
+        io.addInput("2");
+        io.addInput("2");
+        io.addInput("2");
+        io.setDefaultInput("1");
+        Hero tank = Hero.createWarrior("Tank");
+        List<Hero> heroes = new ArrayList<Hero>();
+        heroes.add(tank);
+        List<Monster> monsters = new ArrayList<Monster>();
+        for (int i = 0; i < 3; i++) {
+            monsters.add(new Dragon("Dummy " + i, 1, 1, 0, 0));
+        }
+        ContentPacks.publish(fixture);
+        try {
+            BattleEngine engine = new BattleEngine(heroes, monsters, new Random(1), io);
+            engine.setMaxRounds(3);
+            engine.runBattle();
+        } finally {
+            ContentPacks.publish(shipped);
+        }
+        StringBuilder out = new StringBuilder();
+        for (String s : io.getOutputs()) out.append(s);
+        int total = out.indexOf("Whirlwind (AOE) total damage");
+        check(total >= 0, "Whirlwind not cast");
+        // each hit on one line, then the total, then every monster still standing
+        int hit = out.indexOf("Tank used Whirlwind on Dummy 2 for ");
+        check(hit >= 0 && hit < total && out.indexOf("    Dummy 0 ", total) > total && out.indexOf("    Dummy 2 ", total) > total,
+                "area skill text out of order:\n" + out);
+        check(out.indexOf("Whirlwind is recharging") >= 0, "cooldown not enforced");
+
+        System.out.println("SkillBar OK");
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package legends;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import legends.battle.CombatState;
+import legends.effects.StatusEffect;
+import legends.io.HeadlessIO;
+import legends.model.Dragon;
+import legends.model.Hero;
+import legends.model.Monster;
+import legends.skills.DeclarativeSkill;
+import legends.skills.SkillProgram;
+
+public class SkillProgramTest {
+    public static void main(String[] args) {
+        // a batched cast matches the per-target path draw for draw
+        DeclarativeSkill nova = new DeclarativeSkill("Nova", 10, 0.5, 0.5, DeclarativeSkill.Target.AOE, 0.7,
+                StatusEffect.Type.BURN, 2, 3);
+        for (long seed = 1; seed <= 20; seed++) {
+            List<Monster> expected = monsters(300);
+            Hero a = Hero.createSorcerer("A");
+            int expectedTotal = nova.applyToTargets(a, expected, new Random(seed), new SilentIO());
+
+            List<Monster> actual = monsters(300);
+            Hero b = Hero.createSorcerer("B");
+            CombatState state = CombatState.attach(Collections.<Hero>emptyList(), actual);
+            SkillProgram.Batch batch = new SkillProgram.Batch();
+            for (int i = 0; i < actual.size(); i++) batch.add(state.monsterId(i));
+            int total = nova.getProgram().cast(b, state, batch, new Random(seed));
+            state.detach();
+
+            check(total == expectedTotal && b.getMp() == a.getMp(), "seed " + seed + ": " + total + " != " + expectedTotal);
+            int dodged = 0;
+            int failed = 0;
+            for (int i = 0; i < actual.size(); i++) {
+                Monster x = expected.get(i);
+                Monster y = actual.get(i);
+                check(x.getHp() == y.getHp() && x.hasStatus(StatusEffect.Type.BURN) == y.hasStatus(StatusEffect.Type.BURN),
+                        "seed " + seed + ": target " + i + " differs");
+                if (batch.outcome(i) == SkillProgram.DODGED) dodged++;
+                if (batch.outcome(i) == SkillProgram.FAILED) failed++;
+            }
+            check(dodged > 0 && failed > 0, "gates never closed");
+        }
+
+        // a single-target cast costs nothing when dodged, and fails without MP
+        DeclarativeSkill strike = new DeclarativeSkill("Strike", 20, 1.0, 0.0, DeclarativeSkill.Target.SINGLE, 1.0,
+                null, 0, 0);
+        Hero h = Hero.createWarrior("W");
+        List<Monster> one = new ArrayList<Monster>();
+        one.add(new Dragon("Slippery", 1, 10, 0, 95));
+        CombatState state = CombatState.attach(Collections.<Hero>emptyList(), one);
+        SkillProgram.Batch batch = new SkillProgram.Batch();
+        batch.add(state.monsterId(0));
+        Random rng = new Random(5);
+        int mp = h.getMp();
+        int casts = 0;
+        while (h.getMp() >= 20 && casts < 1000) {
+            int dealt = strike.getProgram().cast(h, state, batch, rng);
+            check(dealt == 0 ? batch.outcome(0) == SkillProgram.DODGED && h.getMp() == mp : h.getMp() == mp - 20,
+                    "MP charged wrongly");
+            mp = h.getMp();
+            casts++;
+        }
+        check(casts > 1, "never dodged");
+        state.detach();
+        one.set(0, new Dragon("Steady", 1, 10, 0, 0));
+        state = CombatState.attach(Collections.<Hero>emptyList(), one);
+        check(strike.getProgram().cast(h, state, batch, rng) == SkillProgram.NOT_ENOUGH_MP
+                && one.get(0).getHp() == one.get(0).getMaxHp(), "cast without MP");
+        state.detach();
+
+        System.out.println("SkillProgram OK");
+    }
+
+    private static List<Monster> monsters(int n) {
+        List<Monster> out = new ArrayList<Monster>(n);
+        for (int i = 0; i < n; i++) {
+            out.add(new Dragon("D" + i, 1 + i % 5, 10, i % 40, i % 30));
+        }
+        return out;
+    }
+
+    private static final class SilentIO extends HeadlessIO {
+        @Override
+        public boolean isSilent() {
+            return true;
+        }
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package legends;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import legends.effects.StatusEffect;
+import legends.effects.StatusEffects;
+
+public class StatusEffectsTest {
+    private static final StatusEffect.Type[] TYPES = StatusEffect.Type.values();
+
+    public static void main(String[] args) {
+        // re-applying an active type stacks a second effect, as the list did
+        StatusEffects set = new StatusEffects();
+        List<StatusEffect> list = new ArrayList<StatusEffect>();
+        apply(set, list, StatusEffect.Type.POISON, 3, 4);
+        tick(set, list);
+        apply(set, list, StatusEffect.Type.POISON, 3, 5);
+        compare(set, list, "refresh");
+        check(set.total(StatusEffect.Type.POISON) == 9 && set.size() == 2, "refresh did not stack");
+        tick(set, list);
+        tick(set, list);
+        compare(set, list, "first poison expired");
+        check(set.total(StatusEffect.Type.POISON) == 5, "wrong poison expired");
+
+        // effects running out on the same turn leave together, the rest keep their order
+        set = new StatusEffects();
+        list = new ArrayList<StatusEffect>();
+        for (int i = 0; i < 9; i++) {
+            apply(set, list, TYPES[i % TYPES.length], 2 + i % 2, i);
+        }
+        compare(set, list, "equal expiry");
+        tick(set, list);
+        tick(set, list);
+        compare(set, list, "equal expiry, after two ticks");
+        check(set.size() == 4, "effects due on turn 2 not all removed: " + set.size());
+
+        // dropping a type that is not at the top of the heap keeps it ordered
+        set = new StatusEffects();
+        list = new ArrayList<StatusEffect>();
+        apply(set, list, StatusEffect.Type.BURN, 1, 2);
+        apply(set, list, StatusEffect.Type.SLOW, 6, 1);
+        apply(set, list, StatusEffect.Type.POISON, 4, 3);
+        apply(set, list, StatusEffect.Type.STUN, 2, 0);
+        apply(set, list, StatusEffect.Type.POISON, 5, 7);
+        apply(set, list, StatusEffect.Type.BURN, 3, 1);
+        remove(set, list, StatusEffect.Type.POISON);
+        compare(set, list, "remove");
+        for (int round = 0; round < 7; round++) {
+            tick(set, list);
+            compare(set, list, "remove, round " + round);
+        }
+        check(set.isEmpty(), "effects outlived their turns");
+
+        // random applications, removals and ticks match the list step for step
+        Random rng = new Random(8);
+        for (int trial = 0; trial < 200; trial++) {
+            set = new StatusEffects();
+            list = new ArrayList<StatusEffect>();
+            for (int step = 0; step < 60; step++) {
+                int op = rng.nextInt(10);
+                if (op < 5) {
+                    apply(set, list, TYPES[rng.nextInt(TYPES.length)], rng.nextInt(5), rng.nextInt(10));
+                } else if (op < 6) {
+                    remove(set, list, TYPES[rng.nextInt(TYPES.length)]);
+                } else if (op < 7 && rng.nextInt(10) == 0) {
+                    set.clear();
+                    list.clear();
+                } else {
+                    tick(set, list);
+                }
+                compare(set, list, "trial " + trial + " step " + step);
+            }
+        }
+
+        System.out.println("StatusEffects OK");
+    }
+
+    private static void apply(StatusEffects set, List<StatusEffect> list, StatusEffect.Type type, int turns, int potency) {
+        set.add(type, turns, potency);
+        list.add(new StatusEffect(type, turns, potency));
+    }
+
+    private static void remove(StatusEffects set, List<StatusEffect> list, StatusEffect.Type type) {
+        set.remove(type);
+        for (Iterator<StatusEffect> it = list.iterator(); it.hasNext(); ) {
+            if (it.next().getType() == type) it.remove();
+        }
+    }
+
+    // The list's round: every effect loses a turn, expired ones are dropped
+    private static void tick(StatusEffects set, List<StatusEffect> list) {
+        set.tick();
+        for (Iterator<StatusEffect> it = list.iterator(); it.hasNext(); ) {
+            StatusEffect s = it.next();
+            s.tick();
+            if (s.isExpired()) it.remove();
+        }
+    }
+
+    private static void compare(StatusEffects set, List<StatusEffect> list, String label) {
+        check(set.size() == list.size() && set.isEmpty() == list.isEmpty(),
+                label + ": " + set.size() + " effects, list has " + list.size());
+        int damage = 0;
+        for (StatusEffect.Type t : TYPES) {
+            boolean has = false;
+            int total = 0;
+            for (StatusEffect s : list) {
+                if (s.getType() == t) {
+                    has = true;
+                    total += s.getPotency();
+                }
+            }
+            check(set.has(t) == has && set.total(t) == total, label + ": " + t + " differs");
+            if (t == StatusEffect.Type.POISON || t == StatusEffect.Type.BURN) damage += total;
+        }
+        check(set.damagePerTick() == damage, label + ": damage per tick differs");
+        for (int i = 0; i < list.size(); i++) {
+            StatusEffect s = list.get(i);
+            check(set.typeAt(i) == s.getType() && set.remainingTurnsAt(i) == s.getRemainingTurns()
+                    && set.potencyAt(i) == s.getPotency(), label + ": effect " + i + " differs");
+        }
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
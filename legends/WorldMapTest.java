@@ -0,0 +1,347 @@
+package legends;
+
+import java.util.Random;
+
+import legends.world.ChunkedWorld;
+import legends.world.MappedTileStore;
+import legends.world.PathFinder;
+import legends.world.TileType;
+import legends.world.WorldMap;
+
+public class WorldMapTest {
+    public static void main(String[] args) {
+        // boss distances: the shared BFS layer matches a search from the boss, also after edits
+        for (int seed = 0; seed < 100; seed++) {
+            WorldMap map = WorldMap.generateRandom(8 + seed % 9, 8 + seed % 13, new Random(seed));
+            Random edits = new Random(seed);
+            for (int step = 0; step < 12; step++) {
+                int r = edits.nextInt(map.getRows());
+                int c = edits.nextInt(map.getCols());
+                map.setTileTypeAt(r, c, step % 4 == 0 ? TileType.BOSS : step % 4 == 1 ? TileType.INACCESSIBLE : TileType.COMMON);
+                checkBossDistances(map, "seed " + seed + " step " + step);
+            }
+            int[] boss = map.findBossPosition();
+            map.setTileTypeAt(boss[0], boss[1], TileType.MARKET);
+            check(map.findBossPosition()[0] == -1, "seed " + seed + ": overwritten boss still tracked");
+            checkBossDistances(map, "seed " + seed + " without boss");
+        }
+        // a grid built with two bosses falls back to the other one when the first is overwritten
+        TileType[][] twoBosses = new TileType[5][5];
+        for (TileType[] row : twoBosses) {
+            java.util.Arrays.fill(row, TileType.COMMON);
+        }
+        twoBosses[1][1] = TileType.BOSS;
+        twoBosses[3][3] = TileType.BOSS;
+        WorldMap two = new WorldMap(5, 5, twoBosses);
+        check(two.findBossPosition()[0] == 1, "first boss not found");
+        two.setTileTypeAt(1, 1, TileType.COMMON);
+        check(java.util.Arrays.equals(two.findBossPosition(), new int[] { 3, 3 }) && two.getBossDistance(0, 0) == 6,
+                "second boss not found");
+
+        // generation: maps come out connected, and maps that already were come out untouched
+        int[][] sizes = { { 8, 8 }, { 3, 3 }, { 4, 9 }, { 16, 16 }, { 25, 40 } };
+        for (int[] size : sizes) {
+            for (int seed = 0; seed < 200; seed++) {
+                String label = size[0] + "x" + size[1] + " seed " + seed;
+                WorldMap map = WorldMap.generateRandom(size[0], size[1], new Random(seed));
+                WorldMap raw = uncarved(size[0], size[1], new Random(seed));
+                checkConnected(map, 0, 0, size[0], size[1], label);
+                byte[] tiles = snapshot(map, 0, 0, size[0], size[1]);
+                byte[] before = snapshot(raw, 0, 0, size[0], size[1]);
+                if (unreached(raw, 0, 0, size[0], size[1]) == 0) {
+                    check(java.util.Arrays.equals(tiles, before), label + ": connected map was changed");
+                }
+                for (int i = 0; i < tiles.length; i++) {
+                    check(before[i] == TileType.INACCESSIBLE.ordinal() || tiles[i] == before[i],
+                            label + ": carving changed an open tile");
+                }
+            }
+        }
+
+        // generated maps: every accessible tile reachable from every other
+        for (int seed = 0; seed < 200; seed++) {
+            WorldMap map = WorldMap.generateRandom(9 + seed % 23, 7 + seed % 31, new Random(seed));
+            checkConnected(map, 0, 0, map.getRows(), map.getCols(), "seed " + seed);
+        }
+
+        // chunked maps: same tiles after eviction, bounded memory, connected across chunks
+        ChunkedWorld world = new ChunkedWorld(1000, 700, 99L, 4);
+        WorldMap chunked = new WorldMap(world);
+        byte[] first = snapshot(chunked, 0, 0, 200, 200);
+        for (int r = 0; r < 1000; r += 50) {
+            chunked.getTileType(r, 650);
+        }
+        check(world.getLoadedChunks() <= 4, "LRU cap exceeded: " + world.getLoadedChunks() + " chunks loaded");
+        check(java.util.Arrays.equals(first, snapshot(chunked, 0, 0, 200, 200)), "chunk regenerated differently");
+        check(java.util.Arrays.equals(first, snapshot(WorldMap.chunked(1000, 700, 99L), 0, 0, 200, 200)),
+                "chunked map not deterministic for its seed");
+        checkConnected(WorldMap.chunked(1000, 700, 99L), 0, 0, 1000, 700, "chunked");
+
+        // edits survive eviction; boss tracking and nearest lookup need no full scan
+        WorldMap far = WorldMap.chunked(ChunkedWorld.MAX_SIZE, ChunkedWorld.MAX_SIZE, 5L);
+        int[] corner = far.findNearestAccessibleTo(far.getRows() - 1, far.getCols() - 1);
+        far.moveBossTo(corner[0], corner[1]);
+        for (int c = 0; c < 64 * 400; c += 64) {
+            far.getTileType(0, c);
+        }
+        check(far.getTileType(corner[0], corner[1]) == TileType.BOSS, "boss tile lost after eviction");
+        check(far.getBossDistance(corner[0], corner[1]) == 0, "boss distance not 0 on the boss tile");
+        check(far.getBossDistance(0, 0) == -1, "far tile should report no distance");
+
+        // map files: round trip, private edits, overlays
+        try {
+            java.nio.file.Path file = java.nio.file.Files.createTempFile("legends-map", ".map");
+            try {
+                WorldMap saved = WorldMap.generateRandom(301, 203, new Random(3));
+                saved.moveBossTo(5, 7);
+                saved.save(file);
+                WorldMap loaded = WorldMap.load(file);
+                check(java.util.Arrays.equals(snapshot(saved, 0, 0, 301, 203), snapshot(loaded, 0, 0, 301, 203)),
+                        "map file round trip changed tiles");
+                check(loaded.findBossPosition()[0] == 5 && loaded.findBossPosition()[1] == 7, "boss position lost");
+                TileType edit = saved.getTileType(300, 202) == TileType.MARKET ? TileType.COMMON : TileType.MARKET;
+                loaded.setTileTypeAt(300, 202, edit);
+                check(loaded.getTileType(300, 202) == edit, "edit on loaded map not visible");
+                check(WorldMap.load(file).getTileType(300, 202) == saved.getTileType(300, 202),
+                        "edit on loaded map leaked into the file");
+                // a loaded map keeps nothing open on its file, so it can be saved over it
+                loaded.save(file);
+                check(WorldMap.load(file).getTileType(300, 202) == edit, "save over the loaded file lost the edit");
+
+                MappedTileStore store = MappedTileStore.create(file, 70, 90, 2);
+                store.set(69, 89, (byte) TileType.BOSS.ordinal());
+                store.setOverlay(1, 69, 89, true);
+                store.close();
+                store = MappedTileStore.open(file, java.nio.channels.FileChannel.MapMode.READ_ONLY);
+                check(store.get(69, 89) == TileType.BOSS.ordinal() && store.get(69, 88) == 0, "tile bits mixed up");
+                check(store.getOverlay(1, 69, 89) && !store.getOverlay(0, 69, 89) && !store.getOverlay(1, 69, 88),
+                        "overlay bits mixed up");
+                store.close();
+
+                // maps too big for the heap stay mapped and will not replace their own file
+                MappedTileStore.create(file, 9000, 8000, 0).close();
+                WorldMap huge = WorldMap.load(file);
+                check(huge.getRows() == 9000 && huge.getTileType(8999, 7999) == TileType.INACCESSIBLE, "large map not mapped");
+                boolean refused = false;
+                try {
+                    huge.save(file);
+                } catch (java.io.IOException e) {
+                    refused = true;
+                }
+                check(refused, "mapped map saved over the file it is mapped from");
+            } finally {
+                java.nio.file.Files.deleteIfExists(file);
+            }
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException("map file I/O failed", e);
+        }
+
+        // type lookups: indexed answers match a brute-force scan, also after edits
+        for (int seed = 0; seed < 60; seed++) {
+            WorldMap map = WorldMap.generateRandom(5 + seed % 41, 3 + seed % 67, new Random(seed));
+            Random edits = new Random(seed);
+            for (int step = 0; step < 40; step++) {
+                int r = edits.nextInt(map.getRows());
+                int c = edits.nextInt(map.getCols());
+                if (step % 7 == 0) {
+                    map.moveBossTo(r, c);
+                } else {
+                    map.setTileTypeAt(r, c, step % 3 == 0 ? TileType.MARKET : TileType.INACCESSIBLE);
+                }
+                int tr = edits.nextInt(map.getRows() + 20) - 10;
+                int tc = edits.nextInt(map.getCols() + 20) - 10;
+                String label = "seed " + seed + " step " + step;
+                check(java.util.Arrays.equals(map.findNearest(tr, tc, TileType.MARKET),
+                        bruteNearest(map, tr, tc, TileType.MARKET)), label + ": nearest market");
+                int[] nearest = map.findNearestAccessibleTo(tr, tc);
+                int[] expected = bruteNearest(map, tr, tc, null);
+                check(expected[0] < 0 || java.util.Arrays.equals(nearest, expected), label + ": nearest accessible");
+                int[] boss = map.findBossPosition();
+                check(java.util.Arrays.equals(boss, bruteNearest(map, 0, 0, TileType.BOSS)), label + ": boss lost");
+                int[] spawn = bruteSpawn(map);
+                check(spawn == null || java.util.Arrays.equals(map.findAnyAccessibleNonBoss(), spawn),
+                        label + ": spawn is not the first open tile");
+            }
+        }
+
+        // routes: A* and jump point search agree on length and only use open tiles
+        PathFinder finder = new PathFinder();
+        Random rng = new Random(17);
+        for (int seed = 0; seed < 100; seed++) {
+            WorldMap map = WorldMap.generateRandom(40, 30, new Random(seed));
+            int[] from = map.findNearestAccessibleTo(rng.nextInt(40), rng.nextInt(30));
+            int[] to = map.findNearestAccessibleTo(rng.nextInt(40), rng.nextInt(30));
+            int[] astar = finder.findPath(map, from[0], from[1], to[0], to[1], PathFinder.Algorithm.A_STAR);
+            int[] jps = finder.findPath(map, from[0], from[1], to[0], to[1], PathFinder.Algorithm.JUMP_POINT);
+            // a target walled in behind the boss has no route; both must say so
+            check(astar == null ? jps == null : jps != null && astar.length == jps.length,
+                    "seed " + seed + ": routes differ between A* and jump point search");
+            if (jps != null) {
+                checkRoute(map, from, jps, to[0], to[1], "seed " + seed);
+            }
+            int[] market = finder.findPathToNearest(map, from[0], from[1], TileType.MARKET);
+            int[] end = checkRoute(map, from, market, -1, -1, "seed " + seed + " market");
+            check(map.getTileType(end[0], end[1]) == TileType.MARKET, "nearest market route ends off market");
+        }
+        int[] home = far.findNearestAccessibleTo(far.getRows() - 300, far.getCols() - 300);
+        checkRoute(far, home, finder.findPath(far, home[0], home[1], corner[0], corner[1]), corner[0], corner[1], "chunked");
+
+        System.out.println("WorldMap generation OK (boss at " + corner[0] + "," + corner[1] + ")");
+    }
+
+    // Walk a route, checking each step; returns where it ends
+    private static int[] checkRoute(WorldMap map, int[] from, int[] route, int toRow, int toCol, String label) {
+        check(route != null, label + ": no route");
+        int r = from[0];
+        int c = from[1];
+        for (int i = 0; i < route.length; i++) {
+            r += PathFinder.rowDelta(route[i]);
+            c += PathFinder.colDelta(route[i]);
+            TileType t = map.getTileType(r, c);
+            check(t != TileType.INACCESSIBLE && (t != TileType.BOSS || i == route.length - 1),
+                    label + ": route enters " + t + " at " + r + "," + c);
+        }
+        check(toRow < 0 || (r == toRow && c == toCol), label + ": route ends at " + r + "," + c);
+        return new int[] { r, c };
+    }
+
+    // Closest tile of the given type (any accessible one if null) by Manhattan
+    // distance, ties to row-major order; {-1,-1} if there is none
+    private static int[] bruteNearest(WorldMap map, int tr, int tc, TileType type) {
+        int[] best = { -1, -1 };
+        long bestKey = Long.MAX_VALUE;
+        for (int r = 0; r < map.getRows(); r++) {
+            for (int c = 0; c < map.getCols(); c++) {
+                TileType t = map.getTileType(r, c);
+                boolean wanted = type == null ? t != TileType.INACCESSIBLE : t == type;
+                long key = (Math.abs(r - tr) + Math.abs(c - tc)) * 1000000L + r * 1000L + c;
+                if (wanted && key < bestKey) {
+                    bestKey = key;
+                    best = new int[] { r, c };
+                }
+            }
+        }
+        return best;
+    }
+
+    // First tile in row-major order that is neither a wall nor the boss
+    private static int[] bruteSpawn(WorldMap map) {
+        for (int r = 0; r < map.getRows(); r++) {
+            for (int c = 0; c < map.getCols(); c++) {
+                TileType t = map.getTileType(r, c);
+                if (t != TileType.INACCESSIBLE && t != TileType.BOSS) {
+                    return new int[] { r, c };
+                }
+            }
+        }
+        return null;
+    }
+
+    private static byte[] snapshot(WorldMap map, int r0, int c0, int rows, int cols) {
+        byte[] out = new byte[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                out[r * cols + c] = (byte) map.getTileType(r0 + r, c0 + c).ordinal();
+            }
+        }
+        return out;
+    }
+
+    // The map generateRandom draws before it carves: same fill and boss placement
+    private static WorldMap uncarved(int rows, int cols, Random rng) {
+        TileType[][] g = new TileType[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                double x = rng.nextDouble();
+                g[r][c] = x < 0.18 ? TileType.INACCESSIBLE : x < 0.38 ? TileType.MARKET : TileType.COMMON;
+            }
+        }
+        if (rows > 3 && cols > 3) {
+            g[Math.max(1, rows - 2)][Math.max(1, cols - 2)] = TileType.BOSS;
+        } else {
+            g[rows - 1][cols - 1] = TileType.BOSS;
+        }
+        return new WorldMap(rows, cols, g);
+    }
+
+    // A single boss at most, found where it is, and distances equal to a BFS from it
+    private static void checkBossDistances(WorldMap map, String label) {
+        int rows = map.getRows();
+        int cols = map.getCols();
+        int[] boss = { -1, -1 };
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (map.getTileType(r, c) == TileType.BOSS) {
+                    check(boss[0] < 0, label + ": two bosses");
+                    boss = new int[] { r, c };
+                }
+            }
+        }
+        check(java.util.Arrays.equals(map.findBossPosition(), boss), label + ": boss position");
+        int[] dist = new int[rows * cols];
+        java.util.Arrays.fill(dist, -1);
+        int[] queue = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        if (boss[0] >= 0) {
+            dist[boss[0] * cols + boss[1]] = 0;
+            queue[tail++] = boss[0] * cols + boss[1];
+        }
+        int[][] dirs = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+        while (head < tail) {
+            int cur = queue[head++];
+            for (int[] d : dirs) {
+                int r = cur / cols + d[0];
+                int c = cur % cols + d[1];
+                if (r < 0 || r >= rows || c < 0 || c >= cols || dist[r * cols + c] >= 0) continue;
+                if (map.getTileType(r, c) == TileType.INACCESSIBLE) continue;
+                dist[r * cols + c] = dist[cur] + 1;
+                queue[tail++] = r * cols + c;
+            }
+        }
+        for (int i = 0; i < dist.length; i++) {
+            check(map.getBossDistance(i / cols, i % cols) == dist[i], label + ": distance at " + (i / cols) + "," + (i % cols));
+        }
+    }
+
+    private static void checkConnected(WorldMap map, int r0, int c0, int rows, int cols, String label) {
+        int missing = unreached(map, r0, c0, rows, cols);
+        check(missing == 0, label + ": " + missing + " accessible tiles cut off");
+    }
+
+    // Accessible tiles in the window that the first one cannot walk to
+    private static int unreached(WorldMap map, int r0, int c0, int rows, int cols) {
+        boolean[] seen = new boolean[rows * cols];
+        int[] queue = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        int accessible = 0;
+        for (int i = 0; i < rows * cols; i++) {
+            if (map.getTileType(r0 + i / cols, c0 + i % cols) != TileType.INACCESSIBLE) {
+                if (accessible++ == 0) {
+                    seen[i] = true;
+                    queue[tail++] = i;
+                }
+            }
+        }
+        int[][] dirs = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+        while (head < tail) {
+            int cur = queue[head++];
+            for (int[] d : dirs) {
+                int r = cur / cols + d[0];
+                int c = cur % cols + d[1];
+                if (r < 0 || r >= rows || c < 0 || c >= cols || seen[r * cols + c]) continue;
+                if (map.getTileType(r0 + r, c0 + c) == TileType.INACCESSIBLE) continue;
+                seen[r * cols + c] = true;
+                queue[tail++] = r * cols + c;
+            }
+        }
+        return accessible - tail;
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package legends.battle;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -14,6 +13,32 @@ public class BattleEngine {
     private final List<Monster> monsters;
     private final Random rng;
     private final IO io;
+    // When set, heroes act through the policy instead of reading menu input
+    private final HeroPolicy policy;
+    // Policy choosing the current hero's action: the engine's policy, the autopilot,
+    // or null while the menu is asked
+    private HeroPolicy acting;
+    // Made on first use of the menu's autopilot option, closed when the battle ends
+    private MctsHeroPolicy autopilot;
+    // Skip building any battle text when the IO sink discards it
+    private final boolean verbose;
+    // Content as of the battle's start; a reload mid-battle applies to the next one
+    private final legends.data.ContentSnapshot content;
+    private int maxRounds = 0; // 0 = unlimited
+    private int rounds = 0;
+    // HP/MP/status arrays for the battle in progress; heroes and monsters are bound to it
+    private CombatState state;
+
+    // Hero actions are recorded here; text is rendered from it only when verbose
+    private final CombatLog log = new CombatLog(256);
+    private long rendered = 0; // next log entry to render
+    private final StringBuilder line = new StringBuilder(160);
+    // Skill of the last SKILL_CAST rendered; the entries after it describe that cast
+    private legends.skills.Skill renderedSkill;
+    // Whether that cast was an area skill, whose hits are summarised after its total
+    private boolean renderedAoe;
+    // Targets of the current skill cast
+    private final legends.skills.SkillProgram.Batch skillTargets = new legends.skills.SkillProgram.Batch();
 
     private static final String RESET = "\u001B[0m";
     private static final String GREEN = "\u001B[32m";
@@ -21,20 +46,129 @@ public class BattleEngine {
     private static final String CYAN = "\u001B[36m";
     private static final String YELLOW = "\u001B[33m";
 
+    private static final int HP_BAR_WIDTH = 20;
+    private static final int MP_BAR_WIDTH = 10;
+    // Bar bodies ("[###   ]") for every fill level, built once so drawing a bar is a lookup
+    private static final String[] HP_BARS_GREEN = buildBars(GREEN, HP_BAR_WIDTH);
+    private static final String[] HP_BARS_YELLOW = buildBars(YELLOW, HP_BAR_WIDTH);
+    private static final String[] HP_BARS_RED = buildBars(RED, HP_BAR_WIDTH);
+    private static final String[] MP_BARS = buildBars(CYAN, MP_BAR_WIDTH);
+
     public BattleEngine(List<Hero> heroes, List<Monster> monsters, Random rng, IO io) {
+        this(heroes, monsters, rng, io, null);
+    }
+
+    public BattleEngine(List<Hero> heroes, List<Monster> monsters, Random rng, IO io, HeroPolicy policy) {
         this.heroes = heroes;
         this.monsters = monsters;
         this.rng = rng;
         this.io = io;
+        this.policy = policy;
+        this.verbose = !io.isSilent();
+        this.content = legends.data.ContentPacks.current();
+    }
+
+    /**
+     * Cap the number of rounds; the battle stops undecided once reached. 0 disables the cap.
+     */
+    public void setMaxRounds(int maxRounds) {
+        this.maxRounds = Math.max(0, maxRounds);
+    }
+
+    /**
+     * Number of full rounds played by the last {@link #runBattle()} call.
+     */
+    public int getRoundsPlayed() {
+        return rounds;
+    }
+
+    /**
+     * Structured record of hero actions in the current/last battle. Hero ids index the
+     * hero list, monster ids index the monster list (see {@link CombatLog#monsterId}).
+     */
+    public CombatLog getCombatLog() {
+        return log;
+    }
+
+    /**
+     * Combat arrays of the battle in progress, or null outside {@link #runBattle()}.
+     * Hero ids come first, monster {@code i} is {@code state.monsterId(i)}.
+     */
+    public CombatState getCombatState() {
+        return state;
     }
 
     public boolean runBattle() {
-        // clear once at battle start to give initial clean view (don't clear every round)
-        io.clear();
-        io.println("--- Battle Start ---");
+        rounds = 0;
+        log.clear();
+        rendered = 0;
+        state = CombatState.attach(heroes, monsters);
+        for (Hero h : heroes) {
+            h.resetSkillCooldowns();
+        }
+        for (Monster m : monsters) {
+            m.clearIntent();
+        }
+        try {
+            return fight(-1);
+        } finally {
+            state.detach();
+            state = null;
+            if (autopilot != null) {
+                autopilot.close();
+                autopilot = null;
+            }
+        }
+    }
+
+    /**
+     * For rollouts: bind the heroes and monsters, copies owned by the caller, to a
+     * fresh state without the battle-start resets. The state stays bound; the caller
+     * restores snapshots into it and calls {@link #playOut} as often as it likes.
+     */
+    CombatState attachForRollouts() {
+        state = CombatState.attach(heroes, monsters);
+        return state;
+    }
+
+    /**
+     * For rollouts: play the bound battle on from one hero's turn in the current
+     * round (monster intents already committed) for at most maxRounds rounds,
+     * counting the current one.
+     */
+    void playOut(int fromHero, int maxRounds) {
+        rounds = 0;
+        this.maxRounds = maxRounds;
+        fight(fromHero);
+    }
+
+    legends.data.ContentSnapshot getContent() {
+        return content;
+    }
+
+    // resumeAt >= 0 resumes the round in progress at that hero's turn
+    private boolean fight(int resumeAt) {
+        if (verbose && resumeAt < 0) {
+            // clear once at battle start to give initial clean view (don't clear every round)
+            io.clear();
+            io.println("--- Battle Start ---");
+        }
         while (anyAliveHero() && anyAliveMonster()) {
-            printStatus();
-            heroesTurn();
+            if (maxRounds > 0 && rounds >= maxRounds) {
+                break;
+            }
+            rounds++;
+            int firstHero = 0;
+            if (resumeAt >= 0) {
+                firstHero = resumeAt;
+                resumeAt = -1;
+            } else {
+                planMonsterIntents();
+            }
+            if (verbose) {
+                printStatus();
+            }
+            heroesTurn(firstHero);
             if (!anyAliveMonster()) {
                 break;
             }
@@ -43,16 +177,14 @@ public class BattleEngine {
                 if (h.isAlive()) {
                     h.regenAfterRound();
                 }
+                h.tickSkillCooldowns();
             }
             // Tick status effects for heroes and monsters after regen
-            for (Hero h : heroes) {
-                h.tickStatusEffects(io);
-            }
-            for (Monster m : monsters) {
-                m.tickStatusEffects(io);
-            }
+            state.tickStatuses(io);
+        }
+        if (verbose) {
+            io.println("--- Battle End ---");
         }
-        io.println("--- Battle End ---");
         return anyAliveHero();
     }
 
@@ -60,12 +192,20 @@ public class BattleEngine {
         io.println("Heroes:");
         for (Hero h : heroes) {
             String label = VisualAssets.heroBadge(h) + " " + VisualAssets.coloredHeroName(h);
-            String hp = hpBar(h.getHp(), h.getMaxHp(), 20);
-            String mp = mpBar(h.getMp(), h.getMaxMp(), 10);
+            String hp = hpBar(h.getHp(), h.getMaxHp());
+            String mp = mpBar(h.getMp(), h.getMaxMp());
                 // use Skill API if available for display
                 try {
-                    legends.skills.Skill sk = h.getSkill();
-                    io.println("  " + label + " " + hp + "  MP:" + mp + "  Skill:" + sk.getName() + " (MP:" + sk.getMpCost() + ")");
+                    line.setLength(0);
+                    line.append("  ").append(label).append(' ').append(hp).append("  MP:").append(mp);
+                    for (int slot = 0; slot < h.getSkillSlots(content); slot++) {
+                        legends.skills.Skill sk = h.getSkill(content, slot);
+                        if (sk == null) continue;
+                        line.append(slot == 0 ? "  Skill:" : ", ").append(sk.getName()).append(" (MP:").append(sk.getMpCost());
+                        if (!h.isSkillReady(slot)) line.append(", ready in ").append(h.getSkillCooldown(slot));
+                        line.append(')');
+                    }
+                    io.println(line.toString());
                 } catch (Exception e) {
                     io.println("  " + label + " " + hp + "  MP:" + mp );
                 }
@@ -74,93 +214,219 @@ public class BattleEngine {
         io.println("Monsters:");
         for (int i = 0; i < monsters.size(); i++) {
             Monster m = monsters.get(i);
-            String bar = hpBar(m.getHp(), m.getMaxHp(), 20);
+            String bar = hpBar(m.getHp(), m.getMaxHp());
             String name = String.format("%-12s", m.getName());
-              io.println("  [" + (i + 1) + "] " + name + " [" + m.getTier() + "] " + bar + " HP=" + m.getHp() + "/" + m.getMaxHp());
+              io.println("  [" + (i + 1) + "] " + name + " [" + m.getTier() + "] " + bar + " HP=" + m.getHp() + "/" + m.getMaxHp()
+                      + (m.isAlive() ? "  Next: " + m.describeIntent(heroes) : ""));
         }
     }
 
-    private String hpBar(int hp, int maxHp, int width) {
-        if (maxHp <= 0) {
-            maxHp = 1;
-        }
-        double ratio = (double) hp / maxHp;
-        if (ratio < 0.0) {
-            ratio = 0.0;
-        }
-        int filled = (int) Math.round(Math.min(1.0, ratio) * width);
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
+    private String hpBar(int hp, int maxHp) {
+        line.setLength(0);
+        return appendHpBar(line, hp, maxHp).toString();
+    }
+
+    private String mpBar(int mp, int maxMp) {
+        line.setLength(0);
+        return appendMpBar(line, mp, maxMp).toString();
+    }
+
+    private static StringBuilder appendHpBar(StringBuilder sb, int hp, int maxHp) {
+        double ratio = barRatio(hp, maxHp);
         // choose color by health level
-        String fillColor = GREEN;
+        String[] bars = HP_BARS_GREEN;
         if (ratio <= 0.3) {
-            fillColor = RED;
+            bars = HP_BARS_RED;
         } else if (ratio <= 0.6) {
-            fillColor = YELLOW;
+            bars = HP_BARS_YELLOW;
         }
-        for (int i = 0; i < width; i++) {
-            if (i < filled) {
-                sb.append(fillColor).append("\u2588").append(RESET);
-            } else {
-                sb.append(" ");
-            }
+        return appendBar(sb, bars, ratio);
+    }
+
+    private static StringBuilder appendMpBar(StringBuilder sb, int mp, int maxMp) {
+        return appendBar(sb, MP_BARS, barRatio(mp, maxMp));
+    }
+
+    private static double barRatio(int value, int max) {
+        if (max <= 0) {
+            max = 1;
         }
-        sb.append("]");
+        return Math.max(0.0, (double) value / max);
+    }
+
+    private static StringBuilder appendBar(StringBuilder sb, String[] bars, double ratio) {
+        int width = bars.length - 1;
+        int filled = (int) Math.round(Math.min(1.0, ratio) * width);
         // append percentage
         int percent = (int) Math.round(ratio * 100);
-        sb.append(" ").append(percent).append("%");
-        return sb.toString();
+        return sb.append(bars[filled]).append(' ').append(percent).append('%');
     }
 
-    private String mpBar(int mp, int maxMp, int width) {
-        if (maxMp <= 0) {
-            maxMp = 1;
+    private static String[] buildBars(String fillColor, int width) {
+        String[] bars = new String[width + 1];
+        for (int filled = 0; filled <= width; filled++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("[");
+            for (int i = 0; i < width; i++) {
+                if (i < filled) {
+                    sb.append(fillColor).append("\u2588").append(RESET);
+                } else {
+                    sb.append(" ");
+                }
+            }
+            sb.append("]");
+            bars[filled] = sb.toString();
         }
-        double ratio = (double) mp / maxMp;
-        if (ratio < 0.0) {
-            ratio = 0.0;
+        return bars;
+    }
+
+    private void record(CombatLog.Kind kind, int actor, int target, int amount, int remaining) {
+        log.record(kind, actor, target, amount, remaining);
+        if ((kind == CombatLog.Kind.ATTACK_HIT || kind == CombatLog.Kind.SKILL_HIT) && amount > 0 && CombatLog.isMonster(target)) {
+            state.addThreat(state.monsterId(CombatLog.indexOf(target)), CombatLog.indexOf(actor), amount);
         }
-        int filled = (int) Math.round(Math.min(1.0, ratio) * width);
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        for (int i = 0; i < width; i++) {
-            if (i < filled) {
-                sb.append(CYAN).append("\u2588").append(RESET);
-            } else {
-                sb.append(" ");
-            }
+        if (verbose) {
+            flushLog();
         }
-        sb.append("]");
-        int percent = (int) Math.round(ratio * 100);
-        sb.append(" ").append(percent).append("%");
-        return sb.toString();
     }
 
-    private void heroesTurn() {
-        io.println("Heroes' turn:");
-        for (Hero h : heroes) {
+    /**
+     * Render any log entries not yet shown. Only called when the IO is not silent.
+     */
+    private void flushLog() {
+        long from = Math.max(rendered, log.start());
+        for (long seq = from; seq < log.end(); seq++) {
+            renderEntry(seq);
+        }
+        rendered = log.end();
+    }
+
+    private void renderEntry(long seq) {
+        int actorId = log.actor(seq);
+        int targetId = log.target(seq);
+        Hero hero = actorId == CombatLog.NONE ? null : heroes.get(CombatLog.indexOf(actorId));
+        Monster target = CombatLog.isMonster(targetId) ? monsters.get(CombatLog.indexOf(targetId)) : null;
+        int amount = log.amount(seq);
+        int remaining = log.remaining(seq);
+        switch (log.kind(seq)) {
+            case ATTACK_HIT:
+                VisualAssets.printHeroAttackEffect(io, hero);
+                io.println(hero.getName() + " attacked " + target.getName() + " for " + RED + amount + RESET + " damage.");
+                printTargetHp(target, remaining);
+                break;
+            case ATTACK_DODGED:
+                io.println(YELLOW + target.getName() + " dodged " + hero.getName() + "'s attack!" + RESET);
+                break;
+            case SKILL_CAST:
+                renderedSkill = hero.getSkill(content, amount);
+                renderedAoe = targetId == CombatLog.NONE;
+                VisualAssets.printHeroSkillEffect(io, hero, skillLabel(hero));
+                break;
+            case SKILL_HIT:
+                if (renderedAoe) {
+                    io.println(hero.getName() + " used " + skillLabel(hero) + " on " + target.getName() + " for " + amount + " damage.");
+                } else {
+                    io.println(hero.getName() + " used " + skillLabel(hero) + " on "
+                        + target.getName() + " for " + RED + amount + RESET + " damage.");
+                    printTargetHp(target, remaining);
+                }
+                if (renderedSkill instanceof legends.skills.DeclarativeSkill
+                        && ((legends.skills.DeclarativeSkill) renderedSkill).getProgram().getStatusType() != null) {
+                    io.println(hero.getName() + " applied " + ((legends.skills.DeclarativeSkill) renderedSkill).getProgram().getStatusType()
+                        + " to " + target.getName());
+                }
+                break;
+            case SKILL_DODGED:
+                if (renderedAoe) {
+                    io.println(target.getName() + " dodged " + hero.getName() + "'s " + skillLabel(hero) + "!");
+                } else {
+                    io.println(YELLOW + target.getName() + " dodged " + hero.getName() + "'s skill!" + RESET);
+                }
+                break;
+            case SKILL_FAILED:
+                io.println(hero.getName() + " used " + skillLabel(hero) + " but it failed to trigger on " + target.getName() + ".");
+                break;
+            case AOE_TOTAL:
+                io.println(hero.getName() + " used " + skillLabel(hero) + " (AOE) total damage: " + RED + amount + RESET);
+                break;
+            case HP_STATUS:
+                printTargetHp(target, remaining);
+                break;
+            case HEALTH_POTION:
+                io.println(hero.getName() + " used a health potion. HP is now " + remaining + "/" + hero.getMaxHp());
+                line.setLength(0);
+                line.append("    ").append(hero.getName()).append(' ');
+                io.println(appendHpBar(line, remaining, hero.getMaxHp()).toString());
+                break;
+            case MANA_POTION:
+                io.println(hero.getName() + " used a mana potion. MP is now " + remaining);
+                line.setLength(0);
+                line.append("    ").append(hero.getName()).append(' ');
+                io.println(appendMpBar(line, remaining, hero.getMaxMp()).toString());
+                break;
+            case SKIP:
+                io.println(hero.getName() + " skips the turn.");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void printTargetHp(Monster target, int hp) {
+        line.setLength(0);
+        line.append("    ").append(target.getName()).append(' ');
+        appendHpBar(line, hp, target.getMaxHp());
+        line.append(" HP=").append(hp).append('/').append(target.getMaxHp());
+        io.println(line.toString());
+    }
+
+    private String skillLabel(Hero h) {
+        legends.skills.Skill sk = renderedSkill != null ? renderedSkill : h.getSkill(content);
+        return (sk == null || sk.getName() == null || sk.getName().isEmpty())
+                ? h.getSkillName()
+                : sk.getName();
+    }
+
+    private void heroesTurn(int fromHero) {
+        if (verbose) {
+            io.println("Heroes' turn:");
+        }
+        legends.events.EventBus events = legends.events.EventBus.getInstance();
+        for (int hi = fromHero; hi < heroes.size(); hi++) {
+            Hero h = heroes.get(hi);
             if (!h.isAlive()) {
                 continue;
             }
-            try { legends.events.EventBus.getInstance().fire(new legends.events.OnTurnStartEvent(h)); } catch (Throwable t) {}
-            heroAction(h);
+            if (events.hasListeners(legends.events.OnTurnStartEvent.class)) {
+                try { events.fire(new legends.events.OnTurnStartEvent(h)); } catch (Throwable t) {}
+            }
+            if (policy != null) {
+                policyAction(policy, h, hi);
+            } else {
+                heroAction(h, hi);
+            }
             if (!anyAliveMonster()) {
                 return;
             }
         }
     }
 
-    private void heroAction(Hero h) {
+    private void heroAction(Hero h, int hi) {
         while (true) {
             io.println("");
             io.println("Action for " + h.getName() + ":");
             io.println("  1) Normal Attack");
-            io.println("  2) Use Skill (" + h.getSkillName() + ", MP cost: " + h.getSkillMpCost() + ")");
+            if (h.getSkillSlots(content) > 1) {
+                io.println("  2) Use Skill (" + h.getSkillSlots(content) + " on the skill bar)");
+            } else {
+                io.println("  2) Use Skill (" + h.getSkillName() + ", MP cost: " + h.getSkillMpCost() + ")");
+            }
             io.println("  3) Use Health Potion (+" + h.getHealthPotionHealAmount() + " HP)");
             io.println("  4) Use Mana Potion (+" + h.getManaPotionRestoreAmount() + " MP)");
             io.println("  5) Skip");
             io.println("  6) Use Item");
-            io.print("Choose (1-5): ");
+            io.println("  7) Autopilot (let the search pick, " + legends.Config.AUTOPILOT_BUDGET_MILLIS + " ms)");
+            io.print("Choose (1-7): ");
 
             int choice;
             try {
@@ -172,19 +438,27 @@ public class BattleEngine {
 
             switch (choice) {
                 case 1:
-                    normalAttack(h);
+                    normalAttack(h, hi);
                     return;
                 case 2:
-                    if (h.getMp() < h.getSkillMpCost()) {
-                        io.println("Not enough MP to use " + h.getSkillName() + ".");
+                    int slot = chooseSkillSlot(h);
+                    if (slot < 0) {
+                        break;
+                    }
+                    legends.skills.Skill chosenSkill = h.getSkill(content, slot);
+                    if (!h.isSkillReady(slot)) {
+                        io.println(chosenSkill.getName() + " is recharging (" + h.getSkillCooldown(slot) + " more turns).");
+                        break;
+                    }
+                    if (h.getMp() < chosenSkill.getMpCost()) {
+                        io.println("Not enough MP to use " + chosenSkill.getName() + ".");
                         break;
                     }
-                    skillAttack(h);
+                    skillAttack(h, hi, slot);
                     return;
                 case 3:
                     if (h.useHealthPotion()) {
-                        io.println(h.getName() + " used a health potion. HP is now " + h.getHp() + "/" + h.getMaxHp());
-                        io.println("    " + h.getName() + " " + hpBar(h.getHp(), h.getMaxHp(), 20));
+                        record(CombatLog.Kind.HEALTH_POTION, CombatLog.heroId(hi), CombatLog.NONE, 0, h.getHp());
                         return;
                     } else {
                             io.println("No health potions left!");
@@ -192,15 +466,14 @@ public class BattleEngine {
                     }
                 case 4:
                     if (h.useManaPotion()) {
-                            io.println(h.getName() + " used a mana potion. MP is now " + h.getMp());
-                            io.println("    " + h.getName() + " " + mpBar(h.getMp(), h.getMaxMp(), 10));
+                        record(CombatLog.Kind.MANA_POTION, CombatLog.heroId(hi), CombatLog.NONE, 0, h.getMp());
                         return;
                     } else {
                             io.println("No mana potions left!");
                         break;
                     }
                 case 5:
-                    io.println(h.getName() + " skips the turn.");
+                    record(CombatLog.Kind.SKIP, CombatLog.heroId(hi), CombatLog.NONE, 0, 0);
                     return;
                 case 6:
                     java.util.List<legends.items.ConsumableStack> stacks = h.getConsumables();
@@ -212,26 +485,7 @@ public class BattleEngine {
                     for (int i = 0; i < stacks.size(); i++) {
                         legends.items.ConsumableStack s = stacks.get(i);
                         legends.items.Consumable c = s.getConsumable();
-                        legends.items.Consumable.ConsumeType t = c.getType();
-                        boolean usable = true;
-                        switch (t) {
-                            case HEAL:
-                                usable = h.getHp() < h.getMaxHp();
-                                break;
-                            case RESTORE_MP:
-                                usable = h.getMp() < h.getMaxMp();
-                                break;
-                            case ANTIDOTE:
-                                usable = h.hasStatus(legends.effects.StatusEffect.Type.POISON);
-                                break;
-                            case STUN_BOMB:
-                            case ARMOR_BREAK:
-                                usable = false;
-                                for (Monster m : monsters) if (m.isAlive()) { usable = true; break; }
-                                break;
-                            default:
-                                usable = true;
-                        }
+                        boolean usable = itemUsable(h, c.getType(), anyAliveMonster());
 
                         io.println(String.format("  %d) %s x%d  Lv:%d  %s", i + 1, c.getName(), s.getCount(), c.getLevel(), (usable ? "" : "(not usable)")));
                     }
@@ -250,36 +504,16 @@ public class BattleEngine {
                     legends.items.ConsumableStack chosenStack = stacks.get(useIdx - 1);
                     legends.items.Consumable chosen = chosenStack.getConsumable();
                     // recompute usability
-                    boolean usable = true;
-                    legends.items.Consumable.ConsumeType chosenType = chosen.getType();
-                    switch (chosenType) {
-                        case HEAL:
-                            usable = h.getHp() < h.getMaxHp();
-                            break;
-                        case RESTORE_MP:
-                            usable = h.getMp() < h.getMaxMp();
-                            break;
-                        case ANTIDOTE:
-                            usable = h.hasStatus(legends.effects.StatusEffect.Type.POISON);
-                            break;
-                        case STUN_BOMB:
-                        case ARMOR_BREAK:
-                            usable = false;
-                            for (Monster m : monsters) if (m.isAlive()) { usable = true; break; }
-                            break;
-                        default:
-                            usable = true;
-                    }
-
-                    if (!usable) {
+                    if (!itemUsable(h, chosen.getType(), anyAliveMonster())) {
                         io.println("That item cannot be used right now.");
                         break;
                     }
 
                     Monster target = null;
                     if (chosen.needsTarget()) {
-                        target = chooseTarget();
-                        if (target == null) break;
+                        int ti = chooseTarget(h);
+                        if (ti < 0) break;
+                        target = monsters.get(ti);
                     }
 
                     // confirmation
@@ -295,24 +529,126 @@ public class BattleEngine {
                         io.println("Failed to use item.");
                     }
                     return;
+                case 7:
+                    if (autopilot == null) {
+                        autopilot = new MctsHeroPolicy(legends.Config.AUTOPILOT_BUDGET_MILLIS, legends.Config.AUTOPILOT_THREADS);
+                    }
+                    policyAction(autopilot, h, hi);
+                    return;
                 default:
                     io.println("Invalid choice.");
             }
         }
     }
 
-    private Monster chooseTarget() {
-        List<Monster> alive = new ArrayList<>();
-        for (Monster m : monsters) {
-            if (m.isAlive()) {
-                alive.add(m);
+    /**
+     * Whether a consumable of this type would do anything for the hero now.
+     */
+    static boolean itemUsable(Hero h, legends.items.Consumable.ConsumeType type, boolean monstersAlive) {
+        switch (type) {
+            case HEAL:
+                return h.getHp() < h.getMaxHp();
+            case RESTORE_MP:
+                return h.getMp() < h.getMaxMp();
+            case ANTIDOTE:
+                return h.hasStatus(legends.effects.StatusEffect.Type.POISON);
+            case STUN_BOMB:
+            case ARMOR_BREAK:
+                return monstersAlive;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Whether the hero can cast the skill in a slot now: the slot holds a skill that
+     * is not recharging and the hero has its MP cost, the same check the menu makes.
+     */
+    static boolean canCast(Hero h, legends.data.ContentSnapshot content, int slot) {
+        legends.skills.Skill sk = h.getSkill(content, slot);
+        if (sk == null || !h.isSkillReady(slot)) {
+            return false;
+        }
+        return h.getMp() >= sk.getMpCost();
+    }
+
+    /**
+     * Run one hero turn from a policy. Invalid choices (no MP, no potions, no item)
+     * fall back to a normal attack so a policy can never stall the battle.
+     */
+    private void policyAction(HeroPolicy p, Hero h, int hi) {
+        acting = p;
+        try {
+            policyTurn(p, h, hi);
+        } finally {
+            acting = null;
+        }
+    }
+
+    private void policyTurn(HeroPolicy p, Hero h, int hi) {
+        HeroAction action = p.chooseAction(h, heroes, monsters, rng);
+        switch (action) {
+            case SKILL:
+                int slot = p.chooseSkillSlot(h, monsters, rng);
+                if (canCast(h, content, slot)) {
+                    skillAttack(h, hi, slot);
+                    return;
+                }
+                break;
+            case HEALTH_POTION:
+                if (h.useHealthPotion()) {
+                    record(CombatLog.Kind.HEALTH_POTION, CombatLog.heroId(hi), CombatLog.NONE, 0, h.getHp());
+                    return;
+                }
+                break;
+            case MANA_POTION:
+                if (h.useManaPotion()) {
+                    record(CombatLog.Kind.MANA_POTION, CombatLog.heroId(hi), CombatLog.NONE, 0, h.getMp());
+                    return;
+                }
+                break;
+            case SKIP:
+                record(CombatLog.Kind.SKIP, CombatLog.heroId(hi), CombatLog.NONE, 0, 0);
+                return;
+            case ITEM:
+                int idx = p.chooseItem(h, monsters, rng);
+                if (idx >= 0 && idx < h.getConsumables().size()) {
+                    legends.items.Consumable chosen = h.getConsumables().get(idx).getConsumable();
+                    int ti = chosen.needsTarget() ? chooseTarget(h) : -1;
+                    Monster target = ti >= 0 ? monsters.get(ti) : null;
+                    if (!chosen.needsTarget() || target != null) {
+                        if (h.useConsumableByIndex(idx, target, io)) {
+                            return;
+                        }
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        normalAttack(h, hi);
+    }
+
+    /**
+     * Index of the monster to target, or -1 when none is alive.
+     */
+    private int chooseTarget(Hero h) {
+        int firstAlive = -1;
+        for (int i = 0; i < monsters.size(); i++) {
+            if (state.isAlive(state.monsterId(i))) {
+                firstAlive = i;
+                break;
             }
         }
-        if (alive.isEmpty()) {
-            return null;
+        if (acting != null) {
+            int idx = acting.chooseTarget(h, monsters, rng);
+            if (idx >= 0 && idx < monsters.size() && state.isAlive(state.monsterId(idx))) {
+                return idx;
+            }
+            return firstAlive;
         }
-        if (alive.size() == 1) {
-            return alive.get(0);
+        if (state.aliveMonsters() <= 1) {
+            return firstAlive;
         }
         io.print("Choose target monster by index: ");
         int idx;
@@ -320,132 +656,182 @@ public class BattleEngine {
             String raw = io.readLine();
             idx = Integer.parseInt(raw);
         } catch (NumberFormatException e) {
-            return alive.get(0);
+            return firstAlive;
         }
-        if (idx <= 0 || idx > monsters.size() || !monsters.get(idx - 1).isAlive()) {
-            return alive.get(0);
+        if (idx <= 0 || idx > monsters.size() || !state.isAlive(state.monsterId(idx - 1))) {
+            return firstAlive;
         }
-        return monsters.get(idx - 1);
+        return idx - 1;
     }
 
-    private void normalAttack(Hero h) {
-        Monster target = chooseTarget();
-        if (target == null) {
+    private void normalAttack(Hero h, int hi) {
+        int ti = chooseTarget(h);
+        if (ti < 0) {
             return;
         }
+        Monster target = monsters.get(ti);
+        int id = state.monsterId(ti);
         int dmg = h.calcAttackDamage();
-        if (rng.nextDouble() < target.getDodgeChance()) {
-            io.println(YELLOW + target.getName() + " dodged " + h.getName() + "'s attack!" + RESET);
+        if (rng.nextDouble() < state.dodge(id)) {
+            record(CombatLog.Kind.ATTACK_DODGED, CombatLog.heroId(hi), CombatLog.monsterId(ti), 0, state.hp(id));
         } else {
-            VisualAssets.printHeroAttackEffect(io, h);
             target.takeDamage(dmg);
-            io.println(h.getName() + " attacked " + target.getName() + " for " + RED + dmg + RESET + " damage.");
-            io.println("    " + target.getName() + " " + hpBar(target.getHp(), target.getMaxHp(), 20)
-                    + " HP=" + target.getHp() + "/" + target.getMaxHp());
+            record(CombatLog.Kind.ATTACK_HIT, CombatLog.heroId(hi), CombatLog.monsterId(ti), dmg, state.hp(id));
         }
     }
 
-    private void skillAttack(Hero h) {
+    /**
+     * Slot of the skill to use: 0 if the hero has only one, otherwise asked from the
+     * menu. Returns -1 if the player backs out.
+     */
+    private int chooseSkillSlot(Hero h) {
+        int slots = h.getSkillSlots(content);
+        if (slots == 1) {
+            return 0;
+        }
+        while (true) {
+            io.println("Skills:");
+            for (int i = 0; i < slots; i++) {
+                legends.skills.Skill s = h.getSkill(content, i);
+                if (s == null) continue;
+                String ready = h.isSkillReady(i) ? "" : ", ready in " + h.getSkillCooldown(i) + " turns";
+                io.println("  " + (i + 1) + ") " + s.getName() + " (MP cost: " + s.getMpCost() + ready + ")");
+            }
+            io.print("Choose skill (0 to go back): ");
+            String raw = io.readLine();
+            if (raw == null) return -1;
+            int choice;
+            try {
+                choice = Integer.parseInt(raw.trim());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (choice == 0) return -1;
+            if (choice >= 1 && choice <= slots && h.getSkill(content, choice - 1) != null) return choice - 1;
+        }
+    }
+
+    private void skillAttack(Hero h, int hi, int slot) {
         // support declarative AOE skills registered via SkillRegistry
-        legends.skills.Skill sk = h.getSkill();
+        legends.skills.Skill sk = h.getSkill(content, slot);
         if (sk == null) {
-            sk = new legends.skills.DefaultHeroSkill(h);
+            return;
         }
-        String skillLabel = (sk.getName() == null || sk.getName().isEmpty())
-                ? h.getSkillName()
-                : sk.getName();
 
         if (sk instanceof legends.skills.DeclarativeSkill) {
             legends.skills.DeclarativeSkill ds = (legends.skills.DeclarativeSkill) sk;
+            skillTargets.clear();
             if (ds.getTarget() == legends.skills.DeclarativeSkill.Target.AOE) {
-                // apply to all alive monsters
-                List<Monster> alive = new ArrayList<>();
-                for (Monster m : monsters) if (m.isAlive()) alive.add(m);
-                if (alive.isEmpty()) return;
-                VisualAssets.printHeroSkillEffect(io, h, skillLabel);
-                int total = ds.applyToTargets(h, alive, rng, io);
-                io.println(h.getName() + " used " + sk.getName() + " (AOE) total damage: " + RED + total + RESET);
-                for (Monster m : monsters) {
-                    if (!m.isAlive()) continue;
-                    io.println("    " + m.getName() + " " + hpBar(m.getHp(), m.getMaxHp(), 20) + " HP=" + m.getHp() + "/" + m.getMaxHp());
+                // every alive monster, as one batch
+                if (!anyAliveMonster()) return;
+                for (int i = 0; i < monsters.size(); i++) {
+                    if (state.isAlive(state.monsterId(i))) skillTargets.add(state.monsterId(i));
                 }
-                return;
+            } else {
+                int ti = chooseTarget(h);
+                if (ti < 0) {
+                    return;
+                }
+                skillTargets.add(state.monsterId(ti));
+            }
+            if (castProgram(h, hi, slot, ds, ds.getTarget() == legends.skills.DeclarativeSkill.Target.AOE)) {
+                h.startSkillCooldown(content, slot);
             }
+            return;
         }
 
-        Monster target = chooseTarget();
-        if (target == null) {
+        int ti = chooseTarget(h);
+        if (ti < 0) {
             return;
         }
-        if (rng.nextDouble() < target.getDodgeChance()) {
-            io.println(YELLOW + target.getName() + " dodged " + h.getName() + "'s skill!" + RESET);
+        Monster target = monsters.get(ti);
+        int id = state.monsterId(ti);
+        if (rng.nextDouble() < state.dodge(id)) {
+            record(CombatLog.Kind.SKILL_DODGED, CombatLog.heroId(hi), CombatLog.monsterId(ti), 0, state.hp(id));
         } else {
+            record(CombatLog.Kind.SKILL_CAST, CombatLog.heroId(hi), CombatLog.monsterId(ti), slot, 0);
+            h.startSkillCooldown(content, slot);
+            int dmg;
             // use Skill API when available
             try {
-                VisualAssets.printHeroSkillEffect(io, h, skillLabel);
-                int dmg = sk.apply(h, target, rng, io);
-                io.println(h.getName() + " used " + sk.getName() + " on "
-                    + target.getName() + " for " + RED + dmg + RESET + " damage.");
-                io.println("    " + target.getName() + " " + hpBar(target.getHp(), target.getMaxHp(), 20)
-                    + " HP=" + target.getHp() + "/" + target.getMaxHp());
+                dmg = sk.apply(h, target, rng, io);
             } catch (Exception e) {
-                VisualAssets.printHeroSkillEffect(io, h, skillLabel);
-                int dmg = h.castSkillOn(target);
-                io.println(h.getName() + " used " + h.getSkillName() + " on "
-                    + target.getName() + " for " + RED + dmg + RESET + " damage.");
-                io.println("    " + target.getName() + " " + hpBar(target.getHp(), target.getMaxHp(), 20)
-                    + " HP=" + target.getHp() + "/" + target.getMaxHp());
+                dmg = h.castSkillOn(target);
             }
+            record(CombatLog.Kind.SKILL_HIT, CombatLog.heroId(hi), CombatLog.monsterId(ti), dmg, state.hp(id));
         }
     }
 
-    private void monstersTurn() {
-        io.println("Monsters' turn:");
-        // Show previews of planned actions
-        for (int i = 0; i < monsters.size(); i++) {
-            Monster m = monsters.get(i);
-            if (!m.isAlive()) continue;
-            String preview = m.previewNextAction(rng, heroes);
-            io.println("  [" + (i + 1) + "] " + m.getName() + " plans: " + preview);
+    // Cast a compiled skill on skillTargets and log each target's outcome; false if
+    // the hero could not pay for it
+    private boolean castProgram(Hero h, int hi, int slot, legends.skills.DeclarativeSkill ds, boolean aoe) {
+        int total = ds.getProgram().cast(h, state, skillTargets, rng);
+        if (total == legends.skills.SkillProgram.NOT_ENOUGH_MP) {
+            if (verbose) io.println(h.getName() + " does not have enough MP to use " + ds.getName() + ".");
+            return false;
         }
-        // Execute actions
-        for (Monster m : monsters) {
-            if (!m.isAlive()) continue;
-            try { legends.events.EventBus.getInstance().fire(new legends.events.OnTurnStartEvent(m)); } catch (Throwable t) {}
-            Hero target = pickRandomAliveHero();
-            if (target == null) return;
-            m.performAction(target, heroes, rng, io);
+        record(CombatLog.Kind.SKILL_CAST, CombatLog.heroId(hi), aoe ? CombatLog.NONE : CombatLog.monsterId(skillTargets.id(0) - state.heroCount()), slot, 0);
+        for (int i = 0; i < skillTargets.size(); i++) {
+            int id = skillTargets.id(i);
+            int target = CombatLog.monsterId(id - state.heroCount());
+            int outcome = skillTargets.outcome(i);
+            if (outcome == legends.skills.SkillProgram.DODGED) {
+                record(CombatLog.Kind.SKILL_DODGED, CombatLog.heroId(hi), target, 0, state.hp(id));
+            } else if (outcome == legends.skills.SkillProgram.FAILED) {
+                record(CombatLog.Kind.SKILL_FAILED, CombatLog.heroId(hi), target, 0, state.hp(id));
+            } else {
+                record(CombatLog.Kind.SKILL_HIT, CombatLog.heroId(hi), target, outcome, state.hp(id));
+            }
         }
-    }
-
-    private boolean anyAliveHero() {
-        for (Hero h : heroes) {
-            if (h.isAlive()) {
-                return true;
+        if (aoe) {
+            record(CombatLog.Kind.AOE_TOTAL, CombatLog.heroId(hi), CombatLog.NONE, total, 0);
+            for (int i = 0; i < monsters.size(); i++) {
+                int id = state.monsterId(i);
+                if (!state.isAlive(id)) continue;
+                record(CombatLog.Kind.HP_STATUS, CombatLog.NONE, CombatLog.monsterId(i), 0, state.hp(id));
             }
         }
-        return false;
+        return true;
     }
 
-    private boolean anyAliveMonster() {
-        for (Monster m : monsters) {
-            if (m.isAlive()) {
-                return true;
+    // Every living monster commits its intent for the round before the heroes act,
+    // so the status shows what each one will do
+    private void planMonsterIntents() {
+        for (int i = 0; i < monsters.size(); i++) {
+            if (state.isAlive(state.monsterId(i))) {
+                monsters.get(i).planIntent(state, i, rng);
             }
         }
-        return false;
     }
 
-    private Hero pickRandomAliveHero() {
-        List<Hero> alive = new ArrayList<>();
-        for (Hero h : heroes) {
-            if (h.isAlive()) {
-                alive.add(h);
+    private void monstersTurn() {
+        if (verbose) {
+            io.println("Monsters' turn:");
+            // Show the committed intents
+            for (int i = 0; i < monsters.size(); i++) {
+                Monster m = monsters.get(i);
+                if (!m.isAlive()) continue;
+                io.println("  [" + (i + 1) + "] " + m.getName() + " plans: " + m.describeIntent(heroes));
             }
         }
-        if (alive.isEmpty()) {
-            return null;
+        // Execute actions
+        legends.events.EventBus events = legends.events.EventBus.getInstance();
+        for (int i = 0; i < monsters.size(); i++) {
+            if (!state.isAlive(state.monsterId(i))) continue;
+            Monster m = monsters.get(i);
+            if (events.hasListeners(legends.events.OnTurnStartEvent.class)) {
+                try { events.fire(new legends.events.OnTurnStartEvent(m)); } catch (Throwable t) {}
+            }
+            if (!anyAliveHero()) return;
+            m.performIntent(state, i, heroes, rng, io);
         }
-        return alive.get(rng.nextInt(alive.size()));
+    }
+
+    private boolean anyAliveHero() {
+        return state.aliveHeroes() > 0;
+    }
+
+    private boolean anyAliveMonster() {
+        return state.aliveMonsters() > 0;
     }
 }
@@ -0,0 +1,64 @@
+package legends.battle;
+
+import java.util.List;
+
+import legends.model.Hero;
+import legends.model.Monster;
+
+/**
+ * Everything a battle round changes, saved so it can be put back: the
+ * {@link CombatState} numbers and statuses, each hero's potions, consumables and
+ * cooldowns, and each monster's committed intent. A snapshot can be restored into
+ * the battle it came from or into one over copies of the same line-up (see
+ * {@link Hero#copy()}), which is how {@link MctsHeroPolicy} replays a turn many times.
+ */
+public final class BattleSnapshot {
+    private final CombatState state;
+    private final Hero.Snapshot[] heroes;
+    private final int[] intentMoves;
+    private final int[] intentTargets;
+
+    private BattleSnapshot(CombatState state, Hero.Snapshot[] heroes, int[] intentMoves, int[] intentTargets) {
+        this.state = state;
+        this.heroes = heroes;
+        this.intentMoves = intentMoves;
+        this.intentTargets = intentTargets;
+    }
+
+    public static BattleSnapshot capture(CombatState state, List<Hero> heroes, List<Monster> monsters) {
+        Hero.Snapshot[] hs = new Hero.Snapshot[heroes.size()];
+        for (int i = 0; i < hs.length; i++) {
+            hs[i] = heroes.get(i).snapshot();
+        }
+        int[] moves = new int[monsters.size()];
+        int[] targets = new int[monsters.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = monsters.get(i).getIntentMove();
+            targets[i] = monsters.get(i).getIntentTarget();
+        }
+        return new BattleSnapshot(state.copy(), hs, moves, targets);
+    }
+
+    /**
+     * Put the saved battle back into a state and the heroes and monsters bound to it,
+     * listed in the same order as when captured.
+     */
+    public void restore(CombatState into, List<Hero> heroes, List<Monster> monsters) {
+        into.copyFrom(state);
+        for (int i = 0; i < this.heroes.length; i++) {
+            heroes.get(i).restore(this.heroes[i]);
+        }
+        for (int i = 0; i < intentMoves.length; i++) {
+            monsters.get(i).restoreIntent(intentMoves[i], intentTargets[i]);
+        }
+    }
+
+    /**
+     * Potions and consumables the party held when captured.
+     */
+    public int partyItems() {
+        int n = 0;
+        for (Hero.Snapshot h : heroes) n += h.itemCount();
+        return n;
+    }
+}
@@ -0,0 +1,119 @@
+package legends.battle;
+
+/**
+ * Fixed-capacity ring buffer of combat entries. Each entry is five ints
+ * (kind, actor, target, amount, remaining HP/MP) in one flat array, so recording
+ * an action never allocates. Old entries are overwritten once the buffer wraps.
+ *
+ * Combatant ids: heroes are their index in the battle's hero list, monsters are
+ * encoded with {@link #monsterId(int)} (negative), and {@link #NONE} means no
+ * combatant. Text is produced separately, only when an IO sink wants it.
+ */
+public class CombatLog {
+    public enum Kind {
+        ATTACK_HIT,      // actor hero hit target monster for amount; remaining = target HP
+        ATTACK_DODGED,   // target monster dodged actor's attack
+        SKILL_CAST,      // actor started casting their skill (drives the skill effect art)
+        SKILL_HIT,       // actor's skill hit target for amount; remaining = target HP
+        SKILL_DODGED,    // target dodged actor's skill
+        SKILL_FAILED,    // actor's skill failed its chance roll on target
+        AOE_TOTAL,       // actor's AOE skill dealt amount in total
+        HP_STATUS,       // target HP after an AOE; remaining = target HP
+        HEALTH_POTION,   // actor drank a health potion; remaining = actor HP
+        MANA_POTION,     // actor drank a mana potion; remaining = actor MP
+        SKIP             // actor skipped the turn
+    }
+
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final int STRIDE = 5;
+
+    private final int[] data;
+    private final int mask;
+    private long written; // entries ever recorded; sequence number of the next entry
+
+    public CombatLog(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.data = new int[cap * STRIDE];
+        this.mask = cap - 1;
+    }
+
+    public static int heroId(int index) {
+        return index;
+    }
+
+    public static int monsterId(int index) {
+        return -1 - index;
+    }
+
+    public static boolean isMonster(int id) {
+        return id < 0 && id != NONE;
+    }
+
+    /**
+     * Hero or monster list index for an id from {@link #heroId} or {@link #monsterId}.
+     */
+    public static int indexOf(int id) {
+        return id < 0 ? -1 - id : id;
+    }
+
+    public void record(Kind kind, int actor, int target, int amount, int remaining) {
+        int base = (int) (written & mask) * STRIDE;
+        data[base] = kind.ordinal();
+        data[base + 1] = actor;
+        data[base + 2] = target;
+        data[base + 3] = amount;
+        data[base + 4] = remaining;
+        written++;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Sequence number the next recorded entry will get.
+     */
+    public long end() {
+        return written;
+    }
+
+    /**
+     * Oldest sequence number still held in the buffer.
+     */
+    public long start() {
+        return Math.max(0, written - capacity());
+    }
+
+    public void clear() {
+        written = 0;
+    }
+
+    public Kind kind(long seq) {
+        return KINDS[data[slot(seq)]];
+    }
+
+    public int actor(long seq) {
+        return data[slot(seq) + 1];
+    }
+
+    public int target(long seq) {
+        return data[slot(seq) + 2];
+    }
+
+    public int amount(long seq) {
+        return data[slot(seq) + 3];
+    }
+
+    public int remaining(long seq) {
+        return data[slot(seq) + 4];
+    }
+
+    private int slot(long seq) {
+        if (seq < start() || seq >= written) {
+            throw new IndexOutOfBoundsException("entry " + seq + " not in [" + start() + "," + written + ")");
+        }
+        return (int) (seq & mask) * STRIDE;
+    }
+}
@@ -0,0 +1,282 @@
+package legends.battle;
+
+import java.util.List;
+
+import legends.effects.StatusEffect;
+import legends.effects.StatusEffects;
+import legends.io.IO;
+import legends.model.Hero;
+import legends.model.Monster;
+
+/**
+ * Struct-of-arrays view of every combatant in one battle. Heroes take ids
+ * [0, heroCount) and monsters [heroCount, size), so per-side loops walk one
+ * contiguous range of each array.
+ *
+ * While a battle runs the arrays are the source of truth for HP and MP: heroes and
+ * monsters bound by {@link #attach} read and write through the state, and
+ * {@link #detach()} copies the results back into the objects. Status effects stay in
+ * each combatant's {@link StatusEffects}; the state keeps a reference per id.
+ */
+public final class CombatState {
+    private final Fighter[] fighters;
+    private final int heroCount;
+    private final int size;
+
+    private final int[] hp;
+    private final int[] maxHp;
+    private final int[] mp;
+    private final int[] maxMp;
+    private final int[] defense;
+    private final double[] dodge;
+    private final StatusEffects[] statuses;
+    // damage each hero has dealt each monster, monsterCount rows of heroCount
+    private final int[] threat;
+    private int aliveHeroes;
+    private int aliveMonsters;
+
+    private CombatState(int heroCount, int monsterCount) {
+        this.heroCount = heroCount;
+        this.size = heroCount + monsterCount;
+        this.fighters = new Fighter[size];
+        this.hp = new int[size];
+        this.maxHp = new int[size];
+        this.mp = new int[size];
+        this.maxMp = new int[size];
+        this.defense = new int[size];
+        this.dodge = new double[size];
+        this.statuses = new StatusEffects[size];
+        this.threat = new int[monsterCount * heroCount];
+    }
+
+    /**
+     * Build the state for a battle and bind every hero and monster to it.
+     */
+    public static CombatState attach(List<Hero> heroes, List<Monster> monsters) {
+        CombatState state = new CombatState(heroes.size(), monsters.size());
+        for (int i = 0; i < heroes.size(); i++) {
+            state.fighters[i] = heroes.get(i);
+            heroes.get(i).bindCombatState(state, i);
+        }
+        for (int i = 0; i < monsters.size(); i++) {
+            int id = state.heroCount + i;
+            state.fighters[id] = monsters.get(i);
+            monsters.get(i).bindCombatState(state, id);
+        }
+        return state;
+    }
+
+    /**
+     * An unbound copy of every number and status in this state, for
+     * {@link #copyFrom} to put back later (see {@link BattleSnapshot}).
+     */
+    public CombatState copy() {
+        CombatState c = new CombatState(heroCount, size - heroCount);
+        System.arraycopy(fighters, 0, c.fighters, 0, size);
+        for (int id = 0; id < size; id++) {
+            c.statuses[id] = new StatusEffects();
+        }
+        c.copyFrom(this);
+        return c;
+    }
+
+    /**
+     * Overwrite HP, MP, statuses and threat with those of another state for the same
+     * line-up. The fighters bound here stay bound; only the numbers change. Does not
+     * allocate once the status arrays are big enough.
+     */
+    public void copyFrom(CombatState other) {
+        if (other.heroCount != heroCount || other.size != size) {
+            throw new IllegalArgumentException("Combat states have different line-ups");
+        }
+        System.arraycopy(other.hp, 0, hp, 0, size);
+        System.arraycopy(other.maxHp, 0, maxHp, 0, size);
+        System.arraycopy(other.mp, 0, mp, 0, size);
+        System.arraycopy(other.maxMp, 0, maxMp, 0, size);
+        System.arraycopy(other.defense, 0, defense, 0, size);
+        System.arraycopy(other.dodge, 0, dodge, 0, size);
+        System.arraycopy(other.threat, 0, threat, 0, threat.length);
+        for (int id = 0; id < size; id++) {
+            statuses[id].copyFrom(other.statuses[id]);
+        }
+        aliveHeroes = other.aliveHeroes;
+        aliveMonsters = other.aliveMonsters;
+    }
+
+    /**
+     * Copy HP and MP back into the objects and unbind them.
+     */
+    public void detach() {
+        for (int id = 0; id < size; id++) {
+            if (id < heroCount) {
+                ((Hero) fighters[id]).unbindCombatState();
+            } else {
+                ((Monster) fighters[id]).unbindCombatState();
+            }
+        }
+    }
+
+    /**
+     * Called by a binding hero or monster to seed its slot.
+     */
+    public void load(int id, int hp, int maxHp, int mp, int maxMp, int defense, double dodge,
+                     StatusEffects statuses) {
+        this.hp[id] = 0;
+        this.maxHp[id] = maxHp;
+        this.mp[id] = mp;
+        this.maxMp[id] = maxMp;
+        this.defense[id] = defense;
+        this.dodge[id] = dodge;
+        this.statuses[id] = statuses;
+        setHp(id, hp);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int heroCount() {
+        return heroCount;
+    }
+
+    public int monsterId(int monsterIndex) {
+        return heroCount + monsterIndex;
+    }
+
+    public boolean isHero(int id) {
+        return id < heroCount;
+    }
+
+    public Fighter fighter(int id) {
+        return fighters[id];
+    }
+
+    public int aliveHeroes() {
+        return aliveHeroes;
+    }
+
+    public int aliveMonsters() {
+        return aliveMonsters;
+    }
+
+    public boolean isAlive(int id) {
+        return hp[id] > 0;
+    }
+
+    /**
+     * Index (into the hero list) of the k-th living hero, or -1 if there are fewer.
+     */
+    public int nthAliveHero(int k) {
+        for (int id = 0; id < heroCount; id++) {
+            if (hp[id] > 0 && k-- == 0) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    public int hp(int id) {
+        return hp[id];
+    }
+
+    public int maxHp(int id) {
+        return maxHp[id];
+    }
+
+    public void setHp(int id, int value) {
+        boolean wasAlive = hp[id] > 0;
+        hp[id] = value;
+        boolean alive = value > 0;
+        if (wasAlive != alive) {
+            int delta = alive ? 1 : -1;
+            if (id < heroCount) {
+                aliveHeroes += delta;
+            } else {
+                aliveMonsters += delta;
+            }
+        }
+    }
+
+    public int mp(int id) {
+        return mp[id];
+    }
+
+    public int maxMp(int id) {
+        return maxMp[id];
+    }
+
+    public void setMp(int id, int value) {
+        mp[id] = value;
+    }
+
+    public int defense(int id) {
+        return defense[id];
+    }
+
+    public double dodge(int id) {
+        return dodge[id];
+    }
+
+    /**
+     * Apply an incoming hit: defense (less armor penetration) is subtracted first.
+     * Returns the damage actually dealt.
+     */
+    public int applyDamage(int id, int dmg) {
+        int effectiveDefense = Math.max(0, defense[id] - statuses[id].total(StatusEffect.Type.ARMOR_PENETRATE));
+        int reduced = dmg - effectiveDefense;
+        if (reduced < 0) reduced = 0;
+        setHp(id, Math.max(0, hp[id] - reduced));
+        return reduced;
+    }
+
+    /**
+     * Apply the same hit to a batch of combatants, as {@link #applyDamage(int, int)}
+     * does for one. dealt[i] receives the damage ids[i] actually took. The defense
+     * lookup, the subtraction and the HP update are separate loops over primitive
+     * arrays so each stays a tight, branch-light loop for large AOE batches.
+     */
+    public void applyDamage(int[] ids, int count, int dmg, int[] dealt) {
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            dealt[i] = defense[id] - statuses[id].total(StatusEffect.Type.ARMOR_PENETRATE);
+        }
+        for (int i = 0; i < count; i++) {
+            int reduced = dmg - Math.max(0, dealt[i]);
+            dealt[i] = reduced < 0 ? 0 : reduced;
+        }
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            setHp(id, Math.max(0, hp[id] - dealt[i]));
+        }
+    }
+
+    /**
+     * Damage the hero has dealt the monster so far this battle; what
+     * {@link MonsterPolicies#THREAT} targets by.
+     */
+    public int threat(int monsterId, int heroId) {
+        return threat[(monsterId - heroCount) * heroCount + heroId];
+    }
+
+    public void addThreat(int monsterId, int heroId, int amount) {
+        threat[(monsterId - heroCount) * heroCount + heroId] += amount;
+    }
+
+    public StatusEffects statuses(int id) {
+        return statuses[id];
+    }
+
+    /**
+     * Tick the status effects of every combatant, heroes first.
+     */
+    public void tickStatuses(IO io) {
+        for (int id = 0; id < size; id++) {
+            if (statuses[id].isEmpty()) continue;
+            if (id < heroCount) {
+                ((Hero) fighters[id]).tickStatusEffects(io);
+            } else {
+                ((Monster) fighters[id]).tickStatusEffects(io);
+            }
+        }
+    }
+}
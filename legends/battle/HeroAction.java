@@ -0,0 +1,14 @@
+package legends.battle;
+
+/**
+ * Actions a hero can take on their turn. Mirrors the numbered battle menu so a
+ * {@link HeroPolicy} can drive the engine without scripted input.
+ */
+public enum HeroAction {
+    ATTACK,
+    SKILL,
+    HEALTH_POTION,
+    MANA_POTION,
+    SKIP,
+    ITEM
+}
@@ -0,0 +1,99 @@
+package legends.battle;
+
+import java.util.List;
+import java.util.Random;
+
+import legends.model.Hero;
+import legends.model.Monster;
+
+/**
+ * Built-in hero policies for simulations.
+ */
+public final class HeroPolicies {
+    private HeroPolicies() {}
+
+    /**
+     * Always normal-attacks the first alive monster. Matches the scripted "1" input
+     * used by the smoke tests.
+     */
+    public static final HeroPolicy ALWAYS_ATTACK = new HeroPolicy() {
+        @Override
+        public HeroAction chooseAction(Hero hero, List<Hero> heroes, List<Monster> monsters, Random rng) {
+            return HeroAction.ATTACK;
+        }
+
+        @Override
+        public int chooseTarget(Hero hero, List<Monster> monsters, Random rng) {
+            return firstAlive(monsters);
+        }
+    };
+
+    /**
+     * Drinks a health potion below 30% HP, casts the class skill when MP allows,
+     * otherwise attacks. Always focuses the weakest alive monster.
+     */
+    public static final HeroPolicy GREEDY = new HeroPolicy() {
+        @Override
+        public HeroAction chooseAction(Hero hero, List<Hero> heroes, List<Monster> monsters, Random rng) {
+            if (hero.getHp() * 10 < hero.getMaxHp() * 3 && hero.getHealthPotions() > 0) {
+                return HeroAction.HEALTH_POTION;
+            }
+            if (hero.getMp() >= hero.getSkillMpCost()) {
+                return HeroAction.SKILL;
+            }
+            return HeroAction.ATTACK;
+        }
+
+        @Override
+        public int chooseTarget(Hero hero, List<Monster> monsters, Random rng) {
+            return lowestHpAlive(monsters);
+        }
+    };
+
+    /**
+     * Picks uniformly among attack, skill and potions, useful as a noisy baseline.
+     */
+    public static final HeroPolicy RANDOM = new HeroPolicy() {
+        @Override
+        public HeroAction chooseAction(Hero hero, List<Hero> heroes, List<Monster> monsters, Random rng) {
+            switch (rng.nextInt(4)) {
+                case 0: return HeroAction.SKILL;
+                case 1: return hero.getHp() < hero.getMaxHp() ? HeroAction.HEALTH_POTION : HeroAction.ATTACK;
+                case 2: return hero.getMp() < hero.getMaxMp() ? HeroAction.MANA_POTION : HeroAction.ATTACK;
+                default: return HeroAction.ATTACK;
+            }
+        }
+
+        @Override
+        public int chooseTarget(Hero hero, List<Monster> monsters, Random rng) {
+            int n = monsters.size();
+            if (n == 0) return -1;
+            int start = rng.nextInt(n);
+            for (int i = 0; i < n; i++) {
+                int idx = (start + i) % n;
+                if (monsters.get(idx).isAlive()) return idx;
+            }
+            return -1;
+        }
+    };
+
+    public static int firstAlive(List<Monster> monsters) {
+        for (int i = 0; i < monsters.size(); i++) {
+            if (monsters.get(i).isAlive()) return i;
+        }
+        return -1;
+    }
+
+    public static int lowestHpAlive(List<Monster> monsters) {
+        int best = -1;
+        int bestHp = Integer.MAX_VALUE;
+        for (int i = 0; i < monsters.size(); i++) {
+            Monster m = monsters.get(i);
+            if (m.isAlive() && m.getHp() < bestHp) {
+                bestHp = m.getHp();
+                best = i;
+            }
+        }
+        return best;
+    }
+}
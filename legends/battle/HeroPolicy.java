@@ -0,0 +1,38 @@
+package legends.battle;
+
+import java.util.List;
+import java.util.Random;
+
+import legends.model.Hero;
+import legends.model.Monster;
+
+/**
+ * Decides hero actions in place of menu input. Used by non-interactive battles
+ * (simulations, auto-battle). Implementations should avoid allocating per call,
+ * since they run once per hero turn.
+ */
+public interface HeroPolicy {
+    HeroAction chooseAction(Hero hero, List<Hero> heroes, List<Monster> monsters, Random rng);
+
+    /**
+     * Index into {@code monsters} of the target to hit. Out of range or dead
+     * targets fall back to the first alive monster.
+     */
+    int chooseTarget(Hero hero, List<Monster> monsters, Random rng);
+
+    /**
+     * Skill bar slot to use for {@link HeroAction#SKILL}. A slot that is empty,
+     * recharging or too expensive falls back to a normal attack.
+     */
+    default int chooseSkillSlot(Hero hero, List<Monster> monsters, Random rng) {
+        return 0;
+    }
+
+    /**
+     * Index into {@link Hero#getConsumables()} to use for {@link HeroAction#ITEM},
+     * or -1 to fall back to a normal attack.
+     */
+    default int chooseItem(Hero hero, List<Monster> monsters, Random rng) {
+        return -1;
+    }
+}
@@ -0,0 +1,493 @@
+package legends.battle;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import legends.GameContext;
+import legends.data.ContentSnapshot;
+import legends.events.EventBus;
+import legends.io.NullIO;
+import legends.items.Consumable;
+import legends.items.ConsumableStack;
+import legends.model.Hero;
+import legends.model.Monster;
+import legends.skills.DeclarativeSkill;
+import legends.skills.Skill;
+import legends.util.RngStreams;
+
+/**
+ * Hero autopilot by Monte-Carlo tree search, for the battle menu's autopilot option
+ * and for automated playtesting.
+ *
+ * Each turn the battle is captured in a {@link BattleSnapshot} and the hero's options
+ * are searched: a normal attack on each monster, each castable skill slot (on each
+ * monster unless it hits them all), the potions, and each usable consumable. An
+ * iteration restores the snapshot into a private copy of the battle, follows the tree
+ * through this hero's next few turns (UCB1 over the options open at that point; the
+ * tree is open-loop, so a node is a sequence of choices whatever the dice did), adds
+ * one untried option and plays the rest out with {@link HeroPolicies#GREEDY} for every
+ * hero. Wins score by the party's remaining HP, undecided battles by the HP balance,
+ * losses zero, less a little for each potion or item spent.
+ *
+ * Search runs on worker threads, each with its own battle copy, tree, RNG and event
+ * bus, and the most visited option over all of them is played. Workers stop at the
+ * per-turn time budget, or earlier after a fixed number of iterations when one is
+ * given. One instance drives one battle at a time; {@link #close()} stops its threads.
+ */
+public final class MctsHeroPolicy implements HeroPolicy, Closeable {
+    // Rounds a rollout may play before it is scored as undecided
+    public static final int DEFAULT_HORIZON = 30;
+    // This hero's turns covered by the tree; later ones follow the rollout policy
+    private static final int MAX_DEPTH = 6;
+    private static final double EXPLORATION = Math.sqrt(2);
+    // Score given up per potion or consumable used, so they are kept for when they matter
+    private static final double ITEM_COST = 0.02;
+    private static final int MAX_OPTIONS = 256;
+
+    // Option codes: kind in the top byte, skill slot or item index in the middle two,
+    // monster index + 1 in the low byte (0 = no target)
+    private static final int ATTACK = 0;
+    private static final int SKILL = 1;
+    private static final int HEALTH = 2;
+    private static final int MANA = 3;
+    private static final int ITEM = 4;
+    private static final int NONE = -1;
+
+    private final long budgetNanos;
+    private final int threads;
+    private final int maxIterations;
+    private final int horizon;
+    private final HeroPolicy rollout = HeroPolicies.GREEDY;
+    // null with a single thread: the search then runs on the caller
+    private final ExecutorService pool;
+
+    // Option picked by chooseAction, handed out by the calls that follow for the same hero
+    private Hero decidedFor;
+    private int decided = NONE;
+    private long lastIterations;
+
+    public MctsHeroPolicy(long budgetMillis, int threads) {
+        this(budgetMillis, threads, 0, DEFAULT_HORIZON);
+    }
+
+    /**
+     * @param maxIterations per worker and turn; 0 searches for the whole budget
+     * @param horizon rounds a rollout plays before it is scored as undecided
+     */
+    public MctsHeroPolicy(long budgetMillis, int threads, int maxIterations, int horizon) {
+        this.budgetNanos = Math.max(1, budgetMillis) * 1000000L;
+        this.threads = Math.max(1, threads);
+        this.maxIterations = Math.max(0, maxIterations);
+        this.horizon = Math.max(1, horizon);
+        this.pool = this.threads > 1 ? Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "autopilot-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        }) : null;
+    }
+
+    /**
+     * Rollouts played over all workers for the last decision.
+     */
+    public long getLastIterations() {
+        return lastIterations;
+    }
+
+    @Override
+    public HeroAction chooseAction(Hero hero, List<Hero> heroes, List<Monster> monsters, Random rng) {
+        decidedFor = null;
+        decided = NONE;
+        CombatState state = hero.getCombatState();
+        int hi = heroes.indexOf(hero);
+        if (state == null || hi < 0) {
+            return rollout.chooseAction(hero, heroes, monsters, rng);
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        BattleSnapshot root = BattleSnapshot.capture(state, heroes, monsters);
+        String difficulty = legends.Config.difficulty();
+        List<Worker> workers = new ArrayList<Worker>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker(heroes, monsters, hi, root, rng.nextLong(), difficulty, deadline));
+        }
+        if (!search(workers)) {
+            return rollout.chooseAction(hero, heroes, monsters, rng);
+        }
+
+        // sum the root statistics of every worker and play the most visited option
+        int[] options = new int[MAX_OPTIONS];
+        long[] visits = new long[MAX_OPTIONS];
+        double[] values = new double[MAX_OPTIONS];
+        int count = 0;
+        lastIterations = 0;
+        for (Worker w : workers) {
+            lastIterations += w.iterations;
+            for (int i = 0; i < w.tree.size; i++) {
+                Node c = w.tree.children[i];
+                int k = 0;
+                while (k < count && options[k] != c.option) k++;
+                if (k == count) {
+                    if (count == MAX_OPTIONS) continue;
+                    options[count++] = c.option;
+                }
+                visits[k] += c.visits;
+                values[k] += c.value;
+            }
+        }
+        int best = -1;
+        for (int k = 0; k < count; k++) {
+            if (best < 0 || visits[k] > visits[best]
+                    || (visits[k] == visits[best] && values[k] / Math.max(1, visits[k]) > values[best] / Math.max(1, visits[best]))) {
+                best = k;
+            }
+        }
+        if (best < 0) {
+            return rollout.chooseAction(hero, heroes, monsters, rng);
+        }
+        decidedFor = hero;
+        decided = options[best];
+        return actionOf(decided);
+    }
+
+    @Override
+    public int chooseTarget(Hero hero, List<Monster> monsters, Random rng) {
+        if (hero == decidedFor && targetOf(decided) >= 0) {
+            return targetOf(decided);
+        }
+        return rollout.chooseTarget(hero, monsters, rng);
+    }
+
+    @Override
+    public int chooseSkillSlot(Hero hero, List<Monster> monsters, Random rng) {
+        if (hero == decidedFor && kindOf(decided) == SKILL) {
+            return indexOf(decided);
+        }
+        return rollout.chooseSkillSlot(hero, monsters, rng);
+    }
+
+    @Override
+    public int chooseItem(Hero hero, List<Monster> monsters, Random rng) {
+        if (hero == decidedFor && kindOf(decided) == ITEM) {
+            return indexOf(decided);
+        }
+        return rollout.chooseItem(hero, monsters, rng);
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    // Run the workers to their deadline; false if interrupted before they finished
+    private boolean search(List<Worker> workers) {
+        if (pool == null) {
+            workers.get(0).call();
+            return true;
+        }
+        try {
+            for (Future<Void> f : pool.invokeAll(workers)) {
+                f.get();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Autopilot search failed", e.getCause());
+        }
+    }
+
+    /**
+     * Options open to the hero now, as option codes written to out; returns how many.
+     */
+    static int options(Hero h, List<Monster> monsters, CombatState state, ContentSnapshot content, int[] out) {
+        int n = 0;
+        for (int i = 0; i < monsters.size(); i++) {
+            if (state.isAlive(state.monsterId(i))) n = put(out, n, code(ATTACK, 0, i));
+        }
+        int slots = h.getSkillSlots(content);
+        for (int s = 0; s < slots; s++) {
+            if (!BattleEngine.canCast(h, content, s)) continue;
+            Skill sk = h.getSkill(content, s);
+            if (sk instanceof DeclarativeSkill && ((DeclarativeSkill) sk).getTarget() == DeclarativeSkill.Target.AOE) {
+                n = put(out, n, code(SKILL, s, -1));
+                continue;
+            }
+            for (int i = 0; i < monsters.size(); i++) {
+                if (state.isAlive(state.monsterId(i))) n = put(out, n, code(SKILL, s, i));
+            }
+        }
+        if (h.getHealthPotions() > 0 && h.getHp() < h.getMaxHp()) n = put(out, n, code(HEALTH, 0, -1));
+        if (h.getManaPotions() > 0 && h.getMp() < h.getMaxMp()) n = put(out, n, code(MANA, 0, -1));
+        List<ConsumableStack> stacks = h.getConsumables();
+        for (int k = 0; k < stacks.size(); k++) {
+            Consumable c = stacks.get(k).getConsumable();
+            if (!BattleEngine.itemUsable(h, c.getType(), state.aliveMonsters() > 0)) continue;
+            if (!c.needsTarget()) {
+                n = put(out, n, code(ITEM, k, -1));
+                continue;
+            }
+            for (int i = 0; i < monsters.size(); i++) {
+                if (state.isAlive(state.monsterId(i))) n = put(out, n, code(ITEM, k, i));
+            }
+        }
+        return n;
+    }
+
+    private static int put(int[] out, int n, int option) {
+        if (n == out.length) return n;
+        out[n] = option;
+        return n + 1;
+    }
+
+    private static int code(int kind, int index, int target) {
+        return kind << 24 | index << 8 | (target + 1);
+    }
+
+    private static int kindOf(int option) {
+        return option == NONE ? NONE : option >>> 24;
+    }
+
+    private static int indexOf(int option) {
+        return (option >>> 8) & 0xFFFF;
+    }
+
+    private static int targetOf(int option) {
+        return option == NONE ? -1 : (option & 0xFF) - 1;
+    }
+
+    private static HeroAction actionOf(int option) {
+        switch (kindOf(option)) {
+            case SKILL: return HeroAction.SKILL;
+            case HEALTH: return HeroAction.HEALTH_POTION;
+            case MANA: return HeroAction.MANA_POTION;
+            case ITEM: return HeroAction.ITEM;
+            default: return HeroAction.ATTACK;
+        }
+    }
+
+    // Tree node: the statistics of reaching it, and the options tried from it
+    private static final class Node {
+        final int option;
+        long visits;
+        double value;
+        int size;
+        int[] options = new int[8];
+        Node[] children = new Node[8];
+
+        Node(int option) {
+            this.option = option;
+        }
+
+        Node child(int option) {
+            for (int i = 0; i < size; i++) {
+                if (options[i] == option) return children[i];
+            }
+            return null;
+        }
+
+        Node add(int option) {
+            if (size == options.length) {
+                options = java.util.Arrays.copyOf(options, size * 2);
+                children = java.util.Arrays.copyOf(children, size * 2);
+            }
+            Node c = new Node(option);
+            options[size] = option;
+            children[size++] = c;
+            return c;
+        }
+
+        /**
+         * Next node among the open options: an untried one first (at random),
+         * otherwise the best by UCB1. Reorders open.
+         */
+        Node select(int[] open, int n, Random rng) {
+            int untried = 0;
+            for (int i = 0; i < n; i++) {
+                Node c = child(open[i]);
+                if (c == null || c.visits == 0) {
+                    int t = open[untried];
+                    open[untried++] = open[i];
+                    open[i] = t;
+                }
+            }
+            if (untried > 0) {
+                int option = open[rng.nextInt(untried)];
+                Node c = child(option);
+                return c != null ? c : add(option);
+            }
+            double logVisits = Math.log(Math.max(1, visits));
+            Node best = null;
+            double bestScore = 0;
+            for (int i = 0; i < n; i++) {
+                Node c = child(open[i]);
+                double score = c.value / c.visits + EXPLORATION * Math.sqrt(logVisits / c.visits);
+                if (best == null || score > bestScore) {
+                    best = c;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * One search thread: a copy of the battle bound to its own engine, whose hero
+     * turns it drives through the tree.
+     */
+    private final class Worker implements Callable<Void>, HeroPolicy {
+        private final List<Hero> heroes;
+        private final List<Monster> monsters;
+        private final int hi;
+        private final Hero decider;
+        private final BattleSnapshot root;
+        private final int rootItems;
+        private final String difficulty;
+        private final long deadline;
+        // the worker's own streams, so playouts share no generator across threads
+        private final RngStreams streams;
+        private final BattleEngine engine;
+        private final CombatState state;
+        final Node tree = new Node(NONE);
+        long iterations;
+
+        // the walk of the current iteration
+        private final Node[] path = new Node[MAX_DEPTH + 1];
+        private int depth;
+        private boolean inTree;
+        private int pending = NONE;
+        private final int[] open = new int[MAX_OPTIONS];
+
+        Worker(List<Hero> heroes, List<Monster> monsters, int hi, BattleSnapshot root, long seed,
+               String difficulty, long deadline) {
+            this.heroes = new ArrayList<Hero>(heroes.size());
+            for (Hero h : heroes) this.heroes.add(h.copy());
+            this.monsters = new ArrayList<Monster>(monsters.size());
+            for (Monster m : monsters) this.monsters.add(m.copy());
+            this.hi = hi;
+            this.decider = this.heroes.get(hi);
+            this.root = root;
+            this.rootItems = root.partyItems();
+            this.difficulty = difficulty;
+            this.deadline = deadline;
+            this.streams = new RngStreams(seed);
+            this.engine = new BattleEngine(this.heroes, this.monsters, streams.combat(), NullIO.INSTANCE, this);
+            this.state = engine.attachForRollouts();
+        }
+
+        @Override
+        public Void call() {
+            GameContext previous = GameContext.bind(new GameContext(new EventBus(), NullIO.INSTANCE, difficulty, streams));
+            try {
+                do {
+                    root.restore(state, heroes, monsters);
+                    path[0] = tree;
+                    depth = 1;
+                    inTree = true;
+                    pending = NONE;
+                    engine.playOut(hi, horizon);
+                    double v = score();
+                    for (int i = 0; i < depth; i++) {
+                        path[i].visits++;
+                        path[i].value += v;
+                    }
+                    iterations++;
+                } while ((maxIterations == 0 || iterations < maxIterations) && System.nanoTime() < deadline);
+            } finally {
+                GameContext.restore(previous);
+            }
+            return null;
+        }
+
+        private double score() {
+            if (state.aliveHeroes() == 0) return 0;
+            long heroHp = 0;
+            long heroMax = 0;
+            long monsterHp = 0;
+            long monsterMax = 0;
+            for (int id = 0; id < state.size(); id++) {
+                if (state.isHero(id)) {
+                    heroHp += state.hp(id);
+                    heroMax += state.maxHp(id);
+                } else {
+                    monsterHp += state.hp(id);
+                    monsterMax += state.maxHp(id);
+                }
+            }
+            double heroShare = (double) heroHp / Math.max(1, heroMax);
+            double v = state.aliveMonsters() == 0
+                    ? 0.6 + 0.4 * heroShare
+                    : 0.3 * heroShare + 0.3 * (1 - (double) monsterHp / Math.max(1, monsterMax));
+            int items = 0;
+            for (Hero h : heroes) {
+                items += h.getHealthPotions() + h.getManaPotions();
+                List<ConsumableStack> stacks = h.getConsumables();
+                for (int i = 0; i < stacks.size(); i++) items += stacks.get(i).getCount();
+            }
+            return Math.max(0, v - ITEM_COST * (rootItems - items));
+        }
+
+        @Override
+        public HeroAction chooseAction(Hero hero, List<Hero> hs, List<Monster> ms, Random rng) {
+            if (hero != decider) {
+                return rollout.chooseAction(hero, hs, ms, rng);
+            }
+            pending = NONE;
+            if (!inTree || depth == path.length) {
+                inTree = false;
+                return rollout.chooseAction(hero, hs, ms, rng);
+            }
+            int n = options(hero, ms, state, engine.getContent(), open);
+            if (n == 0) {
+                inTree = false;
+                return rollout.chooseAction(hero, hs, ms, rng);
+            }
+            Node node = path[depth - 1].select(open, n, rng);
+            if (node.visits == 0) {
+                inTree = false; // newly added: the rest of this iteration is the rollout
+            }
+            path[depth++] = node;
+            pending = node.option;
+            return actionOf(pending);
+        }
+
+        @Override
+        public int chooseTarget(Hero hero, List<Monster> ms, Random rng) {
+            if (hero == decider && targetOf(pending) >= 0) {
+                return targetOf(pending);
+            }
+            return rollout.chooseTarget(hero, ms, rng);
+        }
+
+        @Override
+        public int chooseSkillSlot(Hero hero, List<Monster> ms, Random rng) {
+            if (hero == decider && kindOf(pending) == SKILL) {
+                return indexOf(pending);
+            }
+            return rollout.chooseSkillSlot(hero, ms, rng);
+        }
+
+        @Override
+        public int chooseItem(Hero hero, List<Monster> ms, Random rng) {
+            if (hero == decider && kindOf(pending) == ITEM) {
+                return indexOf(pending);
+            }
+            return rollout.chooseItem(hero, ms, rng);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package legends.battle;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Built-in monster targeting policies, and the names data files use for them
+ * (the "ai" key in data/monsters.txt).
+ */
+public final class MonsterPolicies {
+    private static final Map<String, MonsterPolicy> BY_NAME = new ConcurrentHashMap<>();
+
+    private MonsterPolicies() {}
+
+    /**
+     * A uniformly random living hero each round; what every monster did before
+     * policies existed.
+     */
+    public static final MonsterPolicy RANDOM = new MonsterPolicy() {
+        @Override
+        public int chooseTarget(CombatState state, int monsterIndex, int previous, Random rng) {
+            return randomAlive(state, rng);
+        }
+    };
+
+    /**
+     * Stays on its target while that hero lives; picks a new one at random when it
+     * falls.
+     */
+    public static final MonsterPolicy AGGRO = new MonsterPolicy() {
+        @Override
+        public int chooseTarget(CombatState state, int monsterIndex, int previous, Random rng) {
+            if (previous >= 0 && previous < state.heroCount() && state.isAlive(previous)) {
+                return previous;
+            }
+            return randomAlive(state, rng);
+        }
+    };
+
+    /**
+     * Goes for the living hero with the least HP, the first one on ties.
+     */
+    public static final MonsterPolicy LOWEST_HP = new MonsterPolicy() {
+        @Override
+        public int chooseTarget(CombatState state, int monsterIndex, int previous, Random rng) {
+            int best = -1;
+            for (int id = 0; id < state.heroCount(); id++) {
+                if (state.isAlive(id) && (best < 0 || state.hp(id) < state.hp(best))) {
+                    best = id;
+                }
+            }
+            return best;
+        }
+    };
+
+    /**
+     * Goes for the living hero that has dealt this monster the most damage this
+     * battle (see {@link CombatState#threat}); random until anyone has.
+     */
+    public static final MonsterPolicy THREAT = new MonsterPolicy() {
+        @Override
+        public int chooseTarget(CombatState state, int monsterIndex, int previous, Random rng) {
+            int monsterId = state.monsterId(monsterIndex);
+            int best = -1;
+            int bestThreat = 0;
+            for (int id = 0; id < state.heroCount(); id++) {
+                int t = state.threat(monsterId, id);
+                if (state.isAlive(id) && t > bestThreat) {
+                    bestThreat = t;
+                    best = id;
+                }
+            }
+            return best >= 0 ? best : randomAlive(state, rng);
+        }
+    };
+
+    static {
+        register("random", RANDOM);
+        register("aggro", AGGRO);
+        register("lowestHp", LOWEST_HP);
+        register("threat", THREAT);
+    }
+
+    /**
+     * Make a policy available to data files under a name (case-insensitive).
+     */
+    public static void register(String name, MonsterPolicy policy) {
+        BY_NAME.put(name.toLowerCase(Locale.ROOT), policy);
+    }
+
+    /**
+     * The policy registered under the name, or null.
+     */
+    public static MonsterPolicy get(String name) {
+        return name == null ? null : BY_NAME.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public static int randomAlive(CombatState state, Random rng) {
+        int alive = state.aliveHeroes();
+        return alive == 0 ? -1 : state.nthAliveHero(rng.nextInt(alive));
+    }
+}
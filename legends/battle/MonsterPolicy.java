@@ -0,0 +1,16 @@
+package legends.battle;
+
+import java.util.Random;
+
+/**
+ * Picks the hero a monster goes after when it commits its intent for a round
+ * (see {@link legends.model.Monster#planIntent}). Runs once per monster per round,
+ * so implementations must not allocate.
+ */
+public interface MonsterPolicy {
+    /**
+     * Index into the battle's hero list of the hero to target, or -1 if none is
+     * alive. previous is the hero the monster targeted last round, or -1.
+     */
+    int chooseTarget(CombatState state, int monsterIndex, int previous, Random rng);
+}
@@ -0,0 +1,175 @@
+package legends.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The content the game is currently using, as one {@link ContentSnapshot} behind an
+ * atomic reference. Readers call {@link #current()} and keep the snapshot they got
+ * for as long as they need a consistent view; publishing a new one is a single
+ * reference swap, so reads never lock and never see a partly loaded pack.
+ *
+ * {@link #watch(File)} reloads the directory in the background whenever one of its
+ * content files changes. A reload that fails leaves the current snapshot in place.
+ */
+public final class ContentPacks {
+    public static final File DEFAULT_DIR = new File("data");
+    // Quiet time after the last change before reloading, so an editor's
+    // truncate-then-write (or a copy of several files) is read once, complete
+    private static final long SETTLE_MILLIS = 200;
+
+    private static final AtomicReference<ContentSnapshot> CURRENT = new AtomicReference<ContentSnapshot>();
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private ContentPacks() {}
+
+    /**
+     * The snapshot in use, loaded from data/ on first call.
+     */
+    public static ContentSnapshot current() {
+        ContentSnapshot s = CURRENT.get();
+        if (s != null) return s;
+        synchronized (ContentPacks.class) {
+            s = CURRENT.get();
+            if (s == null) {
+                try {
+                    s = ContentSnapshot.load(DEFAULT_DIR, VERSIONS.incrementAndGet(), false);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e); // not thrown when lenient
+                }
+                publish(s);
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Load dir and publish it. Throws, leaving the current snapshot in use, if the
+     * skills file cannot be parsed.
+     */
+    public static ContentSnapshot reload(File dir) throws IOException {
+        ContentSnapshot s = ContentSnapshot.load(dir, VERSIONS.incrementAndGet(), true);
+        publish(s);
+        return s;
+    }
+
+    /**
+     * Make s the current snapshot. Monster factories are re-registered so code that
+     * creates monsters by name through {@link legends.factory.MonsterRegistry} sees the
+     * new roster; spawning itself builds from the snapshot's own templates.
+     */
+    public static void publish(ContentSnapshot s) {
+        s.getMonsters().registerFactories();
+        CURRENT.set(s);
+    }
+
+    /**
+     * Start watching dir for changes to its content files, reloading on a daemon
+     * thread after each burst of changes. Close the watcher to stop.
+     */
+    public static Watcher watch(File dir) throws IOException {
+        Watcher w = new Watcher(dir);
+        w.thread.start();
+        return w;
+    }
+
+    private static boolean isContentFile(Path name) {
+        String n = name.toString();
+        return n.equals(ContentSnapshot.SKILLS_FILE) || n.equals(ContentSnapshot.MONSTERS_FILE)
+                || n.equals(ContentSnapshot.ITEMS_FILE) || n.equals(ContentSnapshot.EVENTS_FILE);
+    }
+
+    public static final class Watcher implements Closeable {
+        private final File dir;
+        private final WatchService service;
+        private final Thread thread;
+        private volatile int reloads;
+        private volatile Exception lastError;
+
+        private Watcher(File dir) throws IOException {
+            this.dir = dir;
+            this.service = FileSystems.getDefault().newWatchService();
+            dir.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            this.thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    watchLoop();
+                }
+            }, "content-watcher");
+            thread.setDaemon(true);
+        }
+
+        /**
+         * Number of snapshots this watcher has published.
+         */
+        public int getReloads() { return reloads; }
+
+        /**
+         * Why the last reload was rejected, or null if it succeeded.
+         */
+        public Exception getLastError() { return lastError; }
+
+        private void watchLoop() {
+            try {
+                while (true) {
+                    if (!drain(service.take())) continue;
+                    // coalesce everything that arrives until the directory settles
+                    WatchKey more;
+                    while ((more = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        drain(more);
+                    }
+                    try {
+                        reload(dir);
+                        lastError = null;
+                        reloads++;
+                    } catch (IOException e) {
+                        lastError = e;
+                    } catch (RuntimeException e) {
+                        lastError = e;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } catch (ClosedWatchServiceException e) {
+                // closed
+            }
+        }
+
+        // Consume a key's events; true if any of them touched a content file
+        private static boolean drain(WatchKey key) {
+            boolean relevant = false;
+            for (WatchEvent<?> ev : key.pollEvents()) {
+                if (ev.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    relevant = true;
+                } else if (isContentFile((Path) ev.context())) {
+                    relevant = true;
+                }
+            }
+            key.reset();
+            return relevant;
+        }
+
+        @Override
+        public void close() throws IOException {
+            service.close();
+            thread.interrupt();
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package legends.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import legends.ItemLibrary;
+import legends.events.AdventureEvent;
+import legends.events.AdventureEventRegistry;
+import legends.skills.Skill;
+import legends.skills.SkillRegistry;
+
+/**
+ * One immutable version of the game's data: skills, monsters, items and adventure
+ * events as they were read from a content directory at one moment. A new snapshot
+ * is built for every reload and swapped in whole by {@link ContentPacks}, so code
+ * that holds on to a snapshot (a running battle, say) never sees half of an edit.
+ */
+public final class ContentSnapshot {
+    public static final String SKILLS_FILE = "skills.json";
+    public static final String MONSTERS_FILE = "monsters.txt";
+    public static final String ITEMS_FILE = "items.txt";
+    public static final String EVENTS_FILE = "events.txt";
+
+    private final long version;
+    // hero class -> skill bar; slot 0 is the class skill, empty slots are null
+    private final Map<String, Skill[]> skills;
+    private final MonsterCatalog monsters;
+    private final List<ItemLibrary.Entry> items;
+    private final List<AdventureEvent> events;
+
+    public ContentSnapshot(long version, Map<String, Skill[]> skills, MonsterCatalog monsters,
+                           List<ItemLibrary.Entry> items, List<AdventureEvent> events) {
+        this.version = version;
+        Map<String, Skill[]> bars = new HashMap<String, Skill[]>();
+        for (Map.Entry<String, Skill[]> e : skills.entrySet()) {
+            bars.put(e.getKey(), e.getValue().clone());
+        }
+        this.skills = Collections.unmodifiableMap(bars);
+        this.monsters = monsters;
+        this.items = Collections.unmodifiableList(new ArrayList<ItemLibrary.Entry>(items));
+        this.events = Collections.unmodifiableList(new ArrayList<AdventureEvent>(events));
+    }
+
+    /**
+     * Snapshot of the content files in dir. Missing files give the built-in content.
+     * A skills file that cannot be parsed throws when strict, and otherwise gives the
+     * built-in skills (what a first start has always done); the text files skip
+     * entries they cannot use.
+     */
+    public static ContentSnapshot load(File dir, long version, boolean strict) throws IOException {
+        Map<String, Skill[]> skills;
+        try {
+            skills = SkillRegistry.loadSkills(new File(dir, SKILLS_FILE));
+        } catch (IOException e) {
+            if (strict) throw e;
+            skills = SkillRegistry.defaults();
+        }
+        return new ContentSnapshot(version, skills,
+                MonsterCatalog.load(new File(dir, MONSTERS_FILE)),
+                ItemLibrary.load(new File(dir, ITEMS_FILE)),
+                AdventureEventRegistry.load(new File(dir, EVENTS_FILE)));
+    }
+
+    /**
+     * Increases by one with every snapshot published.
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * The skill of a hero class, or null if the content has none for it.
+     */
+    public Skill getSkill(String heroClass) {
+        return getSkill(heroClass, 0);
+    }
+
+    /**
+     * The skill in one slot of a hero class's skill bar, or null if that slot is empty.
+     */
+    public Skill getSkill(String heroClass, int slot) {
+        Skill[] bar = skills.get(heroClass);
+        return bar != null && slot >= 0 && slot < bar.length ? bar[slot] : null;
+    }
+
+    /**
+     * Length of a hero class's skill bar, counting empty slots; 0 if it has none.
+     */
+    public int getSkillSlots(String heroClass) {
+        Skill[] bar = skills.get(heroClass);
+        return bar == null ? 0 : bar.length;
+    }
+
+    public MonsterCatalog getMonsters() { return monsters; }
+
+    public List<ItemLibrary.Entry> getItems() { return items; }
+
+    public List<AdventureEvent> getEvents() { return events; }
+
+    @Override
+    public String toString() {
+        return "content v" + version + ": " + skills.size() + " skills, " + monsters.getTemplates().size()
+                + " monsters, " + items.size() + " items, " + events.size() + " events";
+    }
+}
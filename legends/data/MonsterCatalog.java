@@ -0,0 +1,240 @@
+package legends.data;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import legends.factory.MonsterFactory;
+import legends.factory.MonsterRegistry;
+import legends.model.Monster;
+
+/**
+ * Every monster that can spawn, loaded from data/monsters.txt (or the built-in
+ * roster if the file is missing). A catalog never changes; reloading the content
+ * pack builds a new one (see {@link ContentPacks}).
+ *
+ * Templates are grouped into level bands by the party level they start at: a
+ * party picks from the highest band at or below its level. Each band, and each
+ * type within a band, has a precomputed alias table over the template weights, so
+ * a weighted pick costs one random index and at most one coin flip however many
+ * templates there are.
+ *
+ * Entry keys: type, name, level (band start, default 1), weight (default 1), and
+ * optional baseDamage, defense, dodge (see {@link MonsterTemplate}) and ai (the
+ * targeting policy, see {@link legends.battle.MonsterPolicies}).
+ */
+public final class MonsterCatalog {
+    public static final File DEFAULT_FILE = new File("data/monsters.txt");
+
+    private final List<MonsterTemplate> templates;
+    private final Map<String, MonsterTemplate> byName;
+    // band start levels, ascending, and the band for each party level up to the last start
+    private final int[] bandLevels;
+    private final int[] bandForLevel;
+    private final AliasTable[] bands;
+    // per band: type -> table over that band's templates of the type
+    private final List<Map<String, AliasTable>> bandsByType;
+
+    public MonsterCatalog(List<MonsterTemplate> templates) {
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("Monster catalog is empty");
+        }
+        this.templates = Collections.unmodifiableList(new ArrayList<MonsterTemplate>(templates));
+        Map<String, MonsterTemplate> names = new HashMap<String, MonsterTemplate>();
+        int[] levels = new int[templates.size()];
+        for (int i = 0; i < levels.length; i++) {
+            MonsterTemplate t = templates.get(i);
+            names.put(t.getName(), t);
+            levels[i] = t.getLevel();
+        }
+        this.byName = Collections.unmodifiableMap(names);
+
+        Arrays.sort(levels);
+        int distinct = 0;
+        for (int i = 0; i < levels.length; i++) {
+            if (i == 0 || levels[i] != levels[i - 1]) levels[distinct++] = levels[i];
+        }
+        this.bandLevels = Arrays.copyOf(levels, distinct);
+        int top = bandLevels[distinct - 1];
+        this.bandForLevel = new int[top + 1];
+        for (int lvl = 0, b = 0; lvl <= top; lvl++) {
+            while (b + 1 < distinct && bandLevels[b + 1] <= lvl) b++;
+            bandForLevel[lvl] = b;
+        }
+
+        this.bands = new AliasTable[distinct];
+        List<Map<String, AliasTable>> typed = new ArrayList<Map<String, AliasTable>>(distinct);
+        for (int b = 0; b < distinct; b++) {
+            List<MonsterTemplate> band = new ArrayList<MonsterTemplate>();
+            Map<String, List<MonsterTemplate>> types = new LinkedHashMap<String, List<MonsterTemplate>>();
+            for (MonsterTemplate t : this.templates) {
+                if (t.getLevel() != bandLevels[b]) continue;
+                band.add(t);
+                List<MonsterTemplate> ofType = types.get(t.getType());
+                if (ofType == null) {
+                    ofType = new ArrayList<MonsterTemplate>();
+                    types.put(t.getType(), ofType);
+                }
+                ofType.add(t);
+            }
+            bands[b] = new AliasTable(band);
+            Map<String, AliasTable> tables = new HashMap<String, AliasTable>();
+            for (Map.Entry<String, List<MonsterTemplate>> e : types.entrySet()) {
+                tables.put(e.getKey(), new AliasTable(e.getValue()));
+            }
+            typed.add(Collections.unmodifiableMap(tables));
+        }
+        this.bandsByType = Collections.unmodifiableList(typed);
+    }
+
+    /**
+     * The catalog of the current content snapshot, used for spawning. Loading the
+     * snapshot also registers a {@link MonsterRegistry} factory for each monster type.
+     */
+    public static MonsterCatalog get() {
+        return ContentPacks.current().getMonsters();
+    }
+
+    /**
+     * Catalog from a monsters file; entries with an unknown type or AI, or no name,
+     * are skipped. Falls back to the built-in roster if the file has no usable entry.
+     */
+    public static MonsterCatalog load(File f) {
+        List<MonsterTemplate> out = new ArrayList<MonsterTemplate>();
+        for (Map<String, String> e : ContentLoader.loadEntries(f)) {
+            try {
+                out.add(new MonsterTemplate(e.get("type"), e.get("name"),
+                        parseInt(e.get("level"), 1), parseDouble(e.get("weight"), 1.0),
+                        parseInt(e.get("baseDamage"), -1), parseInt(e.get("defense"), -1),
+                        parseDouble(e.get("dodge"), Double.NaN), e.get("ai")));
+            } catch (IllegalArgumentException ex) {
+                // skip malformed entries
+            }
+        }
+        return new MonsterCatalog(out.isEmpty() ? builtIn() : out);
+    }
+
+    /**
+     * Register a factory per type that builds monsters from this catalog's templates
+     * by name, and from the type's usual stats for names it does not know.
+     */
+    public void registerFactories() {
+        for (final String type : new String[] { "Dragon", "Exoskeleton", "Spirit" }) {
+            MonsterRegistry.register(type, new MonsterFactory() {
+                @Override
+                public Monster create(String name, int level) {
+                    MonsterTemplate t = byName.get(name);
+                    return t != null && t.getType().equals(type) ? t.create(level) : MonsterTemplate.createDefault(type, name, level);
+                }
+            });
+        }
+    }
+
+    public List<MonsterTemplate> getTemplates() {
+        return templates;
+    }
+
+    public MonsterTemplate getTemplate(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Weighted pick from the band for a party of the given (highest) level.
+     */
+    public MonsterTemplate pick(int partyLevel, Random rng) {
+        return bands[band(partyLevel)].pick(rng);
+    }
+
+    /**
+     * Weighted pick of one type from the band for the party level, or null if that
+     * band has no monster of the type.
+     */
+    public MonsterTemplate pick(String type, int partyLevel, Random rng) {
+        AliasTable table = bandsByType.get(band(partyLevel)).get(type);
+        return table == null ? null : table.pick(rng);
+    }
+
+    private int band(int partyLevel) {
+        return bandForLevel[Math.max(0, Math.min(partyLevel, bandForLevel.length - 1))];
+    }
+
+    // The roster that shipped before monsters came from data; used without the file
+    private static List<MonsterTemplate> builtIn() {
+        String[][] names = {
+            { "Dragon", "Young Red Dragon", "Whelp Flamewing", "Tiny Ember Drake" },
+            { "Exoskeleton", "Rusty Shell", "Bronze Carapace", "Cracked Exoskeleton" },
+            { "Spirit", "Faint Spirit", "Whispering Shade", "Lost Soul" },
+            { "Dragon", "Ancient Red Dragon", "Crimson Tyrant", "Skyflame Dragon" },
+            { "Exoskeleton", "Iron Wall", "Titan Shell", "Obsidian Carapace" },
+            { "Spirit", "Wailing Banshee", "Void Wraith", "Nightmare Spirit" },
+        };
+        List<MonsterTemplate> out = new ArrayList<MonsterTemplate>();
+        for (int i = 0; i < names.length; i++) {
+            for (int k = 1; k < names[i].length; k++) {
+                out.add(new MonsterTemplate(names[i][0], names[i][k], i < 3 ? 1 : 3, 1.0, -1, -1, Double.NaN));
+            }
+        }
+        return out;
+    }
+
+    private static int parseInt(String v, int def) {
+        if (v == null) return def;
+        try { return Integer.parseInt(v.trim()); } catch (NumberFormatException e) { return def; }
+    }
+
+    private static double parseDouble(String v, double def) {
+        if (v == null) return def;
+        try { return Double.parseDouble(v.trim()); } catch (NumberFormatException e) { return def; }
+    }
+
+    /**
+     * Vose's alias method: column i holds template i with probability prob[i] and
+     * template alias[i] otherwise, so a pick is one uniform column plus one flip.
+     */
+    private static final class AliasTable {
+        private final MonsterTemplate[] items;
+        private final double[] prob;
+        private final int[] alias;
+
+        AliasTable(List<MonsterTemplate> list) {
+            int n = list.size();
+            items = list.toArray(new MonsterTemplate[n]);
+            prob = new double[n];
+            alias = new int[n];
+            double total = 0;
+            for (MonsterTemplate t : items) total += t.getWeight();
+            double[] scaled = new double[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int ns = 0;
+            int nl = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = items[i].getWeight() * n / total;
+                if (scaled[i] < 1.0) small[ns++] = i; else large[nl++] = i;
+            }
+            while (ns > 0 && nl > 0) {
+                int s = small[--ns];
+                int l = large[--nl];
+                prob[s] = scaled[s];
+                alias[s] = l;
+                scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+                if (scaled[l] < 1.0) small[ns++] = l; else large[nl++] = l;
+            }
+            // leftovers are 1 up to rounding
+            while (nl > 0) prob[large[--nl]] = 1.0;
+            while (ns > 0) prob[small[--ns]] = 1.0;
+        }
+
+        MonsterTemplate pick(Random rng) {
+            int i = rng.nextInt(items.length);
+            if (prob[i] >= 1.0 || rng.nextDouble() < prob[i]) return items[i];
+            return items[alias[i]];
+        }
+    }
+}
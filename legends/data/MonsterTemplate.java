@@ -0,0 +1,114 @@
+package legends.data;
+
+import legends.battle.MonsterPolicies;
+import legends.battle.MonsterPolicy;
+import legends.model.Dragon;
+import legends.model.Exoskeleton;
+import legends.model.Monster;
+import legends.model.Spirit;
+
+/**
+ * One monster from the catalog: its type, name, the lowest party level it appears
+ * at, and how often it is picked relative to the others in its band. Stats are the
+ * type's usual per-level formulas unless the entry gives its own baseDamage,
+ * defense or dodge; those are values at the template's level, and damage and
+ * defense grow in proportion to the spawned monster's level. The template also
+ * names the targeting policy its monsters plan with (see {@link MonsterPolicies}).
+ */
+public final class MonsterTemplate {
+    private final String type;
+    private final String name;
+    private final int level;
+    private final double weight;
+    // -1 / NaN: use the type's formula
+    private final int baseDamage;
+    private final int defense;
+    private final double dodge;
+    private final MonsterPolicy policy;
+
+    public MonsterTemplate(String type, String name, int level, double weight, int baseDamage, int defense, double dodge) {
+        this(type, name, level, weight, baseDamage, defense, dodge, null);
+    }
+
+    /**
+     * @param ai name of a registered {@link MonsterPolicy}, or null for random targeting
+     */
+    public MonsterTemplate(String type, String name, int level, double weight, int baseDamage, int defense, double dodge,
+                           String ai) {
+        if (!isKnownType(type)) {
+            throw new IllegalArgumentException("Unknown monster type: " + type);
+        }
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Monster template needs a name");
+        }
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("Weight must be positive for " + name + ": " + weight);
+        }
+        this.type = type;
+        this.name = name;
+        this.level = Math.max(1, level);
+        this.weight = weight;
+        this.baseDamage = baseDamage;
+        this.defense = defense;
+        this.dodge = dodge;
+        this.policy = ai == null ? MonsterPolicies.RANDOM : MonsterPolicies.get(ai);
+        if (policy == null) {
+            throw new IllegalArgumentException("Unknown monster AI for " + name + ": " + ai);
+        }
+    }
+
+    public static boolean isKnownType(String type) {
+        return "Dragon".equals(type) || "Exoskeleton".equals(type) || "Spirit".equals(type);
+    }
+
+    public String getType() { return type; }
+
+    public String getName() { return name; }
+
+    public int getLevel() { return level; }
+
+    public double getWeight() { return weight; }
+
+    public MonsterPolicy getPolicy() { return policy; }
+
+    /**
+     * A monster of this template at the given level.
+     */
+    public Monster create(int monsterLevel) {
+        Monster m = createWithStats(monsterLevel);
+        m.setPolicy(policy);
+        return m;
+    }
+
+    private Monster createWithStats(int monsterLevel) {
+        if (baseDamage < 0 && defense < 0 && Double.isNaN(dodge)) {
+            return createDefault(type, name, monsterLevel);
+        }
+        Monster base = createDefault(type, name, monsterLevel);
+        int dmg = baseDamage >= 0 ? scale(baseDamage, monsterLevel) : base.getBaseDamage();
+        int def = defense >= 0 ? scale(defense, monsterLevel) : base.getDefense();
+        // Monster keeps dodge in percent; getDodgeChance() converts it
+        double dod = !Double.isNaN(dodge) ? dodge : base.getDodgeChance() * 100;
+        if ("Dragon".equals(type)) return new Dragon(name, monsterLevel, dmg, def, dod);
+        if ("Exoskeleton".equals(type)) return new Exoskeleton(name, monsterLevel, dmg, def, dod);
+        return new Spirit(name, monsterLevel, dmg, def, dod);
+    }
+
+    /**
+     * A monster of a built-in type with that type's usual stats.
+     */
+    public static Monster createDefault(String type, String name, int monsterLevel) {
+        if ("Dragon".equals(type)) return new Dragon(name, monsterLevel);
+        if ("Exoskeleton".equals(type)) return new Exoskeleton(name, monsterLevel);
+        return new Spirit(name, monsterLevel);
+    }
+
+    private int scale(int value, int monsterLevel) {
+        return (int) Math.round((double) value * monsterLevel / level);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + name + " (from Lv " + level + ", weight " + weight + ")";
+    }
+}
@@ -0,0 +1,227 @@
+package legends.effects;
+
+/**
+ * Status effects on one combatant. Keeps a running count and potency sum per
+ * {@link StatusEffect.Type}, so {@link #has} and {@link #total} are O(1), and a
+ * min-heap of effects keyed by the turn they expire on, so {@link #tick()} only
+ * touches the effects that actually run out this round.
+ *
+ * Effects are stored as an absolute expiry turn rather than a countdown; the
+ * remaining turns of an effect are {@code expiry - turn}.
+ */
+public final class StatusEffects {
+    private static final StatusEffect.Type[] TYPES = StatusEffect.Type.values();
+
+    private final int[] count = new int[TYPES.length];
+    private final int[] potency = new int[TYPES.length];
+    private int turn;
+    private long nextSeq;
+
+    // binary min-heap on (expiry, seq), parallel arrays
+    private int size;
+    private int[] expiry = new int[4];
+    private long[] seq = new long[4];
+    private byte[] type = new byte[4];
+    private int[] power = new int[4];
+
+    // heap indexes in application order, rebuilt on demand for iteration
+    private int[] ordered = new int[4];
+    private boolean orderedValid = true;
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean has(StatusEffect.Type t) {
+        return count[t.ordinal()] > 0;
+    }
+
+    /**
+     * Sum of the potencies of the active effects of one type.
+     */
+    public int total(StatusEffect.Type t) {
+        return potency[t.ordinal()];
+    }
+
+    /**
+     * Damage dealt by POISON and BURN on the next tick.
+     */
+    public int damagePerTick() {
+        return potency[StatusEffect.Type.POISON.ordinal()] + potency[StatusEffect.Type.BURN.ordinal()];
+    }
+
+    public void add(StatusEffect s) {
+        if (s.isExpired()) return;
+        add(s.getType(), s.getRemainingTurns(), s.getPotency());
+    }
+
+    public void add(StatusEffect.Type t, int turns, int potency) {
+        if (size == expiry.length) {
+            grow();
+        }
+        int i = size++;
+        expiry[i] = turn + Math.max(1, turns);
+        seq[i] = nextSeq++;
+        type[i] = (byte) t.ordinal();
+        power[i] = potency;
+        count[t.ordinal()]++;
+        this.potency[t.ordinal()] += potency;
+        siftUp(i);
+        orderedValid = false;
+    }
+
+    /**
+     * Drop every effect of one type (e.g. an antidote clearing POISON).
+     */
+    public void remove(StatusEffect.Type t) {
+        int ordinal = t.ordinal();
+        if (count[ordinal] == 0) return;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (type[i] == ordinal) continue;
+            move(i, kept++);
+        }
+        size = kept;
+        count[ordinal] = 0;
+        potency[ordinal] = 0;
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+        orderedValid = false;
+    }
+
+    /**
+     * Make this set an exact copy of another, remaining turns and application order
+     * included. Reuses this set's arrays, so restoring a snapshot does not allocate
+     * once they are big enough.
+     */
+    public void copyFrom(StatusEffects other) {
+        if (expiry.length < other.size) {
+            int cap = other.expiry.length;
+            expiry = new int[cap];
+            seq = new long[cap];
+            type = new byte[cap];
+            power = new int[cap];
+        }
+        System.arraycopy(other.count, 0, count, 0, count.length);
+        System.arraycopy(other.potency, 0, potency, 0, potency.length);
+        System.arraycopy(other.expiry, 0, expiry, 0, other.size);
+        System.arraycopy(other.seq, 0, seq, 0, other.size);
+        System.arraycopy(other.type, 0, type, 0, other.size);
+        System.arraycopy(other.power, 0, power, 0, other.size);
+        size = other.size;
+        turn = other.turn;
+        nextSeq = other.nextSeq;
+        orderedValid = false;
+    }
+
+    public void clear() {
+        size = 0;
+        java.util.Arrays.fill(count, 0);
+        java.util.Arrays.fill(potency, 0);
+        orderedValid = false;
+    }
+
+    /**
+     * Advance one round: every effect loses a turn and the ones that reach zero are
+     * removed. Apply {@link #damagePerTick()} before calling this.
+     */
+    public void tick() {
+        turn++;
+        while (size > 0 && expiry[0] <= turn) {
+            int ordinal = type[0];
+            count[ordinal]--;
+            potency[ordinal] -= power[0];
+            size--;
+            if (size > 0) {
+                move(size, 0);
+                siftDown(0);
+            }
+            orderedValid = false;
+        }
+    }
+
+    // Iteration in application order: index 0 is the oldest active effect.
+
+    public StatusEffect.Type typeAt(int index) {
+        return TYPES[type[heapIndex(index)]];
+    }
+
+    public int remainingTurnsAt(int index) {
+        return expiry[heapIndex(index)] - turn;
+    }
+
+    public int potencyAt(int index) {
+        return power[heapIndex(index)];
+    }
+
+    private int heapIndex(int index) {
+        if (!orderedValid) {
+            if (ordered.length < size) ordered = new int[expiry.length];
+            for (int i = 0; i < size; i++) {
+                // insertion sort by seq: the set is small and usually nearly sorted
+                int j = i;
+                while (j > 0 && seq[ordered[j - 1]] > seq[i]) {
+                    ordered[j] = ordered[j - 1];
+                    j--;
+                }
+                ordered[j] = i;
+            }
+            orderedValid = true;
+        }
+        return ordered[index];
+    }
+
+    private boolean less(int a, int b) {
+        return expiry[a] < expiry[b] || (expiry[a] == expiry[b] && seq[a] < seq[b]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(i, parent)) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && less(right, left)) smallest = right;
+            if (!less(smallest, i)) break;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int e = expiry[a]; expiry[a] = expiry[b]; expiry[b] = e;
+        long s = seq[a]; seq[a] = seq[b]; seq[b] = s;
+        byte t = type[a]; type[a] = type[b]; type[b] = t;
+        int p = power[a]; power[a] = power[b]; power[b] = p;
+    }
+
+    private void move(int from, int to) {
+        if (from == to) return;
+        expiry[to] = expiry[from];
+        seq[to] = seq[from];
+        type[to] = type[from];
+        power[to] = power[from];
+    }
+
+    private void grow() {
+        int cap = expiry.length * 2;
+        expiry = java.util.Arrays.copyOf(expiry, cap);
+        seq = java.util.Arrays.copyOf(seq, cap);
+        type = java.util.Arrays.copyOf(type, cap);
+        power = java.util.Arrays.copyOf(power, cap);
+    }
+}
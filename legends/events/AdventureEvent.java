@@ -34,6 +34,13 @@ public class AdventureEvent {
     public String getDescription() { return description; }
     public boolean isForcesBattle() { return forcesBattle; }
 
+    /**
+     * The same event shown with a different name and description.
+     */
+    public AdventureEvent withText(String name, String description) {
+        return new AdventureEvent(id, name, description, forcesBattle, effect);
+    }
+
     public void resolve(Party party, IO io, Random rng) {
         io.println("-- Event encountered: " + name + " --");
         io.println(description);
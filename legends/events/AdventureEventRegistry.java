@@ -1,9 +1,13 @@
 package legends.events;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
+import legends.data.ContentLoader;
+import legends.data.ContentPacks;
 import legends.io.IO;
 import legends.party.Party;
 import legends.model.Hero;
@@ -12,14 +16,16 @@ import legends.items.Weapon;
 import legends.items.Armor;
 
 /**
- * Simple hard-coded registry of adventure events. Later can be replaced by data-driven loader.
+ * Registry of adventure events. What an event does is code, registered here by id;
+ * which events can happen and the text shown for them come from data/events.txt
+ * through the current {@link legends.data.ContentSnapshot}.
  */
 public final class AdventureEventRegistry {
-    private static final List<AdventureEvent> EVENTS = new ArrayList<AdventureEvent>();
+    private static final List<AdventureEvent> BUILT_IN = new ArrayList<AdventureEvent>();
 
     static {
         // 1. Small blessing: boost random stat of a random hero
-        EVENTS.add(new AdventureEvent(
+        BUILT_IN.add(new AdventureEvent(
             "stat_blessing",
             "Ancient Stone Blessing",
             "You pause before a moss-covered monument. Faint runes shimmer, and power flows into one of your heroes.",
@@ -35,7 +41,7 @@ public final class AdventureEventRegistry {
         ));
 
         // 2. Find discarded gear: give a basic weapon or armor to weakest hero
-        EVENTS.add(new AdventureEvent(
+        BUILT_IN.add(new AdventureEvent(
             "found_gear",
             "Abandoned Adventurer's Pack",
             "A worn backpack blows open in the wind, revealing gleaming equipment inside.",
@@ -60,7 +66,7 @@ public final class AdventureEventRegistry {
         ));
 
         // 3. Alchemical cache: give consumable(s)
-        EVENTS.add(new AdventureEvent(
+        BUILT_IN.add(new AdventureEvent(
             "alchemical_cache",
             "Alchemical Remnants",
             "Among a pile of shattered vials, some usable potions remain.",
@@ -79,7 +85,7 @@ public final class AdventureEventRegistry {
         ));
 
         // 4. Ambush: forces a battle after a short narrative
-        EVENTS.add(new AdventureEvent(
+        BUILT_IN.add(new AdventureEvent(
             "monster_ambush",
             "Ambush!",
             "Rustling footsteps echo from the shadows. Monsters suddenly leap out!",
@@ -94,8 +100,36 @@ public final class AdventureEventRegistry {
 
     private AdventureEventRegistry() {}
 
+    /**
+     * Events from an events file: one entry per event with its id and optional name,
+     * description and enabled=false to leave it out. Ids without a built-in effect are
+     * skipped. Without the file every built-in event is used as written above.
+     */
+    public static List<AdventureEvent> load(File f) {
+        List<Map<String, String>> entries = ContentLoader.loadEntries(f);
+        if (entries.isEmpty()) return new ArrayList<AdventureEvent>(BUILT_IN);
+        List<AdventureEvent> out = new ArrayList<AdventureEvent>();
+        for (Map<String, String> e : entries) {
+            AdventureEvent base = builtIn(e.get("id"));
+            if (base == null || "false".equalsIgnoreCase(e.get("enabled"))) continue;
+            String name = e.get("name");
+            String description = e.get("description");
+            out.add(base.withText(name != null ? name : base.getName(),
+                    description != null ? description : base.getDescription()));
+        }
+        return out;
+    }
+
+    private static AdventureEvent builtIn(String id) {
+        for (AdventureEvent ev : BUILT_IN) {
+            if (ev.getId().equals(id)) return ev;
+        }
+        return null;
+    }
+
     public static AdventureEvent randomEvent(Random rng) {
-        if (EVENTS.isEmpty()) return null;
-        return EVENTS.get(rng.nextInt(EVENTS.size()));
+        List<AdventureEvent> events = ContentPacks.current().getEvents();
+        if (events.isEmpty()) return null;
+        return events.get(rng.nextInt(events.size()));
     }
 }
@@ -0,0 +1,67 @@
+package legends.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity multi-producer / single-consumer ring buffer. Producers claim a slot
+ * with one CAS on the tail and never block: {@link #offer} returns false when the ring
+ * is full. Only the dispatcher thread may call {@link #poll()}.
+ */
+final class BoundedMpscQueue<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // next slot to claim (producers)
+    private final AtomicLong head = new AtomicLong(); // next slot to read (consumer)
+
+    BoundedMpscQueue(int capacity) {
+        int size = 1;
+        while (size < Math.max(2, capacity)) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<E>(size);
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    boolean offer(E e) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.set((int) t & mask, e);
+        return true;
+    }
+
+    /**
+     * Next element, or null when empty or when the next claimed slot is not published yet.
+     */
+    E poll() {
+        long h = head.get();
+        int i = (int) h & mask;
+        E e = slots.get(i);
+        if (e == null) {
+            return null;
+        }
+        slots.lazySet(i, null);
+        head.lazySet(h + 1);
+        return e;
+    }
+
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    /**
+     * Total number of elements ever accepted by {@link #offer}.
+     */
+    long offered() {
+        return tail.get();
+    }
+}
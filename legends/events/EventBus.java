@@ -2,30 +2,305 @@ package legends.events;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Game event dispatch. Listeners subscribe to one event type (subtypes included), or
+ * to every event through {@link #register}. An {@link OnDamageEvent} therefore only
+ * reaches damage listeners and catch-all listeners.
+ *
+ * The subscription registry is copy-on-write: subscribing swaps in a new immutable
+ * snapshot, and {@link #fire} reads it with one volatile load and takes no lock.
+ * Listeners subscribed with {@link Delivery#ASYNC} run on a background dispatcher
+ * thread fed by a bounded queue; when that queue is full the event is dropped for
+ * them (see {@link #getDroppedCount()}) rather than stalling the firing thread.
+ */
 public class EventBus {
     private static final EventBus INSTANCE = new EventBus();
 
-    public static EventBus getInstance() { return INSTANCE; }
+    /**
+     * Bus for the calling thread: the one from the bound {@link legends.GameContext}
+     * if any, otherwise the shared game-wide instance.
+     */
+    public static EventBus getInstance() {
+        legends.GameContext ctx = legends.GameContext.current();
+        return ctx != null ? ctx.getEventBus() : INSTANCE;
+    }
+
+    public enum Delivery {
+        /** Called on the firing thread before {@link #fire} returns. */
+        SYNC,
+        /** Called later on the bus's dispatcher thread. */
+        ASYNC
+    }
+
+    public static final int DEFAULT_ASYNC_CAPACITY = 4096;
+
+    private final int asyncCapacity;
+    private final Object writeLock = new Object();
+    private volatile Registry registry = Registry.EMPTY;
+    private volatile AsyncDispatcher dispatcher; // started by the first ASYNC subscription
+    // Lives on the bus rather than the dispatcher so it survives close()
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Public so simulations can give each worker an isolated bus
+    public EventBus() {
+        this(DEFAULT_ASYNC_CAPACITY);
+    }
+
+    /**
+     * @param asyncCapacity size of the queue feeding {@link Delivery#ASYNC} listeners
+     */
+    public EventBus(int asyncCapacity) {
+        this.asyncCapacity = asyncCapacity;
+    }
+
+    /**
+     * Subscribe a listener to every event, delivered synchronously.
+     */
+    public void register(EventListener<Event> l) {
+        subscribe(Event.class, l, Delivery.SYNC);
+    }
 
-    private final List<EventListener<Event>> listeners = new ArrayList<>();
+    /**
+     * Remove a listener from every event type it is subscribed to.
+     */
+    public void unregister(EventListener<Event> l) {
+        synchronized (writeLock) {
+            registry = registry.without(null, l);
+        }
+    }
 
-    private EventBus() {}
+    public <E extends Event> void subscribe(Class<E> type, EventListener<? super E> l) {
+        subscribe(type, l, Delivery.SYNC);
+    }
 
-    public synchronized void register(EventListener<Event> l) {
-        if (!listeners.contains(l)) listeners.add(l);
+    public <E extends Event> void subscribe(Class<E> type, EventListener<? super E> l, Delivery delivery) {
+        synchronized (writeLock) {
+            if (delivery == Delivery.ASYNC && dispatcher == null) {
+                dispatcher = new AsyncDispatcher(this, asyncCapacity);
+            }
+            registry = registry.with(new Subscription(type, l, delivery));
+        }
     }
 
-    public synchronized void unregister(EventListener<Event> l) {
-        listeners.remove(l);
+    public <E extends Event> void unsubscribe(Class<E> type, EventListener<? super E> l) {
+        synchronized (writeLock) {
+            registry = registry.without(type, l);
+        }
     }
 
-    @SuppressWarnings("unchecked")
-    public synchronized void fire(Event e) {
-        // shallow copy to avoid concurrent modification
-        List<EventListener<Event>> copy = new ArrayList<>(listeners);
-        for (EventListener<Event> l : copy) {
+    /**
+     * True if firing an event of this class would reach any listener. Callers on hot
+     * paths check this first so no event object is built when nobody is listening:
+     * <pre>
+     * if (bus.hasListeners(OnDamageEvent.class)) bus.fire(new OnDamageEvent(...));
+     * </pre>
+     */
+    public boolean hasListeners(Class<? extends Event> eventClass) {
+        Registry r = registry;
+        return r.subscriptions.length > 0 && !r.targetsFor(eventClass).empty;
+    }
+
+    public void fire(Event e) {
+        Targets targets = registry.targetsFor(e.getClass());
+        for (EventListener<Event> l : targets.sync) {
             try { l.onEvent(e); } catch (Throwable ex) { /* ignore listener errors */ }
         }
+        if (targets.async.length > 0) {
+            AsyncDispatcher d = dispatcher;
+            if (d != null) {
+                d.offer(e);
+            } else {
+                dropped.incrementAndGet(); // closed, and no ASYNC subscription since
+            }
+        }
+    }
+
+    /**
+     * Events that did not reach the asynchronous listeners, because the queue was full
+     * or because the bus was closed. Counts over the bus's whole life, across
+     * {@link #close()}.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Wait until every event queued so far has been delivered to the asynchronous
+     * listeners. Returns immediately when none are subscribed.
+     */
+    public void flush() {
+        AsyncDispatcher d = dispatcher;
+        if (d == null) return;
+        long target = d.queue.offered();
+        while (d.delivered < target && d.thread.isAlive()) {
+            LockSupport.unpark(d.thread);
+            LockSupport.parkNanos(100000L);
+        }
+    }
+
+    /**
+     * Deliver what is still queued and stop the dispatcher thread. ASYNC listeners
+     * stay subscribed, but events fired after this are dropped for them (and counted
+     * in {@link #getDroppedCount()}) until a later ASYNC subscription starts a new
+     * dispatcher.
+     */
+    public void close() {
+        AsyncDispatcher d;
+        synchronized (writeLock) {
+            d = dispatcher;
+            dispatcher = null;
+        }
+        if (d == null) return;
+        d.running = false;
+        LockSupport.unpark(d.thread);
+        try {
+            d.thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliverAsync(Event e) {
+        for (EventListener<Event> l : registry.targetsFor(e.getClass()).async) {
+            try { l.onEvent(e); } catch (Throwable ex) { /* ignore listener errors */ }
+        }
+    }
+
+    private static final class Subscription {
+        final Class<?> type;
+        final EventListener<Event> listener;
+        final Delivery delivery;
+
+        @SuppressWarnings("unchecked")
+        Subscription(Class<?> type, EventListener<?> listener, Delivery delivery) {
+            this.type = type;
+            this.listener = (EventListener<Event>) listener;
+            this.delivery = delivery;
+        }
+    }
+
+    /**
+     * Listeners for one concrete event class, split by delivery mode.
+     */
+    private static final class Targets {
+        final EventListener<Event>[] sync;
+        final EventListener<Event>[] async;
+        final boolean empty;
+
+        Targets(EventListener<Event>[] sync, EventListener<Event>[] async) {
+            this.sync = sync;
+            this.async = async;
+            this.empty = sync.length == 0 && async.length == 0;
+        }
+    }
+
+    /**
+     * Immutable subscription snapshot. Dispatch tables per concrete event class are
+     * resolved on first use and cached for the lifetime of the snapshot.
+     */
+    private static final class Registry {
+        static final Registry EMPTY = new Registry(new Subscription[0]);
+
+        final Subscription[] subscriptions;
+        final ConcurrentHashMap<Class<?>, Targets> tables = new ConcurrentHashMap<Class<?>, Targets>();
+
+        Registry(Subscription[] subscriptions) {
+            this.subscriptions = subscriptions;
+        }
+
+        Registry with(Subscription s) {
+            for (Subscription existing : subscriptions) {
+                if (existing.type == s.type && existing.listener == s.listener) {
+                    return this;
+                }
+            }
+            Subscription[] next = java.util.Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            next[subscriptions.length] = s;
+            return new Registry(next);
+        }
+
+        /** Drop the listener's subscription to {@code type}, or to every type when null. */
+        Registry without(Class<?> type, EventListener<?> l) {
+            List<Subscription> kept = new ArrayList<Subscription>(subscriptions.length);
+            for (Subscription s : subscriptions) {
+                if (s.listener == l && (type == null || s.type == type)) continue;
+                kept.add(s);
+            }
+            if (kept.size() == subscriptions.length) return this;
+            return new Registry(kept.toArray(new Subscription[0]));
+        }
+
+        Targets targetsFor(Class<?> eventClass) {
+            Targets t = tables.get(eventClass);
+            if (t == null) {
+                t = resolve(eventClass);
+                Targets raced = tables.putIfAbsent(eventClass, t);
+                if (raced != null) t = raced;
+            }
+            return t;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Targets resolve(Class<?> eventClass) {
+            List<EventListener<Event>> sync = new ArrayList<EventListener<Event>>();
+            List<EventListener<Event>> async = new ArrayList<EventListener<Event>>();
+            for (Subscription s : subscriptions) {
+                if (!s.type.isAssignableFrom(eventClass)) continue;
+                (s.delivery == Delivery.ASYNC ? async : sync).add(s.listener);
+            }
+            return new Targets(sync.toArray(new EventListener[0]), async.toArray(new EventListener[0]));
+        }
+    }
+
+    /**
+     * Single consumer of the async queue. Parks briefly when idle; producers unpark it
+     * when they see it parked.
+     */
+    private static final class AsyncDispatcher implements Runnable {
+        final EventBus bus;
+        final BoundedMpscQueue<Event> queue;
+        final Thread thread;
+        volatile boolean running = true;
+        volatile boolean parked;
+        volatile long delivered;
+
+        AsyncDispatcher(EventBus bus, int capacity) {
+            this.bus = bus;
+            this.queue = new BoundedMpscQueue<Event>(capacity);
+            this.thread = new Thread(this, "legends-event-dispatch");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void offer(Event e) {
+            if (!queue.offer(e)) {
+                bus.dropped.incrementAndGet();
+                return;
+            }
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                Event e = queue.poll();
+                if (e == null) {
+                    parked = true;
+                    if (running && queue.isEmpty()) {
+                        LockSupport.parkNanos(this, 1000000L);
+                    }
+                    parked = false;
+                    continue;
+                }
+                bus.deliverAsync(e);
+                delivered++;
+            }
+        }
     }
 }
@@ -1,13 +1,19 @@
 package legends.io;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 // Simple headless IO for automated tests: collects outputs and provides scripted inputs
 public class HeadlessIO implements IO {
+    // raw printed strings; lineEnds marks the ones written with println, so the
+    // trailing newline is only appended when outputs are actually read
     private final List<String> outputs = new ArrayList<>();
+    private final BitSet lineEnds = new BitSet();
     private final List<String> inputs = new ArrayList<>();
     private int inputPos = 0;
+    // answer given once the scripted inputs run out
+    private String defaultInput = "";
 
     public HeadlessIO() {}
 
@@ -15,13 +21,34 @@ public class HeadlessIO implements IO {
         inputs.add(s);
     }
 
+    /**
+     * Input returned after all scripted inputs are used, e.g. "1" to keep
+     * normal-attacking in battles of unknown length.
+     */
+    public void setDefaultInput(String s) {
+        defaultInput = s == null ? "" : s;
+    }
+
+    /**
+     * Everything printed so far, with println entries ending in a newline.
+     */
     public List<String> getOutputs() {
-        return outputs;
+        List<String> rendered = new ArrayList<>(outputs.size());
+        for (int i = 0; i < outputs.size(); i++) {
+            rendered.add(lineEnds.get(i) ? outputs.get(i) + "\n" : outputs.get(i));
+        }
+        return rendered;
+    }
+
+    public void clearOutputs() {
+        outputs.clear();
+        lineEnds.clear();
     }
 
     @Override
     public void println(String s) {
-        outputs.add(s + "\n");
+        lineEnds.set(outputs.size());
+        outputs.add(s);
     }
 
     @Override
@@ -31,12 +58,12 @@ public class HeadlessIO implements IO {
 
     @Override
     public String readLine() {
-        if (inputPos >= inputs.size()) return "";
+        if (inputPos >= inputs.size()) return defaultInput;
         return inputs.get(inputPos++);
     }
 
     @Override
     public void clear() {
-        outputs.add("<CLEAR>\n");
+        println("<CLEAR>");
     }
 }
@@ -7,6 +7,10 @@ public interface IO {
     void print(String s);
     String readLine();
     void clear();
+    // True when output is discarded, so callers may skip building strings entirely
+    default boolean isSilent() {
+        return false;
+    }
     // Convenience for printing lists
     default void println(List<String> lines) {
         for (String l : lines) println(l);
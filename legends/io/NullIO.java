@@ -0,0 +1,37 @@
+package legends.io;
+
+/**
+ * IO sink that discards all output and answers every prompt with an empty line.
+ * Used by batch simulations where nothing should be rendered; callers can check
+ * {@link #isSilent()} to skip building text that would be thrown away anyway.
+ */
+public class NullIO implements IO {
+    public static final NullIO INSTANCE = new NullIO();
+
+    public NullIO() {}
+
+    @Override
+    public void println(String s) {
+        // discard
+    }
+
+    @Override
+    public void print(String s) {
+        // discard
+    }
+
+    @Override
+    public String readLine() {
+        return "";
+    }
+
+    @Override
+    public void clear() {
+        // nothing to clear
+    }
+
+    @Override
+    public boolean isSilent() {
+        return true;
+    }
+}
@@ -41,6 +41,8 @@ public class Consumable implements Item {
 
     public ConsumeType getType() { return type; }
 
+    public int getPotency() { return potency; }
+
     public boolean apply(Hero user, Monster target, IO io) {
         switch (type) {
             case HEAL:
@@ -15,6 +15,8 @@ public class ConsumableStack {
 
     public void increment(int n) { if (n > 0) count += n; }
 
+    public void setCount(int n) { count = Math.max(0, n); }
+
     public boolean decrementOne() {
         if (count <= 0) return false;
         count--;
@@ -9,31 +9,50 @@ public class Dragon extends Monster {
         );
     }
 
+    /**
+     * A dragon with explicit stats instead of the per-level formulas.
+     */
+    public Dragon(String name, int level, int baseDamage, int defense, double dodge) {
+        super(name, level, baseDamage, defense, dodge);
+    }
+
+    private static final int CLAW_SWIPE = 0;
+    private static final int FIRE_BREATH = 1;
+
     @Override
-    public String previewNextAction(java.util.Random rng, java.util.List<Hero> heroes) {
-        if (rng.nextDouble() < 0.25) {
-            return "Fire Breath (AOE)";
-        }
-        return "Claw Swipe";
+    protected int chooseMove(java.util.Random rng) {
+        if (this.hasStatus(legends.effects.StatusEffect.Type.STUN)) return STUNNED;
+        // 25% chance to use Fire Breath affecting all heroes
+        return rng.nextDouble() < 0.25 ? FIRE_BREATH : CLAW_SWIPE;
+    }
+
+    @Override
+    protected String moveName(int move) {
+        return move == FIRE_BREATH ? "Fire Breath (AOE)" : "Claw Swipe";
+    }
+
+    @Override
+    protected boolean isAreaMove(int move) {
+        return move == FIRE_BREATH;
     }
 
     @Override
-    public void performAction(Hero target, java.util.List<Hero> allHeroes, java.util.Random rng, legends.io.IO io) {
-        if (this.hasStatus(legends.effects.StatusEffect.Type.STUN)) {
-            io.println(this.name + " is stunned and cannot act!");
+    protected void performMove(int move, Hero target, java.util.List<Hero> allHeroes, java.util.Random rng, legends.io.IO io) {
+        boolean verbose = !io.isSilent();
+        if (move == STUNNED || this.hasStatus(legends.effects.StatusEffect.Type.STUN)) {
+            if (verbose) io.println(this.name + " is stunned and cannot act!");
             return;
         }
-        // 25% chance to use Fire Breath affecting all heroes
-        if (rng.nextDouble() < 0.25) {
+        if (move == FIRE_BREATH) {
             int aoe = Math.max(1, this.level * 15);
-            io.println(this.name + " uses Fire Breath! Deals " + aoe + " fire damage to all heroes.");
+            if (verbose) io.println(this.name + " uses Fire Breath! Deals " + aoe + " fire damage to all heroes.");
             for (Hero h : allHeroes) {
                 if (!h.isAlive()) continue;
                 if (rng.nextDouble() < h.getDodgeChance()) {
-                    io.println(h.getName() + " dodged the fire!");
+                    if (verbose) io.println(h.getName() + " dodged the fire!");
                 } else {
                     h.takeDamage(aoe);
-                    io.println("    " + h.getName() + " HP=" + h.getHp() + "/" + h.getMaxHp());
+                    if (verbose) io.println("    " + h.getName() + " HP=" + h.getHp() + "/" + h.getMaxHp());
                 }
             }
             return;
@@ -42,11 +61,11 @@ public class Dragon extends Monster {
         int dmg = this.getBaseDamage() + Math.max(1, this.level * 2);
         if (target == null || !target.isAlive()) return;
         if (rng.nextDouble() < target.getDodgeChance()) {
-            io.println(target.getName() + " dodged " + this.name + "'s claw!");
+            if (verbose) io.println(target.getName() + " dodged " + this.name + "'s claw!");
         } else {
             target.takeDamage(dmg);
-            io.println(this.name + " slashed " + target.getName() + " for " + dmg + " damage.");
-            io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
+            if (verbose) io.println(this.name + " slashed " + target.getName() + " for " + dmg + " damage.");
+            if (verbose) io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
         }
     }
 }
@@ -9,39 +9,53 @@ public class Exoskeleton extends Monster {
         );
     }
 
+    /**
+     * A exoskeleton with explicit stats instead of the per-level formulas.
+     */
+    public Exoskeleton(String name, int level, int baseDamage, int defense, double dodge) {
+        super(name, level, baseDamage, defense, dodge);
+    }
+
+    private static final int CRUSHING_STRIKE = 0;
+    private static final int SHIELD_BASH = 1;
+
     @Override
-    public String previewNextAction(java.util.Random rng, java.util.List<Hero> heroes) {
-        if (rng.nextDouble() < 0.20) {
-            return "Shield Bash (heavy)";
-        }
-        return "Crushing Strike";
+    protected int chooseMove(java.util.Random rng) {
+        if (this.hasStatus(legends.effects.StatusEffect.Type.STUN)) return STUNNED;
+        return rng.nextDouble() < 0.20 ? SHIELD_BASH : CRUSHING_STRIKE;
+    }
+
+    @Override
+    protected String moveName(int move) {
+        return move == SHIELD_BASH ? "Shield Bash (heavy)" : "Crushing Strike";
     }
 
     @Override
-    public void performAction(Hero target, java.util.List<Hero> allHeroes, java.util.Random rng, legends.io.IO io) {
-        if (this.hasStatus(legends.effects.StatusEffect.Type.STUN)) {
-            io.println(this.name + " is stunned and cannot act!");
+    protected void performMove(int move, Hero target, java.util.List<Hero> allHeroes, java.util.Random rng, legends.io.IO io) {
+        boolean verbose = !io.isSilent();
+        if (move == STUNNED || this.hasStatus(legends.effects.StatusEffect.Type.STUN)) {
+            if (verbose) io.println(this.name + " is stunned and cannot act!");
             return;
         }
         if (target == null || !target.isAlive()) return;
-        if (rng.nextDouble() < 0.20) {
+        if (move == SHIELD_BASH) {
             int dmg = this.getBaseDamage() + Math.max(1, this.level * 6);
-            io.println(this.name + " uses Shield Bash on " + target.getName() + "! ");
+            if (verbose) io.println(this.name + " uses Shield Bash on " + target.getName() + "! ");
             if (rng.nextDouble() < target.getDodgeChance()) {
-                io.println(target.getName() + " evaded the bash!");
+                if (verbose) io.println(target.getName() + " evaded the bash!");
             } else {
                 target.takeDamage(dmg);
-                io.println("    -> " + target.getName() + " takes " + dmg + " damage. HP=" + target.getHp() + "/" + target.getMaxHp());
+                if (verbose) io.println("    -> " + target.getName() + " takes " + dmg + " damage. HP=" + target.getHp() + "/" + target.getMaxHp());
             }
             return;
         }
         int dmg = this.getBaseDamage();
         if (rng.nextDouble() < target.getDodgeChance()) {
-            io.println(target.getName() + " dodged " + this.name + "'s strike!");
+            if (verbose) io.println(target.getName() + " dodged " + this.name + "'s strike!");
         } else {
             target.takeDamage(dmg);
-            io.println(this.name + " crushed " + target.getName() + " for " + dmg + " damage.");
-            io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
+            if (verbose) io.println(this.name + " crushed " + target.getName() + " for " + dmg + " damage.");
+            if (verbose) io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
         }
     }
 }
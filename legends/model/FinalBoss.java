@@ -12,49 +12,66 @@ public class FinalBoss extends Monster {
         );
     }
 
+    private static final int DEVASTATING_SLASH = 0;
+    private static final int METEOR_STRIKE = 1;
+    private static final int CATACLYSM = 2;
+
+    @Override
+    protected int chooseMove(Random rng) {
+        double roll = rng.nextDouble();
+        if (roll < 0.3) return CATACLYSM;
+        if (roll < 0.6) return METEOR_STRIKE;
+        return DEVASTATING_SLASH;
+    }
+
     @Override
-    public String previewNextAction(Random rng, List<Hero> heroes) {
-        if (rng.nextDouble() < 0.3) return "Cataclysm (huge AOE)";
-        if (rng.nextDouble() < 0.5) return "Meteor Strike (single heavy)";
+    protected String moveName(int move) {
+        if (move == CATACLYSM) return "Cataclysm (huge AOE)";
+        if (move == METEOR_STRIKE) return "Meteor Strike (single heavy)";
         return "Devastating Slash";
     }
 
     @Override
-    public void performAction(Hero target, List<Hero> allHeroes, Random rng, legends.io.IO io) {
-        if (target == null) return;
-        double roll = rng.nextDouble();
-        if (roll < 0.3) {
+    protected boolean isAreaMove(int move) {
+        return move == CATACLYSM;
+    }
+
+    @Override
+    protected void performMove(int move, Hero target, List<Hero> allHeroes, Random rng, legends.io.IO io) {
+        boolean verbose = !io.isSilent();
+        if (move == CATACLYSM) {
             int dmg = Math.max(10, this.level * 40);
-            io.println(this.name + " unleashes Cataclysm, hitting all heroes for " + dmg + "!");
+            if (verbose) io.println(this.name + " unleashes Cataclysm, hitting all heroes for " + dmg + "!");
             for (Hero h : allHeroes) {
                 if (!h.isAlive()) continue;
                 if (rng.nextDouble() < h.getDodgeChance()) {
-                    io.println(h.getName() + " barely avoids some of the devastation!");
+                    if (verbose) io.println(h.getName() + " barely avoids some of the devastation!");
                 } else {
                     h.takeDamage(dmg);
-                    io.println("    " + h.getName() + " HP=" + h.getHp() + "/" + h.getMaxHp());
+                    if (verbose) io.println("    " + h.getName() + " HP=" + h.getHp() + "/" + h.getMaxHp());
                 }
             }
             return;
         }
-        if (roll < 0.6) {
+        if (target == null) return;
+        if (move == METEOR_STRIKE) {
             int dmg = Math.max(20, this.level * 35);
-            io.println(this.name + " calls down a Meteor on " + target.getName() + " for " + dmg + " damage!");
+            if (verbose) io.println(this.name + " calls down a Meteor on " + target.getName() + " for " + dmg + " damage!");
             if (rng.nextDouble() < target.getDodgeChance()) {
-                io.println(target.getName() + " evades the Meteor!");
+                if (verbose) io.println(target.getName() + " evades the Meteor!");
             } else {
                 target.takeDamage(dmg);
-                io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
+                if (verbose) io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
             }
             return;
         }
         int dmg = this.getBaseDamage() + this.level * 5;
         if (rng.nextDouble() < target.getDodgeChance()) {
-            io.println(target.getName() + " dodged " + this.name + "'s slash!");
+            if (verbose) io.println(target.getName() + " dodged " + this.name + "'s slash!");
         } else {
             target.takeDamage(dmg);
-            io.println(this.name + " slashes " + target.getName() + " for " + dmg + " damage.");
-            io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
+            if (verbose) io.println(this.name + " slashes " + target.getName() + " for " + dmg + " damage.");
+            if (verbose) io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
         }
     }
 }
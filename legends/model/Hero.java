@@ -1,12 +1,13 @@
 package legends.model;
 
+import legends.battle.CombatState;
 import legends.battle.Fighter;
 import legends.items.Weapon;
 import legends.items.Armor;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import legends.effects.StatusEffect;
+import legends.effects.StatusEffects;
 import legends.effects.StatusEffect.Type;
 import legends.items.Consumable;
 import legends.items.ConsumableStack;
@@ -15,7 +16,7 @@ import legends.skills.Skill;
 import legends.io.IO;
 import java.util.Collections;
 
-public abstract class Hero implements Fighter {
+public abstract class Hero implements Fighter, Cloneable {
     protected String name;
     protected int level;
     protected int exp;
@@ -32,8 +33,20 @@ public abstract class Hero implements Fighter {
 
     protected int healthPotions;
     protected int manaPotions;
-    private final List<StatusEffect> statusEffects = new ArrayList<>();
-    private final List<ConsumableStack> consumables = new ArrayList<>();
+    // not final so copy() can give the copy its own
+    private StatusEffects statusEffects = new StatusEffects();
+    private List<ConsumableStack> consumables = new ArrayList<>();
+
+    // Set while a battle runs: HP and MP then live in the state's arrays
+    private CombatState combat;
+    private int combatId;
+
+    // Skill bar resolved from skillContent; slot 0 is the class skill and never
+    // null, later slots may be empty
+    private Skill[] skillBar;
+    private legends.data.ContentSnapshot skillContent;
+    // Turns until each slot can be used again, parallel to skillBar
+    private int[] skillCooldowns = new int[0];
 
     protected Hero(String name, int level, int hp, int mp,
                    int strength, int dexterity, int agility, int gold) {
@@ -90,65 +103,207 @@ public abstract class Hero implements Fighter {
         return new Paladin(name, level, hp, mp, strength, dexterity, agility, gold);
     }
 
+    /**
+     * Move this hero's HP and MP into a battle's {@link CombatState}. Until
+     * {@link #unbindCombatState()} the HP/MP accessors read and write the state.
+     */
+    public void bindCombatState(CombatState state, int id) {
+        state.load(id, hp, getMaxHp(), mp, getMaxMp(), getArmorReduction(), getDodgeChance(), statusEffects);
+        this.combat = state;
+        this.combatId = id;
+    }
+
+    public void unbindCombatState() {
+        if (combat == null) return;
+        CombatState state = combat;
+        combat = null;
+        hp = state.hp(combatId);
+        mp = state.mp(combatId);
+    }
+
+    /**
+     * The battle state this hero is bound to, or null outside a battle.
+     */
+    public CombatState getCombatState() {
+        return combat;
+    }
+
+    /**
+     * A copy for simulations: same class, stats, equipment and skills, with its own
+     * statuses, inventory and cooldowns, and the current HP and MP. The copy is not
+     * bound to any battle.
+     */
+    public Hero copy() {
+        Hero c;
+        try {
+            c = (Hero) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        c.combat = null;
+        c.hp = getHp();
+        c.mp = getMp();
+        c.statusEffects = new StatusEffects();
+        c.statusEffects.copyFrom(statusEffects);
+        c.consumables = new ArrayList<>(consumables.size());
+        for (ConsumableStack s : consumables) {
+            c.consumables.add(new ConsumableStack(s.getConsumable(), s.getCount()));
+        }
+        c.skillCooldowns = skillCooldowns.clone();
+        // the fallback skill belongs to its hero, so the copy resolves its own bar
+        c.skillBar = null;
+        c.skillContent = null;
+        return c;
+    }
+
+    /**
+     * What a battle changes on a hero besides the HP, MP and statuses its
+     * {@link CombatState} holds: potions, consumables and skill cooldowns.
+     */
+    public static final class Snapshot {
+        private final int healthPotions;
+        private final int manaPotions;
+        private final Consumable[] items;
+        private final int[] counts;
+        private final int[] cooldowns;
+
+        private Snapshot(Hero h) {
+            this.healthPotions = h.healthPotions;
+            this.manaPotions = h.manaPotions;
+            this.items = new Consumable[h.consumables.size()];
+            this.counts = new int[items.length];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = h.consumables.get(i).getConsumable();
+                counts[i] = h.consumables.get(i).getCount();
+            }
+            this.cooldowns = h.skillCooldowns.clone();
+        }
+
+        /**
+         * Potions and consumables held, counting each consumable in a stack.
+         */
+        public int itemCount() {
+            int n = healthPotions + manaPotions;
+            for (int c : counts) n += c;
+            return n;
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Put back the potions, consumables and cooldowns from a snapshot of this hero or
+     * of the hero it was copied from. Stacks still holding the same consumables are
+     * updated in place, so a restore usually allocates nothing.
+     */
+    public void restore(Snapshot s) {
+        healthPotions = s.healthPotions;
+        manaPotions = s.manaPotions;
+        boolean same = consumables.size() == s.items.length;
+        for (int i = 0; same && i < s.items.length; i++) {
+            same = consumables.get(i).getConsumable() == s.items[i];
+        }
+        if (same) {
+            for (int i = 0; i < s.items.length; i++) {
+                consumables.get(i).setCount(s.counts[i]);
+            }
+        } else {
+            consumables.clear();
+            for (int i = 0; i < s.items.length; i++) {
+                consumables.add(new ConsumableStack(s.items[i], s.counts[i]));
+            }
+        }
+        // slots the snapshot does not know (bar not resolved yet when taken) are ready
+        int n = Math.min(skillCooldowns.length, s.cooldowns.length);
+        System.arraycopy(s.cooldowns, 0, skillCooldowns, 0, n);
+        java.util.Arrays.fill(skillCooldowns, n, skillCooldowns.length, 0);
+    }
+
+    private void setHp(int value) {
+        if (combat != null) {
+            combat.setHp(combatId, value);
+        } else {
+            hp = value;
+        }
+    }
+
+    private void setMp(int value) {
+        if (combat != null) {
+            combat.setMp(combatId, value);
+        } else {
+            mp = value;
+        }
+    }
+
     public boolean isAlive() {
-        return hp > 0;
+        return getHp() > 0;
     }
 
     public void takeDamage(int dmg) {
-        int armorPen = getArmorPenetrationTotal();
-        int effectiveArmor = Math.max(0, getArmorReduction() - armorPen);
-        int reduced = dmg - effectiveArmor;
-        if (reduced < 0) {
-            reduced = 0;
+        int reduced;
+        if (combat != null) {
+            reduced = combat.applyDamage(combatId, dmg);
+        } else {
+            int armorPen = getArmorPenetrationTotal();
+            int effectiveArmor = Math.max(0, getArmorReduction() - armorPen);
+            reduced = dmg - effectiveArmor;
+            if (reduced < 0) {
+                reduced = 0;
+            }
+            hp = Math.max(0, hp - reduced);
         }
-        hp = Math.max(0, hp - reduced);
         // fire damage event
-        try { legends.events.EventBus.getInstance().fire(new legends.events.OnDamageEvent(null, this, reduced)); } catch (Throwable t) {}
+        legends.events.EventBus bus = legends.events.EventBus.getInstance();
+        if (bus.hasListeners(legends.events.OnDamageEvent.class)) {
+            try { bus.fire(new legends.events.OnDamageEvent(null, this, reduced)); } catch (Throwable t) {}
+        }
     }
 
     public void addStatus(StatusEffect s) {
         statusEffects.add(s);
-        try { legends.events.EventBus.getInstance().fire(new legends.events.OnStatusApplyEvent(null, this, s)); } catch (Throwable t) {}
+        legends.events.EventBus bus = legends.events.EventBus.getInstance();
+        if (bus.hasListeners(legends.events.OnStatusApplyEvent.class)) {
+            try { bus.fire(new legends.events.OnStatusApplyEvent(null, this, s)); } catch (Throwable t) {}
+        }
     }
 
     public boolean hasStatus(Type t) {
-        for (StatusEffect s : statusEffects) if (s.getType() == t && !s.isExpired()) return true;
-        return false;
+        return statusEffects.has(t);
     }
 
     public int getArmorPenetrationTotal() {
-        int total = 0;
-        for (StatusEffect s : statusEffects) {
-            if (!s.isExpired() && s.getType() == Type.ARMOR_PENETRATE) total += s.getPotency();
-        }
-        return total;
+        return statusEffects.total(Type.ARMOR_PENETRATE);
     }
 
     public void tickStatusEffects(legends.io.IO io) {
-        Iterator<StatusEffect> it = statusEffects.iterator();
-        while (it.hasNext()) {
-            StatusEffect s = it.next();
-            if (s.isExpired()) { it.remove(); continue; }
-            switch (s.getType()) {
-                case POISON:
-                case BURN:
-                    int dmg = s.getPotency();
-                    hp = Math.max(0, hp - dmg);
-                    io.println(name + " suffers " + dmg + " from " + s.getType());
-                    break;
-                case STUN:
-                    // stun handled by heroAction check
-                    io.println(name + " is stunned (" + s.getRemainingTurns() + " turns left)");
-                    break;
-                case SLOW:
-                    io.println(name + " is slowed (" + s.getRemainingTurns() + " turns left)");
-                    break;
-                default:
-                    break;
+        if (statusEffects.isEmpty()) return;
+        if (!io.isSilent()) {
+            for (int i = 0; i < statusEffects.size(); i++) {
+                Type type = statusEffects.typeAt(i);
+                switch (type) {
+                    case POISON:
+                    case BURN:
+                        io.println(name + " suffers " + statusEffects.potencyAt(i) + " from " + type);
+                        break;
+                    case STUN:
+                        // stun handled by heroAction check
+                        io.println(name + " is stunned (" + statusEffects.remainingTurnsAt(i) + " turns left)");
+                        break;
+                    case SLOW:
+                        io.println(name + " is slowed (" + statusEffects.remainingTurnsAt(i) + " turns left)");
+                        break;
+                    default:
+                        break;
+                }
             }
-            s.tick();
-            if (s.isExpired()) it.remove();
         }
+        int dmg = statusEffects.damagePerTick();
+        if (dmg > 0) {
+            setHp(Math.max(0, getHp() - dmg));
+        }
+        statusEffects.tick();
     }
 
     public String getName() {
@@ -174,8 +329,8 @@ public abstract class Hero implements Fighter {
     }
 
     public void regenAfterRound() {
-        hp = Math.min(getMaxHp(), (int) Math.ceil(hp * 1.10));
-        mp = Math.min(getMaxMp(), (int) Math.ceil(mp * 1.10));
+        setHp(Math.min(getMaxHp(), (int) Math.ceil(getHp() * 1.10)));
+        setMp(Math.min(getMaxMp(), (int) Math.ceil(getMp() * 1.10)));
     }
 
     /**
@@ -183,8 +338,8 @@ public abstract class Hero implements Fighter {
      * This provides recovery between combat encounters.
      */
     public void fullRecover() {
-        hp = getMaxHp();
-        mp = getMaxMp();
+        setHp(getMaxHp());
+        setMp(getMaxMp());
     }
 
     public void gainGold(int amount) {
@@ -210,9 +365,9 @@ public abstract class Hero implements Fighter {
 
     protected void levelUp() {
         level++;
-        hp = level * 100;
+        setHp(level * 100);
         maxMp = (int) Math.ceil(maxMp * 1.10);
-        mp = Math.min(maxMp, (int) Math.ceil(mp * 1.10));
+        setMp(Math.min(maxMp, (int) Math.ceil(getMp() * 1.10)));
 
         int baseStrength = strength;
         int baseDexterity = dexterity;
@@ -266,7 +421,7 @@ public abstract class Hero implements Fighter {
         }
         healthPotions--;
         int heal = getHealthPotionHealAmount();
-        hp = Math.min(getMaxHp(), hp + heal);
+        setHp(Math.min(getMaxHp(), getHp() + heal));
         return true;
     }
 
@@ -276,7 +431,7 @@ public abstract class Hero implements Fighter {
         }
         manaPotions--;
         int restore = getManaPotionRestoreAmount();
-        mp = Math.min(getMaxMp(), mp + restore);
+        setMp(Math.min(getMaxMp(), getMp() + restore));
         return true;
     }
 
@@ -316,27 +471,62 @@ public abstract class Hero implements Fighter {
         return Collections.unmodifiableList(consumables);
     }
 
+    /**
+     * Add a whole stack at once, merging with a matching one (used when loading).
+     */
+    public void addConsumables(Consumable c, int count) {
+        if (c == null || count <= 0) return;
+        for (ConsumableStack s : consumables) {
+            if (s.matches(c)) {
+                s.increment(count);
+                return;
+            }
+        }
+        consumables.add(new ConsumableStack(c, count));
+    }
+
+    public void clearConsumables() {
+        consumables.clear();
+    }
+
+    /**
+     * Put back saved progression. Save code goes through this rather than
+     * reflection, so renaming a field is a compile error instead of a stat that
+     * silently stops loading.
+     */
+    public void restoreProgress(int level, int exp, int hp, int mp, int maxMp,
+                                int strength, int dexterity, int agility, int gold,
+                                int healthPotions, int manaPotions) {
+        this.level = level;
+        this.exp = exp;
+        this.maxMp = maxMp;
+        this.strength = strength;
+        this.dexterity = dexterity;
+        this.agility = agility;
+        this.gold = gold;
+        this.healthPotions = healthPotions;
+        this.manaPotions = manaPotions;
+        setHp(hp);
+        setMp(mp);
+    }
+
     public int heal(int amount) {
         if (amount <= 0) return 0;
-        int before = this.hp;
-        this.hp = Math.min(getMaxHp(), this.hp + amount);
-        return this.hp - before;
+        int before = getHp();
+        setHp(Math.min(getMaxHp(), before + amount));
+        return getHp() - before;
     }
 
     public int restoreMp(int amount) {
         if (amount <= 0) return 0;
-        int before = this.mp;
-        this.mp = Math.min(getMaxMp(), this.mp + amount);
-        return this.mp - before;
+        int before = getMp();
+        setMp(Math.min(getMaxMp(), before + amount));
+        return getMp() - before;
     }
 
     public void removeStatus(Type t) {
         if (t == null) return;
-        java.util.Iterator<StatusEffect> it = statusEffects.iterator();
-        while (it.hasNext()) {
-            StatusEffect s = it.next();
-            if (s.getType() == t) it.remove();
-        }
+        statusEffects.remove(t);
     }
 
     public boolean useConsumableByIndex(int idx, Monster target, IO io) {
@@ -372,15 +562,19 @@ public abstract class Hero implements Fighter {
     }
 
     public void reviveAtHalf() {
-        this.hp = getMaxHp() / 2;
+        setHp(getMaxHp() / 2);
     }
 
     public int getLevel() {
         return level;
     }
 
+    public int getExp() {
+        return exp;
+    }
+
     public int getHp() {
-        return hp;
+        return combat != null ? combat.hp(combatId) : hp;
     }
 
     public int getMaxHp() {
@@ -388,7 +582,7 @@ public abstract class Hero implements Fighter {
     }
 
     public int getMp() {
-        return mp;
+        return combat != null ? combat.mp(combatId) : mp;
     }
 
     /**
@@ -396,15 +590,92 @@ public abstract class Hero implements Fighter {
      */
     public boolean spendMp(int amount) {
         if (amount <= 0) return true;
-        if (mp < amount) return false;
-        mp -= amount;
+        if (getMp() < amount) return false;
+        setMp(getMp() - amount);
         return true;
     }
 
     public Skill getSkill() {
-        Skill s = legends.skills.SkillRegistry.getSkillForHeroClass(this.getClass().getSimpleName());
-        if (s != null) return s;
-        return new DefaultHeroSkill(this);
+        return getSkill(legends.data.ContentPacks.current());
+    }
+
+    /**
+     * This hero's skill as defined by the given content snapshot.
+     */
+    public Skill getSkill(legends.data.ContentSnapshot content) {
+        return resolveSkills(content)[0];
+    }
+
+    /**
+     * The skill in one slot of this hero's skill bar, or null if the slot is empty.
+     */
+    public Skill getSkill(legends.data.ContentSnapshot content, int slot) {
+        Skill[] bar = resolveSkills(content);
+        return slot >= 0 && slot < bar.length ? bar[slot] : null;
+    }
+
+    /**
+     * Number of slots in this hero's skill bar (at least 1).
+     */
+    public int getSkillSlots(legends.data.ContentSnapshot content) {
+        return resolveSkills(content).length;
+    }
+
+    // The bar for content, rebuilt only when a different snapshot is asked for; two
+    // snapshots can carry the same version number, so compare the snapshots themselves
+    private Skill[] resolveSkills(legends.data.ContentSnapshot content) {
+        if (content == skillContent) {
+            return skillBar;
+        }
+        String heroClass = this.getClass().getSimpleName();
+        Skill[] bar = new Skill[Math.max(1, content.getSkillSlots(heroClass))];
+        for (int i = 0; i < bar.length; i++) {
+            bar[i] = content.getSkill(heroClass, i);
+        }
+        if (bar[0] == null) {
+            bar[0] = skillBar != null && skillBar[0] instanceof DefaultHeroSkill ? skillBar[0] : new DefaultHeroSkill(this);
+        }
+        if (skillCooldowns.length != bar.length) {
+            skillCooldowns = java.util.Arrays.copyOf(skillCooldowns, bar.length);
+        }
+        skillBar = bar;
+        skillContent = content;
+        return bar;
+    }
+
+    /**
+     * Turns before the skill in a slot can be used again; 0 when it is ready.
+     */
+    public int getSkillCooldown(int slot) {
+        return slot >= 0 && slot < skillCooldowns.length ? skillCooldowns[slot] : 0;
+    }
+
+    public boolean isSkillReady(int slot) {
+        return getSkillCooldown(slot) == 0;
+    }
+
+    /**
+     * Put a slot on cooldown after its skill was used.
+     */
+    public void startSkillCooldown(legends.data.ContentSnapshot content, int slot) {
+        Skill s = getSkill(content, slot);
+        if (s != null && s.getCooldown() > 0) {
+            skillCooldowns[slot] = s.getCooldown() + 1; // the round it was used does not count
+        }
+    }
+
+    /**
+     * Count down every slot's cooldown by one round.
+     */
+    public void tickSkillCooldowns() {
+        int[] cd = skillCooldowns;
+        for (int i = 0; i < cd.length; i++) {
+            if (cd[i] > 0) cd[i]--;
+        }
+    }
+
+    public void resetSkillCooldowns() {
+        java.util.Arrays.fill(skillCooldowns, 0);
     }
 
     public int getGold() {
@@ -438,7 +709,7 @@ public abstract class Hero implements Fighter {
     public String toString() {
         return String.format(
                 "%s (Lv %d) HP=%d/%d MP=%d STR=%d DEX=%d AGI=%d Gold=%d HP Pots=%d MP Pots=%d",
-                name, level, hp, getMaxHp(), mp, getMaxMp(), strength, dexterity, agility, gold,
+                name, level, getHp(), getMaxHp(), getMp(), getMaxMp(), strength, dexterity, agility, gold,
                 healthPotions, manaPotions);
     }
 }
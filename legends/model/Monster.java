@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+import legends.battle.CombatState;
 import legends.battle.Fighter;
 import legends.items.Item;
 import legends.items.Weapon;
@@ -11,7 +12,7 @@ import legends.items.Armor;
 import legends.util.VisualAssets;
 import legends.ItemLibrary;
 
-public abstract class Monster implements Fighter {
+public abstract class Monster implements Fighter, Cloneable {
     protected String name;
     protected int level;
     protected int hp;
@@ -28,64 +29,179 @@ public abstract class Monster implements Fighter {
         this.dodge = dodge;
     }
 
+    // Status effects for monsters; not final so copy() can give the copy its own
+    private legends.effects.StatusEffects statusEffects = new legends.effects.StatusEffects();
+
+    // Set while a battle runs: HP then lives in the state's arrays
+    private CombatState combat;
+    private int combatId;
+
+    // Targeting policy and the intent committed for the current round
+    private legends.battle.MonsterPolicy policy = legends.battle.MonsterPolicies.RANDOM;
+    private int intentMove = STUNNED;
+    private int intentTarget = -1;
+
+    /**
+     * Move this monster's HP into a battle's {@link CombatState}. Until
+     * {@link #unbindCombatState()} the HP accessors read and write the state.
+     */
+    public void bindCombatState(CombatState state, int id) {
+        state.load(id, hp, getMaxHp(), 0, 0, defense, getDodgeChance(), statusEffects);
+        this.combat = state;
+        this.combatId = id;
+    }
+
+    /**
+     * A copy for simulations: same class, stats, policy and committed intent, with
+     * its own statuses and the current HP. The copy is not bound to any battle.
+     */
+    public Monster copy() {
+        Monster c;
+        try {
+            c = (Monster) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        c.combat = null;
+        c.hp = getHp();
+        c.statusEffects = new legends.effects.StatusEffects();
+        c.statusEffects.copyFrom(statusEffects);
+        return c;
+    }
+
+    public void unbindCombatState() {
+        if (combat == null) return;
+        CombatState state = combat;
+        combat = null;
+        hp = state.hp(combatId);
+    }
+
+    private void setHp(int value) {
+        if (combat != null) {
+            combat.setHp(combatId, value);
+        } else {
+            hp = value;
+        }
+    }
+
     public boolean isAlive() {
-        return hp > 0;
+        return getHp() > 0;
     }
 
     public void takeDamage(int dmg) {
-        int ap = getArmorPenetrationTotal();
-        int effectiveDefense = Math.max(0, defense - ap);
-        int reduced = dmg - effectiveDefense;
-        if (reduced < 0) reduced = 0;
-        hp = Math.max(0, hp - reduced);
-        if ("TEST".equalsIgnoreCase(legends.Config.DIFFICULTY)) {
-            hp = 0; // developer test difficulty: every hit defeats the monster
+        int reduced;
+        if (combat != null) {
+            reduced = combat.applyDamage(combatId, dmg);
+        } else {
+            int ap = getArmorPenetrationTotal();
+            int effectiveDefense = Math.max(0, defense - ap);
+            reduced = dmg - effectiveDefense;
+            if (reduced < 0) reduced = 0;
+            hp = Math.max(0, hp - reduced);
+        }
+        afterDamage(reduced);
+    }
+
+    /**
+     * What follows a hit once the HP is lowered: the TEST difficulty rule and the
+     * damage event. {@link #takeDamage} calls it; so does a batched skill that
+     * lowered HP in the {@link CombatState} directly.
+     */
+    public void afterDamage(int reduced) {
+        if ("TEST".equalsIgnoreCase(legends.Config.difficulty())) {
+            setHp(0); // developer test difficulty: every hit defeats the monster
+        }
+        legends.events.EventBus bus = legends.events.EventBus.getInstance();
+        if (bus.hasListeners(legends.events.OnDamageEvent.class)) {
+            try { bus.fire(new legends.events.OnDamageEvent(null, this, reduced)); } catch (Throwable t) {}
+        }
+    }
+
+    /**
+     * {@link #afterDamage(int)} for a batch of monsters hit at once in a combat state,
+     * with the difficulty and event bus looked up once for the whole batch.
+     */
+    public static void afterDamage(CombatState state, int[] ids, int[] dealt, int count) {
+        boolean oneHit = "TEST".equalsIgnoreCase(legends.Config.difficulty());
+        legends.events.EventBus bus = legends.events.EventBus.getInstance();
+        boolean events = bus.hasListeners(legends.events.OnDamageEvent.class);
+        if (!oneHit && !events) return;
+        for (int i = 0; i < count; i++) {
+            if (oneHit) state.setHp(ids[i], 0);
+            if (events) {
+                try { bus.fire(new legends.events.OnDamageEvent(null, state.fighter(ids[i]), dealt[i])); } catch (Throwable t) {}
+            }
         }
-        try { legends.events.EventBus.getInstance().fire(new legends.events.OnDamageEvent(null, this, reduced)); } catch (Throwable t) {}
     }
 
-    // Status effects for monsters
-    private final java.util.List<legends.effects.StatusEffect> statusEffects = new java.util.ArrayList<>();
+    /**
+     * Add the same status to a batch of monsters in a combat state, as
+     * {@link #addStatus(legends.effects.StatusEffect.Type, int, int)} does for one.
+     */
+    public static void addStatus(CombatState state, int[] ids, int count,
+                                 legends.effects.StatusEffect.Type type, int turns, int potency) {
+        for (int i = 0; i < count; i++) {
+            state.statuses(ids[i]).add(type, turns, potency);
+        }
+        legends.events.EventBus bus = legends.events.EventBus.getInstance();
+        if (bus.hasListeners(legends.events.OnStatusApplyEvent.class)) {
+            for (int i = 0; i < count; i++) {
+                try { bus.fire(new legends.events.OnStatusApplyEvent(null, state.fighter(ids[i]), new legends.effects.StatusEffect(type, turns, potency))); } catch (Throwable t) {}
+            }
+        }
+    }
 
     public void addStatus(legends.effects.StatusEffect s) {
         statusEffects.add(s);
-        try { legends.events.EventBus.getInstance().fire(new legends.events.OnStatusApplyEvent(null, this, s)); } catch (Throwable t) {}
+        legends.events.EventBus bus = legends.events.EventBus.getInstance();
+        if (bus.hasListeners(legends.events.OnStatusApplyEvent.class)) {
+            try { bus.fire(new legends.events.OnStatusApplyEvent(null, this, s)); } catch (Throwable t) {}
+        }
+    }
+
+    /**
+     * Same as {@link #addStatus(legends.effects.StatusEffect)}, without building the
+     * effect object unless a listener wants the event.
+     */
+    public void addStatus(legends.effects.StatusEffect.Type type, int turns, int potency) {
+        statusEffects.add(type, turns, potency);
+        legends.events.EventBus bus = legends.events.EventBus.getInstance();
+        if (bus.hasListeners(legends.events.OnStatusApplyEvent.class)) {
+            try { bus.fire(new legends.events.OnStatusApplyEvent(null, this, new legends.effects.StatusEffect(type, turns, potency))); } catch (Throwable t) {}
+        }
     }
 
     public boolean hasStatus(legends.effects.StatusEffect.Type t) {
-        for (legends.effects.StatusEffect s : statusEffects) if (!s.isExpired() && s.getType() == t) return true;
-        return false;
+        return statusEffects.has(t);
     }
 
     public int getArmorPenetrationTotal() {
-        int total = 0;
-        for (legends.effects.StatusEffect s : statusEffects) {
-            if (!s.isExpired() && s.getType() == legends.effects.StatusEffect.Type.ARMOR_PENETRATE) total += s.getPotency();
-        }
-        return total;
+        return statusEffects.total(legends.effects.StatusEffect.Type.ARMOR_PENETRATE);
     }
 
     public void tickStatusEffects(legends.io.IO io) {
-        java.util.Iterator<legends.effects.StatusEffect> it = statusEffects.iterator();
-        while (it.hasNext()) {
-            legends.effects.StatusEffect s = it.next();
-            if (s.isExpired()) { it.remove(); continue; }
-            switch (s.getType()) {
-                case POISON:
-                case BURN:
-                    int dmg = s.getPotency();
-                    hp = Math.max(0, hp - dmg);
-                    io.println(this.name + " suffers " + dmg + " from " + s.getType());
-                    break;
-                case STUN:
-                    io.println(this.name + " is stunned (" + s.getRemainingTurns() + " turns left)");
-                    break;
-                default:
-                    break;
+        if (statusEffects.isEmpty()) return;
+        if (!io.isSilent()) {
+            for (int i = 0; i < statusEffects.size(); i++) {
+                legends.effects.StatusEffect.Type type = statusEffects.typeAt(i);
+                switch (type) {
+                    case POISON:
+                    case BURN:
+                        io.println(this.name + " suffers " + statusEffects.potencyAt(i) + " from " + type);
+                        break;
+                    case STUN:
+                        io.println(this.name + " is stunned (" + statusEffects.remainingTurnsAt(i) + " turns left)");
+                        break;
+                    default:
+                        break;
+                }
             }
-            s.tick();
-            if (s.isExpired()) it.remove();
         }
+        int dmg = statusEffects.damagePerTick();
+        if (dmg > 0) {
+            setHp(Math.max(0, getHp() - dmg));
+        }
+        statusEffects.tick();
     }
 
     public String getName() {
@@ -112,7 +228,7 @@ public abstract class Monster implements Fighter {
     }
 
     public int getHp() {
-        return hp;
+        return combat != null ? combat.hp(combatId) : hp;
     }
 
     public int getMaxHp() {
@@ -126,7 +242,7 @@ public abstract class Monster implements Fighter {
     @Override
     public String toString() {
         return String.format("%s [%s] (Lv %d) HP=%d DMG=%d DEF=%d DODGE=%.2f",
-                name, getTier(), level, hp, baseDamage, defense, dodge);
+                name, getTier(), level, getHp(), baseDamage, defense, dodge);
     }
 
     public static List<Monster> spawnForParty(java.util.List<Hero> heroes) {
@@ -136,80 +252,48 @@ public abstract class Monster implements Fighter {
     /**
      * Spawn monsters for the given heroes with a level bias.
      * levelBias: negative => weaker monsters, positive => stronger monsters.
+     * Draws from the calling thread's spawn stream (see {@link legends.util.RngStreams}).
      */
     public static List<Monster> spawnForParty(java.util.List<Hero> heroes, int levelBias) {
+        return spawnForParty(heroes, levelBias, legends.util.RngStreams.current().spawns());
+    }
+
+    /**
+     * Same as {@link #spawnForParty(java.util.List, int)} but draws from the given RNG,
+     * so seeded simulations get reproducible encounters.
+     */
+    public static List<Monster> spawnForParty(java.util.List<Hero> heroes, int levelBias, Random rng) {
         int maxLevel = 1;
         for (Hero h : heroes) {
             maxLevel = Math.max(maxLevel, h.getLevel());
         }
         int n = Math.max(1, heroes.size());
-        List<Monster> result = new ArrayList<Monster>();
-        Random rng = new Random();
+        List<Monster> result = new ArrayList<Monster>(n);
 
-        String[] beginnerDragons = { "Young Red Dragon", "Whelp Flamewing", "Tiny Ember Drake" };
-        String[] beginnerExos = { "Rusty Shell", "Bronze Carapace", "Cracked Exoskeleton" };
-        String[] beginnerSpirits = { "Faint Spirit", "Whispering Shade", "Lost Soul" };
-
-        String[] advancedDragons = { "Ancient Red Dragon", "Crimson Tyrant", "Skyflame Dragon" };
-        String[] advancedExos = { "Iron Wall", "Titan Shell", "Obsidian Carapace" };
-        String[] advancedSpirits = { "Wailing Banshee", "Void Wraith", "Nightmare Spirit" };
+        int monsterLevel = Math.max(1, maxLevel + levelBias);
+        monsterLevel = Math.min(monsterLevel, maxLevel + legends.Config.MAX_MONSTER_LEVEL_DELTA);
 
+        // templates come from the catalog's band for the party's level, picked by weight,
+        // and build their own monster: the global factories may already belong to a
+        // newer snapshot that lacks the template's stats or ai
+        legends.data.MonsterCatalog catalog = legends.data.MonsterCatalog.get();
         for (int i = 0; i < n; i++) {
-            boolean beginner = (maxLevel <= 2);
-            int typeIdx = rng.nextInt(3);
-            String chosenType = null;
-            String chosenName = null;
-            if (typeIdx == 0) {
-                chosenType = "Dragon";
-                chosenName = beginner
-                        ? beginnerDragons[rng.nextInt(beginnerDragons.length)]
-                        : advancedDragons[rng.nextInt(advancedDragons.length)];
-            } else if (typeIdx == 1) {
-                chosenType = "Exoskeleton";
-                chosenName = beginner
-                        ? beginnerExos[rng.nextInt(beginnerExos.length)]
-                        : advancedExos[rng.nextInt(advancedExos.length)];
-            } else {
-                chosenType = "Spirit";
-                chosenName = beginner
-                        ? beginnerSpirits[rng.nextInt(beginnerSpirits.length)]
-                        : advancedSpirits[rng.nextInt(advancedSpirits.length)];
-            }
-
-            int monsterLevel = Math.max(1, maxLevel + levelBias);
-            monsterLevel = Math.min(monsterLevel, maxLevel + legends.Config.MAX_MONSTER_LEVEL_DELTA);
-
-            try {
-                if (legends.factory.MonsterRegistry.has(chosenType)) {
-                    legends.factory.MonsterFactory fac = legends.factory.MonsterRegistry.get(chosenType);
-                    Monster m = fac.create(chosenName, monsterLevel);
-                    result.add(m);
-                } else {
-                    if ("Dragon".equals(chosenType)) {
-                        result.add(new Dragon(chosenName, monsterLevel));
-                    } else if ("Exoskeleton".equals(chosenType)) {
-                        result.add(new Exoskeleton(chosenName, monsterLevel));
-                    } else {
-                        result.add(new Spirit(chosenName, monsterLevel));
-                    }
-                }
-            } catch (Exception e) {
-                if ("Dragon".equals(chosenType)) {
-                    result.add(new Dragon(chosenName, monsterLevel));
-                } else if ("Exoskeleton".equals(chosenType)) {
-                    result.add(new Exoskeleton(chosenName, monsterLevel));
-                } else {
-                    result.add(new Spirit(chosenName, monsterLevel));
-                }
-            }
+            result.add(catalog.pick(maxLevel, rng).create(monsterLevel));
         }
         return result;
     }
 
     public static java.util.List<Item> rewardHeroes(java.util.List<Hero> heroes, java.util.List<Monster> monsters) {
+        return rewardHeroes(heroes, monsters, legends.util.RngStreams.current().loot());
+    }
+
+    /**
+     * Hand out gold, XP and potion drops for the defeated monsters and return the
+     * equipment they dropped; drop rolls come from the given RNG.
+     */
+    public static java.util.List<Item> rewardHeroes(java.util.List<Hero> heroes, java.util.List<Monster> monsters, Random rng) {
         int totalMonsterLevels = 0;
         List<Item> loot = new ArrayList<>();
-        Random rng = new Random();
 
         for (Monster m : monsters) {
             totalMonsterLevels += Math.max(1, m.level);
@@ -276,26 +360,128 @@ public abstract class Monster implements Fighter {
     }
 
     /**
-     * Provide a short description of the action this monster will take next.
-     * Default: normal attack.
+     * Move number of a monster that is stunned and skips its action.
+     */
+    public static final int STUNNED = -1;
+
+    /**
+     * The target policy this monster plans with (see {@link #planIntent}).
+     */
+    public legends.battle.MonsterPolicy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(legends.battle.MonsterPolicy policy) {
+        this.policy = policy != null ? policy : legends.battle.MonsterPolicies.RANDOM;
+    }
+
+    /**
+     * Commit this round's intent: the target from the policy, then the move. The
+     * preview and the action both come from the committed intent, so the monster does
+     * what it showed. Draws the target before the move, in the order the battle used
+     * to draw them when acting.
+     */
+    public void planIntent(CombatState state, int monsterIndex, Random rng) {
+        intentTarget = policy.chooseTarget(state, monsterIndex, intentTarget, rng);
+        intentMove = chooseMove(rng);
+    }
+
+    public int getIntentMove() {
+        return intentMove;
+    }
+
+    /**
+     * Hero index the committed intent targets, or -1.
+     */
+    public int getIntentTarget() {
+        return intentTarget;
+    }
+
+    /**
+     * Set the committed intent, e.g. back to one saved in a snapshot.
+     */
+    public void restoreIntent(int move, int target) {
+        intentMove = move;
+        intentTarget = target;
+    }
+
+    /**
+     * Forget the last intent, so the next battle starts without a previous target.
      */
-    public String previewNextAction(Random rng, java.util.List<Hero> heroes) {
+    public void clearIntent() {
+        intentMove = STUNNED;
+        intentTarget = -1;
+    }
+
+    /**
+     * The committed intent as shown to the player, e.g. "Claw Swipe -> Aria".
+     */
+    public String describeIntent(java.util.List<Hero> heroes) {
+        if (intentMove == STUNNED) return "Stunned";
+        String move = moveName(intentMove);
+        if (isAreaMove(intentMove) || intentTarget < 0 || intentTarget >= heroes.size()) return move;
+        return move + " -> " + heroes.get(intentTarget).getName();
+    }
+
+    /**
+     * Carry out the committed intent. If the target fell since the intent was
+     * committed, the policy picks again among the living heroes.
+     */
+    public void performIntent(CombatState state, int monsterIndex, java.util.List<Hero> heroes, Random rng, legends.io.IO io) {
+        Hero target = intentTarget >= 0 && intentTarget < heroes.size() ? heroes.get(intentTarget) : null;
+        if (!isAreaMove(intentMove) && intentMove != STUNNED && (target == null || !target.isAlive())) {
+            intentTarget = policy.chooseTarget(state, monsterIndex, -1, rng);
+            if (intentTarget < 0) return;
+            target = heroes.get(intentTarget);
+            if (!io.isSilent()) io.println(name + " turns on " + target.getName() + ".");
+        }
+        performMove(intentMove, target, heroes, rng, io);
+    }
+
+    /**
+     * Pick this round's move. Subclasses with several moves roll for one here; the
+     * default has only the normal attack (move 0) and draws nothing.
+     */
+    protected int chooseMove(Random rng) {
+        return 0;
+    }
+
+    /**
+     * Display name of a move from {@link #chooseMove}.
+     */
+    protected String moveName(int move) {
         return "Normal Attack";
     }
 
     /**
-     * Perform the monster's action. Default behavior: deal baseDamage to target hero.
+     * True for moves that hit every hero, so have no single target.
      */
-    public void performAction(Hero target, java.util.List<Hero> allHeroes, Random rng, legends.io.IO io) {
+    protected boolean isAreaMove(int move) {
+        return false;
+    }
+
+    /**
+     * Perform a move. Default: deal baseDamage to the target hero.
+     */
+    protected void performMove(int move, Hero target, java.util.List<Hero> allHeroes, Random rng, legends.io.IO io) {
+        boolean verbose = !io.isSilent();
         if (target == null || !target.isAlive()) return;
         int dmg = this.getBaseDamage();
         if (rng.nextDouble() < target.getDodgeChance()) {
-            io.println(target.getName() + " dodged " + this.getName() + "'s attack!");
+            if (verbose) io.println(target.getName() + " dodged " + this.getName() + "'s attack!");
         } else {
             VisualAssets.printMonsterAttackEffect(io, this);
             target.takeDamage(dmg);
-            io.println(this.getName() + " attacked " + target.getName() + " for " + dmg + " damage.");
-            io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
+            if (verbose) io.println(this.getName() + " attacked " + target.getName() + " for " + dmg + " damage.");
+            if (verbose) io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
         }
     }
+
+    /**
+     * Pick a move and perform it on the given target at once, outside the intent
+     * cycle of a battle.
+     */
+    public void performAction(Hero target, java.util.List<Hero> allHeroes, Random rng, legends.io.IO io) {
+        performMove(chooseMove(rng), target, allHeroes, rng, io);
+    }
 }
@@ -24,15 +24,14 @@ public class Paladin extends Hero {
 
     @Override
     public int castSkillOn(Monster target) {
-        if (mp < getSkillMpCost()) {
+        if (!spendMp(getSkillMpCost())) {
             return 0;
         }
-        mp -= getSkillMpCost();
         int baseDamage = (int) Math.round(strength * 1.2 + dexterity * 1.0);
         int dmg = computeSpellDamage(Math.max(1, baseDamage));
         target.takeDamage(dmg);
         int heal = getMaxHp() / 5;
-        hp = Math.min(getMaxHp(), hp + heal);
+        heal(heal);
         legends.LegendsGame.getGlobalIO().println(name + " is healed for " + heal + " HP by holy energy.");
         // paladin skill also grants small temporary resist (SLOW as flavor)
         target.addStatus(new legends.effects.StatusEffect(legends.effects.StatusEffect.Type.SLOW, 1, 1));
@@ -24,10 +24,9 @@ public class Sorcerer extends Hero {
 
     @Override
     public int castSkillOn(Monster target) {
-        if (mp < getSkillMpCost()) {
+        if (!spendMp(getSkillMpCost())) {
             return 0;
         }
-        mp -= getSkillMpCost();
         int baseDamage = (int) Math.round(dexterity * 1.5 + strength * 0.5);
         int dmg = computeSpellDamage(Math.max(1, baseDamage));
         target.takeDamage(dmg);
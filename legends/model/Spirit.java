@@ -9,40 +9,54 @@ public class Spirit extends Monster {
         );
     }
 
+    /**
+     * A spirit with explicit stats instead of the per-level formulas.
+     */
+    public Spirit(String name, int level, int baseDamage, int defense, double dodge) {
+        super(name, level, baseDamage, defense, dodge);
+    }
+
+    private static final int ETHEREAL_STRIKE = 0;
+    private static final int MIMIC = 1;
+
     @Override
-    public String previewNextAction(java.util.Random rng, java.util.List<Hero> heroes) {
-        if (rng.nextDouble() < 0.30) {
-            return "Mimic (copies target attack)";
-        }
-        return "Ethereal Strike";
+    protected int chooseMove(java.util.Random rng) {
+        if (this.hasStatus(legends.effects.StatusEffect.Type.STUN)) return STUNNED;
+        return rng.nextDouble() < 0.30 ? MIMIC : ETHEREAL_STRIKE;
+    }
+
+    @Override
+    protected String moveName(int move) {
+        return move == MIMIC ? "Mimic (copies target attack)" : "Ethereal Strike";
     }
 
     @Override
-    public void performAction(Hero target, java.util.List<Hero> allHeroes, java.util.Random rng, legends.io.IO io) {
-        if (this.hasStatus(legends.effects.StatusEffect.Type.STUN)) {
-            io.println(this.name + " is stunned and cannot act!");
+    protected void performMove(int move, Hero target, java.util.List<Hero> allHeroes, java.util.Random rng, legends.io.IO io) {
+        boolean verbose = !io.isSilent();
+        if (move == STUNNED || this.hasStatus(legends.effects.StatusEffect.Type.STUN)) {
+            if (verbose) io.println(this.name + " is stunned and cannot act!");
             return;
         }
         if (target == null || !target.isAlive()) return;
-        if (rng.nextDouble() < 0.30) {
+        if (move == MIMIC) {
             // Mimic: copy target's normal attack damage
             int mimic = target.calcAttackDamage();
-            io.println(this.name + " mimics " + target.getName() + "'s attack for " + mimic + " damage!");
+            if (verbose) io.println(this.name + " mimics " + target.getName() + "'s attack for " + mimic + " damage!");
             if (rng.nextDouble() < target.getDodgeChance()) {
-                io.println(target.getName() + " dodged the mimic!");
+                if (verbose) io.println(target.getName() + " dodged the mimic!");
             } else {
                 target.takeDamage(mimic);
-                io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
+                if (verbose) io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
             }
             return;
         }
         int dmg = this.getBaseDamage();
         if (rng.nextDouble() < target.getDodgeChance()) {
-            io.println(target.getName() + " phased away from " + this.name + "'s strike!");
+            if (verbose) io.println(target.getName() + " phased away from " + this.name + "'s strike!");
         } else {
             target.takeDamage(dmg);
-            io.println(this.name + " struck " + target.getName() + " for " + dmg + " damage.");
-            io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
+            if (verbose) io.println(this.name + " struck " + target.getName() + " for " + dmg + " damage.");
+            if (verbose) io.println("    " + target.getName() + " HP=" + target.getHp() + "/" + target.getMaxHp());
         }
     }
 }
@@ -24,10 +24,9 @@ public class Warrior extends Hero {
 
     @Override
     public int castSkillOn(Monster target) {
-        if (mp < getSkillMpCost()) {
+        if (!spendMp(getSkillMpCost())) {
             return 0;
         }
-        mp -= getSkillMpCost();
         int baseAttack = strength + (equippedWeapon == null ? 0 : equippedWeapon.getDamage());
         int spellBase = (int) Math.round(baseAttack * 1.5);
         int dmg = computeSpellDamage(Math.max(1, spellBase));
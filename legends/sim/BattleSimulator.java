@@ -0,0 +1,118 @@
+package legends.sim;
+
+import java.util.List;
+import java.util.Random;
+
+import legends.GameContext;
+import legends.battle.BattleEngine;
+import legends.battle.HeroPolicies;
+import legends.battle.HeroPolicy;
+import legends.events.EventBus;
+import legends.io.NullIO;
+import legends.model.Hero;
+import legends.model.Monster;
+import legends.util.RngStreams;
+import legends.util.SplitRandom;
+
+/**
+ * Non-interactive batch runner for balance sweeps.
+ * Heroes are driven by a {@link HeroPolicy}, all output goes to {@link NullIO},
+ * and results are only reported as {@link SimulationStats} counters.
+ * Each run binds its own {@link GameContext}, so one simulator can be shared by
+ * several threads as long as its {@link Scenario} and policy are stateless.
+ *
+ * Usage: java -cp out legends.sim.BattleSimulator [battles] [seed] [Class,Class,...]
+ */
+public class BattleSimulator {
+    public static final int DEFAULT_MAX_ROUNDS = 200;
+
+    // Spreads consecutive battle indices across the seed space
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    private final Scenario scenario;
+    private final HeroPolicy policy;
+    private int maxRounds = DEFAULT_MAX_ROUNDS;
+    private String difficulty = "NORMAL";
+
+    public BattleSimulator(Scenario scenario, HeroPolicy policy) {
+        this.scenario = scenario;
+        this.policy = policy;
+    }
+
+    public void setMaxRounds(int maxRounds) {
+        this.maxRounds = maxRounds;
+    }
+
+    public void setDifficulty(String difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Run {@code battles} independent battles. Battle {@code i} is seeded from
+     * {@code seed} and {@code i} only, so any battle can be replayed on its own.
+     */
+    public SimulationStats run(int battles, long seed) {
+        return run(0, battles, seed, new SimulationStats());
+    }
+
+    /**
+     * Run battles {@code [from, to)} into the given stats.
+     */
+    public SimulationStats run(long from, long to, long seed, SimulationStats stats) {
+        GameContext previous = GameContext.bind(new GameContext(new EventBus(), NullIO.INSTANCE, difficulty,
+                new RngStreams(battleSeed(seed, from))));
+        try {
+            SplitRandom rng = new SplitRandom(0L);
+            for (long i = from; i < to; i++) {
+                rng.setSeed(battleSeed(seed, i));
+                runOne(rng, stats);
+            }
+        } finally {
+            GameContext.restore(previous);
+        }
+        return stats;
+    }
+
+    public static long battleSeed(long seed, long index) {
+        return seed + index * SEED_STRIDE;
+    }
+
+    /**
+     * Simulate a single battle and record its outcome. Runs against whatever
+     * {@link GameContext} the caller has bound; {@code run} binds an isolated one.
+     */
+    public void runOne(Random rng, SimulationStats stats) {
+        List<Hero> heroes = scenario.createHeroes(rng);
+        List<Monster> monsters = scenario.createMonsters(heroes, rng);
+        BattleEngine engine = new BattleEngine(heroes, monsters, rng, NullIO.INSTANCE, policy);
+        engine.setMaxRounds(maxRounds);
+        engine.runBattle();
+
+        int deadHeroes = 0;
+        for (Hero h : heroes) {
+            if (!h.isAlive()) deadHeroes++;
+        }
+        int deadMonsters = 0;
+        int damage = 0;
+        for (Monster m : monsters) {
+            if (!m.isAlive()) deadMonsters++;
+            damage += m.getMaxHp() - m.getHp();
+        }
+        boolean heroesWon = deadMonsters == monsters.size() && deadHeroes < heroes.size();
+        boolean monstersWon = deadHeroes == heroes.size();
+        stats.record(heroesWon, monstersWon, engine.getRoundsPlayed(), deadHeroes, deadMonsters, damage);
+    }
+
+    public static void main(String[] args) {
+        int battles = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        String[] classes = args.length > 2 ? args[2].split(",") : new String[] { "Warrior", "Sorcerer", "Paladin" };
+
+        BattleSimulator sim = new BattleSimulator(Scenario.party(classes), HeroPolicies.GREEDY);
+        long start = System.nanoTime();
+        SimulationStats stats = sim.run(battles, seed);
+        long elapsedMs = (System.nanoTime() - start) / 1000000L;
+        System.out.println(stats);
+        System.out.println("Elapsed: " + elapsedMs + " ms (" + (battles * 1000L / Math.max(1, elapsedMs)) + " battles/s)");
+    }
+}
@@ -0,0 +1,81 @@
+package legends.sim;
+
+/**
+ * Fixed-width bucket histogram over non-negative values. The last bucket also
+ * collects everything past the range, so recording never allocates or grows.
+ */
+public class Histogram {
+    private final int bucketWidth;
+    private final long[] counts;
+
+    public Histogram(int bucketWidth, int buckets) {
+        this.bucketWidth = Math.max(1, bucketWidth);
+        this.counts = new long[Math.max(1, buckets)];
+    }
+
+    public void record(long value) {
+        int idx = value <= 0 ? 0 : (int) Math.min(counts.length - 1, value / bucketWidth);
+        counts[idx]++;
+    }
+
+    /**
+     * Add another histogram with the same layout into this one.
+     */
+    public void merge(Histogram other) {
+        if (other.bucketWidth != bucketWidth || other.counts.length != counts.length) {
+            throw new IllegalArgumentException("histogram layouts differ");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    public int getBucketWidth() {
+        return bucketWidth;
+    }
+
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (long c : counts) total += c;
+        return total;
+    }
+
+    /**
+     * Lower bound of the bucket containing the given quantile (0..1).
+     */
+    public long quantile(double q) {
+        long total = getTotal();
+        if (total == 0) return 0;
+        long target = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) return (long) i * bucketWidth;
+        }
+        return (long) (counts.length - 1) * bucketWidth;
+    }
+
+    /**
+     * One line per non-empty bucket: "lo-hi: count".
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            long lo = (long) i * bucketWidth;
+            sb.append("  ").append(lo).append('-');
+            if (i == counts.length - 1) sb.append("...");
+            else sb.append(lo + bucketWidth - 1);
+            sb.append(": ").append(counts[i]).append('\n');
+        }
+        return sb.toString();
+    }
+}
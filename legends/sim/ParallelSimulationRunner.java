@@ -0,0 +1,89 @@
+package legends.sim;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import legends.battle.HeroPolicies;
+
+/**
+ * Shards a Monte-Carlo balance run over a {@link ForkJoinPool}. Battles are split
+ * into index ranges; each leaf runs with its own RNG, event bus and stats, and the
+ * per-shard stats (counters and histograms) are merged on the way back up.
+ * Battle {@code i} uses the same seed as in a single-threaded
+ * {@link BattleSimulator#run(int, long)}, so totals do not depend on thread count.
+ *
+ * Usage: java -cp out legends.sim.ParallelSimulationRunner [battles] [seed] [threads] [Class,Class,...]
+ */
+public class ParallelSimulationRunner {
+    public static final int DEFAULT_SHARD_SIZE = 4096;
+
+    private final BattleSimulator simulator;
+    private final ForkJoinPool pool;
+    private final int shardSize;
+
+    public ParallelSimulationRunner(BattleSimulator simulator, ForkJoinPool pool) {
+        this(simulator, pool, DEFAULT_SHARD_SIZE);
+    }
+
+    public ParallelSimulationRunner(BattleSimulator simulator, ForkJoinPool pool, int shardSize) {
+        this.simulator = simulator;
+        this.pool = pool;
+        this.shardSize = Math.max(1, shardSize);
+    }
+
+    public SimulationStats run(long battles, long seed) {
+        return pool.invoke(new Shard(0, battles, seed));
+    }
+
+    private final class Shard extends RecursiveTask<SimulationStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final long seed;
+
+        Shard(long from, long to, long seed) {
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (to - from <= shardSize) {
+                return simulator.run(from, to, seed, new SimulationStats());
+            }
+            long mid = from + (to - from) / 2;
+            Shard left = new Shard(from, mid, seed);
+            Shard right = new Shard(mid, to, seed);
+            left.fork();
+            SimulationStats result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    public static void main(String[] args) {
+        long battles = args.length > 0 ? Long.parseLong(args[0]) : 1000000L;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String[] classes = args.length > 3 ? args[3].split(",") : new String[] { "Warrior", "Sorcerer", "Paladin" };
+
+        BattleSimulator sim = new BattleSimulator(Scenario.party(classes), HeroPolicies.GREEDY);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            SimulationStats stats = new ParallelSimulationRunner(sim, pool).run(battles, seed);
+            long elapsedMs = (System.nanoTime() - start) / 1000000L;
+            System.out.println(stats);
+            System.out.println("Rounds per battle:");
+            System.out.print(stats.getRoundsHistogram().format());
+            System.out.println("Damage per battle:");
+            System.out.print(stats.getDamageHistogram().format());
+            System.out.println("Elapsed: " + elapsedMs + " ms on " + threads + " threads ("
+                    + (battles * 1000L / Math.max(1, elapsedMs)) + " battles/s)");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
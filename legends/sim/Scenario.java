@@ -0,0 +1,43 @@
+package legends.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import legends.model.Hero;
+import legends.model.Monster;
+
+/**
+ * Builds fresh combatants for each simulated battle.
+ */
+public interface Scenario {
+    List<Hero> createHeroes(Random rng);
+
+    List<Monster> createMonsters(List<Hero> heroes, Random rng);
+
+    /**
+     * A level 1 party of the given hero classes ("Warrior", "Sorcerer", "Paladin")
+     * against a regular spawn for that party.
+     */
+    static Scenario party(final String... heroClasses) {
+        return new Scenario() {
+            @Override
+            public List<Hero> createHeroes(Random rng) {
+                List<Hero> heroes = new ArrayList<Hero>(heroClasses.length);
+                for (int i = 0; i < heroClasses.length; i++) {
+                    String cls = heroClasses[i];
+                    String name = cls + (i + 1);
+                    if ("Sorcerer".equalsIgnoreCase(cls)) heroes.add(Hero.createSorcerer(name));
+                    else if ("Paladin".equalsIgnoreCase(cls)) heroes.add(Hero.createPaladin(name));
+                    else heroes.add(Hero.createWarrior(name));
+                }
+                return heroes;
+            }
+
+            @Override
+            public List<Monster> createMonsters(List<Hero> heroes, Random rng) {
+                return Monster.spawnForParty(heroes, 0, rng);
+            }
+        };
+    }
+}
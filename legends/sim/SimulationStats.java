@@ -0,0 +1,78 @@
+package legends.sim;
+
+/**
+ * Outcome counters collected by {@link BattleSimulator}. Plain primitive fields so
+ * recording a battle never allocates.
+ */
+public class SimulationStats {
+    private long battles;
+    private long heroWins;
+    private long monsterWins;
+    private long undecided; // hit the round cap
+    private long totalRounds;
+    private long heroDeaths;
+    private long monstersKilled;
+    private long damageDealt; // HP removed from monsters
+
+    private final Histogram roundsHistogram = new Histogram(1, 64);
+    private final Histogram damageHistogram = new Histogram(25, 64);
+
+    public void record(boolean heroesWon, boolean monstersWon, int rounds, int deadHeroes, int deadMonsters, int damage) {
+        battles++;
+        if (heroesWon) {
+            heroWins++;
+        } else if (monstersWon) {
+            monsterWins++;
+        } else {
+            undecided++;
+        }
+        totalRounds += rounds;
+        heroDeaths += deadHeroes;
+        monstersKilled += deadMonsters;
+        damageDealt += damage;
+        roundsHistogram.record(rounds);
+        damageHistogram.record(damage);
+    }
+
+    /**
+     * Add another run's counters into this one.
+     */
+    public void merge(SimulationStats other) {
+        battles += other.battles;
+        heroWins += other.heroWins;
+        monsterWins += other.monsterWins;
+        undecided += other.undecided;
+        totalRounds += other.totalRounds;
+        heroDeaths += other.heroDeaths;
+        monstersKilled += other.monstersKilled;
+        damageDealt += other.damageDealt;
+        roundsHistogram.merge(other.roundsHistogram);
+        damageHistogram.merge(other.damageHistogram);
+    }
+
+    public long getBattles() { return battles; }
+    public long getHeroWins() { return heroWins; }
+    public long getMonsterWins() { return monsterWins; }
+    public long getUndecided() { return undecided; }
+    public long getTotalRounds() { return totalRounds; }
+    public long getHeroDeaths() { return heroDeaths; }
+    public long getMonstersKilled() { return monstersKilled; }
+    public long getDamageDealt() { return damageDealt; }
+    public Histogram getRoundsHistogram() { return roundsHistogram; }
+    public Histogram getDamageHistogram() { return damageHistogram; }
+
+    public double getWinRate() {
+        return battles == 0 ? 0.0 : (double) heroWins / battles;
+    }
+
+    public double getAverageRounds() {
+        return battles == 0 ? 0.0 : (double) totalRounds / battles;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("battles=%d heroWins=%d monsterWins=%d undecided=%d winRate=%.4f avgRounds=%.2f heroDeaths=%d monstersKilled=%d damage=%d",
+                battles, heroWins, monsterWins, undecided, getWinRate(), getAverageRounds(),
+                heroDeaths, monstersKilled, damageDealt);
+    }
+}
@@ -19,10 +19,20 @@ public class DeclarativeSkill implements Skill {
     private final StatusEffect.Type statusType;
     private final int statusDuration;
     private final int statusPotency;
+    private final int cooldown; // turns
+    // the definition above, compiled once for casting
+    private final SkillProgram program;
 
     public DeclarativeSkill(String name, int mpCost, double strengthMultiplier, double dexterityMultiplier,
             Target target, double chance,
             StatusEffect.Type statusType, int statusDuration, int statusPotency) {
+        this(name, mpCost, strengthMultiplier, dexterityMultiplier, target, chance,
+                statusType, statusDuration, statusPotency, 0);
+    }
+
+    public DeclarativeSkill(String name, int mpCost, double strengthMultiplier, double dexterityMultiplier,
+            Target target, double chance,
+            StatusEffect.Type statusType, int statusDuration, int statusPotency, int cooldown) {
         this.name = name;
         this.mpCost = mpCost;
         this.strengthMultiplier = strengthMultiplier;
@@ -32,48 +42,54 @@ public class DeclarativeSkill implements Skill {
         this.statusType = statusType;
         this.statusDuration = statusDuration;
         this.statusPotency = statusPotency;
+        this.cooldown = Math.max(0, cooldown);
+        this.program = new SkillProgram(mpCost, target == Target.AOE, strengthMultiplier, dexterityMultiplier, chance,
+                statusType, statusDuration, statusPotency);
     }
 
+    public SkillProgram getProgram() { return program; }
+
     @Override
     public String getName() { return name; }
 
     @Override
     public int getMpCost() { return mpCost; }
 
+    @Override
+    public int getCooldown() { return cooldown; }
+
     @Override
     public int apply(Hero user, Monster target, Random rng, IO io) {
+        boolean verbose = !io.isSilent();
         if (user.getMp() < mpCost) {
-            io.println(user.getName() + " does not have enough MP to use " + name + ".");
+            if (verbose) io.println(user.getName() + " does not have enough MP to use " + name + ".");
             return 0;
         }
         // deduct MP using public API if available
         try {
             boolean ok = user.spendMp(mpCost);
             if (!ok) {
-                io.println(user.getName() + " does not have enough MP to use " + name + ".");
+                if (verbose) io.println(user.getName() + " does not have enough MP to use " + name + ".");
                 return 0;
             }
         } catch (NoSuchMethodError e) {
             // fallback: try to call castSkillOn via DefaultHeroSkill (unlikely)
         }
 
-        // simple damage formula
-        int baseDamage = (int) Math.round(user.getStrength() * strengthMultiplier + user.getDexterity() * dexterityMultiplier);
-        int dmg = user.computeSpellDamage(Math.max(1, baseDamage));
-        // chance to apply
-        if (chance < 1.0 && rng.nextDouble() > chance) {
-            io.println(user.getName() + " used " + name + " but it failed to trigger.");
+        int dmg = program.damage(user);
+        if (!program.triggers(rng)) {
+            if (verbose) io.println(user.getName() + " used " + name + " but it failed to trigger.");
             return 0;
         }
 
         if (dmg > 0 && target != null) {
             target.takeDamage(dmg);
-            io.println(user.getName() + " used " + name + " on " + target.getName() + " for " + dmg + " damage.");
+            if (verbose) io.println(user.getName() + " used " + name + " on " + target.getName() + " for " + dmg + " damage.");
         }
 
         if (statusType != null && target != null) {
-            target.addStatus(new StatusEffect(statusType, statusDuration, statusPotency));
-            io.println(user.getName() + " applied " + statusType + " to " + target.getName());
+            program.applyStatus(target);
+            if (verbose) io.println(user.getName() + " applied " + statusType + " to " + target.getName());
         }
 
         return dmg;
@@ -83,40 +99,41 @@ public class DeclarativeSkill implements Skill {
 
     /**
      * Apply this declarative skill to multiple targets (AOE). Returns total damage dealt.
+     * Battles cast through {@link #getProgram()} instead, which batches the targets
+     * and prints nothing.
      */
     public int applyToTargets(Hero user, java.util.List<Monster> targets, Random rng, IO io) {
+        boolean verbose = !io.isSilent();
         if (user.getMp() < mpCost) {
-            io.println(user.getName() + " does not have enough MP to use " + name + ".");
+            if (verbose) io.println(user.getName() + " does not have enough MP to use " + name + ".");
             return 0;
         }
         boolean ok = user.spendMp(mpCost);
         if (!ok) {
-            io.println(user.getName() + " does not have enough MP to use " + name + ".");
+            if (verbose) io.println(user.getName() + " does not have enough MP to use " + name + ".");
             return 0;
         }
 
         int total = 0;
+        int dmg = program.damage(user);
         for (Monster t : targets) {
             if (!t.isAlive()) continue;
             if (rng.nextDouble() < t.getDodgeChance()) {
-                io.println(t.getName() + " dodged " + user.getName() + "'s " + name + "!");
+                if (verbose) io.println(t.getName() + " dodged " + user.getName() + "'s " + name + "!");
                 continue;
             }
-            int baseDamage = (int) Math.round(user.getStrength() * strengthMultiplier + user.getDexterity() * dexterityMultiplier);
-            int dmg = user.computeSpellDamage(Math.max(1, baseDamage));
-            // chance to apply
-            if (chance < 1.0 && rng.nextDouble() > chance) {
-                io.println(user.getName() + " used " + name + " but it failed to trigger on " + t.getName() + ".");
+            if (!program.triggers(rng)) {
+                if (verbose) io.println(user.getName() + " used " + name + " but it failed to trigger on " + t.getName() + ".");
                 continue;
             }
             if (dmg > 0) {
                 t.takeDamage(dmg);
-                io.println(user.getName() + " used " + name + " on " + t.getName() + " for " + dmg + " damage.");
+                if (verbose) io.println(user.getName() + " used " + name + " on " + t.getName() + " for " + dmg + " damage.");
                 total += dmg;
             }
             if (statusType != null) {
-                t.addStatus(new StatusEffect(statusType, statusDuration, statusPotency));
-                io.println(user.getName() + " applied " + statusType + " to " + t.getName());
+                program.applyStatus(t);
+                if (verbose) io.println(user.getName() + " applied " + statusType + " to " + t.getName());
             }
         }
         return total;
@@ -10,4 +10,8 @@ public interface Skill {
     int getMpCost();
     // apply the skill; return damage or effect magnitude as int
     int apply(Hero user, Monster target, Random rng, IO io);
+    // turns the skill's slot stays unusable after a cast; 0 = usable every turn
+    default int getCooldown() {
+        return 0;
+    }
 }
@@ -0,0 +1,177 @@
+package legends.skills;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import legends.battle.CombatState;
+import legends.effects.StatusEffect;
+import legends.model.Hero;
+import legends.model.Monster;
+
+/**
+ * A {@link DeclarativeSkill} compiled for casting: a damage op (the stat
+ * coefficients), an optional chance gate and an optional status op, resolved once
+ * when the skill is loaded and shared by every cast.
+ *
+ * {@link #cast} runs the program over a whole {@link Batch} of targets in a
+ * {@link CombatState}: one pass through the gates (dodge, then chance, drawn per
+ * target in batch order), the damage for the caster computed once and applied to
+ * every target that got through in one loop over the state's arrays, then one pass
+ * for the status. It prints nothing; callers that show text render it from the
+ * per-target outcomes.
+ */
+public final class SkillProgram {
+    /** Returned by {@link #cast} when the caster cannot pay the MP cost. */
+    public static final int NOT_ENOUGH_MP = -1;
+    /** Outcome of a target that dodged. */
+    public static final int DODGED = -1;
+    /** Outcome of a target the chance gate let through untouched. */
+    public static final int FAILED = -2;
+
+    private final int mpCost;
+    private final boolean aoe;
+    private final double strengthMultiplier;
+    private final double dexterityMultiplier;
+    private final boolean gated;
+    private final double chance;
+    // null when the skill applies no status
+    private final StatusEffect.Type statusType;
+    private final int statusDuration;
+    private final int statusPotency;
+
+    SkillProgram(int mpCost, boolean aoe, double strengthMultiplier, double dexterityMultiplier, double chance,
+                 StatusEffect.Type statusType, int statusDuration, int statusPotency) {
+        this.mpCost = mpCost;
+        this.aoe = aoe;
+        this.strengthMultiplier = strengthMultiplier;
+        this.dexterityMultiplier = dexterityMultiplier;
+        this.gated = chance < 1.0;
+        this.chance = chance;
+        this.statusType = statusType;
+        this.statusDuration = statusDuration;
+        this.statusPotency = statusPotency;
+    }
+
+    public StatusEffect.Type getStatusType() {
+        return statusType;
+    }
+
+    /**
+     * Damage one cast by this user deals to each target it hits, before defense.
+     */
+    public int damage(Hero user) {
+        int base = (int) Math.round(user.getStrength() * strengthMultiplier + user.getDexterity() * dexterityMultiplier);
+        return user.computeSpellDamage(Math.max(1, base));
+    }
+
+    /**
+     * Roll the chance gate; always passes (and draws nothing) for a sure skill.
+     */
+    public boolean triggers(Random rng) {
+        return !gated || rng.nextDouble() <= chance;
+    }
+
+    /**
+     * Apply the status op to a monster, if the skill has one.
+     */
+    public void applyStatus(Monster target) {
+        if (statusType != null) {
+            target.addStatus(statusType, statusDuration, statusPotency);
+        }
+    }
+
+    /**
+     * Spend the MP and cast on every target in the batch. Each target's outcome is
+     * the damage it took before defense, {@link #DODGED} or {@link #FAILED}. An area
+     * skill pays its MP up front; a single-target skill pays only once its target
+     * has not dodged, so a dodged cast is free.
+     *
+     * @return the total damage before defense, or {@link #NOT_ENOUGH_MP} (nothing
+     *         more is rolled and no target is touched)
+     */
+    public int cast(Hero user, CombatState state, Batch batch, Random rng) {
+        boolean paid = false;
+        if (aoe) {
+            if (!user.spendMp(mpCost)) return NOT_ENOUGH_MP;
+            paid = true;
+        }
+        int n = batch.count;
+        int[] ids = batch.ids;
+        int[] outcome = batch.outcome;
+        int[] hit = batch.hit;
+        int hits = 0;
+        for (int i = 0; i < n; i++) {
+            if (rng.nextDouble() < state.dodge(ids[i])) {
+                outcome[i] = DODGED;
+                continue;
+            }
+            if (!paid) {
+                if (!user.spendMp(mpCost)) return NOT_ENOUGH_MP;
+                paid = true;
+            }
+            if (!triggers(rng)) {
+                outcome[i] = FAILED;
+            } else {
+                hit[hits++] = ids[i];
+                outcome[i] = 0;
+            }
+        }
+        if (hits == 0) {
+            return 0;
+        }
+
+        int dmg = damage(user);
+        state.applyDamage(hit, hits, dmg, batch.dealt);
+        Monster.afterDamage(state, hit, batch.dealt, hits);
+        for (int i = 0; i < n; i++) {
+            if (outcome[i] == 0) outcome[i] = dmg;
+        }
+        if (statusType != null) {
+            Monster.addStatus(state, hit, hits, statusType, statusDuration, statusPotency);
+        }
+        return dmg * hits;
+    }
+
+    /**
+     * Targets for one cast and their outcomes. Reused from cast to cast; the arrays
+     * grow to the largest batch seen.
+     */
+    public static final class Batch {
+        private int[] ids = new int[8];
+        private int[] outcome = new int[8];
+        private int[] hit = new int[8];
+        private int[] dealt = new int[8];
+        private int count;
+
+        public void clear() {
+            count = 0;
+        }
+
+        public void add(int combatId) {
+            if (count == ids.length) {
+                int cap = count * 2;
+                ids = Arrays.copyOf(ids, cap);
+                outcome = Arrays.copyOf(outcome, cap);
+                hit = Arrays.copyOf(hit, cap);
+                dealt = Arrays.copyOf(dealt, cap);
+            }
+            ids[count++] = combatId;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public int id(int i) {
+            return ids[i];
+        }
+
+        /**
+         * Damage before defense, {@link #DODGED} or {@link #FAILED} for the i-th target
+         * of the last cast.
+         */
+        public int outcome(int i) {
+            return outcome[i];
+        }
+    }
+}
@@ -1,135 +1,164 @@
 package legends.skills;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import legends.data.ContentPacks;
 import legends.effects.StatusEffect;
+import legends.util.JsonReader;
 
+/**
+ * Reads skills from data. The skills in use live in the current
+ * {@link legends.data.ContentSnapshot}, so they change when a content pack is reloaded.
+ */
 public class SkillRegistry {
-    private static final Map<String, Skill> registry = new ConcurrentHashMap<>();
+    // Highest skill bar slot a skills file may use
+    public static final int MAX_SLOT = 9;
 
-    static {
-        // try to load declarative skills from data/skills.json first
-        java.io.File f = new java.io.File("data/skills.json");
-        if (f.exists()) {
-            try {
-                java.nio.file.Path p = f.toPath();
-                java.util.List<java.util.Map<String,String>> list = SimpleJson.parseArray(p);
-                for (java.util.Map<String,String> obj : list) {
-                    String className = obj.get("class");
-                    String name = obj.get("name");
-                    int mpCost = parseInt(obj.get("mpCost"), 0);
-                    double strMul = parseDouble(obj.get("strengthMultiplier"), 0.0);
-                    double dexMul = parseDouble(obj.get("dexterityMultiplier"), 0.0);
-                    String targetS = obj.get("target");
-                    double chance = parseDouble(obj.get("chance"), 1.0);
-                    String statusTypeS = obj.get("statusType");
-                    int statusDuration = parseInt(obj.get("statusDuration"), 0);
-                    int statusPotency = parseInt(obj.get("statusPotency"), 0);
+    // Field names of a skill object, in the order readSkill switches on them
+    private static final String[] SKILL_FIELDS = {
+        "class", "name", "mpCost", "strengthMultiplier", "dexterityMultiplier",
+        "target", "chance", "statusType", "statusDuration", "statusPotency", "slot", "cooldown"
+    };
 
-                    StatusEffect.Type statusType = null;
-                    if (statusTypeS != null && !statusTypeS.isEmpty()) {
-                        try { statusType = StatusEffect.Type.valueOf(statusTypeS); } catch (IllegalArgumentException ex) { statusType = null; }
-                    }
+    /**
+     * Skill bars from a skills file keyed by hero class, or the built-in ones if the
+     * file does not exist. Throws if the file cannot be parsed.
+     */
+    public static Map<String, Skill[]> loadSkills(File f) throws IOException {
+        Map<String, Skill[]> bars = new HashMap<String, Skill[]>();
+        if (!f.exists()) {
+            putDefaults(bars);
+            return bars;
+        }
+        JsonReader in = new JsonReader(Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8));
+        try {
+            readSkillBars(in, bars);
+            in.peek(); // trailing garbage is an error too
+        } finally {
+            in.close();
+        }
+        return bars;
+    }
 
-                    DeclarativeSkill.Target target = DeclarativeSkill.Target.SINGLE;
-                    if ("AOE".equalsIgnoreCase(targetS)) target = DeclarativeSkill.Target.AOE;
+    /**
+     * The skill bars used when there is no usable skills file: one skill per class.
+     */
+    public static Map<String, Skill[]> defaults() {
+        Map<String, Skill[]> bars = new HashMap<String, Skill[]>();
+        putDefaults(bars);
+        return bars;
+    }
 
-                    DeclarativeSkill s = new DeclarativeSkill(name, mpCost, strMul, dexMul, target, chance, statusType, statusDuration, statusPotency);
-                    if (className != null && !className.isEmpty()) registry.put(className, s);
-                }
-            } catch (IOException e) {
-                // fallback to hardcoded if parsing fails
-                registry.put("Warrior", new DeclarativeSkill("Power Strike", 20, 1.2, 0.0, DeclarativeSkill.Target.SINGLE, 1.0,
-                        StatusEffect.Type.ARMOR_PENETRATE, 2, 2));
-                registry.put("Sorcerer", new DeclarativeSkill("Arcane Blast", 30, 0.5, 1.5, DeclarativeSkill.Target.SINGLE, 1.0,
-                        StatusEffect.Type.BURN, 3, 3));
-                registry.put("Paladin", new DeclarativeSkill("Holy Smite", 25, 1.0, 0.5, DeclarativeSkill.Target.SINGLE, 1.0,
-                        StatusEffect.Type.SLOW, 1, 1));
-            }
-        } else {
-            // no data file; use the hardcoded defaults
-            registry.put("Warrior", new DeclarativeSkill("Power Strike", 20, 1.2, 0.0, DeclarativeSkill.Target.SINGLE, 1.0,
-                    StatusEffect.Type.ARMOR_PENETRATE, 2, 2));
-            registry.put("Sorcerer", new DeclarativeSkill("Arcane Blast", 30, 0.5, 1.5, DeclarativeSkill.Target.SINGLE, 1.0,
-                    StatusEffect.Type.BURN, 3, 3));
-            registry.put("Paladin", new DeclarativeSkill("Holy Smite", 25, 1.0, 0.5, DeclarativeSkill.Target.SINGLE, 1.0,
-                    StatusEffect.Type.SLOW, 1, 1));
-        }
+    private static void putDefaults(Map<String, Skill[]> into) {
+        into.put("Warrior", bar(new DeclarativeSkill("Power Strike", 20, 1.2, 0.0, DeclarativeSkill.Target.SINGLE, 1.0,
+                StatusEffect.Type.ARMOR_PENETRATE, 2, 2)));
+        into.put("Sorcerer", bar(new DeclarativeSkill("Arcane Blast", 30, 0.5, 1.5, DeclarativeSkill.Target.SINGLE, 1.0,
+                StatusEffect.Type.BURN, 3, 3)));
+        into.put("Paladin", bar(new DeclarativeSkill("Holy Smite", 25, 1.0, 0.5, DeclarativeSkill.Target.SINGLE, 1.0,
+                StatusEffect.Type.SLOW, 1, 1)));
     }
 
-    private static String extractString(String obj, String key) {
-        try {
-            String needle = '"' + key + '"';
-            int i = obj.indexOf(needle);
-            if (i >= 0) {
-                int colon = obj.indexOf(':', i + needle.length());
-                if (colon >= 0) {
-                    int firstQuote = obj.indexOf('"', colon + 1);
-                    if (firstQuote >= 0) {
-                        int secondQuote = obj.indexOf('"', firstQuote + 1);
-                        if (secondQuote > firstQuote) return obj.substring(firstQuote + 1, secondQuote);
-                    }
-                }
-            }
-        } catch (Exception e) {}
-        return null;
+    private static Skill[] bar(Skill... skills) {
+        return skills;
     }
 
-    private static int extractInt(String obj, String key, int def) {
-        try {
-            String needle = '"' + key + '"';
-            int i = obj.indexOf(needle);
-            if (i >= 0) {
-                int colon = obj.indexOf(':', i + needle.length());
-                if (colon >= 0) {
-                    int j = colon + 1;
-                    while (j < obj.length() && Character.isWhitespace(obj.charAt(j))) j++;
-                    StringBuilder sb = new StringBuilder();
-                    while (j < obj.length() && Character.isDigit(obj.charAt(j))) { sb.append(obj.charAt(j)); j++; }
-                    if (sb.length() > 0) return Integer.parseInt(sb.toString());
+    /**
+     * Read a skills file (a JSON array of skill objects, as in data/skills.json) into
+     * the map, keyed by hero class. Each object is bound field by field straight into
+     * a DeclarativeSkill; unknown fields are skipped and missing ones take the same
+     * defaults as before. Objects without a class are read but not added, and so are
+     * skills for slots other than 0 (see {@link #readSkillBars}).
+     *
+     * @return the number of skills added
+     */
+    public static int readSkills(JsonReader in, Map<String, Skill> into) throws IOException {
+        return read(in, into, null);
+    }
+
+    /**
+     * Read a skills file into skill bars keyed by hero class. A skill goes in the
+     * bar slot given by its "slot" field (default 0, the class skill); slots left
+     * out are empty (null) in the bar.
+     *
+     * @return the number of skills added
+     */
+    public static int readSkillBars(JsonReader in, Map<String, Skill[]> into) throws IOException {
+        return read(in, null, into);
+    }
+
+    // Bind every skill object; slot-0 skills go to single, any slot to bars (either may be null)
+    private static int read(JsonReader in, Map<String, Skill> single, Map<String, Skill[]> bars) throws IOException {
+        int added = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            String className = null;
+            String name = null;
+            int mpCost = 0;
+            double strMul = 0.0;
+            double dexMul = 0.0;
+            DeclarativeSkill.Target target = DeclarativeSkill.Target.SINGLE;
+            double chance = 1.0;
+            StatusEffect.Type statusType = null;
+            int statusDuration = 0;
+            int statusPotency = 0;
+            int slot = 0;
+            int cooldown = 0;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                int field = in.nextName(SKILL_FIELDS);
+                if (field >= 0 && in.peek() == JsonReader.Token.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case 0: className = in.nextString(); break;
+                    case 1: name = in.nextString(); break;
+                    case 2: mpCost = in.nextInt(); break;
+                    case 3: strMul = in.nextDouble(); break;
+                    case 4: dexMul = in.nextDouble(); break;
+                    case 5:
+                        if ("AOE".equalsIgnoreCase(in.nextString())) target = DeclarativeSkill.Target.AOE;
+                        break;
+                    case 6: chance = in.nextDouble(); break;
+                    case 7:
+                        String statusTypeS = in.nextString();
+                        try { statusType = StatusEffect.Type.valueOf(statusTypeS); } catch (IllegalArgumentException ex) { statusType = null; }
+                        break;
+                    case 8: statusDuration = in.nextInt(); break;
+                    case 9: statusPotency = in.nextInt(); break;
+                    case 10: slot = in.nextInt(); break;
+                    case 11: cooldown = in.nextInt(); break;
+                    default: in.skipValue();
                 }
             }
-        } catch (Exception e) {}
-        return def;
-    }
+            in.endObject();
 
-    private static double extractDouble(String obj, String key, double def) {
-        try {
-            String needle = '"' + key + '"';
-            int i = obj.indexOf(needle);
-            if (i >= 0) {
-                int colon = obj.indexOf(':', i + needle.length());
-                if (colon >= 0) {
-                    int j = colon + 1;
-                    while (j < obj.length() && Character.isWhitespace(obj.charAt(j))) j++;
-                    StringBuilder sb = new StringBuilder();
-                    boolean seenDot = false;
-                    while (j < obj.length()) {
-                        char c = obj.charAt(j);
-                        if (Character.isDigit(c)) { sb.append(c); }
-                        else if (c == '.' && !seenDot) { sb.append(c); seenDot = true; }
-                        else break;
-                        j++;
-                    }
-                    if (sb.length() > 0) return Double.parseDouble(sb.toString());
+            if (className == null || className.isEmpty() || slot < 0 || slot > MAX_SLOT) continue;
+            if (single != null && slot != 0) continue;
+            Skill skill = new DeclarativeSkill(name, mpCost, strMul, dexMul, target, chance,
+                    statusType, statusDuration, statusPotency, cooldown);
+            if (single != null) {
+                single.put(className, skill);
+            } else {
+                Skill[] bar = bars.get(className);
+                if (bar == null || bar.length <= slot) {
+                    bar = bar == null ? new Skill[slot + 1] : java.util.Arrays.copyOf(bar, slot + 1);
+                    bars.put(className, bar);
                 }
+                bar[slot] = skill;
             }
-        } catch (Exception e) {}
-        return def;
+            added++;
+        }
+        in.endArray();
+        return added;
     }
 
     public static Skill getSkillForHeroClass(String className) {
-        return registry.get(className);
-    }
-
-    private static int parseInt(String v, int def) {
-        if (v == null) return def;
-        try { return Integer.parseInt(v.trim()); } catch (Exception e) { return def; }
-    }
-
-    private static double parseDouble(String v, double def) {
-        if (v == null) return def;
-        try { return Double.parseDouble(v.trim()); } catch (Exception e) { return def; }
+        return ContentPacks.current().getSkill(className);
     }
 }
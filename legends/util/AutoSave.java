@@ -0,0 +1,414 @@
+package legends.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import legends.party.Party;
+import legends.world.WorldMap;
+
+/**
+ * Background autosave, used when {@link legends.Config#AUTOSAVE_ENABLED} is set.
+ *
+ * A full snapshot encodes the party on the game thread (a few microseconds) and
+ * hands the bytes to a writer thread, which rewrites the map file if the map
+ * changed and then replaces the save file atomically (temp file, fsync, rename),
+ * ending it with the stamp of that map file (see {@link SaveCodec#mapStamp}).
+ * A writer that hits an error keeps it for {@link #flush} to throw, and a writer
+ * that dies releases anyone waiting on it.
+ * Between snapshots each move is one small entry appended to a journal next to the
+ * save, so autosaving every step costs a queue hand-off instead of a rewrite. Every
+ * {@code journalLimit} moves, or whenever something other than the position may
+ * have changed, the caller takes a new snapshot and the journal starts over.
+ *
+ * Journal layout:
+ * <pre>
+ * header: magic "LGJN", version, CRC32 and length of the save file it extends
+ * entry:  payload length (1 byte), payload, CRC32 of the payload (4 bytes)
+ *         payload = type, then zig-zag varints (type 1: party row, party col)
+ * </pre>
+ * The header ties the journal to one exact save file, so a journal left over from
+ * an older save is ignored. Replay stops at the first torn or damaged entry, which
+ * is all a crash mid-append can leave behind.
+ */
+public final class AutoSave implements Closeable {
+    public static final int JOURNAL_MAGIC = 0x4C474A4E; // "LGJN"
+    public static final int JOURNAL_VERSION = 1;
+    public static final int DEFAULT_JOURNAL_LIMIT = 256;
+
+    private static final int HEADER_SIZE = 16;
+    private static final byte ENTRY_POSITION = 1;
+    private static final int MAX_ENTRY = 32;
+
+    private final Path savePath;
+    private final int journalLimit;
+    private final LinkedBlockingQueue<Task> queue = new LinkedBlockingQueue<Task>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    // First error hit by the writer thread, reported by flush()
+    private volatile IOException failure;
+
+    // Game thread side
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(1024);
+    private boolean hasSnapshot;
+    private int journaled;
+    private WorldMap lastMap;
+    private long lastMapVersion;
+
+    // Writer thread side
+    private FileChannel journal;
+    private final ByteBuffer entry = ByteBuffer.allocate(MAX_ENTRY);
+    private final CRC32 crc = new CRC32();
+    // Stamp of the map file on disk, known once this writer wrote or read it
+    private byte[] mapStamp;
+
+    public AutoSave(Path savePath) {
+        this(savePath, DEFAULT_JOURNAL_LIMIT);
+    }
+
+    public AutoSave(Path savePath, int journalLimit) {
+        if (journalLimit < 1) {
+            throw new IllegalArgumentException("journalLimit must be positive: " + journalLimit);
+        }
+        this.savePath = savePath;
+        this.journalLimit = journalLimit;
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "legends-autosave");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Snapshot of a first-floor game.
+     */
+    public void snapshot(Party party, WorldMap map) {
+        snapshot(party, map, 1);
+    }
+
+    /**
+     * Save everything, including the floor the map belongs to. The party is encoded
+     * now, so later changes on the game thread do not leak into this snapshot; the
+     * map is copied only if it changed since the last snapshot.
+     */
+    public void snapshot(Party party, WorldMap map, int floor) {
+        encoded.reset();
+        try {
+            SaveCodec.write(party, floor, Channels.newChannel(encoded));
+        } catch (IOException e) {
+            throw new IllegalStateException("encoding to memory failed", e);
+        }
+        Task task = new Task(Task.SNAPSHOT);
+        task.party = encoded.toByteArray();
+        if (map == null || map.isChunked()) {
+            task.dropMap = true;
+        } else if (map != lastMap || map.getVersion() != lastMapVersion || failure != null) {
+            // after a failure the map on disk may be stale, so send it again
+            task.map = map.copy();
+        }
+        lastMap = map;
+        lastMapVersion = map != null ? map.getVersion() : 0;
+        hasSnapshot = true;
+        journaled = 0;
+        queue.add(task);
+    }
+
+    /**
+     * Move in a first-floor game.
+     */
+    public void moved(Party party, WorldMap map) {
+        moved(party, map, 1);
+    }
+
+    /**
+     * Record that the party moved and nothing else changed. Appends to the journal,
+     * or takes a full snapshot (with the floor) when there is none yet or the
+     * journal is full.
+     */
+    public void moved(Party party, WorldMap map, int floor) {
+        if (!hasSnapshot || journaled >= journalLimit) {
+            snapshot(party, map, floor);
+            return;
+        }
+        Task task = new Task(Task.POSITION);
+        task.row = party.getRow();
+        task.col = party.getCol();
+        journaled++;
+        queue.add(task);
+    }
+
+    /**
+     * Wait until everything recorded so far is on disk. Throws the first error the
+     * writer ran into, if any.
+     */
+    public void flush() throws IOException {
+        Task task = new Task(Task.FLUSH);
+        task.done = new CountDownLatch(1);
+        queue.add(task);
+        try {
+            while (!task.done.await(100, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive()) {
+                    throw new IOException("Autosave writer has stopped", failure);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for autosave");
+        }
+        IOException e = failure;
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+     * Flush and stop the writer thread.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            running = false;
+            queue.add(new Task(Task.FLUSH));
+        }
+    }
+
+    /**
+     * Apply the journal next to a save to a party just loaded from that save. A
+     * missing journal, or one written for a different save, changes nothing.
+     */
+    static void replayJournal(Path savePath, Party party) throws IOException {
+        Path journalPath = SaveLoad.journalPathFor(savePath);
+        if (!Files.exists(journalPath)) return;
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(journalPath));
+        if (in.remaining() < HEADER_SIZE || in.getInt() != JOURNAL_MAGIC || in.getInt() != JOURNAL_VERSION) {
+            return;
+        }
+        int savedCrc = in.getInt();
+        int savedLength = in.getInt();
+        byte[] save = Files.readAllBytes(savePath);
+        CRC32 check = new CRC32();
+        check.update(save, 0, save.length);
+        if (save.length != savedLength || (int) check.getValue() != savedCrc) {
+            return;
+        }
+        while (in.remaining() > 0) {
+            int len = in.get() & 0xFF;
+            if (len == 0 || in.remaining() < len + 4) break;
+            int start = in.position();
+            check.reset();
+            check.update(in.array(), start, len);
+            if (in.getInt(start + len) != (int) check.getValue()) break;
+            ByteBuffer payload = ByteBuffer.wrap(in.array(), start, len);
+            if (payload.get() == ENTRY_POSITION) {
+                int row = readInt(payload);
+                int col = readInt(payload);
+                party.setPosition(row, col);
+            }
+            in.position(start + len + 4);
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (running) {
+                Task task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                boolean appended = false;
+                // drain what has piled up, then make the appended entries durable at once
+                while (task != null) {
+                    if (task.kind == Task.FLUSH) {
+                        sync(appended);
+                        appended = false;
+                        if (task.done != null) task.done.countDown();
+                    } else {
+                        appended |= process(task);
+                    }
+                    task = queue.poll();
+                }
+                sync(appended);
+            }
+        } catch (RuntimeException | Error e) {
+            fail(new IOException("Autosave writer stopped", e));
+            throw e;
+        } finally {
+            closeJournal();
+            // nothing will write these any more; wake whoever waits so they see why
+            for (Task task = queue.poll(); task != null; task = queue.poll()) {
+                if (task.done != null) task.done.countDown();
+            }
+        }
+    }
+
+    // Returns true if the task appended to the journal without syncing it
+    private boolean process(Task task) {
+        try {
+            if (task.kind == Task.SNAPSHOT) {
+                writeSnapshot(task);
+                return false;
+            }
+            if (journal == null) {
+                return false; // the snapshot this entry extends failed to save
+            }
+            appendPosition(task.row, task.col);
+            return true;
+        } catch (IOException e) {
+            fail(e);
+            return false;
+        } catch (RuntimeException e) {
+            fail(new IOException("Autosave failed", e));
+            return false;
+        }
+    }
+
+    private void writeSnapshot(Task task) throws IOException {
+        closeJournal();
+        if (savePath.getParent() != null) Files.createDirectories(savePath.getParent());
+        // the map first, so the save written next can name the map file it goes with
+        Path mapPath = SaveLoad.mapPathFor(savePath);
+        if (task.map != null) {
+            task.map.save(mapPath);
+            mapStamp = SaveLoad.stampMap(mapPath);
+        } else if (task.dropMap) {
+            mapStamp = SaveCodec.mapStamp(-1, 0);
+        } else if (mapStamp == null) {
+            mapStamp = SaveLoad.stampMap(mapPath);
+        }
+        Path tmp = SaveLoad.tempFor(savePath);
+        FileChannel out = SaveLoad.openTemp(tmp);
+        try {
+            writeFully(out, ByteBuffer.wrap(task.party));
+            writeFully(out, ByteBuffer.wrap(mapStamp));
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        SaveLoad.commitTemp(out, tmp, savePath);
+        if (task.dropMap) {
+            Files.deleteIfExists(mapPath);
+        }
+
+        // a fresh journal bound to the save just written
+        crc.reset();
+        crc.update(task.party, 0, task.party.length);
+        crc.update(mapStamp, 0, mapStamp.length);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(JOURNAL_MAGIC).putInt(JOURNAL_VERSION).putInt((int) crc.getValue())
+              .putInt(task.party.length + mapStamp.length);
+        header.flip();
+        Path journalPath = SaveLoad.journalPathFor(savePath);
+        Path journalTmp = SaveLoad.tempFor(journalPath);
+        FileChannel j = SaveLoad.openTemp(journalTmp);
+        try {
+            writeFully(j, header);
+        } catch (IOException e) {
+            j.close();
+            throw e;
+        }
+        SaveLoad.commitTemp(j, journalTmp, journalPath);
+        journal = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void appendPosition(int row, int col) throws IOException {
+        entry.clear();
+        entry.put((byte) 0); // length, filled in below
+        entry.put(ENTRY_POSITION);
+        writeInt(entry, row);
+        writeInt(entry, col);
+        int len = entry.position() - 1;
+        entry.put(0, (byte) len);
+        crc.reset();
+        crc.update(entry.array(), 1, len);
+        entry.putInt((int) crc.getValue());
+        entry.flip();
+        writeFully(journal, entry);
+    }
+
+    private void sync(boolean appended) {
+        if (!appended || journal == null) return;
+        try {
+            journal.force(false);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            fail(e);
+        }
+        journal = null;
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+        mapStamp = null; // the map file may be half replaced; read it again
+        closeJournal();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    private static void writeInt(ByteBuffer buf, int v) {
+        int z = (v << 1) ^ (v >> 31);
+        while ((z & ~0x7F) != 0) {
+            buf.put((byte) ((z & 0x7F) | 0x80));
+            z >>>= 7;
+        }
+        buf.put((byte) z);
+    }
+
+    private static int readInt(ByteBuffer buf) {
+        int z = 0;
+        for (int shift = 0; shift < 35 && buf.hasRemaining(); shift += 7) {
+            byte b = buf.get();
+            z |= (b & 0x7F) << shift;
+            if (b >= 0) break;
+        }
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    private static final class Task {
+        static final int SNAPSHOT = 0;
+        static final int POSITION = 1;
+        static final int FLUSH = 2;
+
+        final int kind;
+        byte[] party;
+        WorldMap map;
+        boolean dropMap;
+        int row;
+        int col;
+        CountDownLatch done;
+
+        Task(int kind) {
+            this.kind = kind;
+        }
+    }
+}
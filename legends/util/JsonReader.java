@@ -0,0 +1,529 @@
+package legends.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull-style JSON reader over a {@link Reader} or a UTF-8 {@link ByteBuffer}
+ * (for example a mapped file). The caller walks the document token by token, with
+ * {@link #beginObject()}, {@link #nextName(String[])}, {@link #nextInt()} and so on,
+ * and binds values straight into its own objects; nothing is built for the parts
+ * it skips. Input is decoded through one fixed char buffer, so a file of any size
+ * is read in constant memory, and numbers and field names are matched from a
+ * reused scratch buffer without creating strings.
+ *
+ * Full JSON is supported: nested objects and arrays, all string escapes including
+ * {@code \\uXXXX}, and numbers with fractions and exponents. Malformed input fails
+ * with an IOException naming the line and column.
+ */
+public final class JsonReader implements Closeable {
+    public enum Token {
+        BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // What the reader expects next in each open scope
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private final Reader in;
+    private ByteBuffer bytes;
+    private final CharsetDecoder decoder;
+    private boolean flushed;
+
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+    private int line = 1;
+    // may go negative once the line's start has been refilled away
+    private int lineStart;
+
+    private int[] stack = new int[32];
+    private int depth;
+    private Token peeked;
+
+    private char[] scratch = new char[64];
+    private int scratchLen;
+
+    public JsonReader(Reader in) {
+        if (in == null) throw new NullPointerException("in");
+        this.in = in;
+        this.decoder = null;
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Read UTF-8 JSON from the buffer's remaining bytes, decoding as it goes. The
+     * buffer's position advances; its contents are not copied.
+     */
+    public JsonReader(ByteBuffer utf8) {
+        this.in = null;
+        this.bytes = utf8;
+        this.decoder = StandardCharsets.UTF_8.newDecoder();
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * The next token, without consuming it.
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) return peeked;
+        int scope = stack[depth - 1];
+        int c;
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') return peeked = Token.END_ARRAY;
+                pos--;
+                return peeked = peekValue();
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') return peeked = Token.END_ARRAY;
+                if (c != ',') throw syntaxError("expected ',' or ']'");
+                return peeked = peekValue();
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                stack[depth - 1] = DANGLING_NAME;
+                c = nextNonWhitespace();
+                if (c == '}') return peeked = Token.END_OBJECT;
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') throw syntaxError("expected ',' or '}'");
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') throw syntaxError("expected a quoted name");
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') throw syntaxError("expected ':'");
+                return peeked = peekValue();
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                return peeked = peekValue();
+            default:
+                if (nextNonWhitespace() != -1) throw syntaxError("expected end of document");
+                return peeked = Token.END_DOCUMENT;
+        }
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    /**
+     * True if the current array or object has another element.
+     */
+    public boolean hasNext() throws IOException {
+        Token t = peek();
+        return t != Token.END_ARRAY && t != Token.END_OBJECT && t != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        readString(true);
+        return new String(scratch, 0, scratchLen);
+    }
+
+    /**
+     * Consume a name and return its index in {@code names}, or -1 if it is none of
+     * them. No string is created for the name.
+     */
+    public int nextName(String[] names) throws IOException {
+        expect(Token.NAME);
+        readString(true);
+        for (int i = 0; i < names.length; i++) {
+            if (scratchEquals(names[i])) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * A string value; numbers are returned as written.
+     */
+    public String nextString() throws IOException {
+        Token t = peek();
+        if (t == Token.STRING) {
+            peeked = null;
+            readString(true);
+        } else if (t == Token.NUMBER) {
+            peeked = null;
+            readNumber();
+        } else {
+            throw syntaxError("expected a string but was " + t);
+        }
+        return new String(scratch, 0, scratchLen);
+    }
+
+    public int nextInt() throws IOException {
+        long v = nextLong();
+        if (v != (int) v) throw syntaxError("number out of int range: " + v);
+        return (int) v;
+    }
+
+    /**
+     * A whole number; quoted numbers are accepted too.
+     */
+    public long nextLong() throws IOException {
+        readNumberOrQuoted();
+        long v = parseScratchLong();
+        if (v != Long.MIN_VALUE) return v;
+        double d = parseScratchDouble();
+        if (d != (long) d) throw syntaxError("expected a whole number but was " + new String(scratch, 0, scratchLen));
+        return (long) d;
+    }
+
+    /**
+     * A number; quoted numbers are accepted too.
+     */
+    public double nextDouble() throws IOException {
+        readNumberOrQuoted();
+        return parseScratchDouble();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        readWord();
+        if (scratchEquals("true")) return true;
+        if (scratchEquals("false")) return false;
+        throw syntaxError("expected true or false");
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        readWord();
+        if (!scratchEquals("null")) throw syntaxError("expected null");
+    }
+
+    /**
+     * Skip the next value, including everything nested inside it.
+     */
+    public void skipValue() throws IOException {
+        int open = 0;
+        do {
+            Token t = peek();
+            peeked = null;
+            switch (t) {
+                case BEGIN_ARRAY:
+                    push(EMPTY_ARRAY);
+                    open++;
+                    break;
+                case BEGIN_OBJECT:
+                    push(EMPTY_OBJECT);
+                    open++;
+                    break;
+                case END_ARRAY:
+                case END_OBJECT:
+                    depth--;
+                    open--;
+                    break;
+                case NAME:
+                case STRING:
+                    readString(false);
+                    break;
+                case NUMBER:
+                    readNumber();
+                    break;
+                case BOOLEAN:
+                case NULL:
+                    readWord();
+                    break;
+                default:
+                    throw syntaxError("expected a value but was " + t);
+            }
+        } while (open > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = null;
+        depth = 0;
+        if (in != null) in.close();
+    }
+
+    private Token peekValue() throws IOException {
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return Token.BOOLEAN;
+            case 'n':
+                pos--;
+                return Token.NULL;
+            case -1:
+                throw syntaxError("unexpected end of document");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return Token.NUMBER;
+                }
+                throw syntaxError("unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void expect(Token t) throws IOException {
+        Token actual = peek();
+        if (actual != t) throw syntaxError("expected " + t + " but was " + actual);
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            stack = java.util.Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = scope;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return -1;
+            char c = buf[pos++];
+            if (c == '\n') {
+                line++;
+                lineStart = pos;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+        }
+    }
+
+    private int nextChar() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos++];
+    }
+
+    // Refill buf from the start; callers have copied out anything they still need
+    private boolean fill() throws IOException {
+        lineStart -= limit;
+        pos = 0;
+        limit = 0;
+        if (in != null) {
+            int n;
+            do {
+                n = in.read(buf, 0, buf.length);
+            } while (n == 0);
+            if (n < 0) return false;
+            limit = n;
+            return true;
+        }
+        if (flushed) return false;
+        CharBuffer out = CharBuffer.wrap(buf);
+        CoderResult result = decoder.decode(bytes, out, true);
+        if (result.isError()) result.throwException();
+        if (!bytes.hasRemaining() && result.isUnderflow()) {
+            decoder.flush(out);
+            flushed = true;
+        }
+        limit = out.position();
+        return limit > 0;
+    }
+
+    // String body after the opening quote, into scratch if keep
+    private void readString(boolean keep) throws IOException {
+        scratchLen = 0;
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buf[pos++];
+                if (c == '"') {
+                    if (keep) append(buf, start, pos - 1 - start);
+                    return;
+                }
+                if (c == '\\') {
+                    if (keep) append(buf, start, pos - 1 - start);
+                    char e = readEscape();
+                    if (keep) append(e);
+                    start = pos;
+                } else if (c < 0x20) {
+                    throw syntaxError("unescaped control character in string");
+                }
+            }
+            if (keep) append(buf, start, pos - start);
+            if (!fill()) throw syntaxError("unterminated string");
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = nextChar();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int v = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = nextChar();
+                    int d = Character.digit(h < 0 ? 0 : h, 16);
+                    if (h < 0 || d < 0) throw syntaxError("bad \\u escape");
+                    v = (v << 4) | d;
+                }
+                return (char) v;
+            default:
+                throw syntaxError("bad escape");
+        }
+    }
+
+    private void readNumber() throws IOException {
+        scratchLen = 0;
+        while (true) {
+            while (pos < limit) {
+                char c = buf[pos];
+                if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                    append(c);
+                    pos++;
+                } else {
+                    return;
+                }
+            }
+            if (!fill()) return;
+        }
+    }
+
+    private void readWord() throws IOException {
+        scratchLen = 0;
+        while (true) {
+            while (pos < limit) {
+                char c = buf[pos];
+                if (c < 'a' || c > 'z') return;
+                append(c);
+                pos++;
+            }
+            if (!fill()) return;
+        }
+    }
+
+    private void readNumberOrQuoted() throws IOException {
+        Token t = peek();
+        peeked = null;
+        if (t == Token.NUMBER) {
+            readNumber();
+        } else if (t == Token.STRING) {
+            readString(true);
+        } else {
+            peeked = t;
+            throw syntaxError("expected a number but was " + t);
+        }
+        if (scratchLen == 0) throw syntaxError("expected a number");
+    }
+
+    // Plain integers of up to 18 digits, or Long.MIN_VALUE if scratch is anything else
+    private long parseScratchLong() {
+        int i = 0;
+        boolean negative = scratch[0] == '-';
+        if (negative) i++;
+        if (i == scratchLen || scratchLen - i > 18) return Long.MIN_VALUE;
+        long v = 0;
+        for (; i < scratchLen; i++) {
+            char c = scratch[i];
+            if (c < '0' || c > '9') return Long.MIN_VALUE;
+            v = v * 10 + (c - '0');
+        }
+        return negative ? -v : v;
+    }
+
+    private double parseScratchDouble() throws IOException {
+        // Fast path for decimals like 1.25: at most 15 digits and no exponent are exact
+        // as a long over a power of ten, and the one division rounds correctly
+        int i = 0;
+        boolean negative = scratch[0] == '-';
+        if (negative) i++;
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < scratchLen; i++) {
+            char c = scratch[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction >= 0) fraction++;
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == scratchLen && digits > 0 && digits <= 15 && fraction != 0) {
+            double v = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+            return negative ? -v : v;
+        }
+        try {
+            return Double.parseDouble(new String(scratch, 0, scratchLen));
+        } catch (NumberFormatException e) {
+            throw syntaxError("malformed number " + new String(scratch, 0, scratchLen));
+        }
+    }
+
+    private boolean scratchEquals(String s) {
+        if (s.length() != scratchLen) return false;
+        for (int i = 0; i < scratchLen; i++) {
+            if (scratch[i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void append(char c) {
+        if (scratchLen == scratch.length) {
+            scratch = java.util.Arrays.copyOf(scratch, scratchLen * 2);
+        }
+        scratch[scratchLen++] = c;
+    }
+
+    private void append(char[] src, int from, int len) {
+        if (scratchLen + len > scratch.length) {
+            scratch = java.util.Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLen + len));
+        }
+        System.arraycopy(src, from, scratch, scratchLen, len);
+        scratchLen += len;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at line " + line + " column " + (pos - lineStart));
+    }
+}
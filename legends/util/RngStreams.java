@@ -0,0 +1,100 @@
+package legends.util;
+
+import java.util.SplittableRandom;
+
+import legends.GameContext;
+
+/**
+ * The random streams of one game session, all split from a single seed:
+ * <ul>
+ *   <li>world: map generation, tile encounters and adventure events</li>
+ *   <li>spawns: which monsters an encounter brings</li>
+ *   <li>combat: battle rolls and flee attempts</li>
+ *   <li>loot: potion drops and equipment rewards</li>
+ *   <li>visuals: attack animation frames</li>
+ * </ul>
+ * Drawing more from one stream never shifts another, so a seeded session
+ * (-Dlegends.seed) replays the same map, encounters and fights however many
+ * animation frames were picked along the way. Like {@link SplitRandom}, the
+ * streams belong to the thread running the session.
+ */
+public final class RngStreams {
+    private static final ThreadLocal<RngStreams> CURRENT = new ThreadLocal<RngStreams>();
+    // Seeds sessions nobody created explicitly; guarded by itself
+    private static final SplittableRandom SEEDS = new SplittableRandom(legends.Config.RNG_SEED);
+
+    private final long seed;
+    private final SplitRandom world;
+    private final SplitRandom spawns;
+    private final SplitRandom combat;
+    private final SplitRandom loot;
+    private final SplitRandom visuals;
+
+    public RngStreams(long seed) {
+        this.seed = seed;
+        SplitRandom root = new SplitRandom(seed);
+        this.world = root.split();
+        this.spawns = root.split();
+        this.combat = root.split();
+        this.loot = root.split();
+        this.visuals = root.split();
+    }
+
+    /**
+     * Streams for the calling thread: those of its bound {@link GameContext}, else
+     * the ones bound with {@link #bind}, else a new session seeded from
+     * {@link legends.Config#RNG_SEED}.
+     */
+    public static RngStreams current() {
+        GameContext ctx = GameContext.current();
+        if (ctx != null) {
+            return ctx.getRng();
+        }
+        RngStreams streams = CURRENT.get();
+        if (streams == null) {
+            streams = new RngStreams(nextSeed());
+            CURRENT.set(streams);
+        }
+        return streams;
+    }
+
+    /**
+     * Make these the calling thread's streams when no {@link GameContext} is bound.
+     */
+    public static void bind(RngStreams streams) {
+        CURRENT.set(streams);
+    }
+
+    /**
+     * A fresh session seed; deterministic in call order for a fixed legends.seed.
+     */
+    public static long nextSeed() {
+        synchronized (SEEDS) {
+            return SEEDS.nextLong();
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public SplitRandom world() {
+        return world;
+    }
+
+    public SplitRandom spawns() {
+        return spawns;
+    }
+
+    public SplitRandom combat() {
+        return combat;
+    }
+
+    public SplitRandom loot() {
+        return loot;
+    }
+
+    public SplitRandom visuals() {
+        return visuals;
+    }
+}
@@ -0,0 +1,532 @@
+package legends.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import legends.items.Armor;
+import legends.items.Consumable;
+import legends.items.ConsumableStack;
+import legends.items.Weapon;
+import legends.model.Hero;
+import legends.party.Party;
+
+/**
+ * Binary save format, written and read as a stream through a fixed buffer so the
+ * cost grows with the save's size and nothing else: no whole-file string, no
+ * searching for sub-arrays, no reflection.
+ *
+ * Layout:
+ * <pre>
+ * magic "LGSV" (4 bytes), version
+ * party row, party col
+ * floor the map belongs to (version 2 and later; older saves are floor 1)
+ * hero count, then one record per hero
+ * backpack weapon count, then one record per weapon
+ * backpack armor count, then one record per armor
+ * unlocked catalog entry count, then one string per entry
+ * map stamp (version 2 and later, see {@link #mapStamp})
+ * </pre>
+ * Integers are varints (zig-zag, so negatives stay short), strings are a byte
+ * length and UTF-8. A record is its byte length followed by its fields; readers
+ * skip whatever a record holds past the fields they know, so later versions can
+ * append fields to heroes or items without breaking older saves.
+ */
+public final class SaveCodec {
+    public static final int MAGIC = 0x4C475356; // "LGSV"
+    public static final int VERSION = 2;
+
+    public static final int MAP_STAMP_SIZE = 12;
+
+    private static final int BUFFER_SIZE = 1 << 14;
+
+    private SaveCodec() {}
+
+    public static void write(Party party, int floor, WritableByteChannel channel) throws IOException {
+        Output out = new Output(channel);
+        out.writeFixedInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(party.getRow());
+        out.writeInt(party.getCol());
+        out.writeInt(floor);
+
+        List<Hero> heroes = party.getHeroes();
+        out.writeInt(heroes.size());
+        for (int i = 0; i < heroes.size(); i++) {
+            int start = out.beginRecord();
+            writeHero(out, heroes.get(i));
+            out.endRecord(start);
+        }
+        List<Weapon> weapons = party.getBackpackWeapons();
+        out.writeInt(weapons.size());
+        for (int i = 0; i < weapons.size(); i++) {
+            int start = out.beginRecord();
+            writeWeapon(out, weapons.get(i));
+            out.endRecord(start);
+        }
+        List<Armor> armors = party.getBackpackArmors();
+        out.writeInt(armors.size());
+        for (int i = 0; i < armors.size(); i++) {
+            int start = out.beginRecord();
+            writeArmor(out, armors.get(i));
+            out.endRecord(start);
+        }
+        List<String> unlocked = legends.CatalogState.getUnlockedList();
+        out.writeInt(unlocked.size());
+        for (int i = 0; i < unlocked.size(); i++) {
+            out.writeString(unlocked.get(i));
+            out.flushIfFull();
+        }
+        out.flush();
+    }
+
+    /**
+     * Read a save written by {@link #write}. Restores the unlocked catalog entries
+     * as a side effect, like the JSON loader did.
+     */
+    public static Party read(ReadableByteChannel channel) throws IOException {
+        Input in = new Input(channel);
+        int version = readHeader(in);
+        int row = in.readInt();
+        int col = in.readInt();
+        if (version >= 2) {
+            in.readInt(); // floor, see readFloor
+        }
+
+        int heroCount = in.readCount();
+        List<Hero> heroes = new ArrayList<Hero>(heroCount);
+        for (int i = 0; i < heroCount; i++) {
+            long end = in.beginRecord();
+            heroes.add(readHero(in));
+            in.endRecord(end);
+        }
+        int weaponCount = in.readCount();
+        List<Weapon> weapons = new ArrayList<Weapon>(weaponCount);
+        for (int i = 0; i < weaponCount; i++) {
+            long end = in.beginRecord();
+            weapons.add(readWeapon(in));
+            in.endRecord(end);
+        }
+        int armorCount = in.readCount();
+        List<Armor> armors = new ArrayList<Armor>(armorCount);
+        for (int i = 0; i < armorCount; i++) {
+            long end = in.beginRecord();
+            armors.add(readArmor(in));
+            in.endRecord(end);
+        }
+        int unlockedCount = in.readCount();
+        List<String> unlocked = new ArrayList<String>(unlockedCount);
+        for (int i = 0; i < unlockedCount; i++) {
+            unlocked.add(in.readString());
+        }
+
+        Party party = new Party(heroes);
+        party.loadInventory(weapons, armors);
+        party.setPosition(row, col);
+        legends.CatalogState.setUnlockedList(unlocked);
+        return party;
+    }
+
+    /**
+     * The floor a save written by {@link #write} was made on, 1 for saves from
+     * before floors were recorded. Reads only the header.
+     */
+    public static int readFloor(ReadableByteChannel channel) throws IOException {
+        Input in = new Input(channel);
+        int version = readHeader(in);
+        in.readInt();
+        in.readInt();
+        return version >= 2 ? Math.max(1, in.readInt()) : 1;
+    }
+
+    /**
+     * Format version of a save written by {@link #write}. Reads only the header.
+     */
+    public static int readVersion(ReadableByteChannel channel) throws IOException {
+        return readHeader(new Input(channel));
+    }
+
+    /**
+     * The map stamp that ends a version 2 save, after everything {@link #write} puts
+     * in: length (8 bytes, -1 if the save has no map file) and CRC32 (4 bytes) of the
+     * map file saved with it. The writer appends it once that map file is on disk,
+     * so a load can tell the save's own map from one a crash left behind.
+     */
+    public static byte[] mapStamp(long mapLength, int mapCrc) {
+        return ByteBuffer.allocate(MAP_STAMP_SIZE).putLong(mapLength).putInt(mapCrc).array();
+    }
+
+    // Checks the magic and returns the format version
+    private static int readHeader(Input in) throws IOException {
+        if (in.readFixedInt() != MAGIC) {
+            throw new IOException("Not a save file");
+        }
+        int version = in.readInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported save version " + version);
+        }
+        return version;
+    }
+
+    /**
+     * True if the channel starts with the binary save magic. Reads four bytes.
+     */
+    public static boolean isBinarySave(ReadableByteChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(4);
+        while (head.hasRemaining()) {
+            if (channel.read(head) < 0) return false;
+        }
+        head.flip();
+        return head.getInt() == MAGIC;
+    }
+
+    /**
+     * New hero of the saved class (by simple class name), Warrior if unknown.
+     */
+    static Hero createHero(String cls, String name) {
+        if ("Sorcerer".equalsIgnoreCase(cls)) return Hero.createSorcerer(name);
+        if ("Paladin".equalsIgnoreCase(cls)) return Hero.createPaladin(name);
+        return Hero.createWarrior(name);
+    }
+
+    private static void writeHero(Output out, Hero h) throws IOException {
+        out.writeString(h.getClass().getSimpleName());
+        out.writeString(h.getName());
+        out.writeInt(h.getLevel());
+        out.writeInt(h.getExp());
+        out.writeInt(h.getHp());
+        out.writeInt(h.getMp());
+        out.writeInt(h.getMaxMp());
+        out.writeInt(h.getStrength());
+        out.writeInt(h.getDexterity());
+        out.writeInt(h.getAgility());
+        out.writeInt(h.getGold());
+        out.writeInt(h.getHealthPotions());
+        out.writeInt(h.getManaPotions());
+        Weapon weapon = h.getEquippedWeapon();
+        out.writeInt(weapon != null ? 1 : 0);
+        if (weapon != null) {
+            writeWeapon(out, weapon);
+        }
+        Armor armor = h.getEquippedArmor();
+        out.writeInt(armor != null ? 1 : 0);
+        if (armor != null) {
+            writeArmor(out, armor);
+        }
+        List<ConsumableStack> stacks = h.getConsumables();
+        out.writeInt(stacks.size());
+        for (int i = 0; i < stacks.size(); i++) {
+            ConsumableStack st = stacks.get(i);
+            Consumable c = st.getConsumable();
+            out.writeString(c.getName());
+            out.writeString(c.getType().name());
+            out.writeInt(c.getLevel());
+            out.writeInt(c.getPrice());
+            out.writeInt(c.getPotency());
+            out.writeInt(c.isUsableInBattle() ? 1 : 0);
+            out.writeInt(st.getCount());
+        }
+    }
+
+    private static Hero readHero(Input in) throws IOException {
+        String cls = in.readString();
+        Hero h = createHero(cls, in.readString());
+        int level = in.readInt();
+        int exp = in.readInt();
+        int hp = in.readInt();
+        int mp = in.readInt();
+        int maxMp = in.readInt();
+        int strength = in.readInt();
+        int dexterity = in.readInt();
+        int agility = in.readInt();
+        int gold = in.readInt();
+        int healthPotions = in.readInt();
+        int manaPotions = in.readInt();
+        h.restoreProgress(level, exp, hp, mp, maxMp, strength, dexterity, agility, gold,
+                healthPotions, manaPotions);
+        if (in.readInt() != 0) {
+            h.equipWeapon(readWeapon(in));
+        }
+        if (in.readInt() != 0) {
+            h.equipArmor(readArmor(in));
+        }
+        h.clearConsumables();
+        int stacks = in.readCount();
+        for (int i = 0; i < stacks; i++) {
+            String name = in.readString();
+            Consumable.ConsumeType type = Consumable.ConsumeType.valueOf(in.readString());
+            int clevel = in.readInt();
+            int price = in.readInt();
+            int potency = in.readInt();
+            boolean usableInBattle = in.readInt() != 0;
+            h.addConsumables(new Consumable(name, clevel, price, type, potency, usableInBattle), in.readInt());
+        }
+        return h;
+    }
+
+    private static void writeWeapon(Output out, Weapon w) throws IOException {
+        out.writeString(w.getName());
+        out.writeInt(w.getLevel());
+        out.writeInt(w.getPrice());
+        out.writeInt(w.getDamage());
+        out.writeInt(w.getHands());
+    }
+
+    private static Weapon readWeapon(Input in) throws IOException {
+        String name = in.readString();
+        int level = in.readInt();
+        int price = in.readInt();
+        int damage = in.readInt();
+        return new Weapon(name, level, price, damage, in.readInt());
+    }
+
+    private static void writeArmor(Output out, Armor a) throws IOException {
+        out.writeString(a.getName());
+        out.writeInt(a.getLevel());
+        out.writeInt(a.getPrice());
+        out.writeInt(a.getReduction());
+    }
+
+    private static Armor readArmor(Input in) throws IOException {
+        String name = in.readString();
+        int level = in.readInt();
+        int price = in.readInt();
+        return new Armor(name, level, price, in.readInt());
+    }
+
+    /**
+     * Buffered writer. Records are built in place: the length prefix is inserted in
+     * front of the record once its size is known, and the buffer is only written
+     * out between records, so a record never has to be patched after it left.
+     */
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private byte[] buf = new byte[BUFFER_SIZE];
+        private ByteBuffer view = ByteBuffer.wrap(buf);
+        private int pos;
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeFixedInt(int v) {
+            ensure(4);
+            buf[pos++] = (byte) (v >>> 24);
+            buf[pos++] = (byte) (v >>> 16);
+            buf[pos++] = (byte) (v >>> 8);
+            buf[pos++] = (byte) v;
+        }
+
+        void writeInt(int v) {
+            writeVarInt((v << 1) ^ (v >> 31));
+        }
+
+        void writeVarInt(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeString(String s) {
+            if (s == null) s = "";
+            int n = s.length();
+            int bytes = 0;
+            for (int i = 0; i < n; i++) {
+                char ch = s.charAt(i);
+                if (ch < 0x80) bytes++;
+                else if (ch < 0x800) bytes += 2;
+                else if (Character.isHighSurrogate(ch) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else bytes += 3;
+            }
+            writeVarInt(bytes);
+            ensure(bytes);
+            for (int i = 0; i < n; i++) {
+                char ch = s.charAt(i);
+                if (ch < 0x80) {
+                    buf[pos++] = (byte) ch;
+                } else if (ch < 0x800) {
+                    buf[pos++] = (byte) (0xC0 | (ch >> 6));
+                    buf[pos++] = (byte) (0x80 | (ch & 0x3F));
+                } else if (Character.isHighSurrogate(ch) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(ch, s.charAt(++i));
+                    buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    // lone surrogates become U+FFFD, as String.getBytes would do
+                    if (Character.isSurrogate(ch)) ch = '\uFFFD';
+                    buf[pos++] = (byte) (0xE0 | (ch >> 12));
+                    buf[pos++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (ch & 0x3F));
+                }
+            }
+        }
+
+        int beginRecord() {
+            return pos;
+        }
+
+        void endRecord(int start) throws IOException {
+            int len = pos - start;
+            int prefix = varIntSize(len);
+            ensure(prefix);
+            System.arraycopy(buf, start, buf, start + prefix, len);
+            int end = pos + prefix;
+            pos = start;
+            writeVarInt(len);
+            pos = end;
+            flushIfFull();
+        }
+
+        void flushIfFull() throws IOException {
+            if (pos >= BUFFER_SIZE / 2) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            view.clear();
+            view.limit(pos);
+            while (view.hasRemaining()) {
+                channel.write(view);
+            }
+            pos = 0;
+        }
+
+        // Room for n more bytes; grows the buffer when one record outgrows it
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = java.util.Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+                view = ByteBuffer.wrap(buf);
+            }
+        }
+
+        private static int varIntSize(int v) {
+            int size = 1;
+            while ((v & ~0x7F) != 0) {
+                size++;
+                v >>>= 7;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Buffered reader that tracks its absolute offset so records can be skipped
+     * to their end.
+     */
+    private static final class Input {
+        private final ReadableByteChannel channel;
+        private byte[] buf = new byte[BUFFER_SIZE];
+        private ByteBuffer view = ByteBuffer.wrap(buf);
+        private int pos;
+        private int limit;
+        private long consumed; // bytes before buf[0]
+
+        Input(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        int readFixedInt() throws IOException {
+            require(4);
+            int v = ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16)
+                    | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+            pos += 4;
+            return v;
+        }
+
+        int readInt() throws IOException {
+            int v = readVarInt();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        // A list length; rejects values a damaged file could use to force a huge allocation
+        int readCount() throws IOException {
+            int n = readInt();
+            if (n < 0 || n > (1 << 24)) {
+                throw new IOException("Corrupt save: bad count " + n);
+            }
+            return n;
+        }
+
+        int readVarInt() throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (pos == limit) require(1);
+                byte b = buf[pos++];
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IOException("Corrupt save: varint too long");
+        }
+
+        String readString() throws IOException {
+            int len = readVarInt();
+            if (len < 0 || len > (1 << 24)) {
+                throw new IOException("Corrupt save: bad string length " + len);
+            }
+            require(len);
+            String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+
+        // Returns the absolute offset where the record ends
+        long beginRecord() throws IOException {
+            int len = readVarInt();
+            if (len < 0) {
+                throw new IOException("Corrupt save: bad record length " + len);
+            }
+            return offset() + len;
+        }
+
+        void endRecord(long end) throws IOException {
+            long skip = end - offset();
+            if (skip < 0) {
+                throw new IOException("Corrupt save: record overrun");
+            }
+            while (skip > 0) {
+                if (pos == limit) require(1);
+                int n = (int) Math.min(skip, limit - pos);
+                pos += n;
+                skip -= n;
+            }
+        }
+
+        private long offset() {
+            return consumed + pos;
+        }
+
+        // Make n bytes available from pos, compacting and growing the buffer as needed
+        private void require(int n) throws IOException {
+            if (limit - pos >= n) return;
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            consumed += pos;
+            limit -= pos;
+            pos = 0;
+            if (n > buf.length) {
+                buf = java.util.Arrays.copyOf(buf, n);
+                view = ByteBuffer.wrap(buf);
+            }
+            while (limit < n) {
+                view.clear();
+                view.position(limit);
+                int read = channel.read(view);
+                if (read < 0) {
+                    throw new IOException("Corrupt save: unexpected end of file");
+                }
+                limit += read;
+            }
+        }
+    }
+}
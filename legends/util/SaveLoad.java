@@ -1,13 +1,19 @@
 package legends.util;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.zip.CRC32;
 
 import legends.party.Party;
 import legends.world.WorldMap;
@@ -15,297 +21,406 @@ import legends.model.Hero;
 import legends.items.Weapon;
 import legends.items.Armor;
 
-import legends.skills.SimpleJson;
-
 public class SaveLoad {
-    private static final Path SAVE_PATH = Paths.get("save", "savegame.json");
+    private static final Path SAVE_PATH = Paths.get("save", "savegame.sav");
+    // Saves from before the binary format; still loaded if no binary save exists
+    private static final Path LEGACY_SAVE_PATH = Paths.get("save", "savegame.json");
 
     public static void saveGame(Party party, WorldMap map) throws IOException {
-        Files.createDirectories(SAVE_PATH.getParent());
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n");
-        sb.append("  \"row\": ").append(party.getRow()).append(",\n");
-        sb.append("  \"col\": ").append(party.getCol()).append(",\n");
-        sb.append("  \"heroes\": [\n");
-        List<Hero> heroes = party.getHeroes();
-        for (int i = 0; i < heroes.size(); i++) {
-            Hero h = heroes.get(i);
-            sb.append("    {");
-            sb.append("\"class\": \"").append(h.getClass().getSimpleName()).append("\"");
-            sb.append(", \"name\": \"").append(h.getName()).append("\"");
-            sb.append(", \"level\": ").append(h.getLevel());
-            sb.append(", \"hp\": ").append(h.getHp());
-            sb.append(", \"mp\": ").append(h.getMp());
-            sb.append(", \"strength\": ").append(h.getStrength());
-            sb.append(", \"dexterity\": ").append(h.getDexterity());
-            sb.append(", \"agility\": ").append(h.getAgility());
-            sb.append(", \"gold\": ").append(h.getGold());
-            sb.append(", \"healthPotions\": ").append(h.getHealthPotions());
-            sb.append(", \"manaPotions\": ").append(h.getManaPotions());
-            Weapon eqWeapon = h.getEquippedWeapon();
-            if (eqWeapon != null) {
-                sb.append(", \"equippedWeaponName\": \"").append(escape(eqWeapon.getName())).append("\"");
-                sb.append(", \"equippedWeaponLevel\": ").append(eqWeapon.getLevel());
-                sb.append(", \"equippedWeaponPrice\": ").append(eqWeapon.getPrice());
-                sb.append(", \"equippedWeaponDamage\": ").append(eqWeapon.getDamage());
-                sb.append(", \"equippedWeaponHands\": ").append(eqWeapon.getHands());
-            }
-            Armor eqArmor = h.getEquippedArmor();
-            if (eqArmor != null) {
-                sb.append(", \"equippedArmorName\": \"").append(escape(eqArmor.getName())).append("\"");
-                sb.append(", \"equippedArmorLevel\": ").append(eqArmor.getLevel());
-                sb.append(", \"equippedArmorPrice\": ").append(eqArmor.getPrice());
-                sb.append(", \"equippedArmorReduction\": ").append(eqArmor.getReduction());
+        saveGame(party, map, 1, SAVE_PATH);
+    }
+
+    public static void saveGame(Party party, WorldMap map, int floor) throws IOException {
+        saveGame(party, map, floor, SAVE_PATH);
+    }
+
+    /**
+     * Save made on the first floor.
+     */
+    public static void saveGame(Party party, WorldMap map, Path savePath) throws IOException {
+        saveGame(party, map, 1, savePath);
+    }
+
+    /**
+     * Write the party in the binary format ({@link SaveCodec}), streamed into a
+     * temp file that replaces the save only once it is complete and on disk.
+     * Any autosave journal belongs to the replaced save and is dropped.
+     */
+    public static void saveGame(Party party, WorldMap map, int floor, Path savePath) throws IOException {
+        if (savePath.getParent() != null) Files.createDirectories(savePath.getParent());
+        // the map goes in a binary file next to the save, written first so the save can
+        // end with its stamp; chunked maps are too large to store tile by tile, so their
+        // game keeps the map it has in memory on load
+        Path mapPath = mapPathFor(savePath);
+        boolean storeMap = map != null && !map.isChunked();
+        if (storeMap) {
+            map.save(mapPath);
+        }
+        byte[] stamp = storeMap ? stampMap(mapPath) : SaveCodec.mapStamp(-1, 0);
+        Path tmp = tempFor(savePath);
+        FileChannel channel = openTemp(tmp);
+        try {
+            SaveCodec.write(party, floor, channel);
+            ByteBuffer buf = ByteBuffer.wrap(stamp);
+            while (buf.hasRemaining()) {
+                channel.write(buf);
             }
-            // consumables: write simple array of objects
-            sb.append(", \"consumables\": [");
-            java.util.List<legends.items.ConsumableStack> stacks = h.getConsumables();
-            for (int j = 0; j < stacks.size(); j++) {
-                legends.items.ConsumableStack st = stacks.get(j);
-                legends.items.Consumable c = st.getConsumable();
-                sb.append("{\"name\": \"").append(c.getName()).append("\", \"type\": \"")
-                  .append(c.getType().name()).append("\", \"level\": ").append(c.getLevel())
-                  .append(", \"count\": ").append(st.getCount()).append("}");
-                if (j < stacks.size() - 1) sb.append(", ");
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        commitTemp(channel, tmp, savePath);
+        Files.deleteIfExists(journalPathFor(savePath));
+        if (!storeMap) {
+            Files.deleteIfExists(mapPath);
+        }
+    }
+
+    /**
+     * Map stored with the save, or null if there is none (older saves, chunked maps)
+     * or the map file is not the one the save was written with, as after a crash
+     * between writing the two.
+     */
+    public static WorldMap loadMap() throws IOException {
+        return loadMap(defaultSavePath());
+    }
+
+    public static WorldMap loadMap(Path savePath) throws IOException {
+        Path mapPath = mapPathFor(savePath);
+        if (!Files.exists(mapPath) || !Files.exists(savePath) || !mapMatches(savePath, mapPath)) return null;
+        return WorldMap.load(mapPath);
+    }
+
+    // True if the map file is the one the save's stamp names. Saves from before the
+    // stamp (JSON, binary version 1) take whatever map is there.
+    private static boolean mapMatches(Path savePath, Path mapPath) throws IOException {
+        ByteBuffer stamp = ByteBuffer.allocate(SaveCodec.MAP_STAMP_SIZE);
+        FileChannel channel = FileChannel.open(savePath, StandardOpenOption.READ);
+        try {
+            if (!SaveCodec.isBinarySave(channel)) return true;
+            channel.position(0);
+            if (SaveCodec.readVersion(channel) < 2) return true;
+            long at = channel.size() - stamp.capacity();
+            if (at < 0) return false;
+            while (stamp.hasRemaining()) {
+                if (channel.read(stamp, at + stamp.position()) < 0) return false;
             }
-            sb.append("]}");
-            if (i < heroes.size() - 1) sb.append(",\n"); else sb.append("\n");
-                }
-                sb.append("  ]");
-                List<Weapon> weaponBackpack = party.getBackpackWeapons();
-                sb.append(",\n  \"weaponBackpack\": [");
-                for (int i = 0; i < weaponBackpack.size(); i++) {
-                        Weapon w = weaponBackpack.get(i);
-                        sb.append("\n    {\"name\": \"").append(escape(w.getName())).append("\", \"level\": ").append(w.getLevel())
-                            .append(", \"price\": ").append(w.getPrice())
-                            .append(", \"damage\": ").append(w.getDamage())
-                            .append(", \"hands\": ").append(w.getHands())
-                            .append("}");
-                        if (i < weaponBackpack.size() - 1) sb.append(",");
-                }
-                if (!weaponBackpack.isEmpty()) sb.append("\n  ");
-                sb.append("]");
-
-                List<Armor> armorBackpack = party.getBackpackArmors();
-                sb.append(",\n  \"armorBackpack\": [");
-                for (int i = 0; i < armorBackpack.size(); i++) {
-                        Armor a = armorBackpack.get(i);
-                        sb.append("\n    {\"name\": \"").append(escape(a.getName())).append("\", \"level\": ").append(a.getLevel())
-                            .append(", \"price\": ").append(a.getPrice())
-                            .append(", \"reduction\": ").append(a.getReduction())
-                            .append("}");
-                        if (i < armorBackpack.size() - 1) sb.append(",");
-                }
-                if (!armorBackpack.isEmpty()) sb.append("\n  ");
-                sb.append("]\n");
-                // catalog unlocked entries
-        List<String> unlocked = legends.CatalogState.getUnlockedList();
-        sb.append(",\n  \"catalogUnlocked\": [");
-        for (int i = 0; i < unlocked.size(); i++) {
-            sb.append("\"").append(escape(unlocked.get(i))).append("\"");
-            if (i < unlocked.size() - 1) sb.append(", ");
+        } finally {
+            channel.close();
         }
-        sb.append("]\n}");
-        Files.write(SAVE_PATH, sb.toString().getBytes(StandardCharsets.UTF_8));
+        return java.util.Arrays.equals(stamp.array(), stampMap(mapPath));
     }
 
-    public static Party loadGame(WorldMap map) throws IOException {
-        if (!Files.exists(SAVE_PATH)) return null;
-        String content = new String(Files.readAllBytes(SAVE_PATH), StandardCharsets.UTF_8);
-        // extract row/col
-        int row = extractIntField(content, "row", 0);
-        int col = extractIntField(content, "col", 0);
-        // extract heroes array substring
-        String heroesArray = extractArray(content, "heroes");
-        if (heroesArray == null) return null;
-        List<Map<String,String>> parsed = SimpleJson.parseArrayFromString(heroesArray);
-        List<Hero> heroes = new ArrayList<>();
-        for (Map<String,String> obj : parsed) {
-            String cls = obj.get("class");
-            String name = obj.get("name");
-            if (name == null) name = "Hero";
-            Hero h = null;
-            if ("Warrior".equalsIgnoreCase(cls)) h = Hero.createWarrior(name);
-            else if ("Sorcerer".equalsIgnoreCase(cls)) h = Hero.createSorcerer(name);
-            else if ("Paladin".equalsIgnoreCase(cls)) h = Hero.createPaladin(name);
-            else h = Hero.createWarrior(name);
-
-            // set fields via reflection to restore saved state
-            try {
-                setFieldInt(h, "level", parseInt(obj.get("level"), h.getLevel()));
-                setFieldInt(h, "hp", parseInt(obj.get("hp"), h.getHp()));
-                setFieldInt(h, "mp", parseInt(obj.get("mp"), h.getMp()));
-                setFieldInt(h, "maxMp", parseInt(obj.get("mp"), h.getMaxMp()));
-                setFieldInt(h, "strength", parseInt(obj.get("strength"), h.getStrength()));
-                setFieldInt(h, "dexterity", parseInt(obj.get("dexterity"), h.getDexterity()));
-                setFieldInt(h, "agility", parseInt(obj.get("agility"), h.getAgility()));
-                setFieldInt(h, "gold", parseInt(obj.get("gold"), h.getGold()));
-                setFieldInt(h, "healthPotions", parseInt(obj.get("healthPotions"), h.getHealthPotions()));
-                setFieldInt(h, "manaPotions", parseInt(obj.get("manaPotions"), h.getManaPotions()));
-                // consumables
-                String cons = obj.get("consumables");
-                if (cons != null && cons.startsWith("[")) {
-                    List<Map<String,String>> consList = SimpleJson.parseArrayFromString(cons);
-                    // clear existing consumables by reflection on consumables list
-                        java.lang.reflect.Field f = Hero.class.getDeclaredField("consumables");
-                        f.setAccessible(true);
-                        @SuppressWarnings("unchecked")
-                        java.util.List<legends.items.ConsumableStack> existing =
-                            (java.util.List<legends.items.ConsumableStack>) f.get(h);
-                    existing.clear();
-                    for (Map<String,String> cobj : consList) {
-                        String cname = cobj.get("name");
-                        String type = cobj.get("type");
-                        int levelc = parseInt(cobj.get("level"), 1);
-                        int count = parseInt(cobj.get("count"), 1);
-                        legends.items.Consumable c = new legends.items.Consumable(cname, levelc, 0, legends.items.Consumable.ConsumeType.valueOf(type), 0, false);
-                        for (int k = 0; k < count; k++) h.addConsumable(c);
-                    }
-                }
-                String weaponName = obj.get("equippedWeaponName");
-                if (weaponName != null && !weaponName.isEmpty()) {
-                    Weapon restoredWeapon = new Weapon(weaponName,
-                            parseInt(obj.get("equippedWeaponLevel"), 1),
-                            parseInt(obj.get("equippedWeaponPrice"), 0),
-                            parseInt(obj.get("equippedWeaponDamage"), 0),
-                            parseInt(obj.get("equippedWeaponHands"), 1));
-                    h.equipWeapon(restoredWeapon);
-                }
-                String armorName = obj.get("equippedArmorName");
-                if (armorName != null && !armorName.isEmpty()) {
-                    Armor restoredArmor = new Armor(armorName,
-                            parseInt(obj.get("equippedArmorLevel"), 1),
-                            parseInt(obj.get("equippedArmorPrice"), 0),
-                            parseInt(obj.get("equippedArmorReduction"), 0));
-                    h.equipArmor(restoredArmor);
-                }
-            } catch (Exception e) {
-                // ignore reflection failures; best-effort restore
+    // Stamp (see SaveCodec.mapStamp) of the map file as it is on disk now
+    static byte[] stampMap(Path mapPath) throws IOException {
+        if (!Files.exists(mapPath)) {
+            return SaveCodec.mapStamp(-1, 0);
+        }
+        CRC32 crc = new CRC32();
+        long length = 0;
+        InputStream in = Files.newInputStream(mapPath);
+        try {
+            byte[] buf = new byte[1 << 16];
+            for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+                crc.update(buf, 0, n);
+                length += n;
             }
-            heroes.add(h);
+        } finally {
+            in.close();
         }
-        List<Weapon> storedWeapons = new ArrayList<>();
-        String weaponArray = extractArray(content, "weaponBackpack");
-        if (weaponArray != null) {
-            try {
-                List<Map<String,String>> weaponObjs = SimpleJson.parseArrayFromString(weaponArray);
-                for (Map<String,String> wobj : weaponObjs) {
-                    String name = wobj.get("name");
-                    if (name == null) continue;
-                    Weapon w = new Weapon(name,
-                            parseInt(wobj.get("level"), 1),
-                            parseInt(wobj.get("price"), 0),
-                            parseInt(wobj.get("damage"), 0),
-                            parseInt(wobj.get("hands"), 1));
-                    storedWeapons.add(w);
-                }
-            } catch (Exception e) {
-                // ignore malformed weapon data
+        return SaveCodec.mapStamp(length, (int) crc.getValue());
+    }
+
+    /**
+     * Floor the save was made on; 1 if there is no save or it predates floors
+     * (older binary saves, JSON saves).
+     */
+    public static int loadFloor() throws IOException {
+        return loadFloor(defaultSavePath());
+    }
+
+    public static int loadFloor(Path savePath) throws IOException {
+        if (!Files.exists(savePath)) return 1;
+        FileChannel channel = FileChannel.open(savePath, StandardOpenOption.READ);
+        try {
+            if (!SaveCodec.isBinarySave(channel)) return 1;
+            channel.position(0);
+            return SaveCodec.readFloor(channel);
+        } finally {
+            channel.close();
+        }
+    }
+
+    static Path mapPathFor(Path savePath) {
+        return siblingWithExtension(savePath, ".map");
+    }
+
+    static Path journalPathFor(Path savePath) {
+        return siblingWithExtension(savePath, ".journal");
+    }
+
+    private static Path siblingWithExtension(Path savePath, String extension) {
+        String name = savePath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return savePath.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + extension);
+    }
+
+    /**
+     * Default save file for new saves.
+     */
+    public static Path getSavePath() {
+        return SAVE_PATH;
+    }
+
+    // Crash-safe replace: write next to the target, fsync, then rename over it, so a
+    // crash leaves either the old file or the new one and never a torn mix
+    static Path tempFor(Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    static FileChannel openTemp(Path tmp) throws IOException {
+        return FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+    }
+
+    static void commitTemp(FileChannel channel, Path tmp, Path target) throws IOException {
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static Party loadGame(WorldMap map) throws IOException {
+        return loadGame(map, defaultSavePath());
+    }
+
+    /**
+     * Load a save in either the binary format or the older JSON one, told apart by
+     * the file's first bytes.
+     */
+    public static Party loadGame(WorldMap map, Path savePath) throws IOException {
+        if (!Files.exists(savePath)) return null;
+        FileChannel channel = FileChannel.open(savePath, StandardOpenOption.READ);
+        try {
+            if (SaveCodec.isBinarySave(channel)) {
+                channel.position(0);
+                Party party = SaveCodec.read(channel);
+                // moves autosaved since this snapshot
+                AutoSave.replayJournal(savePath, party);
+                return party;
             }
+        } finally {
+            channel.close();
         }
+        return loadLegacyJson(savePath);
+    }
+
+    /**
+     * True if there is a save to load, in either format.
+     */
+    public static boolean hasSave() {
+        return Files.exists(defaultSavePath());
+    }
+
+    private static Path defaultSavePath() {
+        return Files.exists(SAVE_PATH) || !Files.exists(LEGACY_SAVE_PATH) ? SAVE_PATH : LEGACY_SAVE_PATH;
+    }
+
+    // Field names of the JSON save, its hero objects and its item objects
+    private static final String[] SAVE_FIELDS = {
+        "row", "col", "heroes", "weaponBackpack", "armorBackpack", "catalogUnlocked"
+    };
+    private static final String[] HERO_FIELDS = {
+        "class", "name", "level", "hp", "mp", "strength", "dexterity", "agility", "gold",
+        "healthPotions", "manaPotions", "consumables",
+        "equippedWeaponName", "equippedWeaponLevel", "equippedWeaponPrice", "equippedWeaponDamage", "equippedWeaponHands",
+        "equippedArmorName", "equippedArmorLevel", "equippedArmorPrice", "equippedArmorReduction"
+    };
+    private static final String[] ITEM_FIELDS = {
+        "name", "level", "price", "damage", "hands", "reduction", "type", "count"
+    };
 
+    /**
+     * Read a save in the old JSON format, streamed through {@link JsonReader} and bound
+     * straight into heroes and items.
+     */
+    private static Party loadLegacyJson(Path savePath) throws IOException {
+        int row = 0;
+        int col = 0;
+        List<Hero> heroes = null;
+        List<Weapon> storedWeapons = new ArrayList<>();
         List<Armor> storedArmors = new ArrayList<>();
-        String armorArray = extractArray(content, "armorBackpack");
-        if (armorArray != null) {
-            try {
-                List<Map<String,String>> armorObjs = SimpleJson.parseArrayFromString(armorArray);
-                for (Map<String,String> aobj : armorObjs) {
-                    String name = aobj.get("name");
-                    if (name == null) continue;
-                    Armor a = new Armor(name,
-                            parseInt(aobj.get("level"), 1),
-                            parseInt(aobj.get("price"), 0),
-                            parseInt(aobj.get("reduction"), 0));
-                    storedArmors.add(a);
+        List<String> unlocked = null;
+        JsonReader in = new JsonReader(Files.newBufferedReader(savePath, StandardCharsets.UTF_8));
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName(SAVE_FIELDS)) {
+                    case 0: row = in.nextInt(); break;
+                    case 1: col = in.nextInt(); break;
+                    case 2:
+                        heroes = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            heroes.add(readLegacyHero(in));
+                        }
+                        in.endArray();
+                        break;
+                    case 3:
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            LegacyItem w = readLegacyItem(in);
+                            if (w.name != null) storedWeapons.add(new Weapon(w.name, w.level, w.price, w.damage, w.hands));
+                        }
+                        in.endArray();
+                        break;
+                    case 4:
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            LegacyItem a = readLegacyItem(in);
+                            if (a.name != null) storedArmors.add(new Armor(a.name, a.level, a.price, a.reduction));
+                        }
+                        in.endArray();
+                        break;
+                    case 5:
+                        unlocked = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            unlocked.add(in.nextString());
+                        }
+                        in.endArray();
+                        break;
+                    default:
+                        in.skipValue();
                 }
-            } catch (Exception e) {
-                // ignore malformed armor data
             }
+            in.endObject();
+        } finally {
+            in.close();
         }
+        if (heroes == null) return null;
 
         Party p = new Party(heroes);
         p.loadInventory(storedWeapons, storedArmors);
         p.setPosition(row, col);
-        // attempt to restore catalog unlocked entries if present
-        String catalogArray = extractArray(content, "catalogUnlocked");
-        if (catalogArray != null) {
-            try {
-                java.util.List<String> names = parseStringArray(catalogArray);
-                legends.CatalogState.setUnlockedList(names);
-            } catch (Exception ex) {
-                // ignore catalog parsing issues
-            }
+        if (unlocked != null) {
+            legends.CatalogState.setUnlockedList(unlocked);
         }
         return p;
     }
 
-    private static String escape(String s) {
-        if (s == null) return "";
-        return s.replace("\\", "\\\\").replace("\"", "\\\"");
-    }
-
-    private static int extractIntField(String s, String key, int def) {
-        int idx = s.indexOf('"' + key + '"');
-        if (idx < 0) return def;
-        int colon = s.indexOf(':', idx);
-        if (colon < 0) return def;
-        int j = colon + 1;
-        while (j < s.length() && Character.isWhitespace(s.charAt(j))) j++;
-        StringBuilder sb = new StringBuilder();
-        while (j < s.length() && (Character.isDigit(s.charAt(j)) || s.charAt(j) == '-')) { sb.append(s.charAt(j)); j++; }
-        try { return Integer.parseInt(sb.toString()); } catch (Exception e) { return def; }
-    }
-
-    private static int parseInt(String v, int def) { if (v == null) return def; try { return Integer.parseInt(v.trim()); } catch (Exception e) { return def; } }
-
-    private static void setFieldInt(Object o, String name, int val) throws Exception {
-        java.lang.reflect.Field f = o.getClass().getSuperclass().getDeclaredField(name);
-        f.setAccessible(true);
-        f.setInt(o, val);
-    }
+    private static Hero readLegacyHero(JsonReader in) throws IOException {
+        String cls = null;
+        String name = "Hero";
+        // stats default to the class's starting values, so -1 means "not saved"
+        int[] stats = { -1, -1, -1, -1, -1, -1, -1, -1, -1 };
+        String weaponName = null;
+        int[] weapon = { 1, 0, 0, 1 };
+        String armorName = null;
+        int[] armor = { 1, 0, 0 };
+        List<legends.items.Consumable> consumables = null;
+        List<Integer> counts = null;
 
-    private static java.util.List<String> parseStringArray(String arr) {
-        java.util.List<String> out = new java.util.ArrayList<>();
-        if (arr == null) return out;
-        boolean inStr = false;
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < arr.length(); i++) {
-            char c = arr.charAt(i);
-            if (!inStr) {
-                if (c == '"') { inStr = true; sb.setLength(0); }
-            } else {
-                if (c == '\\') {
-                    if (i + 1 < arr.length()) {
-                        char n = arr.charAt(i + 1);
-                        if (n == '"' || n == '\\') { sb.append(n); i++; } else { sb.append(c); }
-                    } else sb.append(c);
-                } else if (c == '"') {
-                    inStr = false;
-                    out.add(sb.toString());
-                } else {
-                    sb.append(c);
+        in.beginObject();
+        while (in.hasNext()) {
+            int field = in.nextName(HERO_FIELDS);
+            if (field == 0) {
+                cls = in.nextString();
+            } else if (field == 1) {
+                name = in.nextString();
+            } else if (field >= 2 && field <= 10) {
+                stats[field - 2] = in.nextInt();
+            } else if (field == 11) {
+                consumables = new ArrayList<>();
+                counts = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    LegacyItem c = readLegacyItem(in);
+                    try {
+                        consumables.add(new legends.items.Consumable(c.name, c.level, 0,
+                                legends.items.Consumable.ConsumeType.valueOf(c.type), 0, false));
+                        counts.add(c.count);
+                    } catch (RuntimeException e) {
+                        // missing or unknown consumable type; skip it
+                    }
                 }
+                in.endArray();
+            } else if (field == 12) {
+                weaponName = in.nextString();
+            } else if (field >= 13 && field <= 16) {
+                weapon[field - 13] = in.nextInt();
+            } else if (field == 17) {
+                armorName = in.nextString();
+            } else if (field >= 18 && field <= 20) {
+                armor[field - 18] = in.nextInt();
+            } else {
+                in.skipValue();
             }
         }
-        return out;
+        in.endObject();
+
+        Hero h = SaveCodec.createHero(cls, name);
+        // restore saved state; JSON saves stored no exp and only the current mp
+        int mp = stats[2] >= 0 ? stats[2] : h.getMp();
+        h.restoreProgress(stats[0] >= 0 ? stats[0] : h.getLevel(), 0,
+                stats[1] >= 0 ? stats[1] : h.getHp(), mp, mp,
+                stats[3] >= 0 ? stats[3] : h.getStrength(),
+                stats[4] >= 0 ? stats[4] : h.getDexterity(),
+                stats[5] >= 0 ? stats[5] : h.getAgility(),
+                stats[6] >= 0 ? stats[6] : h.getGold(),
+                stats[7] >= 0 ? stats[7] : h.getHealthPotions(),
+                stats[8] >= 0 ? stats[8] : h.getManaPotions());
+        if (consumables != null) {
+            h.clearConsumables();
+            for (int i = 0; i < consumables.size(); i++) {
+                h.addConsumables(consumables.get(i), counts.get(i));
+            }
+        }
+        if (weaponName != null && !weaponName.isEmpty()) {
+            h.equipWeapon(new Weapon(weaponName, weapon[0], weapon[1], weapon[2], weapon[3]));
+        }
+        if (armorName != null && !armorName.isEmpty()) {
+            h.equipArmor(new Armor(armorName, armor[0], armor[1], armor[2]));
+        }
+        return h;
     }
 
-    private static String extractArray(String content, String key) {
-        int idx = content.indexOf('"' + key + '"');
-        if (idx < 0) return null;
-        int start = content.indexOf('[', idx);
-        if (start < 0) return null;
-        int depth = 0;
-        for (int i = start; i < content.length(); i++) {
-            char c = content.charAt(i);
-            if (c == '[') depth++;
-            else if (c == ']') {
-                depth--;
-                if (depth == 0) {
-                    return content.substring(start, i + 1);
-                }
+    // Fields of a weapon, armor or consumable object; each kind uses its own subset
+    private static final class LegacyItem {
+        String name;
+        String type;
+        int level = 1;
+        int price;
+        int damage;
+        int hands = 1;
+        int reduction;
+        int count = 1;
+    }
+
+    private static LegacyItem readLegacyItem(JsonReader in) throws IOException {
+        LegacyItem item = new LegacyItem();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName(ITEM_FIELDS)) {
+                case 0: item.name = in.nextString(); break;
+                case 1: item.level = in.nextInt(); break;
+                case 2: item.price = in.nextInt(); break;
+                case 3: item.damage = in.nextInt(); break;
+                case 4: item.hands = in.nextInt(); break;
+                case 5: item.reduction = in.nextInt(); break;
+                case 6: item.type = in.nextString(); break;
+                case 7: item.count = in.nextInt(); break;
+                default: in.skipValue();
             }
         }
-        return null;
+        in.endObject();
+        return item;
     }
 }
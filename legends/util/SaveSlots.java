@@ -0,0 +1,329 @@
+package legends.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import legends.model.Hero;
+import legends.party.Party;
+import legends.world.WorldMap;
+
+/**
+ * Numbered save slots in one directory, each slot a regular save
+ * ({@code slot-<n>.sav} plus its map), described by a small index file so a
+ * load menu can list hundreds of slots without opening any of them. A slot's
+ * save is only read when it is loaded, and its checksum in the index is checked
+ * first so a damaged or swapped file is reported instead of half-loaded.
+ *
+ * Index layout ({@code slots.idx}, big-endian):
+ * <pre>
+ * int magic "LGSI", int version, int entry count, then per entry:
+ * short slot, short floor, byte hero count, short level per hero,
+ * long saved-at (epoch millis), int CRC32 of the save file, int save file length,
+ * int CRC32 and int length of the file the slot held before, length -1 once settled
+ * </pre>
+ * The index is replaced atomically like the saves themselves. A save into a slot
+ * writes its entry before the save file and settles it after, so a crash anywhere
+ * in between leaves a slot that still loads, whichever of the two files it holds.
+ */
+public final class SaveSlots {
+    public static final int MAGIC = 0x4C475349; // "LGSI"
+    public static final int VERSION = 1;
+    public static final int MAX_SLOT = 999;
+
+    private final Path dir;
+    private final Path indexPath;
+    // slot -> metadata, read from the index on first use
+    private TreeMap<Integer, Slot> slots;
+
+    public SaveSlots(Path dir) {
+        this.dir = dir;
+        this.indexPath = dir.resolve("slots.idx");
+    }
+
+    /**
+     * Slots in the default save directory.
+     */
+    public static SaveSlots open() {
+        Path parent = SaveLoad.getSavePath().getParent();
+        return new SaveSlots(parent != null ? parent : Paths.get("."));
+    }
+
+    /**
+     * What the index knows about one slot.
+     */
+    public static final class Slot {
+        private final int number;
+        private final int floor;
+        private final int[] levels;
+        private final long savedAt;
+        private final int checksum;
+        private final int length;
+        // The file the slot held before this save, until it is known to be replaced
+        private final int priorChecksum;
+        private final int priorLength;
+
+        Slot(int number, int floor, int[] levels, long savedAt, int checksum, int length,
+             int priorChecksum, int priorLength) {
+            this.number = number;
+            this.floor = floor;
+            this.levels = levels;
+            this.savedAt = savedAt;
+            this.checksum = checksum;
+            this.length = length;
+            this.priorChecksum = priorChecksum;
+            this.priorLength = priorLength;
+        }
+
+        // True if bytes are the save this entry describes, or the one it is replacing
+        boolean matches(byte[] bytes, int crc) {
+            return (bytes.length == length && crc == checksum)
+                    || (bytes.length == priorLength && crc == priorChecksum);
+        }
+
+        public int getNumber() { return number; }
+
+        public int getFloor() { return floor; }
+
+        public int[] getLevels() { return levels.clone(); }
+
+        public long getSavedAt() { return savedAt; }
+
+        public int getChecksum() { return checksum; }
+
+        /**
+         * One-line summary for menus, e.g. "Slot 3: floor 2, levels 4/3/5, 2026-10-18 14:02".
+         */
+        public String describe() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Slot ").append(number).append(": floor ").append(floor).append(", levels ");
+            for (int i = 0; i < levels.length; i++) {
+                if (i > 0) sb.append('/');
+                sb.append(levels[i]);
+            }
+            sb.append(", ").append(new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm").format(new java.util.Date(savedAt)));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * All used slots in slot order, from the index alone.
+     */
+    public List<Slot> list() throws IOException {
+        return Collections.unmodifiableList(new ArrayList<Slot>(index().values()));
+    }
+
+    public Slot get(int slot) throws IOException {
+        return index().get(slot);
+    }
+
+    public boolean isEmpty() throws IOException {
+        return index().isEmpty();
+    }
+
+    /**
+     * Save into a slot (replacing what it held) and record it in the index. The save
+     * is encoded in memory first, so its entry can name it before the file is
+     * replaced; the map goes first, as in {@link SaveLoad#saveGame}.
+     */
+    public Slot save(int slot, Party party, WorldMap map, int floor) throws IOException {
+        checkSlot(slot);
+        Path path = pathFor(slot);
+        Files.createDirectories(dir);
+        Path mapPath = SaveLoad.mapPathFor(path);
+        boolean storeMap = map != null && !map.isChunked();
+        if (storeMap) {
+            map.save(mapPath);
+        }
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(1024);
+        SaveCodec.write(party, floor, Channels.newChannel(encoded));
+        encoded.write(storeMap ? SaveLoad.stampMap(mapPath) : SaveCodec.mapStamp(-1, 0));
+        byte[] bytes = encoded.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        List<Hero> heroes = party.getHeroes();
+        int[] levels = new int[heroes.size()];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = heroes.get(i).getLevel();
+        }
+        long savedAt = System.currentTimeMillis();
+
+        // the entry names both the new file and the one it replaces until the new one is in
+        byte[] prior = Files.exists(path) ? Files.readAllBytes(path) : new byte[0];
+        CRC32 priorCrc = new CRC32();
+        priorCrc.update(prior, 0, prior.length);
+        TreeMap<Integer, Slot> updated = new TreeMap<Integer, Slot>(index());
+        updated.put(slot, new Slot(slot, floor, levels, savedAt, (int) crc.getValue(), bytes.length,
+                (int) priorCrc.getValue(), prior.length));
+        writeIndex(updated);
+        slots = updated;
+
+        Path tmp = SaveLoad.tempFor(path);
+        FileChannel channel = SaveLoad.openTemp(tmp);
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        SaveLoad.commitTemp(channel, tmp, path);
+        Files.deleteIfExists(SaveLoad.journalPathFor(path));
+        if (!storeMap) {
+            Files.deleteIfExists(mapPath);
+        }
+
+        Slot entry = new Slot(slot, floor, levels, savedAt, (int) crc.getValue(), bytes.length, 0, -1);
+        updated = new TreeMap<Integer, Slot>(updated);
+        updated.put(slot, entry);
+        writeIndex(updated);
+        slots = updated;
+        return entry;
+    }
+
+    /**
+     * Read a slot's party, or null if the slot is empty. Fails if the file no longer
+     * matches the checksum recorded when it was saved (or, after a save into the slot
+     * was cut short, the checksum of the file it was replacing).
+     */
+    public Party load(int slot, WorldMap map) throws IOException {
+        Slot entry = get(slot);
+        if (entry == null) return null;
+        Path path = pathFor(slot);
+        byte[] bytes = Files.exists(path) ? Files.readAllBytes(path) : new byte[0];
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        if (!entry.matches(bytes, (int) crc.getValue())) {
+            throw new IOException("Save slot " + slot + " is damaged or was changed outside the game");
+        }
+        return SaveLoad.loadGame(map, path);
+    }
+
+    /**
+     * The floor a slot's save was made on, read from the save itself; 1 if empty.
+     */
+    public int loadFloor(int slot) throws IOException {
+        return get(slot) == null ? 1 : SaveLoad.loadFloor(pathFor(slot));
+    }
+
+    /**
+     * The map saved with a slot, or null if it has none.
+     */
+    public WorldMap loadMap(int slot) throws IOException {
+        return get(slot) == null ? null : SaveLoad.loadMap(pathFor(slot));
+    }
+
+    /**
+     * Empty a slot: its files and its index entry.
+     */
+    public void delete(int slot) throws IOException {
+        if (get(slot) == null) return;
+        TreeMap<Integer, Slot> updated = new TreeMap<Integer, Slot>(index());
+        updated.remove(slot);
+        writeIndex(updated);
+        slots = updated;
+        Path path = pathFor(slot);
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(SaveLoad.mapPathFor(path));
+        Files.deleteIfExists(SaveLoad.journalPathFor(path));
+    }
+
+    Path pathFor(int slot) {
+        return dir.resolve("slot-" + slot + ".sav");
+    }
+
+    private static void checkSlot(int slot) {
+        if (slot < 1 || slot > MAX_SLOT) {
+            throw new IllegalArgumentException("Slot must be 1-" + MAX_SLOT + ": " + slot);
+        }
+    }
+
+    private TreeMap<Integer, Slot> index() throws IOException {
+        if (slots == null) {
+            slots = readIndex();
+        }
+        return slots;
+    }
+
+    private TreeMap<Integer, Slot> readIndex() throws IOException {
+        TreeMap<Integer, Slot> out = new TreeMap<Integer, Slot>();
+        if (!Files.exists(indexPath)) return out;
+        DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(Files.readAllBytes(indexPath)));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a save slot index: " + indexPath);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported save slot index version " + version);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int slot = in.readShort();
+                int floor = in.readShort();
+                int[] levels = new int[in.readUnsignedByte()];
+                for (int k = 0; k < levels.length; k++) {
+                    levels[k] = in.readShort();
+                }
+                long savedAt = in.readLong();
+                int checksum = in.readInt();
+                int length = in.readInt();
+                int priorChecksum = in.readInt();
+                int priorLength = in.readInt();
+                out.put(slot, new Slot(slot, floor, levels, savedAt, checksum, length, priorChecksum, priorLength));
+            }
+        } catch (java.io.EOFException e) {
+            throw new IOException("Save slot index is truncated: " + indexPath);
+        }
+        return out;
+    }
+
+    private void writeIndex(TreeMap<Integer, Slot> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + entries.size() * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Slot s : entries.values()) {
+            out.writeShort(s.number);
+            out.writeShort(s.floor);
+            out.writeByte(s.levels.length);
+            for (int level : s.levels) {
+                out.writeShort(level);
+            }
+            out.writeLong(s.savedAt);
+            out.writeInt(s.checksum);
+            out.writeInt(s.length);
+            out.writeInt(s.priorChecksum);
+            out.writeInt(s.priorLength);
+        }
+        out.flush();
+        Files.createDirectories(dir);
+        Path tmp = SaveLoad.tempFor(indexPath);
+        FileChannel channel = SaveLoad.openTemp(tmp);
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        SaveLoad.commitTemp(channel, tmp, indexPath);
+    }
+}
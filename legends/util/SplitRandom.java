@@ -0,0 +1,80 @@
+package legends.util;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * A {@link Random} that draws from a {@link SplittableRandom}, so it can be passed
+ * to every API that takes a Random. Unlike Random it has no atomic seed to
+ * compare-and-set on each draw, and {@link #split()} hands out an independent
+ * stream, so each thread of a parallel run gets its own generator instead of
+ * sharing one. Not thread-safe: one instance belongs to one thread.
+ *
+ * Seeds are scrambled before use, so seeds a fixed stride apart (as
+ * {@link legends.sim.BattleSimulator} hands out per battle) do not give shifted
+ * copies of the same sequence.
+ */
+public final class SplitRandom extends Random {
+    private static final long serialVersionUID = 1L;
+
+    // Assigned by setSeed, which Random's constructor calls
+    private SplittableRandom source;
+
+    public SplitRandom(long seed) {
+        super(seed);
+    }
+
+    private SplitRandom(SplittableRandom source) {
+        super(0L);
+        this.source = source;
+    }
+
+    /**
+     * A new generator whose stream does not overlap this one's; advances this one.
+     */
+    public SplitRandom split() {
+        return new SplitRandom(source.split());
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        source = new SplittableRandom(mix(seed));
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (source.nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt() {
+        return source.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return source.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return source.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return source.nextDouble();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return source.nextBoolean();
+    }
+
+    // Stafford's variant 13 of the murmur3 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
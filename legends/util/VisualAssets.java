@@ -5,7 +5,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
 
 import legends.io.IO;
 import legends.model.Hero;
@@ -162,6 +161,9 @@ public final class VisualAssets {
     }
 
     public static void printHeroAttackEffect(IO io, Hero hero) {
+        if (io.isSilent()) {
+            return;
+        }
         HeroVisual visual = getHeroVisual(hero);
         String[] frame = pickRandomFrame(visual.getAttackFrames(), DEFAULT_HERO_ATTACK_FRAMES);
         for (String line : frame) {
@@ -171,6 +173,9 @@ public final class VisualAssets {
     }
 
     public static void printHeroSkillEffect(IO io, Hero hero, String skillName) {
+        if (io.isSilent()) {
+            return;
+        }
         HeroVisual visual = getHeroVisual(hero);
         String label = (skillName == null || skillName.isEmpty()) ? "SKILL" : skillName.toUpperCase();
         String[] frame = pickRandomFrame(visual.getSkillFrames(), DEFAULT_HERO_SKILL_FRAMES);
@@ -181,6 +186,9 @@ public final class VisualAssets {
     }
 
     public static void printMonsterAttackEffect(IO io, Monster monster) {
+        if (io.isSilent()) {
+            return;
+        }
         MonsterVisual visual = getMonsterVisual(monster);
         String[] frame = pickRandomFrame(visual.getAttackFrames(), DEFAULT_MONSTER_ATTACK_FRAMES);
         for (String line : frame) {
@@ -223,7 +231,7 @@ public final class VisualAssets {
         if (pool.isEmpty()) {
             return new String[] { "" };
         }
-        return pool.get(ThreadLocalRandom.current().nextInt(pool.size()));
+        return pool.get(RngStreams.current().visuals().nextInt(pool.size()));
     }
 
     private static List<String[]> immutableCopyFromArray(String[][] data) {
@@ -0,0 +1,32 @@
+package legends.world;
+
+/**
+ * Whole map held in one row-major byte array (index {@code r * cols + c}).
+ */
+final class ArrayTileStore implements TileStore {
+    private final int rows;
+    private final int cols;
+    private final byte[] tiles;
+
+    ArrayTileStore(int rows, int cols, byte[] tiles) {
+        this.rows = rows;
+        this.cols = cols;
+        this.tiles = tiles;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public byte get(int r, int c) {
+        return tiles[r * cols + c];
+    }
+
+    public void set(int r, int c, byte tile) {
+        tiles[r * cols + c] = tile;
+    }
+}
@@ -0,0 +1,153 @@
+package legends.world;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tile storage for maps too large to generate up front. Tiles are produced in
+ * {@link #CHUNK_SIZE}-square chunks the first time something reads them, and a
+ * chunk's contents depend only on (seed, chunkX, chunkY): an evicted chunk comes
+ * back identical when the party returns. At most {@code maxChunks} chunks are kept,
+ * least recently used out first, so memory stays flat however far the party walks.
+ *
+ * Each chunk is connected on its own and keeps an open gate tile in the middle of
+ * every side it shares with a neighbour, so adjacent chunks always join up and the
+ * whole map is one walkable region without looking across chunk borders. A chunk
+ * changed through {@link #set} is pinned in memory so the change is not lost.
+ */
+public final class ChunkedWorld implements TileStore {
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    public static final int DEFAULT_MAX_CHUNKS = 256;
+    // Largest side supported; keeps (rows - 1) + (cols - 1) within an int
+    public static final int MAX_SIZE = 1 << 30;
+
+    private static final int MASK = CHUNK_SIZE - 1;
+
+    private final int rows;
+    private final int cols;
+    private final long seed;
+    private final LinkedHashMap<Long, byte[]> cache;
+    private final Map<Long, byte[]> pinned = new HashMap<Long, byte[]>();
+    private long generated;
+
+    // Last chunk read; most lookups stay inside one chunk
+    private long lastKey = -1;
+    private byte[] lastChunk;
+
+    public ChunkedWorld(int rows, int cols, long seed) {
+        this(rows, cols, seed, DEFAULT_MAX_CHUNKS);
+    }
+
+    public ChunkedWorld(int rows, int cols, long seed, final int maxChunks) {
+        if (rows <= 0 || cols <= 0 || rows > MAX_SIZE || cols > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported map size " + rows + "x" + cols);
+        }
+        if (maxChunks < 1) {
+            throw new IllegalArgumentException("maxChunks must be positive: " + maxChunks);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.seed = seed;
+        this.cache = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > maxChunks;
+            }
+        };
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public byte get(int r, int c) {
+        return chunk(r >> CHUNK_SHIFT, c >> CHUNK_SHIFT)[((r & MASK) << CHUNK_SHIFT) | (c & MASK)];
+    }
+
+    public void set(int r, int c, byte tile) {
+        int cy = r >> CHUNK_SHIFT;
+        int cx = c >> CHUNK_SHIFT;
+        byte[] chunk = chunk(cy, cx);
+        long key = key(cy, cx);
+        if (cache.remove(key) != null) {
+            pinned.put(key, chunk);
+        }
+        chunk[((r & MASK) << CHUNK_SHIFT) | (c & MASK)] = tile;
+    }
+
+    /**
+     * Chunks currently held in memory, pinned ones included.
+     */
+    public int getLoadedChunks() {
+        return cache.size() + pinned.size();
+    }
+
+    /**
+     * Chunks generated so far, counting regenerations after eviction.
+     */
+    public long getGeneratedChunks() {
+        return generated;
+    }
+
+    private static long key(int cy, int cx) {
+        return ((long) cy << 32) | cx;
+    }
+
+    private byte[] chunk(int cy, int cx) {
+        long key = key(cy, cx);
+        if (key == lastKey) {
+            return lastChunk;
+        }
+        byte[] chunk = cache.get(key);
+        if (chunk == null) {
+            chunk = pinned.get(key);
+            if (chunk == null) {
+                chunk = generate(cy, cx);
+                cache.put(key, chunk);
+            }
+        }
+        lastKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    private byte[] generate(int cy, int cx) {
+        generated++;
+        int r0 = cy << CHUNK_SHIFT;
+        int c0 = cx << CHUNK_SHIFT;
+        // chunks on the far edges are cut off by the map bounds
+        int h = Math.min(CHUNK_SIZE, rows - r0);
+        int w = Math.min(CHUNK_SIZE, cols - c0);
+        byte[] g = new byte[h * w];
+        WorldMap.fillRandom(g, new Random(mix(seed, cy, cx)));
+
+        // gates: the middle of each shared side, matched by the neighbour's own gate
+        byte common = (byte) TileType.COMMON.ordinal();
+        if (cy > 0) g[w / 2] = common;
+        if (r0 + h < rows) g[(h - 1) * w + w / 2] = common;
+        if (cx > 0) g[(h / 2) * w] = common;
+        if (c0 + w < cols) g[(h / 2) * w + w - 1] = common;
+        WorldMap.ensureConnectivity(g, h, w);
+
+        byte[] chunk = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        for (int r = 0; r < h; r++) {
+            System.arraycopy(g, r * w, chunk, r << CHUNK_SHIFT, w);
+        }
+        return chunk;
+    }
+
+    // Per-chunk generator seed (SplitMix64 finalizer over the coordinates)
+    private static long mix(long seed, int cy, int cx) {
+        long z = seed + 0x9E3779B97F4A7C15L * (key(cy, cx) + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,323 @@
+package legends.world;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Tiles kept in a memory-mapped file instead of on the heap. Opening a file only
+ * reads its header; the operating system pages tiles in as they are touched, so a
+ * multi-GB world opens instantly.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *  0  int  magic "LGMP"
+ *  4  int  format version
+ *  8  int  rows
+ * 12  int  cols
+ * 16  int  overlay layer count
+ * 20  int  boss row, -1 if none
+ * 24  int  boss col, -1 if none
+ * 28..63   reserved (zero)
+ * 64       tiles: 2 bits per tile (the TileType ordinal), row-major, 4 tiles per byte
+ *          then each overlay layer: 1 bit per tile, row-major, 8 tiles per byte
+ * </pre>
+ * Overlays are per-tile flags stored alongside the terrain (explored, event already
+ * triggered, ...); they start cleared.
+ *
+ * The file is mapped up front in 1 GB segments, since a single mapping cannot
+ * exceed 2 GB; mapping only reserves address space. Read-only and private stores
+ * close the file right away (mappings outlive their channel), so a loaded map holds
+ * no file handle.
+ */
+public final class MappedTileStore implements TileStore, Closeable {
+    public static final int MAGIC = 0x4C474D50; // "LGMP"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private final int rows;
+    private final int cols;
+    private final int overlays;
+    private final int bossRow;
+    private final int bossCol;
+    private final long tileBytes;
+    private final long overlayBytes;
+    private final long fileSize;
+    private final MappedByteBuffer[] segments;
+
+    private MappedTileStore(RandomAccessFile file, FileChannel.MapMode mode, int rows, int cols,
+                            int overlays, int bossRow, int bossCol) {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.mode = mode;
+        this.rows = rows;
+        this.cols = cols;
+        this.overlays = overlays;
+        this.bossRow = bossRow;
+        this.bossCol = bossCol;
+        long n = (long) rows * cols;
+        this.tileBytes = (n + 3) >>> 2;
+        this.overlayBytes = (n + 7) >>> 3;
+        this.fileSize = HEADER_SIZE + tileBytes + overlays * overlayBytes;
+        this.segments = new MappedByteBuffer[(int) ((fileSize + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+    }
+
+    /**
+     * Create (or overwrite) a map file of the given size. All tiles start as
+     * INACCESSIBLE (ordinal 0); on most file systems the file is sparse until written.
+     */
+    public static MappedTileStore create(Path path, int rows, int cols, int overlays) throws IOException {
+        return create(path, rows, cols, overlays, -1, -1);
+    }
+
+    static MappedTileStore create(Path path, int rows, int cols, int overlays, int bossRow, int bossCol)
+            throws IOException {
+        if (rows <= 0 || cols <= 0 || overlays < 0) {
+            throw new IllegalArgumentException("Unsupported map file " + rows + "x" + cols + ", " + overlays + " overlays");
+        }
+        RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw");
+        try {
+            MappedTileStore store = new MappedTileStore(raf, FileChannel.MapMode.READ_WRITE,
+                    rows, cols, overlays, bossRow, bossCol);
+            raf.setLength(0);
+            raf.setLength(store.fileSize);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putInt(overlays)
+                  .putInt(bossRow).putInt(bossCol);
+            header.clear();
+            store.channel.write(header, 0);
+            store.mapSegments();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing map file. With {@link FileChannel.MapMode#PRIVATE} the tiles
+     * can be changed in memory without touching the file.
+     */
+    public static MappedTileStore open(Path path, FileChannel.MapMode mode) throws IOException {
+        // PRIVATE mappings need a channel open for writing even though the file is never written
+        RandomAccessFile raf = new RandomAccessFile(path.toFile(), mode == FileChannel.MapMode.READ_ONLY ? "r" : "rw");
+        try {
+            int[] h = readHeader(raf.getChannel(), path);
+            MappedTileStore store = new MappedTileStore(raf, mode, h[0], h[1], h[2], h[3], h[4]);
+            if (raf.length() < store.fileSize) {
+                throw new IOException("Map file truncated: " + path);
+            }
+            store.mapSegments();
+            if (mode != FileChannel.MapMode.READ_WRITE) {
+                raf.close();
+            }
+            return store;
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the tiles of a map file onto the heap with plain reads, or return null if
+     * the map has more than maxTiles tiles. Nothing stays mapped and the file is
+     * closed on return, so it can be replaced straight away. Overlays are not read;
+     * boss receives the boss position from the header.
+     */
+    static ArrayTileStore read(Path path, long maxTiles, int[] boss) throws IOException {
+        FileChannel ch = FileChannel.open(path, java.nio.file.StandardOpenOption.READ);
+        try {
+            int[] h = readHeader(ch, path);
+            long n = (long) h[0] * h[1];
+            if (n > maxTiles || n > Integer.MAX_VALUE) {
+                return null;
+            }
+            long packed = (n + 3) >>> 2;
+            if (ch.size() < HEADER_SIZE + packed + h[2] * ((n + 7) >>> 3)) {
+                throw new IOException("Map file truncated: " + path);
+            }
+            byte[] tiles = new byte[(int) n];
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+            long pos = HEADER_SIZE;
+            int i = 0;
+            while (pos < HEADER_SIZE + packed) {
+                buf.clear();
+                buf.limit((int) Math.min(buf.capacity(), HEADER_SIZE + packed - pos));
+                while (buf.hasRemaining()) {
+                    if (ch.read(buf, pos + buf.position()) < 0) {
+                        throw new IOException("Map file truncated: " + path);
+                    }
+                }
+                buf.flip();
+                pos += buf.remaining();
+                while (buf.hasRemaining()) {
+                    int b = buf.get();
+                    for (int shift = 0; shift < 8 && i < tiles.length; shift += 2) {
+                        tiles[i++] = (byte) ((b >>> shift) & 3);
+                    }
+                }
+            }
+            boss[0] = h[3];
+            boss[1] = h[4];
+            return new ArrayTileStore(h[0], h[1], tiles);
+        } finally {
+            ch.close();
+        }
+    }
+
+    // Parse and check the header: {rows, cols, overlays, bossRow, bossCol}
+    private static int[] readHeader(FileChannel ch, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (ch.read(header, header.position()) < 0) {
+                throw new IOException("Map file too short: " + path);
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a map file: " + path);
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported map file version " + version + ": " + path);
+        }
+        int rows = header.getInt();
+        int cols = header.getInt();
+        int overlays = header.getInt();
+        int bossRow = header.getInt();
+        int bossCol = header.getInt();
+        if (rows <= 0 || cols <= 0 || overlays < 0) {
+            throw new IOException("Corrupt map header: " + path);
+        }
+        return new int[] { rows, cols, overlays, bossRow, bossCol };
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getOverlayCount() {
+        return overlays;
+    }
+
+    // Boss position recorded in the header when the file was written
+    int getBossRow() {
+        return bossRow;
+    }
+
+    int getBossCol() {
+        return bossCol;
+    }
+
+    public byte get(int r, int c) {
+        long idx = (long) r * cols + c;
+        long off = HEADER_SIZE + (idx >>> 2);
+        int shift = (int) (idx & 3) << 1;
+        return (byte) ((segment(off).get(offsetInSegment(off)) >>> shift) & 3);
+    }
+
+    public void set(int r, int c, byte tile) {
+        long idx = (long) r * cols + c;
+        long off = HEADER_SIZE + (idx >>> 2);
+        int shift = (int) (idx & 3) << 1;
+        MappedByteBuffer seg = segment(off);
+        int pos = offsetInSegment(off);
+        seg.put(pos, (byte) ((seg.get(pos) & ~(3 << shift)) | ((tile & 3) << shift)));
+    }
+
+    public boolean getOverlay(int layer, int r, int c) {
+        long idx = (long) r * cols + c;
+        long off = overlayOffset(layer) + (idx >>> 3);
+        return (segment(off).get(offsetInSegment(off)) & (1 << (idx & 7))) != 0;
+    }
+
+    public void setOverlay(int layer, int r, int c, boolean value) {
+        long idx = (long) r * cols + c;
+        long off = overlayOffset(layer) + (idx >>> 3);
+        MappedByteBuffer seg = segment(off);
+        int pos = offsetInSegment(off);
+        int bit = 1 << (idx & 7);
+        seg.put(pos, (byte) (value ? seg.get(pos) | bit : seg.get(pos) & ~bit));
+    }
+
+    /**
+     * Write changed pages back to the file. No-op for read-only and private mappings.
+     */
+    public void flush() {
+        if (mode != FileChannel.MapMode.READ_WRITE) return;
+        for (MappedByteBuffer seg : segments) {
+            seg.force();
+        }
+    }
+
+    /**
+     * Flush and release the file. The store must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        file.close();
+    }
+
+    /**
+     * Copy a map into a new file, replacing any existing one only once the copy is
+     * complete and on disk. The boss position goes into the header.
+     */
+    public static void write(WorldMap map, Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        int[] boss = map.findBossPosition();
+        MappedTileStore out = create(tmp, map.getRows(), map.getCols(), 0, boss[0], boss[1]);
+        try {
+            for (int r = 0; r < map.getRows(); r++) {
+                for (int c = 0; c < map.getCols(); c++) {
+                    out.set(r, c, (byte) map.getTileType(r, c).ordinal());
+                }
+            }
+        } finally {
+            out.close();
+        }
+        // close() has forced the pages to disk, so the rename never exposes a partial map
+        try {
+            java.nio.file.Files.move(tmp, path, java.nio.file.StandardCopyOption.ATOMIC_MOVE,
+                    java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } catch (java.nio.file.AtomicMoveNotSupportedException e) {
+            java.nio.file.Files.move(tmp, path, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private long overlayOffset(int layer) {
+        if (layer < 0 || layer >= overlays) {
+            throw new IndexOutOfBoundsException("Overlay " + layer + " of " + overlays);
+        }
+        return HEADER_SIZE + tileBytes + layer * overlayBytes;
+    }
+
+    private static int offsetInSegment(long off) {
+        return (int) (off & SEGMENT_MASK);
+    }
+
+    private MappedByteBuffer segment(long off) {
+        return segments[(int) (off >>> SEGMENT_SHIFT)];
+    }
+
+    private void mapSegments() throws IOException {
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(mode, start, Math.min(1L << SEGMENT_SHIFT, fileSize - start));
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package legends.world;
+
+/**
+ * Shortest routes over a {@link WorldMap} with 4-neighbour moves, for auto-travel
+ * and bots. Routes are returned as move arrays ({@link #UP}, {@link #DOWN},
+ * {@link #LEFT}, {@link #RIGHT}), or null when the target cannot be reached.
+ *
+ * Two searches are available: plain A* and jump point search, which skips along
+ * straight corridors and only queues the tiles where a turn may be needed. Both use
+ * the Manhattan heuristic and return a shortest route. Routes never pass through
+ * INACCESSIBLE tiles, nor through the boss unless it is the destination.
+ *
+ * One instance reuses its node arrays and open set across queries, so repeated
+ * searches allocate only the returned route. Instances are not thread-safe; give
+ * each bot or worker thread its own. Maps larger than {@link #MAX_SEARCH_TILES} are
+ * searched within a margin around the start and target.
+ */
+public final class PathFinder {
+    public enum Algorithm { A_STAR, JUMP_POINT }
+
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    public static final int MAX_SEARCH_TILES = 1 << 22;
+    private static final int WINDOW_MARGIN = 256;
+
+    private static final byte WALL = (byte) TileType.INACCESSIBLE.ordinal();
+    private static final byte BOSS = (byte) TileType.BOSS.ordinal();
+    private static final int CLOSED = -1;
+
+    // Search window: node = (r - r0) * wCols + (c - c0)
+    private WorldMap map;
+    private int r0;
+    private int c0;
+    private int wRows;
+    private int wCols;
+    private int start;
+    private int goal;
+    private int goalRow;
+    private int goalCol;
+    private boolean bossOpen; // the boss tile may be entered anywhere on the route
+
+    // Per-node state, valid only where stamp[node] == query
+    private int query;
+    private int[] stamp = new int[0];
+    private int[] g = new int[0];
+    private int[] parent = new int[0];
+    private int[] heapPos = new int[0]; // position in the heap, or CLOSED once expanded
+
+    // Binary min-heap of nodes on (f, -g); doubles as the FIFO queue for nearest searches
+    private int[] heap = new int[0];
+    private int[] f = new int[0];
+    private int heapSize;
+
+    private int expanded;
+
+    public int[] findPath(WorldMap map, int fromRow, int fromCol, int toRow, int toCol) {
+        return findPath(map, fromRow, fromCol, toRow, toCol, Algorithm.JUMP_POINT);
+    }
+
+    public int[] findPath(WorldMap map, int fromRow, int fromCol, int toRow, int toCol, Algorithm algorithm) {
+        if (!map.inBounds(fromRow, fromCol) || !map.inBounds(toRow, toCol)) {
+            return null;
+        }
+        int minR = Math.min(fromRow, toRow);
+        int minC = Math.min(fromCol, toCol);
+        int maxR = Math.max(fromRow, toRow);
+        int maxC = Math.max(fromCol, toCol);
+        if (!begin(map, minR, minC, maxR, maxC)) {
+            return null;
+        }
+        start = node(fromRow, fromCol);
+        goal = node(toRow, toCol);
+        goalRow = toRow;
+        goalCol = toCol;
+        bossOpen = false;
+        if (map.tileAt(toRow, toCol) == WALL) {
+            return null;
+        }
+        push(start, 0, -1);
+        while (heapSize > 0) {
+            int cur = pop();
+            if (cur == goal) {
+                return route();
+            }
+            heapPos[cur] = CLOSED;
+            expanded++;
+            if (algorithm == Algorithm.A_STAR) {
+                expandNeighbours(cur);
+            } else {
+                expandJumps(cur);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Route to the closest tile of the given type by walking distance, e.g. the
+     * nearest market. Ties go to the tile found first (up, down, left, right order).
+     */
+    public int[] findPathToNearest(WorldMap map, int fromRow, int fromCol, TileType type) {
+        if (!map.inBounds(fromRow, fromCol) || !map.hasTileType(type)) {
+            // nothing to find: skip flooding the whole map
+            return null;
+        }
+        if (!begin(map, fromRow, fromCol, fromRow, fromCol)) {
+            return null;
+        }
+        byte wanted = (byte) type.ordinal();
+        start = node(fromRow, fromCol);
+        goal = -1;
+        bossOpen = type == TileType.BOSS;
+        // breadth-first: every move costs the same, so the first match is the nearest
+        int head = 0;
+        int tail = 0;
+        touch(start, 0, -1);
+        heap[tail++] = start;
+        while (head < tail) {
+            int cur = heap[head++];
+            int r = r0 + cur / wCols;
+            int c = c0 + cur % wCols;
+            if (map.tileAt(r, c) == wanted) {
+                goal = cur;
+                return route();
+            }
+            expanded++;
+            for (int d = 0; d < 4; d++) {
+                int nb = step(cur, d);
+                if (nb < 0 || stamp[nb] == query || !passable(nb)) continue;
+                touch(nb, g[cur] + 1, cur);
+                heap[tail++] = nb;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Nodes expanded by the last query.
+     */
+    public int getExpandedNodes() {
+        return expanded;
+    }
+
+    public static int rowDelta(int move) {
+        return move == UP ? -1 : move == DOWN ? 1 : 0;
+    }
+
+    public static int colDelta(int move) {
+        return move == LEFT ? -1 : move == RIGHT ? 1 : 0;
+    }
+
+    // --- search setup -------------------------------------------------------------
+
+    private boolean begin(WorldMap map, int minR, int minC, int maxR, int maxC) {
+        this.map = map;
+        int rows = map.getRows();
+        int cols = map.getCols();
+        if ((long) rows * cols <= MAX_SEARCH_TILES) {
+            r0 = 0;
+            c0 = 0;
+            wRows = rows;
+            wCols = cols;
+        } else {
+            r0 = Math.max(0, minR - WINDOW_MARGIN);
+            c0 = Math.max(0, minC - WINDOW_MARGIN);
+            wRows = (int) Math.min((long) rows, (long) maxR + WINDOW_MARGIN + 1) - r0;
+            wCols = (int) Math.min((long) cols, (long) maxC + WINDOW_MARGIN + 1) - c0;
+            if ((long) wRows * wCols > MAX_SEARCH_TILES) {
+                return false;
+            }
+        }
+        int n = wRows * wCols;
+        if (stamp.length < n) {
+            stamp = new int[n];
+            g = new int[n];
+            parent = new int[n];
+            heapPos = new int[n];
+            heap = new int[n];
+            f = new int[n];
+            query = 0;
+        }
+        if (++query == Integer.MAX_VALUE) {
+            java.util.Arrays.fill(stamp, 0);
+            query = 1;
+        }
+        heapSize = 0;
+        expanded = 0;
+        return true;
+    }
+
+    private int node(int r, int c) {
+        return (r - r0) * wCols + (c - c0);
+    }
+
+    private void touch(int n, int cost, int from) {
+        stamp[n] = query;
+        g[n] = cost;
+        parent[n] = from;
+    }
+
+    // Neighbour of n in direction d inside the window, or -1
+    private int step(int n, int d) {
+        int r = n / wCols;
+        int c = n - r * wCols;
+        switch (d) {
+            case UP: return r > 0 ? n - wCols : -1;
+            case DOWN: return r < wRows - 1 ? n + wCols : -1;
+            case LEFT: return c > 0 ? n - 1 : -1;
+            default: return c < wCols - 1 ? n + 1 : -1;
+        }
+    }
+
+    private boolean passable(int n) {
+        byte t = map.tileAt(r0 + n / wCols, c0 + n % wCols);
+        return t != WALL && (t != BOSS || bossOpen || n == goal);
+    }
+
+    // Window-relative cell check used by the jumps; off-window counts as blocked
+    private boolean walkable(int r, int c) {
+        return r >= 0 && r < wRows && c >= 0 && c < wCols && passable(r * wCols + c);
+    }
+
+    // --- A* -----------------------------------------------------------------------
+
+    private void expandNeighbours(int cur) {
+        for (int d = 0; d < 4; d++) {
+            int nb = step(cur, d);
+            if (nb >= 0 && passable(nb)) {
+                relax(nb, g[cur] + 1, cur);
+            }
+        }
+    }
+
+    private void relax(int n, int cost, int from) {
+        if (stamp[n] == query) {
+            if (heapPos[n] == CLOSED || cost >= g[n]) return;
+            g[n] = cost;
+            parent[n] = from;
+            f[n] = cost + heuristic(n);
+            siftUp(heapPos[n]);
+        } else {
+            push(n, cost, from);
+        }
+    }
+
+    private void push(int n, int cost, int from) {
+        touch(n, cost, from);
+        f[n] = cost + heuristic(n);
+        heap[heapSize] = n;
+        heapPos[n] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int heuristic(int n) {
+        int r = n / wCols;
+        int c = n - r * wCols;
+        return Math.abs(r0 + r - goalRow) + Math.abs(c0 + c - goalCol);
+    }
+
+    // --- jump point search (4-neighbour) ------------------------------------------
+    //
+    // Canonical routes move vertically first and turn horizontal where needed. A
+    // horizontal jump stops at the goal or where a vertical neighbour opens up that
+    // could not be reached by turning one tile earlier; a vertical jump also stops
+    // wherever a horizontal jump from it would find such a point.
+
+    private void expandJumps(int cur) {
+        int r = cur / wCols;
+        int c = cur - r * wCols;
+        int p = parent[cur];
+        if (p < 0) {
+            for (int d = 0; d < 4; d++) {
+                jumpFrom(cur, r, c, d);
+            }
+            return;
+        }
+        int pr = p / wCols;
+        if (pr == r) {
+            // arrived horizontally: keep going, or turn up/down
+            jumpFrom(cur, r, c, c > p - pr * wCols ? RIGHT : LEFT);
+            jumpFrom(cur, r, c, UP);
+            jumpFrom(cur, r, c, DOWN);
+        } else {
+            jumpFrom(cur, r, c, r > pr ? DOWN : UP);
+            jumpFrom(cur, r, c, LEFT);
+            jumpFrom(cur, r, c, RIGHT);
+        }
+    }
+
+    private void jumpFrom(int cur, int r, int c, int d) {
+        int jp = d == LEFT || d == RIGHT ? jumpHorizontal(r, c, d == RIGHT ? 1 : -1) : jumpVertical(r, c, d == DOWN ? 1 : -1);
+        if (jp >= 0) {
+            int jr = jp / wCols;
+            relax(jp, g[cur] + Math.abs(jr - r) + Math.abs(jp - jr * wCols - c), cur);
+        }
+    }
+
+    private int jumpHorizontal(int r, int c, int dc) {
+        while (true) {
+            c += dc;
+            if (!walkable(r, c)) return -1;
+            int n = r * wCols + c;
+            if (n == goal) return n;
+            if ((walkable(r - 1, c) && !walkable(r - 1, c - dc)) || (walkable(r + 1, c) && !walkable(r + 1, c - dc))) {
+                return n;
+            }
+        }
+    }
+
+    private int jumpVertical(int r, int c, int dr) {
+        while (true) {
+            r += dr;
+            if (!walkable(r, c)) return -1;
+            int n = r * wCols + c;
+            if (n == goal) return n;
+            if ((walkable(r, c - 1) && !walkable(r - dr, c - 1)) || (walkable(r, c + 1) && !walkable(r - dr, c + 1))) {
+                return n;
+            }
+            if (jumpHorizontal(r, c, 1) >= 0 || jumpHorizontal(r, c, -1) >= 0) {
+                return n;
+            }
+        }
+    }
+
+    // --- result -------------------------------------------------------------------
+
+    // Expand the parent chain (single steps or straight jumps) into moves
+    private int[] route() {
+        int[] moves = new int[g[goal]];
+        int i = moves.length;
+        for (int n = goal; parent[n] >= 0; n = parent[n]) {
+            int p = parent[n];
+            int move;
+            int len;
+            if (p / wCols == n / wCols) {
+                move = n > p ? RIGHT : LEFT;
+                len = Math.abs(n - p);
+            } else {
+                move = n > p ? DOWN : UP;
+                len = Math.abs(n - p) / wCols;
+            }
+            while (len-- > 0) {
+                moves[--i] = move;
+            }
+        }
+        return moves;
+    }
+
+    // --- heap ---------------------------------------------------------------------
+
+    private boolean less(int a, int b) {
+        return f[a] < f[b] || (f[a] == f[b] && g[a] > g[b]);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapPos[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int n = heap[i];
+        while (i > 0) {
+            int parentIdx = (i - 1) >>> 1;
+            int pn = heap[parentIdx];
+            if (!less(n, pn)) break;
+            heap[i] = pn;
+            heapPos[pn] = i;
+            i = parentIdx;
+        }
+        heap[i] = n;
+        heapPos[n] = i;
+    }
+
+    private void siftDown(int i) {
+        int n = heap[i];
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= heapSize) break;
+            int child = left;
+            if (left + 1 < heapSize && less(heap[left + 1], heap[left])) child = left + 1;
+            if (!less(heap[child], n)) break;
+            heap[i] = heap[child];
+            heapPos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = n;
+        heapPos[n] = i;
+    }
+}
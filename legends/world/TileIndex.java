@@ -0,0 +1,225 @@
+package legends.world;
+
+/**
+ * Where the tiles of each {@link TileType} are, for maps held in full.
+ *
+ * The map is split into 8x8 buckets, and a pyramid of coarser levels sits on top
+ * (each cell covering 2x2 cells of the level below) up to a single root. Every cell
+ * counts the tiles of each type inside it. A query walks the pyramid best-first:
+ * cells are visited in order of the closest any of their tiles could be, cells
+ * holding none of the wanted types are never opened, and only the 8x8 buckets that
+ * can still beat the best answer so far are scanned tile by tile. Finding the
+ * nearest market or wall-free tile therefore touches O(log n) cells plus the
+ * buckets around the answer, instead of the whole grid.
+ *
+ * Queries take a bit mask of types (1 << ordinal). Changing a tile updates one
+ * count per level.
+ */
+final class TileIndex {
+    private static final int BUCKET_SHIFT = 3;
+    private static final int TYPE_COUNT = TileType.values().length;
+
+    private final TileStore store;
+    private final int rows;
+    private final int cols;
+    // counts[level][cell * TYPE_COUNT + type]; level 0 = 8x8 buckets
+    private final int[][] counts;
+    private final int[] levelCols;
+    private final int[] levelRows;
+
+    // Search heap, reused across queries: key and packed (level + 1, cell) or
+    // (0, tile index) for a single tile
+    private long[] heapKey = new long[64];
+    private long[] heapItem = new long[64];
+    private int heapSize;
+
+    TileIndex(TileStore store) {
+        this.store = store;
+        this.rows = store.getRows();
+        this.cols = store.getCols();
+        int levels = 1;
+        while (((rows - 1) >> (BUCKET_SHIFT + levels - 1)) > 0 || ((cols - 1) >> (BUCKET_SHIFT + levels - 1)) > 0) {
+            levels++;
+        }
+        counts = new int[levels][];
+        levelRows = new int[levels];
+        levelCols = new int[levels];
+        for (int l = 0; l < levels; l++) {
+            int shift = BUCKET_SHIFT + l;
+            levelRows[l] = ((rows - 1) >> shift) + 1;
+            levelCols[l] = ((cols - 1) >> shift) + 1;
+            counts[l] = new int[levelRows[l] * levelCols[l] * TYPE_COUNT];
+        }
+        int[] base = counts[0];
+        for (int r = 0; r < rows; r++) {
+            int rowCells = (r >> BUCKET_SHIFT) * levelCols[0];
+            for (int c = 0; c < cols; c++) {
+                base[(rowCells + (c >> BUCKET_SHIFT)) * TYPE_COUNT + store.get(r, c)]++;
+            }
+        }
+        for (int l = 1; l < levels; l++) {
+            int[] below = counts[l - 1];
+            int[] here = counts[l];
+            for (int y = 0; y < levelRows[l - 1]; y++) {
+                for (int x = 0; x < levelCols[l - 1]; x++) {
+                    int from = (y * levelCols[l - 1] + x) * TYPE_COUNT;
+                    int to = ((y >> 1) * levelCols[l] + (x >> 1)) * TYPE_COUNT;
+                    for (int t = 0; t < TYPE_COUNT; t++) {
+                        here[to + t] += below[from + t];
+                    }
+                }
+            }
+        }
+    }
+
+    static int mask(TileType type) {
+        return 1 << type.ordinal();
+    }
+
+    /**
+     * Record that the tile at (r, c) changed from one type ordinal to another.
+     */
+    void update(int r, int c, byte from, byte to) {
+        if (from == to) return;
+        for (int l = 0; l < counts.length; l++) {
+            int shift = BUCKET_SHIFT + l;
+            int cell = ((r >> shift) * levelCols[l] + (c >> shift)) * TYPE_COUNT;
+            counts[l][cell + from]--;
+            counts[l][cell + to]++;
+        }
+    }
+
+    /**
+     * Number of tiles whose type is in the mask.
+     */
+    long count(int typeMask) {
+        return cellCount(counts.length - 1, 0, typeMask);
+    }
+
+    /**
+     * Closest tile (Manhattan distance) to the target whose type is in the mask,
+     * ties going to the first in row-major order; null if there is none. The target
+     * may lie off the map.
+     */
+    int[] nearest(int targetRow, int targetCol, int typeMask) {
+        return search(targetRow, targetCol, typeMask, true);
+    }
+
+    /**
+     * First tile in row-major order whose type is in the mask, or null.
+     */
+    int[] first(int typeMask) {
+        return search(0, 0, typeMask, false);
+    }
+
+    // Best-first over the pyramid. Keys are (distance, row-major index) packed into a
+    // long, or the row-major index alone; a cell's key is a lower bound for its tiles.
+    private int[] search(int targetRow, int targetCol, int typeMask, boolean byDistance) {
+        long tiles = (long) rows * cols;
+        heapSize = 0;
+        int top = counts.length - 1;
+        if (cellCount(top, 0, typeMask) > 0) {
+            push(cellKey(top, 0, 0, targetRow, targetCol, byDistance, tiles), ((long) (top + 1) << 32));
+        }
+        while (heapSize > 0) {
+            long item = pop();
+            int level = (int) (item >>> 32) - 1;
+            int cell = (int) item;
+            if (level < 0) {
+                return new int[] { cell / cols, cell % cols };
+            }
+            int y = cell / levelCols[level];
+            int x = cell - y * levelCols[level];
+            if (level == 0) {
+                // scan the bucket and queue its matching tiles with exact keys
+                int r0 = y << BUCKET_SHIFT;
+                int c0 = x << BUCKET_SHIFT;
+                int r1 = Math.min(rows, r0 + (1 << BUCKET_SHIFT));
+                int c1 = Math.min(cols, c0 + (1 << BUCKET_SHIFT));
+                for (int r = r0; r < r1; r++) {
+                    for (int c = c0; c < c1; c++) {
+                        if ((typeMask & (1 << store.get(r, c))) == 0) continue;
+                        long idx = (long) r * cols + c;
+                        long key = byDistance
+                                ? (Math.abs((long) r - targetRow) + Math.abs((long) c - targetCol)) * tiles + idx
+                                : idx;
+                        push(key, idx);
+                    }
+                }
+                continue;
+            }
+            int below = level - 1;
+            for (int cy = y << 1; cy <= (y << 1) + 1 && cy < levelRows[below]; cy++) {
+                for (int cx = x << 1; cx <= (x << 1) + 1 && cx < levelCols[below]; cx++) {
+                    int child = cy * levelCols[below] + cx;
+                    if (cellCount(below, child, typeMask) == 0) continue;
+                    push(cellKey(below, cy, cx, targetRow, targetCol, byDistance, tiles),
+                            ((long) (below + 1) << 32) | child);
+                }
+            }
+        }
+        return null;
+    }
+
+    private long cellCount(int level, int cell, int typeMask) {
+        long n = 0;
+        int base = cell * TYPE_COUNT;
+        for (int t = 0; t < TYPE_COUNT; t++) {
+            if ((typeMask & (1 << t)) != 0) {
+                n += counts[level][base + t];
+            }
+        }
+        return n;
+    }
+
+    private long cellKey(int level, int y, int x, int targetRow, int targetCol, boolean byDistance, long tiles) {
+        int shift = BUCKET_SHIFT + level;
+        long r0 = (long) y << shift;
+        long c0 = (long) x << shift;
+        long firstIdx = r0 * cols + c0;
+        if (!byDistance) {
+            return firstIdx;
+        }
+        long r1 = Math.min(rows, r0 + (1L << shift)) - 1;
+        long c1 = Math.min(cols, c0 + (1L << shift)) - 1;
+        long dr = Math.max(0, Math.max(r0 - targetRow, targetRow - r1));
+        long dc = Math.max(0, Math.max(c0 - targetCol, targetCol - c1));
+        return (dr + dc) * tiles + firstIdx;
+    }
+
+    private void push(long key, long item) {
+        if (heapSize == heapKey.length) {
+            heapKey = java.util.Arrays.copyOf(heapKey, heapSize * 2);
+            heapItem = java.util.Arrays.copyOf(heapItem, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (heapKey[parent] <= key) break;
+            heapKey[i] = heapKey[parent];
+            heapItem[i] = heapItem[parent];
+            i = parent;
+        }
+        heapKey[i] = key;
+        heapItem[i] = item;
+    }
+
+    private long pop() {
+        long top = heapItem[0];
+        long key = heapKey[--heapSize];
+        long item = heapItem[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) child++;
+            if (heapKey[child] >= key) break;
+            heapKey[i] = heapKey[child];
+            heapItem[i] = heapItem[child];
+            i = child;
+        }
+        heapKey[i] = key;
+        heapItem[i] = item;
+        return top;
+    }
+}
@@ -0,0 +1,15 @@
+package legends.world;
+
+/**
+ * Backing storage for a {@link WorldMap}: one {@link TileType} ordinal per tile.
+ * Callers only pass in-bounds coordinates.
+ */
+public interface TileStore {
+    int getRows();
+
+    int getCols();
+
+    byte get(int r, int c);
+
+    void set(int r, int c, byte tile);
+}
@@ -7,14 +7,58 @@ import legends.party.Party;
  * Represents the game world map with various tile types.
  * Features:
  * - Procedural map generation with boss placement
- * - Color-coded danger gradient based on distance to boss
+ * - Color-coded danger gradient based on walking distance to boss
  * - Distinct tile types: COMMON, MARKET, INACCESSIBLE, BOSS
  * - ANSI color terminal display with legend
+ *
+ * Tiles live in a {@link TileStore}: a byte array for generated floors, or a
+ * {@link ChunkedWorld} that builds the map lazily around wherever it is read.
+ * Lookups by tile type (nearest market, spawn tile, boss) go through a
+ * {@link TileIndex} that setTileTypeAt/moveBossTo keep current.
  */
 public class WorldMap {
+    private static final TileType[] TYPES = TileType.values();
+    private static final byte WALL = (byte) TileType.INACCESSIBLE.ordinal();
+    private static final byte MARKET = (byte) TileType.MARKET.ordinal();
+    private static final byte COMMON = (byte) TileType.COMMON.ordinal();
+    private static final byte BOSS = (byte) TileType.BOSS.ordinal();
+
+    // Maps above this many tiles keep boss distances only near the boss
+    private static final long FULL_DISTANCE_TILES = 1L << 22;
+    private static final int DISTANCE_RADIUS = 512;
+    // Largest stored map that gets a TileIndex (about 1.3 bytes of index per tile)
+    private static final long INDEX_MAX_TILES = 1L << 26;
+    // Largest map file load reads onto the heap (a byte per tile) instead of mapping
+    private static final long LOAD_HEAP_MAX_TILES = 1L << 26;
+    private static final int ACCESSIBLE = ~TileIndex.mask(TileType.INACCESSIBLE);
+    private static final int SPAWNABLE = ACCESSIBLE & ~TileIndex.mask(TileType.BOSS);
+
     private final int rows;
     private final int cols;
-    private final TileType[][] grid;
+    private final TileStore store;
+    // File a loaded map's tiles are mapped from; null when they are on the heap
+    private java.nio.file.Path mappedFrom;
+
+    // Boss position, found by one scan and then kept up to date by setTileTypeAt/moveBossTo
+    private boolean bossCached;
+    private int bossRow = -1;
+    private int bossCol = -1;
+
+    // BFS steps from the boss over a window of the map, -1 = unreachable; rebuilt
+    // lazily after any tile change
+    private int[] bossDistance;
+    private int distRow0;
+    private int distCol0;
+    private int distRows;
+    private int distCols;
+
+    // Tile positions by type, built on the first lookup; null until then, and for
+    // chunked or very large maps, which fall back to local scans
+    private TileIndex index;
+    private boolean indexChecked;
+
+    // Bumped on every tile change, so savers can tell whether the map needs rewriting
+    private long version;
 
     private static final String RESET = "\u001B[0m";
     private static final String BG_RED = "\u001B[41m";
@@ -27,9 +71,124 @@ public class WorldMap {
     private static final String FG_WHITE = "\u001B[37m";
 
     public WorldMap(int rows, int cols, TileType[][] grid) {
-        this.rows = rows;
-        this.cols = cols;
-        this.grid = grid;
+        this(rows, cols, toOrdinals(rows, cols, grid));
+    }
+
+    /**
+     * Wrap a row-major array of {@link TileType} ordinals without copying it.
+     */
+    public WorldMap(int rows, int cols, byte[] tiles) {
+        this(new ArrayTileStore(rows, cols, checkLength(rows, cols, tiles)));
+    }
+
+    public WorldMap(TileStore store) {
+        this.rows = store.getRows();
+        this.cols = store.getCols();
+        this.store = store;
+    }
+
+    /**
+     * A map whose tiles are generated chunk by chunk as they are first looked at.
+     * Sizes up to {@link ChunkedWorld#MAX_SIZE} per side are supported. The map
+     * starts without a boss; place one with {@link #moveBossTo}.
+     */
+    public static WorldMap chunked(int rows, int cols, long seed) {
+        WorldMap map = new WorldMap(new ChunkedWorld(rows, cols, seed));
+        map.bossCached = true; // chunks never contain a boss, no need to scan
+        return map;
+    }
+
+    /**
+     * Open a map written by {@link #save}. Changes stay in memory: the file only
+     * changes on the next save. Maps up to 64M tiles are read
+     * onto the heap and the file is closed again. Larger ones are mapped privately,
+     * so tiles are paged in as they are read; such a map cannot be saved over the
+     * file it is mapped from (some systems refuse to replace a mapped file).
+     */
+    public static WorldMap load(java.nio.file.Path file) throws java.io.IOException {
+        int[] boss = new int[2];
+        ArrayTileStore tiles = MappedTileStore.read(file, LOAD_HEAP_MAX_TILES, boss);
+        if (tiles != null) {
+            WorldMap map = new WorldMap(tiles);
+            map.trackBoss(boss[0], boss[1]);
+            return map;
+        }
+        MappedTileStore store = MappedTileStore.open(file, java.nio.channels.FileChannel.MapMode.PRIVATE);
+        WorldMap map = new WorldMap(store);
+        map.trackBoss(store.getBossRow(), store.getBossCol());
+        map.mappedFrom = file;
+        return map;
+    }
+
+    /**
+     * Write every tile to a map file (see {@link MappedTileStore} for the format).
+     * Meant for fully generated maps; a chunked map would write all of its tiles.
+     * A map {@link #load loaded} by mapping its file has to be saved somewhere else.
+     */
+    public void save(java.nio.file.Path file) throws java.io.IOException {
+        if (mappedFrom != null && java.nio.file.Files.exists(file) && java.nio.file.Files.isSameFile(mappedFrom, file)) {
+            throw new java.io.IOException("Map is still mapped from " + file + "; save it to another file");
+        }
+        MappedTileStore.write(this, file);
+    }
+
+    /**
+     * A detached copy of every tile, for writing the map out while the game goes on
+     * changing this one. Not supported for chunked maps.
+     */
+    public WorldMap copy() {
+        if (isChunked()) {
+            throw new IllegalStateException("Chunked maps cannot be copied");
+        }
+        byte[] tiles = new byte[tileCount(rows, cols)];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                tiles[r * cols + c] = store.get(r, c);
+            }
+        }
+        WorldMap copy = new WorldMap(rows, cols, tiles);
+        int[] boss = findBossPosition();
+        copy.trackBoss(boss[0], boss[1]);
+        return copy;
+    }
+
+    /**
+     * Counter that changes whenever a tile does.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * True if tiles are generated on demand ({@link #chunked}) rather than stored.
+     */
+    public boolean isChunked() {
+        return store instanceof ChunkedWorld;
+    }
+
+    private static byte[] toOrdinals(int rows, int cols, TileType[][] grid) {
+        byte[] tiles = new byte[tileCount(rows, cols)];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                tiles[r * cols + c] = (byte) grid[r][c].ordinal();
+            }
+        }
+        return tiles;
+    }
+
+    private static byte[] checkLength(int rows, int cols, byte[] tiles) {
+        if (tiles.length != tileCount(rows, cols)) {
+            throw new IllegalArgumentException("Expected " + rows + "x" + cols + " tiles, got " + tiles.length);
+        }
+        return tiles;
+    }
+
+    private static int tileCount(int rows, int cols) {
+        long n = (long) rows * cols;
+        if (rows <= 0 || cols <= 0 || n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Unsupported map size " + rows + "x" + cols);
+        }
+        return (int) n;
     }
 
     public int getRows() {
@@ -45,23 +204,14 @@ public class WorldMap {
      * Algorithm:
      * 1. Random initial fill (18% inaccessible, 20% market, 62% common)
      * 2. Place boss in bottom-right quadrant
-     * 3. Ensure connectivity by carving paths to isolated tiles
+     * 3. Ensure connectivity by carving corridors to isolated regions
+     *
+     * Runs in time linear in the number of tiles and needs about 6 bytes per tile
+     * while generating, so maps of tens of millions of tiles are practical.
      */
     public static WorldMap generateRandom(int rows, int cols, Random rng) {
-        TileType[][] g = new TileType[rows][cols];
-        // Initial random fill (walls/markets/common)
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                double x = rng.nextDouble();
-                if (x < 0.18) {
-                    g[r][c] = TileType.INACCESSIBLE;
-                } else if (x < 0.38) {
-                    g[r][c] = TileType.MARKET;
-                } else {
-                    g[r][c] = TileType.COMMON;
-                }
-            }
-        }
+        byte[] g = new byte[tileCount(rows, cols)];
+        fillRandom(g, rng);
 
         // Place boss on a diagonal cell (prefer bottom-right quadrant)
         int br = rows - 1;
@@ -73,93 +223,114 @@ public class WorldMap {
             bossR = Math.max(1, rows - 2);
             bossC = Math.max(1, cols - 2);
         }
-        g[bossR][bossC] = TileType.BOSS;
+        g[bossR * cols + bossC] = BOSS;
 
         // Ensure connectivity: carve paths so that all non-INACCESSIBLE tiles are reachable
-        ensureConnectivity(g);
+        ensureConnectivity(g, rows, cols);
 
         return new WorldMap(rows, cols, g);
     }
 
-    // Carve connections between components so no accessible tile is isolated from others
-    private static void ensureConnectivity(TileType[][] g) {
-        int rows = g.length;
-        int cols = g[0].length;
-
-        // find any initial accessible tile to start flood fill
-        int sr = -1, sc = -1;
-        for (int r = 0; r < rows && sr == -1; r++) {
-            for (int c = 0; c < cols; c++) {
-                if (g[r][c] != TileType.INACCESSIBLE) {
-                    sr = r; sc = c; break;
-                }
+    // Initial random fill (walls/markets/common)
+    static void fillRandom(byte[] g, Random rng) {
+        for (int i = 0; i < g.length; i++) {
+            double x = rng.nextDouble();
+            if (x < 0.18) {
+                g[i] = WALL;
+            } else if (x < 0.38) {
+                g[i] = MARKET;
+            } else {
+                g[i] = COMMON;
             }
         }
-        if (sr == -1) {
+    }
+
+    // Per-tile flags used by ensureConnectivity
+    private static final int CONNECTED = 1;    // accessible and joined to the main region
+    private static final int QUEUED = 2;       // already in the queue
+    private static final int PARENT_SHIFT = 2; // 2 bits: direction back toward the main region
+
+    /**
+     * Join every accessible region to the first one with a single multi-source BFS.
+     *
+     * The main region is flooded first; the BFS then grows outward through walls,
+     * each wall remembering the neighbour it was reached from. When the frontier
+     * touches an accessible tile that is not connected yet, the walls along that
+     * parent chain are carved into a corridor back to the main region, and the newly
+     * joined region is flooded onto the same queue. Every tile is queued once.
+     */
+    static void ensureConnectivity(byte[] g, int rows, int cols) {
+        int n = g.length;
+        int start = 0;
+        while (start < n && g[start] == WALL) {
+            start++;
+        }
+        if (start == n) {
             // make (0,0) accessible
-            g[0][0] = TileType.COMMON;
-            sr = 0; sc = 0;
-        }
-
-        boolean[][] seen = new boolean[rows][cols];
-        java.util.Queue<int[]> q = new java.util.ArrayDeque<>();
-        q.add(new int[] { sr, sc });
-        seen[sr][sc] = true;
-        int[][] dirs = new int[][] { {1,0},{-1,0},{0,1},{0,-1} };
-        while (!q.isEmpty()) {
-            int[] cur = q.remove();
-            int r = cur[0], c = cur[1];
-            for (int[] d : dirs) {
-                int nr = r + d[0], nc = c + d[1];
-                if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
-                if (seen[nr][nc]) continue;
-                if (g[nr][nc] == TileType.INACCESSIBLE) continue;
-                seen[nr][nc] = true;
-                q.add(new int[] { nr, nc });
-            }
+            g[0] = COMMON;
+            start = 0;
         }
 
-        // any tile that is non-INACCESSIBLE but not seen => connect it by carving
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                if (g[r][c] != TileType.INACCESSIBLE && !seen[r][c]) {
-                    // carve a simple path from nearest seen cell to (r,c)
-                    // find nearest seen cell via simple search
-                    int[] nearest = findNearestSeen(seen, r, c);
-                    if (nearest != null) {
-                        int rr = nearest[0], cc = nearest[1];
-                        // carve horizontal then vertical
-                        int stepR = rr < r ? 1 : -1;
-                        for (int x = rr; x != r + stepR; x += stepR) {
-                            if (g[x][cc] == TileType.INACCESSIBLE) g[x][cc] = TileType.COMMON;
-                            seen[x][cc] = true;
-                        }
-                        int stepC = cc < c ? 1 : -1;
-                        for (int y = cc; y != c + stepC; y += stepC) {
-                            if (g[r][y] == TileType.INACCESSIBLE) g[r][y] = TileType.COMMON;
-                            seen[r][y] = true;
-                        }
-                    } else {
-                        // as a fallback, just make this tile common
-                        g[r][c] = TileType.COMMON;
-                        seen[r][c] = true;
-                    }
+        byte[] state = new byte[n];
+        int[] queue = new int[n];
+        int tail = flood(g, state, queue, 0, start, rows, cols);
+        int head = 0;
+        while (head < tail) {
+            int cur = queue[head++];
+            int r = cur / cols;
+            int c = cur - r * cols;
+            for (int d = 0; d < 4; d++) {
+                int next = neighbour(cur, r, c, d, rows, cols);
+                if (next < 0 || (state[next] & QUEUED) != 0) continue;
+                if (g[next] == WALL) {
+                    // reached from cur: remember the way back (the opposite direction)
+                    state[next] = (byte) (QUEUED | ((d ^ 1) << PARENT_SHIFT));
+                    queue[tail++] = next;
+                } else {
+                    carve(g, state, cur, cols);
+                    tail = flood(g, state, queue, tail, next, rows, cols);
                 }
             }
         }
     }
 
-    private static int[] findNearestSeen(boolean[][] seen, int r, int c) {
-        int rows = seen.length; int cols = seen[0].length;
-        int bestR = -1, bestC = -1; int bestDist = Integer.MAX_VALUE;
-        for (int i = 0; i < rows; i++) for (int j = 0; j < cols; j++) {
-            if (seen[i][j]) {
-                int d = Math.abs(i - r) + Math.abs(j - c);
-                if (d < bestDist) { bestDist = d; bestR = i; bestC = j; }
+    // Turn the walls on the parent chain from cur into a corridor, up to the main region
+    private static void carve(byte[] g, byte[] state, int cur, int cols) {
+        while ((state[cur] & CONNECTED) == 0) {
+            g[cur] = COMMON;
+            state[cur] |= CONNECTED;
+            int d = (state[cur] >> PARENT_SHIFT) & 3;
+            cur = d == 0 ? cur - cols : d == 1 ? cur + cols : d == 2 ? cur - 1 : cur + 1;
+        }
+    }
+
+    // Append the accessible region containing start to the queue; returns the new tail
+    private static int flood(byte[] g, byte[] state, int[] queue, int tail, int start, int rows, int cols) {
+        state[start] = CONNECTED | QUEUED;
+        int i = tail;
+        queue[tail++] = start;
+        while (i < tail) {
+            int cur = queue[i++];
+            int r = cur / cols;
+            int c = cur - r * cols;
+            for (int d = 0; d < 4; d++) {
+                int next = neighbour(cur, r, c, d, rows, cols);
+                if (next < 0 || (state[next] & QUEUED) != 0 || g[next] == WALL) continue;
+                state[next] = CONNECTED | QUEUED;
+                queue[tail++] = next;
             }
         }
-        if (bestR == -1) return null;
-        return new int[] { bestR, bestC };
+        return tail;
+    }
+
+    // Directions: 0 up, 1 down, 2 left, 3 right (d ^ 1 is the opposite); -1 off the map
+    private static int neighbour(int idx, int r, int c, int d, int rows, int cols) {
+        switch (d) {
+            case 0: return r > 0 ? idx - cols : -1;
+            case 1: return r < rows - 1 ? idx + cols : -1;
+            case 2: return c > 0 ? idx - 1 : -1;
+            default: return c < cols - 1 ? idx + 1 : -1;
+        }
     }
 
     public boolean inBounds(int r, int c) {
@@ -167,13 +338,23 @@ public class WorldMap {
     }
 
     public TileType getTileType(int r, int c) {
-        return grid[r][c];
+        return TYPES[store.get(r, c)];
+    }
+
+    // Raw TileType ordinal, for the path finder's inner loops
+    byte tileAt(int r, int c) {
+        return store.get(r, c);
     }
 
     public int[] findAnyAccessible() {
+        TileIndex idx = index();
+        if (idx != null) {
+            int[] found = idx.first(ACCESSIBLE);
+            return found != null ? found : new int[]{ 0, 0 };
+        }
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
-                if (grid[r][c] != TileType.INACCESSIBLE) {
+                if (store.get(r, c) != WALL) {
                     return new int[]{ r, c };
                 }
             }
@@ -185,9 +366,15 @@ public class WorldMap {
      * Find any accessible (non-inaccessible and non-boss) tile suitable for player spawn.
      */
     public int[] findAnyAccessibleNonBoss() {
+        TileIndex idx = index();
+        if (idx != null) {
+            int[] found = idx.first(SPAWNABLE);
+            return found != null ? found : findAnyAccessible();
+        }
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
-                if (grid[r][c] != TileType.INACCESSIBLE && grid[r][c] != TileType.BOSS) {
+                byte t = store.get(r, c);
+                if (t != WALL && t != BOSS) {
                     return new int[]{ r, c };
                 }
             }
@@ -197,24 +384,31 @@ public class WorldMap {
 
     /**
      * Print the map to console with color-coded tiles and hero position.
-     * Danger gradient (blue->cyan->yellow) based on distance to boss.
+     * Danger gradient (blue->cyan->yellow) based on walking distance to boss.
+     * Maps larger than {@link legends.Config#MAP_VIEW_SIZE} show only the window
+     * around the hero.
      */
     public void print(Party party) {
+        int view = legends.Config.MAP_VIEW_SIZE;
+        int r0 = windowStart(party.getRow(), rows, view);
+        int c0 = windowStart(party.getCol(), cols, view);
+        int r1 = Math.min(rows, r0 + view);
+        int c1 = Math.min(cols, c0 + view);
         legends.LegendsGame.getGlobalIO().println("World Map:");
         // column headers
         StringBuilder header = new StringBuilder();
         header.append("   ");
-        for (int c = 0; c < cols; c++) {
+        for (int c = c0; c < c1; c++) {
             header.append(String.format(" %2d", c));
         }
         legends.LegendsGame.getGlobalIO().println(header.toString());
 
-        for (int r = 0; r < rows; r++) {
+        for (int r = r0; r < r1; r++) {
             StringBuilder sb = new StringBuilder();
             sb.append(String.format("%2d ", r));
-            for (int c = 0; c < cols; c++) {
+            for (int c = c0; c < c1; c++) {
                 boolean isHero = (r == party.getRow() && c == party.getCol());
-                TileType t = grid[r][c];
+                TileType t = TYPES[store.get(r, c)];
                 String cell;
                 if (isHero) {
                     // Distinct hero overlay: dark background + white "H"
@@ -231,10 +425,9 @@ public class WorldMap {
                     cell = BG_MAGENTA + " B" + RESET; // boss tile
                 } else {
                     // For common tiles, show a danger gradient based on distance to boss
-                    int[] boss = findBossPosition();
-                    if (boss[0] >= 0) {
+                    int d = getBossDistance(r, c);
+                    if (d >= 0) {
                         int maxDist = (rows - 1) + (cols - 1);
-                        int d = Math.abs(r - boss[0]) + Math.abs(c - boss[1]);
                         double closeness = 1.0 - ((double) d / (double) Math.max(1, maxDist));
                         // Use distinct backgrounds that do not overlap with Market/Inaccessible:
                         // low = BLUE, mid = CYAN, high = YELLOW
@@ -256,6 +449,14 @@ public class WorldMap {
         printLegend();
     }
 
+    // First row/column of a view-sized window centred on pos, clamped to the map
+    private static int windowStart(int pos, int extent, int view) {
+        if (extent <= view) {
+            return 0;
+        }
+        return Math.max(0, Math.min(pos - view / 2, extent - view));
+    }
+
     /**
      * Print color-coded legend explaining map symbols and danger levels.
      * Danger gradient indicates proximity to the final boss.
@@ -271,47 +472,220 @@ public class WorldMap {
         legends.LegendsGame.getGlobalIO().println("[" + BG_MAGENTA + " B" + RESET + "] Final Boss");
     }
 
+    /**
+     * Change one tile. Placing a BOSS moves the boss there (see {@link #moveBossTo}),
+     * so a map never holds two.
+     */
     public void setTileTypeAt(int r, int c, TileType t) {
-        if (inBounds(r, c)) {
-            grid[r][c] = t;
+        if (!inBounds(r, c)) {
+            return;
+        }
+        if (t == TileType.BOSS) {
+            moveBossTo(r, c);
+            return;
         }
+        set(r, c, (byte) t.ordinal());
+        if (bossCached && r == bossRow && c == bossCol) {
+            // the boss was overwritten: chunks never hold another, a map file might
+            if (isChunked()) {
+                trackBoss(-1, -1);
+            } else {
+                bossCached = false;
+            }
+        }
+        bossDistance = null;
     }
     /**
      * Find the boss tile coordinates, or return {-1,-1} if none found.
+     * A map has at most one boss; after the first lookup its position is tracked
+     * through setTileTypeAt/moveBossTo instead of rescanning.
      */
     public int[] findBossPosition() {
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                if (grid[r][c] == TileType.BOSS) return new int[] { r, c };
+        if (!bossCached) {
+            bossRow = -1;
+            bossCol = -1;
+            TileIndex idx = index();
+            if (idx != null) {
+                int[] found = idx.first(TileIndex.mask(TileType.BOSS));
+                if (found != null) {
+                    bossRow = found[0];
+                    bossCol = found[1];
+                }
+            } else {
+                for (int r = 0; r < rows && bossRow < 0; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        if (store.get(r, c) == BOSS) {
+                            bossRow = r;
+                            bossCol = c;
+                            break;
+                        }
+                    }
+                }
             }
+            bossCached = true;
         }
-        return new int[] { -1, -1 };
+        return new int[] { bossRow, bossCol };
+    }
+
+    // Write a tile, keeping the index in step
+    private void set(int r, int c, byte tile) {
+        if (index != null) {
+            index.update(r, c, store.get(r, c), tile);
+        }
+        store.set(r, c, tile);
+        version++;
+    }
+
+    // The type index, built on first use; null for maps that do not keep one
+    private TileIndex index() {
+        if (!indexChecked) {
+            indexChecked = true;
+            if (!isChunked() && (long) rows * cols <= INDEX_MAX_TILES) {
+                index = new TileIndex(store);
+            }
+        }
+        return index;
+    }
+
+    private void trackBoss(int r, int c) {
+        bossRow = r;
+        bossCol = c;
+        bossCached = true;
+    }
+
+    /**
+     * Walking distance (4-neighbour steps around INACCESSIBLE tiles) from the boss to
+     * the given tile, or -1 if there is no boss or the tile cannot reach it. Backed by a
+     * layer built with one BFS per grid change, so the renderer and encounter logic
+     * read the same values in O(1).
+     *
+     * Maps over 4M tiles only lay out the tiles within 512 rows/columns of the boss;
+     * anything further reports -1, which callers already treat as far away.
+     */
+    public int getBossDistance(int r, int c) {
+        if (bossDistance == null) {
+            computeBossDistances();
+        }
+        int wr = r - distRow0;
+        int wc = c - distCol0;
+        if (wr < 0 || wr >= distRows || wc < 0 || wc >= distCols) {
+            return -1;
+        }
+        return bossDistance[wr * distCols + wc];
+    }
+
+    private void computeBossDistances() {
+        int[] boss = findBossPosition();
+        if (boss[0] < 0) {
+            distRows = 0;
+            distCols = 0;
+            bossDistance = new int[0];
+            return;
+        }
+        if ((long) rows * cols <= FULL_DISTANCE_TILES) {
+            distRow0 = 0;
+            distCol0 = 0;
+            distRows = rows;
+            distCols = cols;
+        } else {
+            distRow0 = Math.max(0, boss[0] - DISTANCE_RADIUS);
+            distCol0 = Math.max(0, boss[1] - DISTANCE_RADIUS);
+            distRows = Math.min(rows, boss[0] + DISTANCE_RADIUS + 1) - distRow0;
+            distCols = Math.min(cols, boss[1] + DISTANCE_RADIUS + 1) - distCol0;
+        }
+        int n = distRows * distCols;
+        int[] dist = new int[n];
+        java.util.Arrays.fill(dist, -1);
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        int start = (boss[0] - distRow0) * distCols + (boss[1] - distCol0);
+        dist[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cur = queue[head++];
+            int r = cur / distCols;
+            int c = cur - r * distCols;
+            int next = dist[cur] + 1;
+            if (r > 0) tail = visit(dist, queue, tail, cur - distCols, r - 1, c, next);
+            if (r < distRows - 1) tail = visit(dist, queue, tail, cur + distCols, r + 1, c, next);
+            if (c > 0) tail = visit(dist, queue, tail, cur - 1, r, c - 1, next);
+            if (c < distCols - 1) tail = visit(dist, queue, tail, cur + 1, r, c + 1, next);
+        }
+        bossDistance = dist;
+    }
+
+    // r and c are window coordinates, idx = r * distCols + c
+    private int visit(int[] dist, int[] queue, int tail, int idx, int r, int c, int d) {
+        if (dist[idx] >= 0 || store.get(distRow0 + r, distCol0 + c) == WALL) {
+            return tail;
+        }
+        dist[idx] = d;
+        queue[tail] = idx;
+        return tail + 1;
     }
 
     /**
      * Find the nearest accessible tile to the given target coordinates (Manhattan distance).
+     * Ties go to the first tile in row-major order.
      */
     public int[] findNearestAccessibleTo(int targetRow, int targetCol) {
-        int bestDist = Integer.MAX_VALUE;
-        int bestRow = -1;
-        int bestCol = -1;
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                if (grid[r][c] == TileType.INACCESSIBLE) {
-                    continue;
+        int[] found = findNearest(targetRow, targetCol, ACCESSIBLE);
+        return found != null ? found : findAnyAccessible();
+    }
+
+    /**
+     * Find the tile of the given type nearest to (row, col) by Manhattan distance,
+     * ties going to the first in row-major order, or {-1,-1} if the map has none.
+     * Distances are straight-line: walls in between are not considered.
+     */
+    public int[] findNearest(int row, int col, TileType type) {
+        if (type == TileType.BOSS) {
+            return findBossPosition();
+        }
+        int[] found = findNearest(row, col, TileIndex.mask(type));
+        return found != null ? found : new int[]{ -1, -1 };
+    }
+
+    /**
+     * Whether the map has at least one tile of the given type. Chunked maps cannot
+     * tell without generating everything, so they answer true for every type but
+     * the boss.
+     */
+    public boolean hasTileType(TileType type) {
+        if (type == TileType.BOSS) {
+            return findBossPosition()[0] >= 0;
+        }
+        TileIndex idx = index();
+        return idx == null || idx.count(TileIndex.mask(type)) > 0;
+    }
+
+    // Indexed lookup, or for chunked and very large maps a search of rings of growing
+    // distance around the target, whose cost depends on how far the answer is
+    private int[] findNearest(int targetRow, int targetCol, int typeMask) {
+        TileIndex idx = index();
+        if (idx != null) {
+            return idx.nearest(targetRow, targetCol, typeMask);
+        }
+        long maxDist = Math.max(Math.abs((long) targetRow), Math.abs((long) targetRow - (rows - 1)))
+                + Math.max(Math.abs((long) targetCol), Math.abs((long) targetCol - (cols - 1)));
+        for (long d = 0; d <= maxDist; d++) {
+            // rows in ascending order, and within a row the left tile first
+            long fromRow = Math.max(targetRow - d, 0);
+            long toRow = Math.min(targetRow + d, rows - 1);
+            for (long r = fromRow; r <= toRow; r++) {
+                long rest = d - Math.abs(r - targetRow);
+                long c = targetCol - rest;
+                if (c >= 0 && c < cols && (typeMask & (1 << store.get((int) r, (int) c))) != 0) {
+                    return new int[]{ (int) r, (int) c };
                 }
-                int dist = Math.abs(r - targetRow) + Math.abs(c - targetCol);
-                if (dist < bestDist) {
-                    bestDist = dist;
-                    bestRow = r;
-                    bestCol = c;
+                c = targetCol + rest;
+                if (rest > 0 && c >= 0 && c < cols && (typeMask & (1 << store.get((int) r, (int) c))) != 0) {
+                    return new int[]{ (int) r, (int) c };
                 }
             }
         }
-        if (bestRow == -1) {
-            return findAnyAccessible();
-        }
-        return new int[]{ bestRow, bestCol };
+        return null;
     }
 
     /**
@@ -320,15 +694,15 @@ public class WorldMap {
     public void moveBossTo(int row, int col) {
         int[] current = findBossPosition();
         if (current[0] >= 0 && current[1] >= 0) {
-            grid[current[0]][current[1]] = TileType.COMMON;
+            set(current[0], current[1], COMMON);
         }
+        bossDistance = null;
         if (!inBounds(row, col)) {
+            trackBoss(-1, -1);
             return;
         }
-        if (grid[row][col] == TileType.INACCESSIBLE) {
-            grid[row][col] = TileType.COMMON;
-        }
-        grid[row][col] = TileType.BOSS;
+        set(row, col, BOSS);
+        trackBoss(row, col);
     }
 
 }